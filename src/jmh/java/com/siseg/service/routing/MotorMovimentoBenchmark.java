@@ -0,0 +1,175 @@
+package com.siseg.service.routing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.util.DistanceCalculator;
+
+/**
+ * Um tick da simulação para {@value #ENTREGAS} entregas simultâneas sobre rotas urbanas sintéticas, em
+ * passos por segundo (cada operação é o passo de uma entrega). O passo é o de uma moto a 30 km/h num
+ * intervalo de 10 s; entregas que chegam ao fim recomeçam a rota.
+ *
+ * <p>{@code legado} repete o laço anterior em {@link BigDecimal} sobre listas de {@link Coordinates}, já sem
+ * o custo de montar a lista de waypoints restantes a cada passo que o serviço tinha.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MotorMovimentoBenchmark {
+
+    private static final int ENTREGAS = 50_000;
+    private static final int ROTAS = 64;
+    private static final int PONTOS_POR_ROTA = 1500;
+    private static final double PASSO_KM = 30.0 / 3600 * 10;
+
+    private double[][] latitudes;
+    private double[][] longitudes;
+    private List<List<Coordinates>> rotasLegado;
+
+    private int[] rotaDaEntrega;
+    private int[] indices;
+    private MotorMovimento.Posicao[] posicoes;
+    private BigDecimal[] latitudesLegado;
+    private BigDecimal[] longitudesLegado;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        latitudes = new double[ROTAS][];
+        longitudes = new double[ROTAS][];
+        rotasLegado = new ArrayList<>(ROTAS);
+        for (int r = 0; r < ROTAS; r++) {
+            gerarRotaUrbana(random, r);
+        }
+
+        rotaDaEntrega = new int[ENTREGAS];
+        indices = new int[ENTREGAS];
+        posicoes = new MotorMovimento.Posicao[ENTREGAS];
+        latitudesLegado = new BigDecimal[ENTREGAS];
+        longitudesLegado = new BigDecimal[ENTREGAS];
+        for (int i = 0; i < ENTREGAS; i++) {
+            int rota = i % ROTAS;
+            int indice = random.nextInt(PONTOS_POR_ROTA - 1) + 1;
+            rotaDaEntrega[i] = rota;
+            indices[i] = indice;
+            posicoes[i] = new MotorMovimento.Posicao(latitudes[rota][indice - 1], longitudes[rota][indice - 1]);
+            latitudesLegado[i] = BigDecimal.valueOf(latitudes[rota][indice - 1]);
+            longitudesLegado[i] = BigDecimal.valueOf(longitudes[rota][indice - 1]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTREGAS)
+    public int motorPrimitivo() {
+        int alcancadosNoTick = 0;
+        for (int i = 0; i < ENTREGAS; i++) {
+            int rota = rotaDaEntrega[i];
+            MotorMovimento.Posicao posicao = posicoes[i];
+            int alcancados = MotorMovimento.mover(latitudes[rota], longitudes[rota], PONTOS_POR_ROTA, indices[i], posicao, PASSO_KM);
+            alcancadosNoTick += alcancados;
+            if (posicao.isChegouAoFim()) {
+                indices[i] = 1;
+                posicao.definir(latitudes[rota][0], longitudes[rota][0]);
+            } else {
+                indices[i] += alcancados;
+            }
+        }
+        return alcancadosNoTick;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTREGAS)
+    public int legado() {
+        int alcancadosNoTick = 0;
+        for (int i = 0; i < ENTREGAS; i++) {
+            List<Coordinates> rota = rotasLegado.get(rotaDaEntrega[i]);
+            int alcancados = moverLegado(i, rota.subList(indices[i], rota.size()));
+            alcancadosNoTick += alcancados;
+            indices[i] += alcancados;
+            if (indices[i] >= rota.size()) {
+                indices[i] = 1;
+                latitudesLegado[i] = rota.get(0).getLatitude();
+                longitudesLegado[i] = rota.get(0).getLongitude();
+            }
+        }
+        return alcancadosNoTick;
+    }
+
+    // Laço anterior de DeliveryMovementService.moverParaProximoWaypoint
+    private int moverLegado(int entrega, List<Coordinates> waypointsRestantes) {
+        BigDecimal posicaoAtualLat = latitudesLegado[entrega];
+        BigDecimal posicaoAtualLon = longitudesLegado[entrega];
+        BigDecimal distanciaRestante = BigDecimal.valueOf(PASSO_KM);
+        int waypointsAvancados = 0;
+
+        for (int i = 0; i < waypointsRestantes.size() && distanciaRestante.compareTo(BigDecimal.ZERO) > 0; i++) {
+            Coordinates waypoint = waypointsRestantes.get(i);
+            BigDecimal distanciaAteWaypoint = DistanceCalculator.calculateDistance(
+                    posicaoAtualLat, posicaoAtualLon, waypoint.getLatitude(), waypoint.getLongitude())
+                    .setScale(4, RoundingMode.HALF_UP);
+
+            if (distanciaAteWaypoint.compareTo(distanciaRestante) <= 0) {
+                posicaoAtualLat = waypoint.getLatitude();
+                posicaoAtualLon = waypoint.getLongitude();
+                waypointsAvancados++;
+                distanciaRestante = distanciaRestante.subtract(distanciaAteWaypoint);
+            } else {
+                BigDecimal percentualProgresso = BigDecimal.valueOf(distanciaRestante.doubleValue() / distanciaAteWaypoint.doubleValue());
+                posicaoAtualLat = posicaoAtualLat.add(waypoint.getLatitude().subtract(posicaoAtualLat).multiply(percentualProgresso));
+                posicaoAtualLon = posicaoAtualLon.add(waypoint.getLongitude().subtract(posicaoAtualLon).multiply(percentualProgresso));
+                distanciaRestante = BigDecimal.ZERO;
+            }
+        }
+        latitudesLegado[entrega] = posicaoAtualLat.setScale(8, RoundingMode.HALF_UP);
+        longitudesLegado[entrega] = posicaoAtualLon.setScale(8, RoundingMode.HALF_UP);
+        return waypointsAvancados;
+    }
+
+    private void gerarRotaUrbana(Random random, int rota) {
+        double[] lats = new double[PONTOS_POR_ROTA];
+        double[] lons = new double[PONTOS_POR_ROTA];
+        List<Coordinates> coordenadas = new ArrayList<>(PONTOS_POR_ROTA);
+        double lat = -23.55 + random.nextDouble() * 0.1;
+        double lon = -46.70 + random.nextDouble() * 0.1;
+        double rumo = random.nextInt(4) * Math.PI / 2;
+        double restanteQuarteirao = 0;
+
+        for (int i = 0; i < PONTOS_POR_ROTA; i++) {
+            lats[i] = lat;
+            lons[i] = lon;
+            coordenadas.add(new Coordinates(BigDecimal.valueOf(lat), BigDecimal.valueOf(lon)));
+            if (restanteQuarteirao <= 0) {
+                rumo += (random.nextInt(3) - 1) * Math.PI / 2;
+                restanteQuarteirao = 80 + random.nextDouble() * 120;
+            }
+            double passo = 5 + random.nextDouble() * 20;
+            restanteQuarteirao -= passo;
+            lat += Math.cos(rumo) * passo / 111_195.0;
+            lon += Math.sin(rumo) * passo / (111_195.0 * Math.cos(Math.toRadians(lat)));
+        }
+        latitudes[rota] = lats;
+        longitudes[rota] = lons;
+        rotasLegado.add(coordenadas);
+    }
+}
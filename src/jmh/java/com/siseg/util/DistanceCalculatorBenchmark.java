@@ -0,0 +1,96 @@
+package com.siseg.util;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Distâncias de uma origem para {@code destinos} pontos espalhados num raio de ~15 km, como na busca de
+ * restaurantes: {@link BigDecimal} arredondado, Haversine primitivo por par, Haversine e aproximação
+ * equirretangular em lote.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceCalculatorBenchmark {
+
+    private static final double ORIGEM_LAT = -23.5505;
+    private static final double ORIGEM_LON = -46.6333;
+
+    @Param({"1000"})
+    private int destinos;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private BigDecimal[] latitudesDecimais;
+    private BigDecimal[] longitudesDecimais;
+    private double[] distancias;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        latitudes = new double[destinos];
+        longitudes = new double[destinos];
+        latitudesDecimais = new BigDecimal[destinos];
+        longitudesDecimais = new BigDecimal[destinos];
+        distancias = new double[destinos];
+        for (int i = 0; i < destinos; i++) {
+            latitudes[i] = ORIGEM_LAT + (random.nextDouble() - 0.5) * 0.27;
+            longitudes[i] = ORIGEM_LON + (random.nextDouble() - 0.5) * 0.3;
+            latitudesDecimais[i] = BigDecimal.valueOf(latitudes[i]);
+            longitudesDecimais[i] = BigDecimal.valueOf(longitudes[i]);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        BigDecimal origemLat = BigDecimal.valueOf(ORIGEM_LAT);
+        BigDecimal origemLon = BigDecimal.valueOf(ORIGEM_LON);
+        for (int i = 0; i < destinos; i++) {
+            blackhole.consume(DistanceCalculator.calculateDistance(origemLat, origemLon,
+                    latitudesDecimais[i], longitudesDecimais[i]));
+        }
+    }
+
+    @Benchmark
+    public void haversinePorPar(Blackhole blackhole) {
+        for (int i = 0; i < destinos; i++) {
+            blackhole.consume(DistanceCalculator.haversineKm(ORIGEM_LAT, ORIGEM_LON, latitudes[i], longitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public void equirretangularPorPar(Blackhole blackhole) {
+        for (int i = 0; i < destinos; i++) {
+            blackhole.consume(DistanceCalculator.equirectangularKm(ORIGEM_LAT, ORIGEM_LON, latitudes[i], longitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] haversineEmLote() {
+        DistanceCalculator.haversineKm(ORIGEM_LAT, ORIGEM_LON, latitudes, longitudes, distancias, destinos);
+        return distancias;
+    }
+
+    @Benchmark
+    public double[] equirretangularEmLote() {
+        DistanceCalculator.equirectangularKm(ORIGEM_LAT, ORIGEM_LON, latitudes, longitudes, distancias, destinos);
+        return distancias;
+    }
+}
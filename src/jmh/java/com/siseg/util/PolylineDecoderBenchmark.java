@@ -0,0 +1,154 @@
+package com.siseg.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.siseg.dto.geocoding.Coordinates;
+
+/**
+ * Compara a decodificação antiga (um {@link BigDecimal} por coordenada a partir de {@code double}) com o
+ * adaptador atual e com a decodificação primitiva em {@link RouteBuffer}.
+ *
+ * <p>Com {@code -p arquivo=geometrias.txt} usa geometrias reais do OSRM ({@code geometries=polyline}), uma
+ * por linha. Sem arquivo, gera rotas urbanas com {@code pontos} pontos: quarteirões de 80 a 200 m com um
+ * ponto a cada 5 a 25 m, que é a densidade do {@code overview=full}. Rode com {@code -prof gc} para ver a
+ * alocação por operação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolylineDecoderBenchmark {
+
+    @Param({"500", "5000"})
+    private int pontos;
+
+    @Param({""})
+    private String arquivo;
+
+    private String[] geometrias;
+    private final RouteBuffer buffer = new RouteBuffer();
+
+    @Setup
+    public void preparar() throws IOException {
+        if (!arquivo.isEmpty()) {
+            geometrias = Files.readAllLines(Path.of(arquivo)).stream()
+                    .map(String::trim)
+                    .filter(linha -> !linha.isEmpty())
+                    .toArray(String[]::new);
+            return;
+        }
+        Random random = new Random(42);
+        geometrias = new String[8];
+        for (int i = 0; i < geometrias.length; i++) {
+            geometrias[i] = gerarRotaUrbana(random, pontos);
+        }
+    }
+
+    @Benchmark
+    public void legado(Blackhole blackhole) {
+        for (String geometria : geometrias) {
+            blackhole.consume(decodeLegado(geometria));
+        }
+    }
+
+    @Benchmark
+    public void adaptadorCoordinates(Blackhole blackhole) {
+        for (String geometria : geometrias) {
+            blackhole.consume(PolylineDecoder.decode(geometria));
+        }
+    }
+
+    @Benchmark
+    public void primitivoRouteBuffer(Blackhole blackhole) {
+        for (String geometria : geometrias) {
+            PolylineDecoder.decode(geometria, PolylineDecoder.PRECISAO_POLYLINE, buffer);
+            blackhole.consume(buffer.latitude(buffer.tamanho() - 1));
+        }
+    }
+
+    @Benchmark
+    public void codificar(Blackhole blackhole) {
+        for (String geometria : geometrias) {
+            PolylineDecoder.decode(geometria, PolylineDecoder.PRECISAO_POLYLINE, buffer);
+            blackhole.consume(PolylineDecoder.encode(buffer, PolylineDecoder.PRECISAO_POLYLINE));
+        }
+    }
+
+    private static String gerarRotaUrbana(Random random, int pontos) {
+        double[] latitudes = new double[pontos];
+        double[] longitudes = new double[pontos];
+        double lat = -23.55 + random.nextDouble() * 0.1;
+        double lon = -46.70 + random.nextDouble() * 0.1;
+        double rumo = random.nextInt(4) * Math.PI / 2;
+        double restanteQuarteirao = 0;
+        double metrosPorGrau = 111_195.0;
+
+        for (int i = 0; i < pontos; i++) {
+            latitudes[i] = lat;
+            longitudes[i] = lon;
+            if (restanteQuarteirao <= 0) {
+                rumo += (random.nextInt(3) - 1) * Math.PI / 2 + random.nextGaussian() * 0.1;
+                restanteQuarteirao = 80 + random.nextDouble() * 120;
+            }
+            double passo = 5 + random.nextDouble() * 20;
+            restanteQuarteirao -= passo;
+            lat += Math.cos(rumo) * passo / metrosPorGrau;
+            lon += Math.sin(rumo) * passo / (metrosPorGrau * Math.cos(Math.toRadians(lat)));
+        }
+        return PolylineDecoder.encode(latitudes, longitudes, 0, pontos, PolylineDecoder.PRECISAO_POLYLINE);
+    }
+
+    // Implementação anterior de PolylineDecoder.decode, mantida aqui como referência de comparação
+    private static List<Coordinates> decodeLegado(String encoded) {
+        List<Coordinates> coordinates = new ArrayList<>();
+        int index = 0;
+        int lat = 0;
+        int lon = 0;
+
+        while (index < encoded.length()) {
+            int b;
+            int shift = 0;
+            int result = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
+
+            shift = 0;
+            result = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lon += ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
+
+            coordinates.add(new Coordinates(BigDecimal.valueOf(lat / 1e5), BigDecimal.valueOf(lon / 1e5)));
+        }
+        return coordinates;
+    }
+}
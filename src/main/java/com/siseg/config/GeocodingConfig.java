@@ -0,0 +1,37 @@
+package com.siseg.config;
+
+import com.siseg.util.CircuitBreaker;
+import com.siseg.util.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class GeocodingConfig {
+
+    @Bean
+    public TokenBucketRateLimiter locationIQRateLimiter(
+            @Value("${geocoding.locationiq.rateLimitMs:200}") long intervaloMs,
+            @Value("${geocoding.locationiq.rateLimit.burst:1}") int capacidade,
+            @Value("${geocoding.locationiq.rateLimit.maxWaitMs:${geocoding.locationiq.rateLimitMs:200}}") long maxEsperaMs,
+            @Value("${geocoding.locationiq.rateLimit.maxQueue:2}") int maxFila) {
+        return new TokenBucketRateLimiter("LocationIQ", Duration.ofMillis(intervaloMs), capacidade,
+                Duration.ofMillis(maxEsperaMs), maxFila);
+    }
+
+    @Bean
+    public CircuitBreaker osrmCircuitBreaker(
+            @Value("${geocoding.osrm.circuitBreaker.windowSize:20}") int tamanhoJanela,
+            @Value("${geocoding.osrm.circuitBreaker.minimumCalls:10}") int minimoChamadas,
+            @Value("${geocoding.osrm.circuitBreaker.failureRateThreshold:50}") int limiarFalhasPercentual,
+            @Value("${geocoding.osrm.circuitBreaker.slowCallRateThreshold:80}") int limiarLentasPercentual,
+            @Value("${geocoding.osrm.circuitBreaker.slowCallDurationMs:3000}") long chamadaLentaMs,
+            @Value("${geocoding.osrm.circuitBreaker.openDurationMs:30000}") long duracaoAbertoMs,
+            @Value("${geocoding.osrm.circuitBreaker.halfOpenCalls:3}") int chamadasSemiAberto) {
+        return new CircuitBreaker("OSRM", new CircuitBreaker.Configuracao(tamanhoJanela, minimoChamadas,
+                limiarFalhasPercentual, limiarLentasPercentual, Duration.ofMillis(chamadaLentaMs),
+                Duration.ofMillis(duracaoAbertoMs), chamadasSemiAberto));
+    }
+}
@@ -6,6 +6,8 @@ import com.siseg.dto.configuracao.ConfiguracaoTaxaRequestDTO;
 import com.siseg.dto.configuracao.ConfiguracaoTaxaResponseDTO;
 import com.siseg.dto.ganhos.RelatorioDistribuicaoDTO;
 import com.siseg.dto.ganhos.RelatorioCompletoDTO;
+import com.siseg.dto.geocoding.CepDiretorioEstatisticasDTO;
+import com.siseg.dto.geocoding.GeocodingBackfillProgressoDTO;
 import com.siseg.dto.pedido.PedidoResponseDTO;
 import com.siseg.model.enumerations.Periodo;
 import com.siseg.model.enumerations.StatusPedido;
@@ -15,12 +17,15 @@ import com.siseg.service.AdminService;
 import com.siseg.service.ConfiguracaoTaxaService;
 import com.siseg.service.GanhosService;
 import com.siseg.service.PedidoService;
+import com.siseg.service.geocoding.CepDiretorioService;
+import com.siseg.service.geocoding.GeocodingBackfillService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -38,15 +43,20 @@ public class AdminController {
     private final ConfiguracaoTaxaService configuracaoTaxaService;
     private final PedidoRepository pedidoRepository;
     private final AdminService adminService;
+    private final GeocodingBackfillService geocodingBackfillService;
+    private final CepDiretorioService cepDiretorioService;
 
     public AdminController(PedidoService pedidoService, GanhosService ganhosService,
                           ConfiguracaoTaxaService configuracaoTaxaService, PedidoRepository pedidoRepository,
-                          AdminService adminService) {
+                          AdminService adminService, GeocodingBackfillService geocodingBackfillService,
+                          CepDiretorioService cepDiretorioService) {
         this.pedidoService = pedidoService;
         this.ganhosService = ganhosService;
         this.configuracaoTaxaService = configuracaoTaxaService;
         this.pedidoRepository = pedidoRepository;
         this.adminService = adminService;
+        this.geocodingBackfillService = geocodingBackfillService;
+        this.cepDiretorioService = cepDiretorioService;
     }
 
     @GetMapping("/pedidos/andamento")
@@ -107,5 +117,32 @@ public class AdminController {
         AdminResponseDTO response = adminService.criarAdmin(dto);
         return ResponseEntity.ok(response);
     }
-}
 
+    @PostMapping("/geocoding/backfill")
+    @Operation(summary = "Iniciar geocodificação em massa dos endereços sem coordenadas, a partir do id informado ou de onde a última execução parou")
+    public ResponseEntity<GeocodingBackfillProgressoDTO> iniciarBackfillGeocoding(
+            @RequestParam(required = false) Long aPartirDoId) {
+        GeocodingBackfillProgressoDTO progresso = aPartirDoId == null
+                ? geocodingBackfillService.iniciar()
+                : geocodingBackfillService.iniciar(aPartirDoId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progresso);
+    }
+
+    @GetMapping("/geocoding/backfill")
+    @Operation(summary = "Progresso da geocodificação em massa")
+    public ResponseEntity<GeocodingBackfillProgressoDTO> progressoBackfillGeocoding() {
+        return ResponseEntity.ok(geocodingBackfillService.obterProgresso());
+    }
+
+    @PostMapping("/geocoding/backfill/cancelamento")
+    @Operation(summary = "Cancelar a geocodificação em massa em andamento")
+    public ResponseEntity<GeocodingBackfillProgressoDTO> cancelarBackfillGeocoding() {
+        return ResponseEntity.ok(geocodingBackfillService.cancelar());
+    }
+
+    @PostMapping("/geocoding/ceps/importacao")
+    @Operation(summary = "Reimportar o diretório local de CEPs a partir do arquivo configurado")
+    public ResponseEntity<CepDiretorioEstatisticasDTO> reimportarDiretorioCeps() {
+        return ResponseEntity.ok(cepDiretorioService.recarregar());
+    }
+}
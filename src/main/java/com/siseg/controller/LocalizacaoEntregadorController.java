@@ -0,0 +1,43 @@
+package com.siseg.controller;
+
+import com.siseg.dto.rastreamento.LocalizacaoLoteRequestDTO;
+import com.siseg.dto.rastreamento.LocalizacaoLoteResponseDTO;
+import com.siseg.service.rastreamento.IngestaoPosicoesService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/entregadores/localizacoes")
+@Tag(name = "Localização do Entregador", description = "Envio de posições GPS do entregador em lotes")
+@PreAuthorize("hasRole('ENTREGADOR')")
+public class LocalizacaoEntregadorController {
+
+    private final IngestaoPosicoesService ingestaoPosicoesService;
+
+    public LocalizacaoEntregadorController(IngestaoPosicoesService ingestaoPosicoesService) {
+        this.ingestaoPosicoesService = ingestaoPosicoesService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Enviar lote de posições GPS do entregador autenticado, processadas de forma assíncrona")
+    public ResponseEntity<LocalizacaoLoteResponseDTO> enviarLocalizacoes(@Valid @RequestBody LocalizacaoLoteRequestDTO dto) {
+        int aceitos = ingestaoPosicoesService.receber(dto.getPontos());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new LocalizacaoLoteResponseDTO(aceitos));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Enviar lote de posições GPS no formato binário compacto (deltas em varint)")
+    public ResponseEntity<LocalizacaoLoteResponseDTO> enviarLocalizacoesCodificadas(@RequestBody byte[] corpo) {
+        int aceitos = ingestaoPosicoesService.receberCodificado(corpo);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new LocalizacaoLoteResponseDTO(aceitos));
+    }
+}
@@ -0,0 +1,153 @@
+package com.siseg.controller;
+
+import com.siseg.dto.geocoding.CepDiretorioEstatisticasDTO;
+import com.siseg.dto.geocoding.CircuitBreakerEstatisticasDTO;
+import com.siseg.dto.geocoding.GeocodingCacheEstatisticasDTO;
+import com.siseg.dto.geocoding.GeocodingFilaEstatisticasDTO;
+import com.siseg.dto.geocoding.RateLimiterEstatisticasDTO;
+import com.siseg.dto.geocoding.RotaCacheEstatisticasDTO;
+import com.siseg.dto.geocoding.SimplificacaoRotaEstatisticasDTO;
+import com.siseg.dto.geocoding.SingleFlightEstatisticasDTO;
+import com.siseg.dto.rastreamento.IngestaoPosicoesEstatisticasDTO;
+import com.siseg.dto.rastreamento.PosicoesEntregadoresEstatisticasDTO;
+import com.siseg.dto.rastreamento.RastreamentoSseEstatisticasDTO;
+import com.siseg.dto.rastreamento.SimulacaoEntregasEstatisticasDTO;
+import com.siseg.service.DeliverySimulationService;
+import com.siseg.service.GeocodingService;
+import com.siseg.service.geocoding.CepDiretorioService;
+import com.siseg.service.geocoding.GeocodingCacheService;
+import com.siseg.service.geocoding.GeocodingOutboxService;
+import com.siseg.service.geocoding.RotaCacheService;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.rastreamento.IngestaoPosicoesService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
+import com.siseg.service.routing.SimplificacaoRotaService;
+import com.siseg.util.CircuitBreaker;
+import com.siseg.util.TokenBucketRateLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/monitoramento")
+@Tag(name = "Monitoramento", description = "Estatísticas operacionais de caches e integrações externas")
+@PreAuthorize("hasRole('ADMIN')")
+public class MonitoramentoController {
+
+    private final GeocodingCacheService geocodingCacheService;
+    private final TokenBucketRateLimiter locationIQRateLimiter;
+    private final GeocodingService geocodingService;
+    private final RotaCacheService rotaCacheService;
+    private final CircuitBreaker osrmCircuitBreaker;
+    private final GeocodingOutboxService geocodingOutboxService;
+    private final CepDiretorioService cepDiretorioService;
+    private final SimplificacaoRotaService simplificacaoRotaService;
+    private final DeliverySimulationService deliverySimulationService;
+    private final CourierPositionStore courierPositionStore;
+    private final RastreamentoPublisher rastreamentoPublisher;
+    private final IngestaoPosicoesService ingestaoPosicoesService;
+
+    public MonitoramentoController(GeocodingCacheService geocodingCacheService,
+                                   TokenBucketRateLimiter locationIQRateLimiter,
+                                   GeocodingService geocodingService,
+                                   RotaCacheService rotaCacheService,
+                                   CircuitBreaker osrmCircuitBreaker,
+                                   GeocodingOutboxService geocodingOutboxService,
+                                   CepDiretorioService cepDiretorioService,
+                                   SimplificacaoRotaService simplificacaoRotaService,
+                                   DeliverySimulationService deliverySimulationService,
+                                   CourierPositionStore courierPositionStore,
+                                   RastreamentoPublisher rastreamentoPublisher,
+                                   IngestaoPosicoesService ingestaoPosicoesService) {
+        this.geocodingCacheService = geocodingCacheService;
+        this.locationIQRateLimiter = locationIQRateLimiter;
+        this.geocodingService = geocodingService;
+        this.rotaCacheService = rotaCacheService;
+        this.osrmCircuitBreaker = osrmCircuitBreaker;
+        this.geocodingOutboxService = geocodingOutboxService;
+        this.cepDiretorioService = cepDiretorioService;
+        this.simplificacaoRotaService = simplificacaoRotaService;
+        this.deliverySimulationService = deliverySimulationService;
+        this.courierPositionStore = courierPositionStore;
+        this.rastreamentoPublisher = rastreamentoPublisher;
+        this.ingestaoPosicoesService = ingestaoPosicoesService;
+    }
+
+    @GetMapping("/geocoding/cache")
+    @Operation(summary = "Estatísticas do cache de geocodificação")
+    public ResponseEntity<GeocodingCacheEstatisticasDTO> estatisticasCacheGeocoding() {
+        return ResponseEntity.ok(geocodingCacheService.obterEstatisticas());
+    }
+
+    @GetMapping("/geocoding/rate-limit")
+    @Operation(summary = "Estatísticas do rate limiter do LocationIQ")
+    public ResponseEntity<RateLimiterEstatisticasDTO> estatisticasRateLimitLocationIQ() {
+        return ResponseEntity.ok(locationIQRateLimiter.obterEstatisticas());
+    }
+
+    @GetMapping("/geocoding/coalescencia")
+    @Operation(summary = "Estatísticas de coalescência de chamadas concorrentes a LocationIQ, ViaCEP e OSRM")
+    public ResponseEntity<List<SingleFlightEstatisticasDTO>> estatisticasCoalescencia() {
+        return ResponseEntity.ok(geocodingService.obterEstatisticasCoalescencia());
+    }
+
+    @GetMapping("/geocoding/fila")
+    @Operation(summary = "Estatísticas da fila de geocodificação em segundo plano")
+    public ResponseEntity<GeocodingFilaEstatisticasDTO> estatisticasFilaGeocoding() {
+        return ResponseEntity.ok(geocodingOutboxService.obterEstatisticas());
+    }
+
+    @GetMapping("/geocoding/ceps")
+    @Operation(summary = "Estatísticas do diretório local de CEPs e do cache persistente de CEPs")
+    public ResponseEntity<CepDiretorioEstatisticasDTO> estatisticasDiretorioCeps() {
+        return ResponseEntity.ok(cepDiretorioService.obterEstatisticas());
+    }
+
+    @GetMapping("/rotas/cache")
+    @Operation(summary = "Estatísticas do cache de rotas OSRM")
+    public ResponseEntity<RotaCacheEstatisticasDTO> estatisticasCacheRotas() {
+        return ResponseEntity.ok(rotaCacheService.obterEstatisticas());
+    }
+
+    @GetMapping("/rotas/simplificacao")
+    @Operation(summary = "Pontos e tamanho das rotas antes e depois da simplificação, por uso")
+    public ResponseEntity<SimplificacaoRotaEstatisticasDTO> estatisticasSimplificacaoRotas() {
+        return ResponseEntity.ok(simplificacaoRotaService.obterEstatisticas());
+    }
+
+    @GetMapping("/rotas/circuit-breaker")
+    @Operation(summary = "Estado e transições do circuit breaker do OSRM")
+    public ResponseEntity<CircuitBreakerEstatisticasDTO> estatisticasCircuitBreakerOsrm() {
+        return ResponseEntity.ok(osrmCircuitBreaker.obterEstatisticas());
+    }
+
+    @GetMapping("/simulacao/entregas")
+    @Operation(summary = "Duração dos ticks da simulação de entregas e pedidos processados, adiados por prazo e com erro")
+    public ResponseEntity<SimulacaoEntregasEstatisticasDTO> estatisticasSimulacaoEntregas() {
+        return ResponseEntity.ok(deliverySimulationService.obterEstatisticas());
+    }
+
+    @GetMapping("/rastreamento/posicoes")
+    @Operation(summary = "Posições de entregadores em memória, atualizações recebidas e linhas gravadas em lote")
+    public ResponseEntity<PosicoesEntregadoresEstatisticasDTO> estatisticasPosicoesEntregadores() {
+        return ResponseEntity.ok(courierPositionStore.obterEstatisticas());
+    }
+
+    @GetMapping("/rastreamento/sse")
+    @Operation(summary = "Pedidos observados e conexões do rastreamento ao vivo, recálculos e eventos enviados")
+    public ResponseEntity<RastreamentoSseEstatisticasDTO> estatisticasRastreamentoAoVivo() {
+        return ResponseEntity.ok(rastreamentoPublisher.obterEstatisticas());
+    }
+
+    @GetMapping("/rastreamento/ingestao")
+    @Operation(summary = "Fila de posições GPS enviadas pelos entregadores: recebidas, recusadas, processadas e descartadas")
+    public ResponseEntity<IngestaoPosicoesEstatisticasDTO> estatisticasIngestaoPosicoes() {
+        return ResponseEntity.ok(ingestaoPosicoesService.obterEstatisticas());
+    }
+}
@@ -1,5 +1,7 @@
 package com.siseg.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siseg.dto.rastreamento.RastreamentoDTO;
 import com.siseg.exception.AccessDeniedException;
 import com.siseg.exception.ResourceNotFoundException;
@@ -7,11 +9,22 @@ import com.siseg.model.Pedido;
 import com.siseg.model.User;
 import com.siseg.repository.PedidoRepository;
 import com.siseg.service.RastreamentoService;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
 import com.siseg.util.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/api/pedidos")
@@ -20,15 +33,78 @@ public class RastreamentoController {
     
     private final RastreamentoService rastreamentoService;
     private final PedidoRepository pedidoRepository;
+    private final PosicaoHistoricoService posicaoHistoricoService;
+    private final RastreamentoPublisher rastreamentoPublisher;
+    private final ObjectMapper objectMapper;
     
-    public RastreamentoController(RastreamentoService rastreamentoService, PedidoRepository pedidoRepository) {
+    public RastreamentoController(RastreamentoService rastreamentoService, PedidoRepository pedidoRepository,
+                                  PosicaoHistoricoService posicaoHistoricoService,
+                                  RastreamentoPublisher rastreamentoPublisher, ObjectMapper objectMapper) {
         this.rastreamentoService = rastreamentoService;
         this.pedidoRepository = pedidoRepository;
+        this.posicaoHistoricoService = posicaoHistoricoService;
+        this.rastreamentoPublisher = rastreamentoPublisher;
+        this.objectMapper = objectMapper;
     }
     
     @GetMapping("/{id}/rastreamento")
-    @Operation(summary = "Consultar rastreamento do pedido")
-    public ResponseEntity<RastreamentoDTO> consultarRastreamento(@PathVariable Long id) {
+    @Operation(summary = "Consultar rastreamento do pedido",
+               description = "Com a versão da resposta anterior, devolve só posição, índice da rota e estimativa; "
+                       + "com If-None-Match, 304 enquanto o entregador não se mover")
+    public ResponseEntity<RastreamentoDTO> consultarRastreamento(@PathVariable Long id,
+                                                                 @RequestParam(required = false) String versao,
+                                                                 WebRequest requisicao) {
+        validarAcessoAoPedido(id);
+        
+        RastreamentoService.RastreamentoVersionado resultado =
+                rastreamentoService.obterRastreamento(id, versao, requisicao::checkNotModified);
+        if (resultado.naoModificado()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(resultado.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(resultado.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(resultado.rastreamento());
+    }
+    
+    @GetMapping(value = "/{id}/rastreamento/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Acompanhar rastreamento do pedido em tempo real",
+               description = "Server-Sent Events: estado completo no evento 'rastreamento' e campos alterados nos eventos 'delta'")
+    public SseEmitter acompanharRastreamento(@PathVariable Long id) {
+        validarAcessoAoPedido(id);
+        return rastreamentoPublisher.inscrever(id);
+    }
+    
+    @GetMapping("/{id}/rastreamento/historico")
+    @Operation(summary = "Consultar trilha percorrida pelo entregador no pedido",
+               description = "Pontos em ordem cronológica, escritos na resposta à medida que os segmentos do histórico são lidos")
+    public ResponseEntity<StreamingResponseBody> consultarHistorico(@PathVariable Long id) {
+        validarAcessoAoPedido(id);
+        
+        StreamingResponseBody corpo = saida -> {
+            try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+                gerador.writeStartArray();
+                posicaoHistoricoService.percorrerTrilha(id, (instanteMillis, latitude, longitude) -> {
+                    try {
+                        gerador.writeStartObject();
+                        gerador.writeNumberField("instante", instanteMillis);
+                        gerador.writeNumberField("latitude", latitude);
+                        gerador.writeNumberField("longitude", longitude);
+                        gerador.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gerador.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo);
+    }
+    
+    private void validarAcessoAoPedido(Long id) {
         Pedido pedido = pedidoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado com ID: " + id));
         
@@ -40,9 +116,6 @@ public class RastreamentoController {
                 throw new AccessDeniedException("Você não tem permissão para consultar rastreamento deste pedido");
             }
         }
-        
-        RastreamentoDTO rastreamento = rastreamentoService.obterRastreamento(id);
-        return ResponseEntity.ok(rastreamento);
     }
 }
 
@@ -1,5 +1,6 @@
 package com.siseg.dto;
 
+import com.siseg.model.enumerations.StatusGeocodificacao;
 import com.siseg.model.enumerations.TipoEndereco;
 import lombok.Getter;
 import lombok.Setter;
@@ -21,6 +22,7 @@ public class EnderecoResponseDTO {
     private String cep;
     private BigDecimal latitude;
     private BigDecimal longitude;
+    private StatusGeocodificacao statusGeocodificacao;
     private TipoEndereco tipo;
     private Boolean principal;
     private Instant criadoEm;
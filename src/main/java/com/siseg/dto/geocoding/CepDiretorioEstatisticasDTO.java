@@ -0,0 +1,22 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CepDiretorioEstatisticasDTO {
+    private String arquivo;
+    private Instant carregadoEm;
+    private long cepsNoIndice;
+    private long textosDistintos;
+    private long tamanhoIndiceKb;
+    private long hitsIndice;
+    private long hitsPersistente;
+    private long misses;
+    private long gravadosPersistente;
+}
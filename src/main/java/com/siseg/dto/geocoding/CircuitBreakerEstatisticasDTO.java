@@ -0,0 +1,22 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerEstatisticasDTO {
+    private String nome;
+    private String estado;
+    private int chamadasNaJanela;
+    private double taxaFalhasPercentual;
+    private double taxaLentasPercentual;
+    private long chamadasPermitidas;
+    private long chamadasRejeitadas;
+    private long totalTransicoes;
+    private List<TransicaoCircuitoDTO> ultimasTransicoes;
+}
@@ -0,0 +1,26 @@
+package com.siseg.dto.geocoding;
+
+import com.siseg.model.enumerations.SituacaoBackfill;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodingBackfillProgressoDTO {
+    private SituacaoBackfill situacao;
+    private Instant iniciadoEm;
+    private Instant finalizadoEm;
+    private long ultimoIdProcessado;
+    private long enderecosLidos;
+    private long consultasRealizadas;
+    private long duplicadosAproveitados;
+    private long enderecosAtualizados;
+    private long falhas;
+    private long consultasAdiadasPeloLimite;
+    private double enderecosPorSegundo;
+    private String erro;
+}
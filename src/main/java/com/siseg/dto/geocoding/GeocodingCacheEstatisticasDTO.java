@@ -0,0 +1,18 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodingCacheEstatisticasDTO {
+    private long tamanhoMemoria;
+    private long capacidadeMaxima;
+    private long hitsMemoria;
+    private long hitsPersistente;
+    private long misses;
+    private long evictions;
+    private long entradasAquecidas;
+}
@@ -0,0 +1,18 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodingFilaEstatisticasDTO {
+    private long pendentes;
+    private long prontosParaProcessar;
+    private long concluidos;
+    private long reagendados;
+    private long adiadosPeloLimite;
+    private long falhasDefinitivas;
+    private long descartados;
+}
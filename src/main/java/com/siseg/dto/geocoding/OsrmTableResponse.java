@@ -0,0 +1,26 @@
+package com.siseg.dto.geocoding;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Resposta do serviço table do OSRM. Cada linha corresponde a uma origem e cada coluna a um destino;
+ * pares sem rota possível vêm como {@code null}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Getter
+@Setter
+public class OsrmTableResponse {
+    @JsonProperty("code")
+    private String code;
+    
+    @JsonProperty("durations")
+    private List<List<Double>> durations;
+    
+    @JsonProperty("distances")
+    private List<List<Double>> distances;
+}
@@ -0,0 +1,19 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimiterEstatisticasDTO {
+    private String nome;
+    private long intervaloMs;
+    private int capacidade;
+    private int maxFila;
+    private int aguardandoAgora;
+    private long permissoesImediatas;
+    private long permissoesEnfileiradas;
+    private long rejeitadas;
+}
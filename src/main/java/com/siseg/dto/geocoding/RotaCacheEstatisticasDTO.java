@@ -0,0 +1,19 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RotaCacheEstatisticasDTO {
+    private long entradas;
+    private long pesoEstimadoKb;
+    private long pesoMaximoKb;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long ttlSegundos;
+    private double gradeGraus;
+}
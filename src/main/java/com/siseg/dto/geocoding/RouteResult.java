@@ -9,6 +9,7 @@ import java.util.List;
 public class RouteResult {
     private final BigDecimal distanciaKm;
     private final int tempoMinutos;
+    private final int duracaoSegundos;
     private final List<Coordinates> waypoints;
     
     public RouteResult(BigDecimal distanciaKm, int tempoMinutos) {
@@ -16,8 +17,16 @@ public class RouteResult {
     }
     
     public RouteResult(BigDecimal distanciaKm, int tempoMinutos, List<Coordinates> waypoints) {
+        this(distanciaKm, tempoMinutos, tempoMinutos * 60, waypoints);
+    }
+    
+    /**
+     * @param duracaoSegundos duração informada pelo motor de rotas, sem o arredondamento de {@code tempoMinutos}
+     */
+    public RouteResult(BigDecimal distanciaKm, int tempoMinutos, int duracaoSegundos, List<Coordinates> waypoints) {
         this.distanciaKm = distanciaKm;
         this.tempoMinutos = tempoMinutos;
+        this.duracaoSegundos = duracaoSegundos;
         this.waypoints = waypoints;
     }
     
@@ -29,6 +38,10 @@ public class RouteResult {
         return tempoMinutos;
     }
     
+    public int getDuracaoSegundos() {
+        return duracaoSegundos;
+    }
+    
     public List<Coordinates> getWaypoints() {
         return waypoints;
     }
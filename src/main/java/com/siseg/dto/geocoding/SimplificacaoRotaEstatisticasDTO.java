@@ -0,0 +1,23 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimplificacaoRotaEstatisticasDTO {
+    private double toleranciaArmazenamentoMetros;
+    private double toleranciaExibicaoMetros;
+    private long rotasArmazenadas;
+    private long pontosOriginaisArmazenamento;
+    private long pontosArmazenados;
+    private long bytesOriginaisArmazenamento;
+    private long bytesArmazenados;
+    private long rotasExibicao;
+    private long pontosOriginaisExibicao;
+    private long pontosExibicao;
+    private long bytesJsonOriginaisExibicao;
+    private long bytesJsonExibicao;
+}
@@ -0,0 +1,15 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SingleFlightEstatisticasDTO {
+    private String nome;
+    private long execucoes;
+    private long chamadasCompartilhadas;
+    private int emAndamento;
+}
@@ -0,0 +1,17 @@
+package com.siseg.dto.geocoding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransicaoCircuitoDTO {
+    private Instant instante;
+    private String de;
+    private String para;
+    private String motivo;
+}
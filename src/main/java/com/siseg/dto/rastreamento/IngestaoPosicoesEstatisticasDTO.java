@@ -0,0 +1,19 @@
+package com.siseg.dto.rastreamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestaoPosicoesEstatisticasDTO {
+    private int capacidade;
+    private int pendentes;
+    private long recebidos;
+    private long recusados;
+    private long processados;
+    private long descartados;
+    private long waypointsAvancados;
+    private long erros;
+}
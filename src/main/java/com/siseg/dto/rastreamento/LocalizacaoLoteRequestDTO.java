@@ -0,0 +1,19 @@
+package com.siseg.dto.rastreamento;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalizacaoLoteRequestDTO {
+
+    @NotEmpty(message = "Informe ao menos uma posição")
+    @Valid
+    private List<PontoGpsDTO> pontos;
+}
@@ -0,0 +1,12 @@
+package com.siseg.dto.rastreamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalizacaoLoteResponseDTO {
+    private int aceitos;
+}
@@ -0,0 +1,27 @@
+package com.siseg.dto.rastreamento;
+
+import java.math.BigDecimal;
+
+import com.siseg.model.enumerations.TipoVeiculo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * O que o tick da simulação precisa de um pedido em entrega, lido numa única consulta com o entregador,
+ * o endereço de entrega e o estado da rota.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoEmEntregaResumo {
+    private Long pedidoId;
+    private Long entregadorId;
+    private TipoVeiculo tipoVeiculo;
+    private BigDecimal entregadorLatitude;
+    private BigDecimal entregadorLongitude;
+    private BigDecimal destinoLatitude;
+    private BigDecimal destinoLongitude;
+    private Long rotaId;
+}
@@ -0,0 +1,27 @@
+package com.siseg.dto.rastreamento;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PontoGpsDTO {
+
+    @NotNull(message = "Instante da posição é obrigatório")
+    private Long instante;
+
+    @NotNull(message = "Latitude é obrigatória")
+    @DecimalMin(value = "-90.0", message = "Latitude deve estar entre -90 e 90")
+    @DecimalMax(value = "90.0", message = "Latitude deve estar entre -90 e 90")
+    private Double latitude;
+
+    @NotNull(message = "Longitude é obrigatória")
+    @DecimalMin(value = "-180.0", message = "Longitude deve estar entre -180 e 180")
+    @DecimalMax(value = "180.0", message = "Longitude deve estar entre -180 e 180")
+    private Double longitude;
+}
@@ -0,0 +1,15 @@
+package com.siseg.dto.rastreamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PosicoesEntregadoresEstatisticasDTO {
+    private int entregadoresEmMemoria;
+    private int gravacoesPendentes;
+    private long atualizacoes;
+    private long linhasGravadas;
+}
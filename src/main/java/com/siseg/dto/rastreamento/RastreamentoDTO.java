@@ -1,5 +1,6 @@
 package com.siseg.dto.rastreamento;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.model.enumerations.StatusPedido;
 import lombok.Data;
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class RastreamentoDTO {
     private BigDecimal posicaoAtualLat;
     private BigDecimal posicaoAtualLon;
@@ -20,5 +22,8 @@ public class RastreamentoDTO {
     private StatusPedido statusEntrega;
     private Boolean proximoAoDestino;
     private List<Coordinates> waypoints;
+    // Índice na rota de cada elemento de waypoints
+    private List<Integer> indicesWaypoints;
+    private Integer indiceRota;
+    private String versao;
 }
-
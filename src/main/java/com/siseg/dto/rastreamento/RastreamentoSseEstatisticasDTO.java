@@ -0,0 +1,16 @@
+package com.siseg.dto.rastreamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RastreamentoSseEstatisticasDTO {
+    private int pedidosObservados;
+    private int conexoes;
+    private long conexoesRecusadas;
+    private long recalculos;
+    private long eventosEnviados;
+}
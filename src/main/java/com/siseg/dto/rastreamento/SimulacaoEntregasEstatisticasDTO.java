@@ -0,0 +1,23 @@
+package com.siseg.dto.rastreamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulacaoEntregasEstatisticasDTO {
+    private int threads;
+    private long prazoTickMs;
+    private long ticksExecutados;
+    private long ticksPulados;
+    private long duracaoUltimoTickMs;
+    private long duracaoMaximaTickMs;
+    private double duracaoMediaTickMs;
+    private long pedidosProcessados;
+    private long pedidosComErro;
+    private long pedidosAdiados;
+    private int ultimoTickProcessados;
+    private int ultimoTickAdiados;
+}
@@ -0,0 +1,38 @@
+package com.siseg.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * CEPs obtidos do ViaCEP por não constarem no diretório local, para não consultá-lo de novo.
+ */
+@Entity
+@Table(name = "cep_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CepCache {
+
+    @Id
+    @Column(length = 8)
+    private String cep;
+
+    @Column(nullable = false, length = 200)
+    private String logradouro;
+
+    @Column(length = 100)
+    private String bairro;
+
+    @Column(nullable = false, length = 100)
+    private String cidade;
+
+    @Column(nullable = false, length = 2)
+    private String estado;
+
+    @Column(name = "criado_em", nullable = false)
+    private Instant criadoEm = Instant.now();
+}
@@ -1,5 +1,6 @@
 package com.siseg.model;
 
+import com.siseg.model.enumerations.StatusGeocodificacao;
 import com.siseg.model.enumerations.TipoEndereco;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -55,6 +56,10 @@ public class Endereco {
     @Column(precision = 11, scale = 8)
     private BigDecimal longitude;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_geocodificacao", nullable = false, length = 20)
+    private StatusGeocodificacao statusGeocodificacao = StatusGeocodificacao.PENDENTE;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TipoEndereco tipo = TipoEndereco.OUTRO;
@@ -0,0 +1,36 @@
+package com.siseg.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Table(name = "geocoding_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+public class GeocodingCache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 500)
+    private String chave;
+
+    @Column(nullable = false, precision = 10, scale = 8)
+    private BigDecimal latitude;
+
+    @Column(nullable = false, precision = 11, scale = 8)
+    private BigDecimal longitude;
+
+    @Column(name = "criado_em", nullable = false)
+    private Instant criadoEm = Instant.now();
+
+    @Column(name = "expira_em", nullable = false)
+    private Instant expiraEm;
+}
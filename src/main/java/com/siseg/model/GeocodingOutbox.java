@@ -0,0 +1,39 @@
+package com.siseg.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Pedido de geocodificação pendente para um endereço. Gravado na mesma transação que cria ou altera o
+ * endereço e removido quando as coordenadas são obtidas ou as tentativas se esgotam.
+ */
+@Entity
+@Table(name = "geocoding_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class GeocodingOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "endereco_id", nullable = false, unique = true)
+    private Long enderecoId;
+
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+
+    @Column(name = "proxima_tentativa_em", nullable = false)
+    private Instant proximaTentativaEm = Instant.now();
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @Column(name = "criado_em", nullable = false, updatable = false)
+    private Instant criadoEm = Instant.now();
+}
@@ -31,8 +31,16 @@ public class RotaEntrega {
     @JoinColumn(name = "pedido_id", nullable = false, unique = true)
     private Pedido pedido;
     
-    @Column(name = "waypoints", columnDefinition = "TEXT")
-    private String waypointsJson;
+    /** Waypoints no formato de {@link com.siseg.util.WaypointCodec}. */
+    @Column(name = "waypoints_codificados", columnDefinition = "MEDIUMBLOB")
+    private byte[] waypointsCodificados;
+    
+    @Column(name = "total_waypoints", nullable = false)
+    private Integer totalWaypoints = 0;
+    
+    /** Duração total da rota informada pelo motor de rotas; nula em rotas anteriores a este campo. */
+    @Column(name = "duracao_segundos")
+    private Integer duracaoSegundos;
     
     @Column(name = "indice_atual", nullable = false)
     private Integer indiceAtual = 0;
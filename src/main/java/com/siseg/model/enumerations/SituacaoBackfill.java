@@ -0,0 +1,9 @@
+package com.siseg.model.enumerations;
+
+public enum SituacaoBackfill {
+    NUNCA_EXECUTADO,
+    EM_EXECUCAO,
+    CONCLUIDO,
+    CANCELADO,
+    INTERROMPIDO    // Encerrado por erro; pode ser retomado a partir do último id processado
+}
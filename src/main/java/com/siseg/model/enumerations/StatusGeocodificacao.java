@@ -0,0 +1,7 @@
+package com.siseg.model.enumerations;
+
+public enum StatusGeocodificacao {
+    PENDENTE,       // Aguardando processamento na fila de geocodificação
+    CONCLUIDA,      // Coordenadas obtidas
+    FALHOU          // Tentativas esgotadas sem coordenadas
+}
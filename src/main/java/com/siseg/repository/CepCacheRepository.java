@@ -0,0 +1,9 @@
+package com.siseg.repository;
+
+import com.siseg.model.CepCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CepCacheRepository extends JpaRepository<CepCache, String> {
+}
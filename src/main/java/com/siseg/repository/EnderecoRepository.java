@@ -1,8 +1,14 @@
 package com.siseg.repository;
 
 import com.siseg.model.Endereco;
+import com.siseg.model.enumerations.StatusGeocodificacao;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,5 +29,30 @@ public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
     long countByClienteId(Long clienteId);
     
     long countByRestauranteId(Long restauranteId);
+    
+    /**
+     * Página de endereços sem coordenadas por keyset ({@code id > ultimoId}), em ordem de id. A consulta não
+     * degrada com o avanço como a paginação por offset, e linhas geocodificadas no meio do caminho apenas
+     * deixam de aparecer.
+     */
+    @Query("SELECT e FROM Endereco e WHERE (e.latitude IS NULL OR e.longitude IS NULL) AND e.id > :ultimoId ORDER BY e.id")
+    List<Endereco> findSemCoordenadasAposId(@Param("ultimoId") Long ultimoId, Pageable pageable);
+    
+    /**
+     * Grava o resultado da fila de geocodificação: as coordenadas e os campos que o ViaCEP corrigiu. Número,
+     * complemento e CEP não são tocados; quem chama garante, pela reserva da fila, que o endereço não foi
+     * editado desde a leitura.
+     */
+    @Modifying
+    @Query("UPDATE Endereco e SET e.logradouro = :logradouro, e.bairro = :bairro, e.cidade = :cidade, " +
+           "e.estado = :estado, e.latitude = :latitude, e.longitude = :longitude, " +
+           "e.statusGeocodificacao = com.siseg.model.enumerations.StatusGeocodificacao.CONCLUIDA WHERE e.id = :id")
+    int atualizarGeocodificacao(@Param("id") Long id, @Param("logradouro") String logradouro,
+                                @Param("bairro") String bairro, @Param("cidade") String cidade,
+                                @Param("estado") String estado, @Param("latitude") BigDecimal latitude,
+                                @Param("longitude") BigDecimal longitude);
+    
+    @Modifying
+    @Query("UPDATE Endereco e SET e.statusGeocodificacao = :status WHERE e.id = :id")
+    int atualizarStatusGeocodificacao(@Param("id") Long id, @Param("status") StatusGeocodificacao status);
 }
-
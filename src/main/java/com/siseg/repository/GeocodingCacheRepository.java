@@ -0,0 +1,25 @@
+package com.siseg.repository;
+
+import com.siseg.model.GeocodingCache;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GeocodingCacheRepository extends JpaRepository<GeocodingCache, Long> {
+
+    Optional<GeocodingCache> findByChave(String chave);
+
+    List<GeocodingCache> findByExpiraEmAfterOrderByCriadoEmDesc(Instant agora, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM GeocodingCache g WHERE g.expiraEm <= :agora")
+    int deleteExpirados(@Param("agora") Instant agora);
+}
@@ -0,0 +1,48 @@
+package com.siseg.repository;
+
+import com.siseg.model.GeocodingOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GeocodingOutboxRepository extends JpaRepository<GeocodingOutbox, Long> {
+
+    Optional<GeocodingOutbox> findByEnderecoId(Long enderecoId);
+
+    List<GeocodingOutbox> findByProximaTentativaEmLessThanEqualOrderByProximaTentativaEm(Instant agora, Pageable pageable);
+
+    long countByProximaTentativaEmLessThanEqual(Instant agora);
+
+    /**
+     * Reserva o item adiando a próxima tentativa para o fim do prazo de processamento. Só tem efeito se
+     * nenhuma outra instância o reservou desde a leitura; um item cujo processamento foi interrompido
+     * volta a ficar disponível quando o prazo vence.
+     */
+    @Modifying
+    @Query("UPDATE GeocodingOutbox o SET o.proximaTentativaEm = :reservadoAte " +
+           "WHERE o.id = :id AND o.proximaTentativaEm = :proximaTentativaLida")
+    int reservar(@Param("id") Long id,
+                 @Param("proximaTentativaLida") Instant proximaTentativaLida,
+                 @Param("reservadoAte") Instant reservadoAte);
+
+    @Modifying
+    @Query("DELETE FROM GeocodingOutbox o WHERE o.id = :id AND o.proximaTentativaEm = :reservadoAte")
+    int removerReservado(@Param("id") Long id, @Param("reservadoAte") Instant reservadoAte);
+
+    @Modifying
+    @Query("UPDATE GeocodingOutbox o SET o.tentativas = :tentativas, o.proximaTentativaEm = :proximaTentativa, " +
+           "o.ultimoErro = :erro WHERE o.id = :id AND o.proximaTentativaEm = :reservadoAte")
+    int reagendarReservado(@Param("id") Long id,
+                           @Param("reservadoAte") Instant reservadoAte,
+                           @Param("tentativas") int tentativas,
+                           @Param("proximaTentativa") Instant proximaTentativa,
+                           @Param("erro") String erro);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.siseg.dto.rastreamento.PedidoEmEntregaResumo;
 import com.siseg.model.Pedido;
 import com.siseg.model.enumerations.StatusPedido;
 
@@ -37,4 +38,20 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     
     @Query("SELECT COUNT(p) > 0 FROM Pedido p WHERE p.restaurante.id = :restauranteId AND p.status IN :statuses")
     boolean existsByRestauranteIdAndStatusIn(@Param("restauranteId") Long restauranteId, @Param("statuses") List<StatusPedido> statuses);
+    
+    @Query("SELECT p.id FROM Pedido p WHERE p.id IN :ids AND p.status IN :statuses")
+    List<Long> findIdsByIdInAndStatusIn(@Param("ids") List<Long> ids, @Param("statuses") List<StatusPedido> statuses);
+    
+    @Query("SELECT p.id FROM Pedido p WHERE p.entregador.id = :entregadorId AND p.status = :status")
+    List<Long> findIdsByEntregadorIdAndStatus(@Param("entregadorId") Long entregadorId, @Param("status") StatusPedido status);
+    
+    /**
+     * Pedidos no status informado que têm entregador, com a posição do entregador, o destino e a rota
+     * (quando já calculada) numa única consulta.
+     */
+    @Query("SELECT new com.siseg.dto.rastreamento.PedidoEmEntregaResumo(p.id, e.id, e.tipoVeiculo, e.latitude, e.longitude, "
+            + "d.latitude, d.longitude, r.id) "
+            + "FROM Pedido p JOIN p.entregador e LEFT JOIN p.enderecoEntrega d LEFT JOIN RotaEntrega r ON r.pedido = p "
+            + "WHERE p.status = :status")
+    List<PedidoEmEntregaResumo> findResumosComEntregadorByStatus(@Param("status") StatusPedido status);
 }
@@ -0,0 +1,143 @@
+package com.siseg.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.siseg.dto.rastreamento.PedidoEmEntregaResumo;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.rastreamento.IngestaoPosicoesService;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
+import com.siseg.service.routing.ActiveRouteRegistry;
+import com.siseg.service.routing.MotorMovimento;
+import com.siseg.service.routing.RotaAtiva;
+
+/**
+ * Passo da simulação para todos os pedidos em entrega de uma vez. Os pedidos chegam numa única consulta
+ * com entregador, destino e rota; o movimento é calculado em memória sobre as rotas ativas, os índices
+ * das rotas voltam ao banco num {@code UPDATE} em lote e as novas posições vão para o
+ * {@link CourierPositionStore}, que as grava no seu próprio intervalo. Com as rotas já em memória, o tick
+ * custa um número constante de idas ao banco, qualquer que seja o número de pedidos. Cada posição também
+ * entra na trilha do pedido em {@link PosicaoHistoricoService} e avisa o {@link RastreamentoPublisher}.
+ *
+ * <p>Pedidos ainda sem rota, sem coordenadas do entregador ou do destino ficam de fora e são devolvidos
+ * para o caminho individual de {@link DeliveryMovementService#simularMovimento}, que valida o pedido e
+ * calcula a rota. Entregadores que estão enviando posições reais por {@link IngestaoPosicoesService} não
+ * são movidos.
+ *
+ * <p>Um erro ao mover um pedido é contado e não interrompe o lote, de modo que {@link #simularLote()} só
+ * lança exceção antes de mover qualquer entregador e quem chama pode repetir o tick pelo caminho
+ * individual sem mover ninguém duas vezes.
+ */
+@Service
+public class DeliveryBatchMovementService {
+
+    private static final Logger logger = Logger.getLogger(DeliveryBatchMovementService.class.getName());
+
+    /**
+     * Quantos pedidos foram movidos em lote, quantos falharam e quais precisam do caminho individual.
+     */
+    public record ResultadoLote(int movidos, int falhas, List<Long> individuais) {
+    }
+
+    private final PedidoRepository pedidoRepository;
+    private final ActiveRouteRegistry activeRouteRegistry;
+    private final DeliveryMovementService deliveryMovementService;
+    private final CourierPositionStore courierPositionStore;
+    private final PosicaoHistoricoService posicaoHistoricoService;
+    private final RastreamentoPublisher rastreamentoPublisher;
+    private final IngestaoPosicoesService ingestaoPosicoesService;
+
+    public DeliveryBatchMovementService(PedidoRepository pedidoRepository,
+                                        ActiveRouteRegistry activeRouteRegistry,
+                                        DeliveryMovementService deliveryMovementService,
+                                        CourierPositionStore courierPositionStore,
+                                        PosicaoHistoricoService posicaoHistoricoService,
+                                        RastreamentoPublisher rastreamentoPublisher,
+                                        IngestaoPosicoesService ingestaoPosicoesService) {
+        this.pedidoRepository = pedidoRepository;
+        this.activeRouteRegistry = activeRouteRegistry;
+        this.deliveryMovementService = deliveryMovementService;
+        this.courierPositionStore = courierPositionStore;
+        this.posicaoHistoricoService = posicaoHistoricoService;
+        this.rastreamentoPublisher = rastreamentoPublisher;
+        this.ingestaoPosicoesService = ingestaoPosicoesService;
+    }
+
+    @Transactional
+    public ResultadoLote simularLote() {
+        List<PedidoEmEntregaResumo> pedidos = pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY);
+        if (pedidos.isEmpty()) {
+            return new ResultadoLote(0, 0, List.of());
+        }
+        activeRouteRegistry.carregar(pedidos.stream()
+                .filter(pedido -> pedido.getRotaId() != null)
+                .map(PedidoEmEntregaResumo::getPedidoId)
+                .toList());
+
+        int movidos = 0;
+        int falhas = 0;
+        List<Long> individuais = new ArrayList<>();
+        for (PedidoEmEntregaResumo pedido : pedidos) {
+            if (ingestaoPosicoesService.recebendoGps(pedido.getEntregadorId())) {
+                // A posição vem do aparelho do entregador, tenha ou não rota em memória
+                continue;
+            }
+            Optional<RotaAtiva> rota = temCoordenadas(pedido)
+                    ? activeRouteRegistry.obterEmMemoria(pedido.getPedidoId())
+                    : Optional.empty();
+            if (rota.isEmpty()) {
+                individuais.add(pedido.getPedidoId());
+                continue;
+            }
+            try {
+                mover(pedido, rota.get());
+                movidos++;
+            } catch (RuntimeException e) {
+                falhas++;
+                logger.warning("Erro ao mover em lote o pedido " + pedido.getPedidoId() + ": " + e.getMessage());
+            }
+        }
+
+        if (movidos > 0) {
+            activeRouteRegistry.gravarIndicesPendentes();
+        }
+        logger.fine("Simulação em lote: " + movidos + " entregadores movidos, "
+                + individuais.size() + " pedidos para o caminho individual");
+        return new ResultadoLote(movidos, falhas, individuais);
+    }
+
+    private void mover(PedidoEmEntregaResumo pedido, RotaAtiva rota) {
+        MotorMovimento.Posicao posicao = posicaoAtual(pedido);
+        double destinoLat = pedido.getDestinoLatitude().doubleValue();
+        double destinoLon = pedido.getDestinoLongitude().doubleValue();
+        boolean chegou = deliveryMovementService.avancarPelaRota(rota, posicao, pedido.getTipoVeiculo(), destinoLat, destinoLon);
+
+        if (chegou) {
+            posicao.definir(destinoLat, destinoLon);
+        }
+        courierPositionStore.atualizar(pedido.getEntregadorId(), posicao.getLatitude(), posicao.getLongitude());
+        posicaoHistoricoService.registrar(pedido.getPedidoId(), pedido.getEntregadorId(), posicao.getLatitude(), posicao.getLongitude());
+        rastreamentoPublisher.notificarMovimento(pedido.getPedidoId());
+    }
+
+    private MotorMovimento.Posicao posicaoAtual(PedidoEmEntregaResumo pedido) {
+        return courierPositionStore.obter(pedido.getEntregadorId())
+                .map(posicao -> new MotorMovimento.Posicao(posicao.latitude(), posicao.longitude()))
+                .orElseGet(() -> new MotorMovimento.Posicao(
+                        pedido.getEntregadorLatitude().doubleValue(), pedido.getEntregadorLongitude().doubleValue()));
+    }
+
+    private boolean temCoordenadas(PedidoEmEntregaResumo pedido) {
+        return pedido.getRotaId() != null
+                && pedido.getEntregadorLatitude() != null && pedido.getEntregadorLongitude() != null
+                && pedido.getDestinoLatitude() != null && pedido.getDestinoLongitude() != null;
+    }
+}
@@ -1,20 +1,21 @@
 package com.siseg.service;
 
-import java.math.BigDecimal;
-import java.util.List;
-import java.util.Optional;
 import java.util.logging.Logger;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.exception.ResourceNotFoundException;
 import com.siseg.model.Entregador;
 import com.siseg.model.Pedido;
-import com.siseg.model.RotaEntrega;
+import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.PedidoRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
+import com.siseg.service.routing.MotorMovimento;
+import com.siseg.service.routing.RotaAtiva;
 import com.siseg.util.DistanceCalculator;
 import com.siseg.util.VehicleConstants;
 import com.siseg.validator.PedidoValidator;
@@ -23,21 +24,31 @@ import com.siseg.validator.PedidoValidator;
 public class DeliveryMovementService {
     
     private static final Logger logger = Logger.getLogger(DeliveryMovementService.class.getName());
-    private static final BigDecimal DISTANCIA_PROXIMO_DESTINO = new BigDecimal("0.01");
+    // A comparação antiga arredondava a distância para 0,01 km antes de comparar com 0,01
+    private static final double DISTANCIA_PROXIMO_DESTINO_KM = 0.015;
     
     private final PedidoRepository pedidoRepository;
     private final EntregadorRepository entregadorRepository;
     private final RouteService routeService;
     private final PedidoValidator pedidoValidator;
+    private final CourierPositionStore courierPositionStore;
+    private final PosicaoHistoricoService posicaoHistoricoService;
+    private final RastreamentoPublisher rastreamentoPublisher;
     
     public DeliveryMovementService(PedidoRepository pedidoRepository,
                                   EntregadorRepository entregadorRepository,
                                   RouteService routeService,
-                                  PedidoValidator pedidoValidator) {
+                                  PedidoValidator pedidoValidator,
+                                  CourierPositionStore courierPositionStore,
+                                  PosicaoHistoricoService posicaoHistoricoService,
+                                  RastreamentoPublisher rastreamentoPublisher) {
         this.pedidoRepository = pedidoRepository;
         this.entregadorRepository = entregadorRepository;
         this.routeService = routeService;
         this.pedidoValidator = pedidoValidator;
+        this.courierPositionStore = courierPositionStore;
+        this.posicaoHistoricoService = posicaoHistoricoService;
+        this.rastreamentoPublisher = rastreamentoPublisher;
     }
     
     @Transactional
@@ -47,12 +58,13 @@ public class DeliveryMovementService {
         
         inicializarRotaSeNecessario(pedido, entregador);
         
-        if (verificarChegadaAoDestino(pedido, entregador)) {
+        MotorMovimento.Posicao posicao = posicaoAtual(entregador);
+        if (verificarChegadaAoDestino(pedido, posicao)) {
             posicionarNoDestino(entregador, pedido);
             return;
         }
         
-        moverParaProximoWaypoint(entregador, pedido);
+        moverParaProximoWaypoint(entregador, pedido, posicao);
     }
     
     private Pedido buscarPedidoParaSimulacao(Long pedidoId) {
@@ -72,9 +84,7 @@ public class DeliveryMovementService {
     }
     
     private void inicializarRotaSeNecessario(Pedido pedido, Entregador entregador) {
-        Optional<RotaEntrega> rotaExistente = routeService.obterRota(pedido.getId());
-        
-        if (rotaExistente.isEmpty()) {
+        if (!routeService.possuiRota(pedido.getId())) {
             logger.info("Calculando rota para pedido " + pedido.getId());
             
             if (pedido.getRestaurante() != null) {
@@ -85,6 +95,7 @@ public class DeliveryMovementService {
                     entregador.setLatitude(enderecoRestaurante.get().getLatitude());
                     entregador.setLongitude(enderecoRestaurante.get().getLongitude());
                     entregadorRepository.save(entregador);
+                    courierPositionStore.registrarPersistida(entregador.getId(), entregador.getLatitude(), entregador.getLongitude());
                     logger.info("Posição do entregador definida com coordenadas do restaurante para iniciar entrega");
                 } else {
                     throw new IllegalStateException("Não é possível calcular rota: restaurante sem coordenadas");
@@ -97,99 +108,104 @@ public class DeliveryMovementService {
         }
     }
     
-    private void moverParaProximoWaypoint(Entregador entregador, Pedido pedido) {
-        List<Coordinates> waypointsRestantes = routeService.obterWaypointsRestantes(pedido.getId());
-        
-        if (waypointsRestantes.isEmpty()) {
+    /**
+     * Um passo da simulação sobre a rota ativa, sem acesso ao banco. Devolve {@code true} quando o
+     * entregador chegou ao destino; nesse caso a posição deve ser substituída pelo endereço de entrega.
+     */
+    public boolean avancarPelaRota(RotaAtiva rota, MotorMovimento.Posicao posicao, TipoVeiculo tipoVeiculo,
+                                   double destinoLat, double destinoLon) {
+        if (rota.isCompleta() && estaProximoDoDestino(posicao.getLatitude(), posicao.getLongitude(), destinoLat, destinoLon)) {
+            return true;
+        }
+        if (rota.getTotalWaypoints() == 0) {
+            return true;
+        }
+        rota.mover(posicao, calcularDistanciaPorIteracao(calcularVelocidade(tipoVeiculo)));
+        return posicao.isChegouAoFim();
+    }
+    
+    /**
+     * Move o entregador pela rota ativa com a posição em {@code double}; o resultado vai para o
+     * {@link CourierPositionStore}, que grava no banco em lote.
+     */
+    private void moverParaProximoWaypoint(Entregador entregador, Pedido pedido, MotorMovimento.Posicao posicao) {
+        RotaAtiva rota = routeService.obterRotaAtiva(pedido.getId());
+        
+        if (rota.getTotalWaypoints() == 0) {
             posicionarNoDestino(entregador, pedido);
             return;
         }
         
-        double velocidadeKmh = calcularVelocidade(entregador);
+        double velocidadeKmh = calcularVelocidade(entregador.getTipoVeiculo());
         double distanciaPorIteracaoKm = calcularDistanciaPorIteracao(velocidadeKmh);
         
-        BigDecimal posicaoAtualLat = entregador.getLatitude();
-        BigDecimal posicaoAtualLon = entregador.getLongitude();
-        BigDecimal distanciaRestante = BigDecimal.valueOf(distanciaPorIteracaoKm);
+        int waypointsAvancados = rota.mover(posicao, distanciaPorIteracaoKm);
         
-        int waypointsAvancados = 0;
-        
-        for (int i = 0; i < waypointsRestantes.size() && distanciaRestante.compareTo(BigDecimal.ZERO) > 0; i++) {
-            Coordinates waypoint = waypointsRestantes.get(i);
-            BigDecimal distanciaAteWaypoint = calcularDistancia(
-                posicaoAtualLat, posicaoAtualLon,
-                waypoint.getLatitude(), waypoint.getLongitude()
-            );
-            
-            if (distanciaAteWaypoint == null || distanciaAteWaypoint.compareTo(BigDecimal.ZERO) <= 0) {
-                posicaoAtualLat = waypoint.getLatitude();
-                posicaoAtualLon = waypoint.getLongitude();
-                waypointsAvancados++;
-                distanciaRestante = distanciaRestante.subtract(distanciaAteWaypoint != null ? distanciaAteWaypoint : BigDecimal.ZERO);
-            } else if (distanciaAteWaypoint.compareTo(distanciaRestante) <= 0) {
-                posicaoAtualLat = waypoint.getLatitude();
-                posicaoAtualLon = waypoint.getLongitude();
-                waypointsAvancados++;
-                distanciaRestante = distanciaRestante.subtract(distanciaAteWaypoint);
-            } else {
-                double percentualProgresso = distanciaRestante.doubleValue() / distanciaAteWaypoint.doubleValue();
-                posicaoAtualLat = posicaoAtualLat.add(
-                    waypoint.getLatitude().subtract(posicaoAtualLat)
-                        .multiply(BigDecimal.valueOf(percentualProgresso))
-                );
-                posicaoAtualLon = posicaoAtualLon.add(
-                    waypoint.getLongitude().subtract(posicaoAtualLon)
-                        .multiply(BigDecimal.valueOf(percentualProgresso))
-                );
-                distanciaRestante = BigDecimal.ZERO;
-                break;
-            }
+        if (posicao.isChegouAoFim()) {
+            posicionarNoDestino(entregador, pedido);
+            return;
         }
         
-        entregador.setLatitude(posicaoAtualLat);
-        entregador.setLongitude(posicaoAtualLon);
-        entregadorRepository.save(entregador);
+        courierPositionStore.atualizar(entregador.getId(), posicao.getLatitude(), posicao.getLongitude());
+        posicaoHistoricoService.registrar(pedido.getId(), entregador.getId(), posicao.getLatitude(), posicao.getLongitude());
+        rastreamentoPublisher.notificarMovimento(pedido.getId());
         
-        // Avançar waypoints se necessário
         if (waypointsAvancados > 0) {
-            routeService.avancarWaypoints(pedido.getId(), waypointsAvancados);
-            logger.info(String.format(
+            logger.fine(String.format(
                 "Entregador avançou %d waypoint(s) do pedido %d (Velocidade: %.1f km/h, Distância percorrida: %.4f km)",
                 waypointsAvancados, pedido.getId(), velocidadeKmh, distanciaPorIteracaoKm
             ));
         } else {
-            logger.info(String.format(
+            logger.fine(String.format(
                 "Simulação de movimento - Pedido %d: Entregador movido parcialmente (Velocidade: %.1f km/h, Distância percorrida: %.4f km)",
                 pedido.getId(), velocidadeKmh, distanciaPorIteracaoKm
             ));
         }
     }
     
+    /**
+     * Posição atual do entregador: a do {@link CourierPositionStore} ou, se ele ainda não estiver lá, a
+     * última gravada na entidade.
+     */
+    private MotorMovimento.Posicao posicaoAtual(Entregador entregador) {
+        var emMemoria = courierPositionStore.obter(entregador.getId());
+        if (emMemoria.isPresent()) {
+            return new MotorMovimento.Posicao(emMemoria.get().latitude(), emMemoria.get().longitude());
+        }
+        if (entregador.getLatitude() == null || entregador.getLongitude() == null) {
+            throw new IllegalStateException("Entregador " + entregador.getId() + " sem coordenadas para simulação");
+        }
+        return new MotorMovimento.Posicao(entregador.getLatitude().doubleValue(), entregador.getLongitude().doubleValue());
+    }
     
-    private boolean verificarChegadaAoDestino(Pedido pedido, Entregador entregador) {
+    private boolean verificarChegadaAoDestino(Pedido pedido, MotorMovimento.Posicao posicao) {
         if (routeService.isRotaCompleta(pedido.getId()) && pedido.getEnderecoEntrega() != null) {
-            BigDecimal distancia = calcularDistancia(
-                entregador.getLatitude(), entregador.getLongitude(),
-                pedido.getEnderecoEntrega().getLatitude(), pedido.getEnderecoEntrega().getLongitude()
+            return estaProximoDoDestino(
+                posicao.getLatitude(), posicao.getLongitude(),
+                pedido.getEnderecoEntrega().getLatitude().doubleValue(), pedido.getEnderecoEntrega().getLongitude().doubleValue()
             );
-            
-            return distancia != null && distancia.compareTo(DISTANCIA_PROXIMO_DESTINO) <= 0;
         }
         
         return false;
     }
     
+    private boolean estaProximoDoDestino(double latitude, double longitude, double destinoLat, double destinoLon) {
+        return DistanceCalculator.haversineKm(latitude, longitude, destinoLat, destinoLon) <= DISTANCIA_PROXIMO_DESTINO_KM;
+    }
+    
     private void posicionarNoDestino(Entregador entregador, Pedido pedido) {
         if (pedido.getEnderecoEntrega() != null) {
-            entregador.setLatitude(pedido.getEnderecoEntrega().getLatitude());
-            entregador.setLongitude(pedido.getEnderecoEntrega().getLongitude());
-            entregadorRepository.save(entregador);
+            courierPositionStore.atualizar(entregador.getId(),
+                pedido.getEnderecoEntrega().getLatitude(), pedido.getEnderecoEntrega().getLongitude());
+            posicaoHistoricoService.registrar(pedido.getId(), entregador.getId(),
+                pedido.getEnderecoEntrega().getLatitude().doubleValue(), pedido.getEnderecoEntrega().getLongitude().doubleValue());
+            rastreamentoPublisher.notificarMovimento(pedido.getId());
             logger.info("Entregador chegou ao destino do pedido " + pedido.getId());
         }
     }
     
-    private double calcularVelocidade(Entregador entregador) {
-        double velocidadeBaseKmh = VehicleConstants.getVelocidadeMediaKmh(entregador.getTipoVeiculo());
+    private double calcularVelocidade(TipoVeiculo tipoVeiculo) {
+        double velocidadeBaseKmh = VehicleConstants.getVelocidadeMediaKmh(tipoVeiculo);
         
         double variacao = (Math.random() * VehicleConstants.FATOR_VARIACAO_VELOCIDADE) 
                          - VehicleConstants.FATOR_DESVIO_VELOCIDADE;
@@ -206,13 +222,5 @@ public class DeliveryMovementService {
                                * VehicleConstants.INTERVALO_SIMULACAO_SEGUNDOS;
         return distanciaBase * VehicleConstants.FATOR_ACELERACAO_SIMULACAO;
     }
-    
-    private BigDecimal calcularDistancia(BigDecimal lat1, BigDecimal lon1, BigDecimal lat2, BigDecimal lon2) {
-        BigDecimal distancia = DistanceCalculator.calculateDistance(lat1, lon1, lat2, lon2);
-        if (distancia != null) {
-            return distancia.setScale(4, java.math.RoundingMode.HALF_UP);
-        }
-        return null;
-    }
 }
 
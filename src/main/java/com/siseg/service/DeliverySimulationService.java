@@ -1,50 +1,271 @@
 package com.siseg.service;
 
+import com.siseg.dto.rastreamento.SimulacaoEntregasEstatisticasDTO;
 import com.siseg.model.Pedido;
 import com.siseg.model.enumerations.StatusPedido;
 import com.siseg.repository.PedidoRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
+/**
+ * Tick da simulação de entregas. Primeiro todos os pedidos com rota em memória são movidos em lote por
+ * {@link DeliveryBatchMovementService}, com uma consulta e um {@code UPDATE} em lote por tick. Os que
+ * restam (sem rota calculada ou sem coordenadas) seguem pelo caminho individual: são divididos em
+ * partições de {@value #TAMANHO_PARTICAO} que os workers de um pool fixo vão retirando até acabarem ou
+ * até o prazo do tick vencer; os pedidos que sobram ficam para o próximo tick, que começa pela primeira
+ * partição não concluída, para que os do fim da lista não fiquem sempre de fora. O pool tem por padrão
+ * metade das conexões do pool do banco, já que cada movimento abre uma transação, e deixa o restante
+ * para as requisições HTTP.
+ *
+ * <p>O agendamento só dispara o tick numa thread coordenadora; se o tick anterior ainda estiver rodando,
+ * o novo é pulado em vez de enfileirado.
+ */
 @Component
 public class DeliverySimulationService {
-    
+
     private static final Logger logger = Logger.getLogger(DeliverySimulationService.class.getName());
-    
+    private static final int TAMANHO_PARTICAO = 32;
+
     private final PedidoRepository pedidoRepository;
     private final DeliveryMovementService deliveryMovementService;
-    
-    public DeliverySimulationService(PedidoRepository pedidoRepository, DeliveryMovementService deliveryMovementService) {
+    private final DeliveryBatchMovementService deliveryBatchMovementService;
+    private final int threads;
+    private final long prazoTickMs;
+    private final ExecutorService workers;
+    private final ExecutorService coordenador;
+
+    private final AtomicBoolean emExecucao = new AtomicBoolean();
+    private final LongAdder ticksExecutados = new LongAdder();
+    private final LongAdder ticksPulados = new LongAdder();
+    private final LongAdder duracaoTotalTicksMs = new LongAdder();
+    private final LongAdder pedidosProcessados = new LongAdder();
+    private final LongAdder pedidosComErro = new LongAdder();
+    private final LongAdder pedidosAdiados = new LongAdder();
+    private volatile long duracaoUltimoTickMs;
+    private volatile long duracaoMaximaTickMs;
+    private volatile int ultimoTickProcessados;
+    private volatile int ultimoTickAdiados;
+    // Partição pela qual o próximo tick começa; só o tick em execução a lê e escreve
+    private volatile int particaoInicial;
+
+    public DeliverySimulationService(PedidoRepository pedidoRepository,
+                                     DeliveryMovementService deliveryMovementService,
+                                     DeliveryBatchMovementService deliveryBatchMovementService,
+                                     @Value("${simulacao.entregas.threads:0}") int threads,
+                                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanhoPoolConexoes,
+                                     @Value("${simulacao.entregas.deadlineMs:8000}") long prazoTickMs) {
         this.pedidoRepository = pedidoRepository;
         this.deliveryMovementService = deliveryMovementService;
+        this.deliveryBatchMovementService = deliveryBatchMovementService;
+        this.threads = threads > 0 ? threads : Math.max(1, tamanhoPoolConexoes / 2);
+        this.prazoTickMs = prazoTickMs;
+        this.workers = Executors.newFixedThreadPool(this.threads, threadsNomeadas("simulacao-entregas-"));
+        this.coordenador = Executors.newSingleThreadExecutor(threadsNomeadas("simulacao-entregas-tick-"));
     }
-    
+
     @Scheduled(fixedRate = 10000)
     public void simularEntregasAtivas() {
-        List<Pedido> pedidosEmEntrega = pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY);
-        
-        if (pedidosEmEntrega.isEmpty()) {
+        if (!emExecucao.compareAndSet(false, true)) {
+            ticksPulados.increment();
+            logger.warning("Tick da simulação de entregas pulado: o anterior ainda está em execução");
             return;
         }
-        
-        int pedidosProcessados = 0;
+        coordenador.execute(() -> {
+            try {
+                executarTick();
+            } catch (Exception e) {
+                logger.warning("Erro no tick da simulação de entregas: " + e.getMessage());
+            } finally {
+                emExecucao.set(false);
+            }
+        });
+    }
+
+    /**
+     * Executa um tick completo na thread atual, esperando os workers terminarem.
+     */
+    public void executarTick() {
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(prazoTickMs);
+
+        int movidosEmLote = 0;
+        List<Long> pedidoIds;
+        try {
+            DeliveryBatchMovementService.ResultadoLote lote = deliveryBatchMovementService.simularLote();
+            movidosEmLote = lote.movidos();
+            pedidosComErro.add(lote.falhas());
+            pedidoIds = lote.individuais();
+        } catch (Exception e) {
+            // O lote só falha antes de mover algum entregador, então todos podem seguir pelo caminho individual
+            logger.warning("Erro na simulação em lote, usando o caminho individual: " + e.getMessage());
+            pedidoIds = buscarPedidosParaSimular();
+        }
+        if (pedidoIds.isEmpty()) {
+            if (movidosEmLote > 0) {
+                registrarTick(inicio, movidosEmLote, 0);
+            }
+            return;
+        }
+
+        int particoes = (pedidoIds.size() + TAMANHO_PARTICAO - 1) / TAMANHO_PARTICAO;
+        Particoes rodada = new Particoes(pedidoIds, particoes, particaoInicial % particoes, limite);
+        int quantidadeWorkers = Math.min(threads, particoes);
+
+        List<Future<?>> tarefas = new ArrayList<>(quantidadeWorkers);
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            tarefas.add(workers.submit(rodada::processar));
+        }
+        aguardar(tarefas);
+
+        int primeiraIncompleta = rodada.primeiraIncompleta.get();
+        particaoInicial = primeiraIncompleta < particoes ? (rodada.deslocamento + primeiraIncompleta) % particoes : 0;
+        int processados = rodada.processados.get();
+        int adiados = pedidoIds.size() - processados - rodada.erros.get();
+        registrarTick(inicio, movidosEmLote + processados, adiados);
+    }
+
+    public SimulacaoEntregasEstatisticasDTO obterEstatisticas() {
+        long executados = ticksExecutados.sum();
+        return new SimulacaoEntregasEstatisticasDTO(
+                threads,
+                prazoTickMs,
+                executados,
+                ticksPulados.sum(),
+                duracaoUltimoTickMs,
+                duracaoMaximaTickMs,
+                executados > 0 ? (double) duracaoTotalTicksMs.sum() / executados : 0,
+                pedidosProcessados.sum(),
+                pedidosComErro.sum(),
+                pedidosAdiados.sum(),
+                ultimoTickProcessados,
+                ultimoTickAdiados
+        );
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        coordenador.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private List<Long> buscarPedidosParaSimular() {
+        List<Pedido> pedidosEmEntrega = pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY);
+        List<Long> pedidoIds = new ArrayList<>(pedidosEmEntrega.size());
         for (Pedido pedido : pedidosEmEntrega) {
             if (pedido.getEntregador() != null) {
-                try {
-                    deliveryMovementService.simularMovimento(pedido.getId());
-                    pedidosProcessados++;
-                } catch (Exception e) {
-                    logger.warning("Erro ao simular movimento para pedido " + pedido.getId() + ": " + e.getMessage());
+                pedidoIds.add(pedido.getId());
+            }
+        }
+        return pedidoIds;
+    }
+
+    /**
+     * Partições de um tick, retiradas pelos workers a partir de {@code deslocamento}. Guarda, na ordem em
+     * que foram retiradas, a primeira partição interrompida pelo prazo.
+     */
+    private final class Particoes {
+
+        private final List<Long> pedidoIds;
+        private final int total;
+        private final int deslocamento;
+        private final long limite;
+        private final AtomicInteger proxima = new AtomicInteger();
+        private final AtomicInteger primeiraIncompleta;
+        private final AtomicInteger processados = new AtomicInteger();
+        private final AtomicInteger erros = new AtomicInteger();
+
+        private Particoes(List<Long> pedidoIds, int total, int deslocamento, long limite) {
+            this.pedidoIds = pedidoIds;
+            this.total = total;
+            this.deslocamento = deslocamento;
+            this.limite = limite;
+            this.primeiraIncompleta = new AtomicInteger(total);
+        }
+
+        private void processar() {
+            int ordem;
+            while ((ordem = proxima.getAndIncrement()) < total) {
+                int particao = (deslocamento + ordem) % total;
+                int fim = Math.min((particao + 1) * TAMANHO_PARTICAO, pedidoIds.size());
+                for (int i = particao * TAMANHO_PARTICAO; i < fim; i++) {
+                    if (System.nanoTime() - limite > 0) {
+                        primeiraIncompleta.accumulateAndGet(ordem, Math::min);
+                        return;
+                    }
+                    if (simular(pedidoIds.get(i))) {
+                        processados.incrementAndGet();
+                    } else {
+                        erros.incrementAndGet();
+                    }
                 }
             }
         }
-        
-        if (pedidosProcessados > 0) {
-            logger.info("Simulação de entregas: " + pedidosProcessados + " pedidos processados");
+    }
+
+    private boolean simular(Long pedidoId) {
+        try {
+            deliveryMovementService.simularMovimento(pedidoId);
+            return true;
+        } catch (Exception e) {
+            pedidosComErro.increment();
+            logger.warning("Erro ao simular movimento para pedido " + pedidoId + ": " + e.getMessage());
+            return false;
         }
     }
-}
 
+    private void aguardar(List<Future<?>> tarefas) {
+        for (Future<?> tarefa : tarefas) {
+            try {
+                tarefa.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.warning("Erro em worker da simulação de entregas: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    private void registrarTick(long inicio, int processados, int adiados) {
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        ticksExecutados.increment();
+        duracaoTotalTicksMs.add(duracaoMs);
+        duracaoUltimoTickMs = duracaoMs;
+        duracaoMaximaTickMs = Math.max(duracaoMaximaTickMs, duracaoMs);
+        pedidosProcessados.add(processados);
+        pedidosAdiados.add(adiados);
+        ultimoTickProcessados = processados;
+        ultimoTickAdiados = adiados;
+
+        if (adiados > 0) {
+            logger.warning(String.format("Simulação de entregas: prazo de %d ms esgotado, %d pedidos processados e %d adiados",
+                    prazoTickMs, processados, adiados));
+        } else {
+            logger.fine("Simulação de entregas: " + processados + " pedidos processados em " + duracaoMs + " ms");
+        }
+    }
+
+    private static ThreadFactory threadsNomeadas(String prefixo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
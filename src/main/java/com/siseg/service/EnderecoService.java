@@ -8,10 +8,12 @@ import com.siseg.mapper.EnderecoMapper;
 import com.siseg.model.Cliente;
 import com.siseg.model.Endereco;
 import com.siseg.model.Restaurante;
+import com.siseg.model.enumerations.StatusGeocodificacao;
 import com.siseg.model.enumerations.TipoEndereco;
 import com.siseg.repository.ClienteRepository;
 import com.siseg.repository.EnderecoRepository;
 import com.siseg.repository.RestauranteRepository;
+import com.siseg.service.geocoding.GeocodingOutboxService;
 import com.siseg.validator.EnderecoValidator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,16 +31,19 @@ public class EnderecoService {
     private final EnderecoMapper enderecoMapper;
     private final ClienteRepository clienteRepository;
     private final RestauranteRepository restauranteRepository;
+    private final GeocodingOutboxService geocodingOutboxService;
     
     public EnderecoService(EnderecoRepository enderecoRepository, EnderecoValidator enderecoValidator, 
                           GeocodingService geocodingService, EnderecoMapper enderecoMapper,
-                          ClienteRepository clienteRepository, RestauranteRepository restauranteRepository) {
+                          ClienteRepository clienteRepository, RestauranteRepository restauranteRepository,
+                          GeocodingOutboxService geocodingOutboxService) {
         this.enderecoRepository = enderecoRepository;
         this.enderecoValidator = enderecoValidator;
         this.geocodingService = geocodingService;
         this.enderecoMapper = enderecoMapper;
         this.clienteRepository = clienteRepository;
         this.restauranteRepository = restauranteRepository;
+        this.geocodingOutboxService = geocodingOutboxService;
     }
     
     @Transactional
@@ -59,8 +64,8 @@ public class EnderecoService {
         }
         
         Endereco saved = enderecoRepository.save(endereco);
-        geocodingService.geocodeAddress(saved);
-        return enderecoRepository.save(saved);
+        geocodingOutboxService.enfileirar(saved);
+        return saved;
     }
     
     @Transactional
@@ -81,8 +86,8 @@ public class EnderecoService {
         }
         
         Endereco saved = enderecoRepository.save(endereco);
-        geocodingService.geocodeAddress(saved);
-        return enderecoRepository.save(saved);
+        geocodingOutboxService.enfileirar(saved);
+        return saved;
     }
     
     @Transactional
@@ -125,9 +130,16 @@ public class EnderecoService {
         return enderecoRepository.findByIdAndClienteId(enderecoId, clienteId);
     }
     
+    /**
+     * Geocodifica de forma síncrona, para quando as coordenadas são necessárias na hora (ex.: checkout)
+     * e a fila de geocodificação ainda não as obteve.
+     */
     @Transactional
     public Endereco geocodificarESalvar(Endereco endereco) {
         geocodingService.geocodeAddress(endereco);
+        if (endereco.getLatitude() != null && endereco.getLongitude() != null) {
+            endereco.setStatusGeocodificacao(StatusGeocodificacao.CONCLUIDA);
+        }
         return enderecoRepository.save(endereco);
     }
     
@@ -259,8 +271,7 @@ public class EnderecoService {
         
        
         if (enderecoAlterado && (saved.getLatitude() == null || saved.getLongitude() == null)) {
-            geocodingService.geocodeAddress(saved);
-            saved = enderecoRepository.save(saved);
+            geocodingOutboxService.enfileirar(saved);
         }
         
         return enderecoMapper.toResponseDTO(saved);
@@ -296,8 +307,7 @@ public class EnderecoService {
         
        
         if (enderecoAlterado && (saved.getLatitude() == null || saved.getLongitude() == null)) {
-            geocodingService.geocodeAddress(saved);
-            saved = enderecoRepository.save(saved);
+            geocodingOutboxService.enfileirar(saved);
         }
         
         return enderecoMapper.toResponseDTO(saved);
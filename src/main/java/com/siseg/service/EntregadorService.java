@@ -14,6 +14,7 @@ import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.RoleRepository;
 import com.siseg.repository.UserRepository;
 import com.siseg.mapper.EntregadorMapper;
+import com.siseg.service.rastreamento.CourierPositionStore;
 import com.siseg.util.SecurityUtils;
 import com.siseg.validator.EntregadorValidator;
 import org.modelmapper.ModelMapper;
@@ -43,11 +44,12 @@ public class EntregadorService {
     private final ModelMapper modelMapper;
     private final EntregadorMapper entregadorMapper;
     private final EntregadorValidator entregadorValidator;
+    private final CourierPositionStore courierPositionStore;
 
     public EntregadorService(EntregadorRepository entregadorRepository, UserRepository userRepository,
                             RoleRepository roleRepository, PasswordEncoder passwordEncoder, 
                             ModelMapper modelMapper, EntregadorMapper entregadorMapper,
-                            EntregadorValidator entregadorValidator) {
+                            EntregadorValidator entregadorValidator, CourierPositionStore courierPositionStore) {
         this.entregadorRepository = entregadorRepository;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
@@ -55,6 +57,7 @@ public class EntregadorService {
         this.modelMapper = modelMapper;
         this.entregadorMapper = entregadorMapper;
         this.entregadorValidator = entregadorValidator;
+        this.courierPositionStore = courierPositionStore;
     }
 
     public EntregadorResponseDTO criarEntregador(EntregadorRequestDTO dto) {
@@ -171,6 +174,9 @@ public class EntregadorService {
         entregador.setAtualizadoEm(Instant.now());
         
         Entregador saved = entregadorRepository.save(entregador);
+        if (dto.getLatitude() != null || dto.getLongitude() != null) {
+            courierPositionStore.registrarPersistida(saved.getId(), saved.getLatitude(), saved.getLongitude());
+        }
         return entregadorMapper.toResponseDTO(saved, saved.getUser().getId());
     }
 
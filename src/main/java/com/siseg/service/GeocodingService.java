@@ -1,13 +1,11 @@
 package com.siseg.service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -16,51 +14,70 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import com.siseg.dto.EnderecoCepResponseDTO;
 import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.dto.geocoding.LocationIQResponse;
-import com.siseg.dto.geocoding.OsrmRoute;
-import com.siseg.dto.geocoding.OsrmRouteResponse;
 import com.siseg.dto.geocoding.RouteResult;
+import com.siseg.dto.geocoding.SingleFlightEstatisticasDTO;
 import com.siseg.dto.geocoding.ViaCepResponse;
+import com.siseg.exception.RateLimitExceededException;
 import com.siseg.model.Endereco;
 import com.siseg.model.enumerations.TipoVeiculo;
-import com.siseg.util.PolylineDecoder;
+import com.siseg.service.geocoding.CepDiretorioService;
+import com.siseg.service.geocoding.GeocodingCacheService;
+import com.siseg.service.geocoding.RotaCacheService;
+import com.siseg.service.geocoding.RotaChave;
+import com.siseg.service.routing.RoutingEngine;
+import com.siseg.util.FalhasTransitorias;
+import com.siseg.util.SingleFlight;
+import com.siseg.util.TokenBucketRateLimiter;
 import com.siseg.util.VehicleConstants;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 @Service
 public class GeocodingService {
     
     private static final Logger logger = Logger.getLogger(GeocodingService.class.getName());
+    private static final int TENTATIVAS_EXTRAS_GEOCODING = 1;
+    private static final Duration ATRASO_RETRY_GEOCODING = Duration.ofMillis(500);
     
     private final WebClient locationIQClient;
     private final WebClient viacepClient;
-    private final WebClient osrmClient;
-    private final Map<String, Coordinates> cache = new ConcurrentHashMap<>();
-    
-    private volatile long lastRequestTime = 0;
-    
-    private final int osrmTimeout;
-    private final int osrmMaxRetries;
-    private final long osrmRetryDelay;
+    private final GeocodingCacheService geocodingCacheService;
+    private final CepDiretorioService cepDiretorioService;
+    private final RotaCacheService rotaCacheService;
+    private final TokenBucketRateLimiter locationIQRateLimiter;
+    private final RoutingEngine routingEngine;
+    
+    private final SingleFlight<String, Coordinates> geocodificacoesEmAndamento = new SingleFlight<>("locationiq");
+    private final SingleFlight<String, EnderecoCepResponseDTO> consultasCepEmAndamento = new SingleFlight<>("viacep");
+    private final SingleFlight<RotaChave, RouteResult> rotasEmAndamento = new SingleFlight<>("rotas");
+    
+    private final int locationIQTimeout;
+    private final int viacepTimeout;
     private final String locationIQApiKey;
-    private final long locationIQRateLimitMs;
     
     public GeocodingService(@Value("${geocoding.locationiq.baseUrl}") String locationIQBaseUrl,
                            @Value("${geocoding.locationiq.apiKey}") String locationIQApiKey,
+                           @Value("${geocoding.locationiq.timeout:10000}") int locationIQTimeout,
                            @Value("${geocoding.viacep.baseUrl}") String viacepBaseUrl,
-                           @Value("${geocoding.osrm.baseUrl}") String osrmBaseUrl,
-                           @Value("${geocoding.osrm.timeout:5000}") int osrmTimeout,
-                           @Value("${geocoding.osrm.retry.maxAttempts:3}") int osrmMaxRetries,
-                           @Value("${geocoding.osrm.retry.delay:1000}") long osrmRetryDelay,
-                           @Value("${geocoding.locationiq.rateLimitMs:200}") long locationIQRateLimitMs) {
-        this.osrmTimeout = osrmTimeout;
-        this.osrmMaxRetries = osrmMaxRetries;
-        this.osrmRetryDelay = osrmRetryDelay;
+                           @Value("${geocoding.viacep.timeout:5000}") int viacepTimeout,
+                           GeocodingCacheService geocodingCacheService,
+                           CepDiretorioService cepDiretorioService,
+                           RotaCacheService rotaCacheService,
+                           TokenBucketRateLimiter locationIQRateLimiter,
+                           RoutingEngine routingEngine) {
+        this.geocodingCacheService = geocodingCacheService;
+        this.cepDiretorioService = cepDiretorioService;
+        this.rotaCacheService = rotaCacheService;
+        this.locationIQRateLimiter = locationIQRateLimiter;
+        this.routingEngine = routingEngine;
+        this.locationIQTimeout = locationIQTimeout;
+        this.viacepTimeout = viacepTimeout;
         this.locationIQApiKey = locationIQApiKey;
-        this.locationIQRateLimitMs = locationIQRateLimitMs;
         this.locationIQClient = WebClient.builder()
                 .baseUrl(locationIQBaseUrl)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
@@ -71,36 +88,69 @@ public class GeocodingService {
                 .baseUrl(viacepBaseUrl)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .build();
-        
-        this.osrmClient = WebClient.builder()
-                .baseUrl(osrmBaseUrl)
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
-                .build();
     }
     
     public void geocodeAddress(Endereco endereco) {
-        if (!isEnderecoValidoParaGeocodificacao(endereco)) {
-            return;
+        try {
+            geocodeAsync(endereco).block();
+        } catch (Exception e) {
+            logger.warning("Erro ao geocodificar endereço: " + e.getMessage());
         }
-        
-        if (enderecoJaPossuiCoordenadas(endereco)) {
-            return;
+    }
+    
+    /**
+     * Versão reativa de {@link #geocodeAddress}: completa com o próprio endereço, com coordenadas e campos
+     * do ViaCEP aplicados quando encontrados. Acessos ao cache persistente rodam em
+     * {@link Schedulers#boundedElastic()}; as chamadas HTTP não ocupam thread enquanto aguardam resposta.
+     */
+    public Mono<Endereco> geocodeAsync(Endereco endereco) {
+        return geocodeAsync(endereco, false);
+    }
+    
+    /**
+     * Igual a {@link #geocodeAsync(Endereco)}, mas falha com {@link RateLimitExceededException} quando o
+     * rate limiter do LocationIQ recusa a consulta, em vez de completar sem coordenadas. Processamentos em
+     * segundo plano usam esta versão para tentar de novo mais tarde, e não registrar o endereço como não
+     * encontrado.
+     */
+    public Mono<Endereco> geocodeAsyncEmSegundoPlano(Endereco endereco) {
+        return geocodeAsync(endereco, true);
+    }
+    
+    private Mono<Endereco> geocodeAsync(Endereco endereco, boolean propagarLimite) {
+        if (!isEnderecoValidoParaGeocodificacao(endereco) || enderecoJaPossuiCoordenadas(endereco)) {
+            return Mono.justOrEmpty(endereco);
         }
         
         String enderecoFormatado = endereco.toGeocodingString();
         
-        if (aplicarCoordenadasDoCache(endereco, enderecoFormatado)) {
-            return;
-        }
-        
-        try {
-            String enderecoCompleto = atualizarEnderecoComCep(endereco, enderecoFormatado);
-            Optional<Coordinates> coordenadas = geocodeWithLocationIQ(enderecoCompleto);
-            salvarCoordenadas(endereco, enderecoFormatado, enderecoCompleto, coordenadas);
-        } catch (Exception e) {
-            logger.warning("Erro ao geocodificar endereço '" + enderecoFormatado + "': " + e.getMessage());
-        }
+        return Mono.fromCallable(() -> geocodingCacheService.buscar(enderecoFormatado))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(emCache -> {
+                    if (emCache.isPresent()) {
+                        aplicarCoordenadasDoCache(endereco, enderecoFormatado, emCache.get());
+                        return Mono.just(endereco);
+                    }
+                    return geocodificarComServicosExternos(endereco, enderecoFormatado, propagarLimite);
+                })
+                .onErrorResume(e -> !(propagarLimite && e instanceof RateLimitExceededException), e -> {
+                    logger.warning("Erro ao geocodificar endereço '" + enderecoFormatado + "': " + e.getMessage());
+                    return Mono.just(endereco);
+                });
+    }
+    
+    private Mono<Endereco> geocodificarComServicosExternos(Endereco endereco, String enderecoFormatado,
+                                                           boolean propagarLimite) {
+        return atualizarEnderecoComCep(endereco, enderecoFormatado)
+                .flatMap(enderecoCompleto -> geocodeWithLocationIQ(enderecoCompleto)
+                        .onErrorResume(e -> !propagarLimite && e instanceof RateLimitExceededException, e -> {
+                            logger.warning("Geocodificação adiada para '" + enderecoCompleto + "': " + e.getMessage());
+                            return Mono.empty();
+                        })
+                        .flatMap(coordenadas -> salvarCoordenadas(endereco, enderecoFormatado, enderecoCompleto, coordenadas))
+                        .switchIfEmpty(Mono.fromRunnable(() ->
+                                logger.warning("Não foi possível geocodificar endereço: " + enderecoCompleto))))
+                .thenReturn(endereco);
     }
     
     private boolean isEnderecoValidoParaGeocodificacao(Endereco endereco) {
@@ -119,35 +169,26 @@ public class GeocodingService {
         return false;
     }
     
-    private boolean aplicarCoordenadasDoCache(Endereco endereco, String enderecoFormatado) {
-        if (cache.containsKey(enderecoFormatado)) {
-            Coordinates coords = cache.get(enderecoFormatado);
-            endereco.setLatitude(coords.getLatitude());
-            endereco.setLongitude(coords.getLongitude());
-            logger.fine("Coordenadas encontradas no cache para: " + enderecoFormatado);
-            return true;
-        }
-        return false;
+    private void aplicarCoordenadasDoCache(Endereco endereco, String enderecoFormatado, Coordinates coords) {
+        endereco.setLatitude(coords.getLatitude());
+        endereco.setLongitude(coords.getLongitude());
+        logger.fine("Coordenadas encontradas no cache para: " + enderecoFormatado);
     }
     
-    private String atualizarEnderecoComCep(Endereco endereco, String enderecoFormatado) {
+    private Mono<String> atualizarEnderecoComCep(Endereco endereco, String enderecoFormatado) {
         if (!temCepValido(endereco)) {
-            return enderecoFormatado;
-        }
-        
-        Optional<EnderecoCepResponseDTO> enderecoViaCepDTO = buscarEnderecoPorCep(endereco.getCep());
-        if (enderecoViaCepDTO.isEmpty()) {
-            return enderecoFormatado;
+            return Mono.just(enderecoFormatado);
         }
         
-        EnderecoCepResponseDTO dto = enderecoViaCepDTO.get();
-        String logradouroOriginal = endereco.getLogradouro();
-        
-        atualizarCamposDoEndereco(endereco, dto);
-        String enderecoCompleto = construirEnderecoCompleto(dto, endereco);
-        logarAtualizacaoEndereco(logradouroOriginal, dto.getLogradouro(), enderecoCompleto);
-        
-        return enderecoCompleto;
+        return buscarEnderecoPorCepAsync(endereco.getCep())
+                .map(dto -> {
+                    String logradouroOriginal = endereco.getLogradouro();
+                    atualizarCamposDoEndereco(endereco, dto);
+                    String enderecoCompleto = construirEnderecoCompleto(dto, endereco);
+                    logarAtualizacaoEndereco(logradouroOriginal, dto.getLogradouro(), enderecoCompleto);
+                    return enderecoCompleto;
+                })
+                .defaultIfEmpty(enderecoFormatado);
     }
     
     private boolean temCepValido(Endereco endereco) {
@@ -177,23 +218,20 @@ public class GeocodingService {
         }
     }
     
-    private void salvarCoordenadas(Endereco endereco, String enderecoFormatado, 
-                                   String enderecoCompleto, Optional<Coordinates> coordenadas) {
-        if (coordenadas.isEmpty()) {
-            logger.warning("Não foi possível geocodificar endereço: " + enderecoCompleto);
-            return;
-        }
-        
-        Coordinates coords = coordenadas.get();
+    private Mono<Coordinates> salvarCoordenadas(Endereco endereco, String enderecoFormatado,
+                                                String enderecoCompleto, Coordinates coords) {
         endereco.setLatitude(coords.getLatitude());
         endereco.setLongitude(coords.getLongitude());
         
-        cache.put(enderecoFormatado, coords);
-        if (!enderecoCompleto.equals(enderecoFormatado)) {
-            cache.put(enderecoCompleto, coords);
-        }
-        
-        logger.info("Coordenadas geocodificadas e salvas: " + enderecoCompleto);
+        return Mono.fromCallable(() -> {
+                    geocodingCacheService.armazenar(enderecoFormatado, coords);
+                    if (!enderecoCompleto.equals(enderecoFormatado)) {
+                        geocodingCacheService.armazenar(enderecoCompleto, coords);
+                    }
+                    logger.info("Coordenadas geocodificadas e salvas: " + enderecoCompleto);
+                    return coords;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
     }
     
     private String construirEnderecoCompleto(EnderecoCepResponseDTO dto, Endereco endereco) {
@@ -223,27 +261,71 @@ public class GeocodingService {
     
     public Optional<EnderecoCepResponseDTO> buscarEnderecoPorCep(String cep) {
         try {
-            String cepLimpo = limparCep(cep);
-            
-            if (!isCepValido(cepLimpo, cep)) {
-                return Optional.empty();
-            }
-            
-            ViaCepResponse response = buscarCepNoViaCep(cepLimpo);
-            
-            if (isRespostaViaCepValida(response)) {
-                return criarEnderecoCepResponseDTO(response, cepLimpo);
-            }
-            
-            logger.warning("CEP não encontrado ou erro na resposta ViaCEP: " + cep);
-            return Optional.empty();
-            
+            return buscarEnderecoPorCepAsync(cep).blockOptional();
         } catch (Exception e) {
             logger.warning("Erro ao buscar CEP no ViaCEP: " + e.getMessage());
             return Optional.empty();
         }
     }
     
+    /**
+     * Resolve o CEP sem bloquear: diretório local em memória, depois o cache persistente e, só então, o
+     * ViaCEP, cujo resultado é gravado no cache persistente. Completa vazio quando o CEP é inválido, não
+     * existe ou a consulta falha. Consultas concorrentes para o mesmo CEP fora do diretório compartilham
+     * uma única busca.
+     */
+    public Mono<EnderecoCepResponseDTO> buscarEnderecoPorCepAsync(String cep) {
+        if (cep == null) {
+            return Mono.empty();
+        }
+        
+        String cepLimpo = limparCep(cep);
+        if (!isCepValido(cepLimpo, cep)) {
+            return Mono.empty();
+        }
+        
+        Optional<EnderecoCepResponseDTO> doDiretorio = cepDiretorioService.buscarNoIndice(cepLimpo);
+        if (doDiretorio.isPresent()) {
+            return Mono.just(doDiretorio.get());
+        }
+        
+        return consultasCepEmAndamento.executarAsync(cepLimpo, () -> buscarCepPersistidoOuViaCep(cepLimpo))
+                .onErrorResume(e -> {
+                    logger.warning("Erro ao buscar CEP no ViaCEP: " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    private Mono<EnderecoCepResponseDTO> buscarCepPersistidoOuViaCep(String cepLimpo) {
+        return Mono.fromCallable(() -> cepDiretorioService.buscarPersistido(cepLimpo).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.defer(() -> consultarViaCep(cepLimpo)
+                        .flatMap(this::armazenarCepConsultado)));
+    }
+    
+    private Mono<EnderecoCepResponseDTO> armazenarCepConsultado(EnderecoCepResponseDTO dto) {
+        return Mono.fromCallable(() -> {
+                    cepDiretorioService.armazenar(dto);
+                    return dto;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    logger.warning("Erro ao gravar CEP " + dto.getCep() + " no cache: " + e.getMessage());
+                    return Mono.just(dto);
+                });
+    }
+    
+    private Mono<EnderecoCepResponseDTO> consultarViaCep(String cepLimpo) {
+        return buscarCepNoViaCep(cepLimpo)
+                .flatMap(response -> {
+                    if (isRespostaViaCepValida(response)) {
+                        return Mono.just(criarEnderecoCepResponseDTO(response, cepLimpo));
+                    }
+                    logger.warning("CEP não encontrado ou erro na resposta ViaCEP: " + cepLimpo);
+                    return Mono.empty();
+                });
+    }
+    
     private String limparCep(String cep) {
         return cep.replaceAll("[^0-9]", "");
     }
@@ -256,51 +338,60 @@ public class GeocodingService {
         return true;
     }
     
-    private ViaCepResponse buscarCepNoViaCep(String cepLimpo) {
+    private Mono<ViaCepResponse> buscarCepNoViaCep(String cepLimpo) {
         return viacepClient.get()
                 .uri("/ws/{cep}/json/", cepLimpo)
                 .retrieve()
                 .bodyToMono(ViaCepResponse.class)
-                .block();
+                .timeout(Duration.ofMillis(viacepTimeout))
+                .retryWhen(FalhasTransitorias.retentar(TENTATIVAS_EXTRAS_GEOCODING, ATRASO_RETRY_GEOCODING));
     }
     
     private boolean isRespostaViaCepValida(ViaCepResponse response) {
         return response != null && response.getErro() == null && response.getLogradouro() != null;
     }
     
-    private Optional<EnderecoCepResponseDTO> criarEnderecoCepResponseDTO(ViaCepResponse response, String cepLimpo) {
+    private EnderecoCepResponseDTO criarEnderecoCepResponseDTO(ViaCepResponse response, String cepLimpo) {
         EnderecoCepResponseDTO dto = new EnderecoCepResponseDTO();
         dto.setLogradouro(response.getLogradouro());
         dto.setBairro(response.getBairro());
         dto.setCidade(response.getLocalidade());
         dto.setEstado(response.getUf());
         dto.setCep(cepLimpo);
-        return Optional.of(dto);
+        return dto;
     }
     
-    
-    private Optional<Coordinates> geocodeWithLocationIQ(String endereco) {
-        try {
-            respeitarRateLimit();
-            LocationIQResponse[] responses = buscarNoLocationIQ(endereco);
-            
-            if (temRespostasValidas(responses)) {
-                return extrairCoordenadas(responses[0], endereco);
-            }
-            
-            logger.warning("Nenhum resultado encontrado para: " + endereco);
-            return Optional.empty();
-            
-        } catch (WebClientException e) {
-            logger.warning("Erro de conexão com LocationIQ: " + e.getMessage());
-            return Optional.empty();
-        } catch (Exception e) {
-            logger.warning("Erro ao geocodificar com LocationIQ: " + e.getMessage());
-            return Optional.empty();
-        }
+    /**
+     * Chamadas concorrentes para o mesmo endereço normalizado compartilham uma única requisição ao LocationIQ.
+     */
+    private Mono<Coordinates> geocodeWithLocationIQ(String endereco) {
+        String chave = GeocodingCacheService.normalizarChave(endereco);
+        return geocodificacoesEmAndamento.executarAsync(chave, () -> consultarLocationIQ(endereco));
     }
     
-    private LocationIQResponse[] buscarNoLocationIQ(String endereco) {
+    private Mono<Coordinates> consultarLocationIQ(String endereco) {
+        return locationIQRateLimiter.aguardarPermissao()
+                .then(buscarNoLocationIQ(endereco))
+                .timeout(Duration.ofMillis(locationIQTimeout))
+                .retryWhen(FalhasTransitorias.retentar(TENTATIVAS_EXTRAS_GEOCODING, ATRASO_RETRY_GEOCODING))
+                .flatMap(responses -> {
+                    if (temRespostasValidas(responses)) {
+                        return Mono.justOrEmpty(extrairCoordenadas(responses[0], endereco));
+                    }
+                    logger.warning("Nenhum resultado encontrado para: " + endereco);
+                    return Mono.empty();
+                })
+                .onErrorResume(WebClientException.class, e -> {
+                    logger.warning("Erro de conexão com LocationIQ: " + e.getMessage());
+                    return Mono.empty();
+                })
+                .onErrorResume(e -> !(e instanceof RateLimitExceededException), e -> {
+                    logger.warning("Erro ao geocodificar com LocationIQ: " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    private Mono<LocationIQResponse[]> buscarNoLocationIQ(String endereco) {
         return locationIQClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/search.php")
@@ -311,8 +402,7 @@ public class GeocodingService {
                         .queryParam("countrycodes", "br")
                         .build())
                 .retrieve()
-                .bodyToMono(LocationIQResponse[].class)
-                .block();
+                .bodyToMono(LocationIQResponse[].class);
     }
     
     private boolean temRespostasValidas(LocationIQResponse[] responses) {
@@ -336,21 +426,6 @@ public class GeocodingService {
         return response.getLat() != null && response.getLon() != null;
     }
     
-    private void respeitarRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeSinceLastRequest = currentTime - lastRequestTime;
-        
-        if (timeSinceLastRequest < locationIQRateLimitMs) {
-            try {
-                Thread.sleep(locationIQRateLimitMs - timeSinceLastRequest);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        
-        lastRequestTime = System.currentTimeMillis();
-    }
-    
     public Optional<RouteResult> calculateRoute(BigDecimal origemLat, BigDecimal origemLon,
                                                BigDecimal destinoLat, BigDecimal destinoLon,
                                                String profile) {
@@ -360,200 +435,132 @@ public class GeocodingService {
     public Optional<RouteResult> calculateRoute(BigDecimal origemLat, BigDecimal origemLon,
                                                BigDecimal destinoLat, BigDecimal destinoLon,
                                                String profile, boolean includeWaypoints) {
+        return calculateRouteAsync(origemLat, origemLon, destinoLat, destinoLon, profile, includeWaypoints)
+                .blockOptional();
+    }
+    
+    public Mono<RouteResult> calculateRouteAsync(BigDecimal origemLat, BigDecimal origemLon,
+                                                 BigDecimal destinoLat, BigDecimal destinoLon,
+                                                 String profile) {
+        return calculateRouteAsync(origemLat, origemLon, destinoLat, destinoLon, profile, false);
+    }
+    
+    /**
+     * Calcula a rota sem bloquear, pelo {@link RoutingEngine} configurado. Completa vazio quando não há rota,
+     * o motor está indisponível ou as tentativas se esgotam.
+     */
+    public Mono<RouteResult> calculateRouteAsync(BigDecimal origemLat, BigDecimal origemLon,
+                                                 BigDecimal destinoLat, BigDecimal destinoLon,
+                                                 String profile, boolean includeWaypoints) {
         if (origemLat == null || origemLon == null || destinoLat == null || destinoLon == null) {
             logger.warning("Coordenadas inválidas para cálculo de rota");
-            return Optional.empty();
+            return Mono.empty();
         }
         
-        Exception lastException = null;
-        
-        for (int attempt = 1; attempt <= osrmMaxRetries; attempt++) {
-            try {
-                Optional<RouteResult> result = calcularRotaComOSRM(origemLat, origemLon, destinoLat, destinoLon, profile, includeWaypoints);
-                
-                if (result.isPresent()) {
-                    if (attempt > 1) {
-                        logger.info("Rota calculada com sucesso na tentativa " + attempt);
-                    }
-                    return result;
-                }
-                
-            } catch (WebClientResponseException e) {
-                lastException = e;
-                int statusCode = e.getStatusCode().value();
-                String errorBody = e.getResponseBodyAsString();
-                
-                logger.warning(String.format(
-                    "Erro ao calcular rota OSRM (tentativa %d/%d): Status %d - %s",
-                    attempt, osrmMaxRetries, statusCode, errorBody != null ? errorBody : e.getMessage()
-                ));
-                
-                if (statusCode >= 400 && statusCode < 500) {
-                    logger.severe("Erro do cliente (4xx), não será feito retry: " + statusCode);
-                    break;
-                }
-                
-            } catch (WebClientException e) {
-                lastException = e;
-                logger.warning(String.format(
-                    "Erro de conexão com OSRM (tentativa %d/%d): %s",
-                    attempt, osrmMaxRetries, e.getMessage()
-                ));
-                
-            } catch (Exception e) {
-                lastException = e;
-                logger.warning(String.format(
-                    "Erro inesperado ao calcular rota OSRM (tentativa %d/%d): %s",
-                    attempt, osrmMaxRetries, e.getMessage()
-                ));
-            }
-            
-            if (attempt < osrmMaxRetries) {
-                try {
-                    long delay = osrmRetryDelay * attempt;
-                    Thread.sleep(delay);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warning("Thread interrompida durante retry");
-                    break;
-                }
-            }
+        RotaChave chave = rotaCacheService.criarChave(origemLat, origemLon, destinoLat, destinoLon,
+                obterProfile(profile), includeWaypoints);
+        Optional<RouteResult> emCache = rotaCacheService.buscar(chave);
+        if (emCache.isPresent()) {
+            return Mono.just(emCache.get());
         }
         
-        logger.severe(String.format(
-            "Falha ao calcular rota OSRM após %d tentativas. Último erro: %s",
-            osrmMaxRetries, lastException != null ? lastException.getMessage() : "desconhecido"
-        ));
-        
-        return Optional.empty();
-    }
-    
-    private Optional<RouteResult> calcularRotaComOSRM(BigDecimal origemLat, BigDecimal origemLon,
-                                                     BigDecimal destinoLat, BigDecimal destinoLon,
-                                                     String profile, boolean includeWaypoints) {
-        String coordinates = formatarCoordenadas(origemLat, origemLon, destinoLat, destinoLon);
-        String routeProfile = obterProfile(profile);
-        
-        OsrmRouteResponse response = buscarRotaNoOSRM(routeProfile, coordinates, includeWaypoints);
-        
-        if (!isRespostaOSRMValida(response)) {
-            return Optional.empty();
+        if (!routingEngine.isDisponivel()) {
+            logger.fine("Motor de rotas " + routingEngine.getNome() + " indisponível, rota não calculada");
+            return Mono.empty();
         }
         
-        OsrmRoute route = response.getRoutes().get(0);
-        return criarRouteResult(route, includeWaypoints);
-    }
-    
-    private String formatarCoordenadas(BigDecimal origemLat, BigDecimal origemLon,
-                                       BigDecimal destinoLat, BigDecimal destinoLon) {
-        return String.format("%s,%s;%s,%s", origemLon, origemLat, destinoLon, destinoLat);
+        return rotasEmAndamento.executarAsync(chave, () ->
+                routingEngine.calcularRota(origemLat, origemLon, destinoLat, destinoLon, chave.profile(), includeWaypoints)
+                        .doOnNext(resultado -> rotaCacheService.armazenar(chave, resultado)));
     }
     
     private String obterProfile(String profile) {
         return (profile != null && !profile.isEmpty()) ? profile : "driving";
     }
     
-    private OsrmRouteResponse buscarRotaNoOSRM(String routeProfile, String coordinates, boolean includeWaypoints) {
-        return osrmClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/route/v1/{profile}/{coordinates}")
-                        .queryParam("overview", includeWaypoints ? "full" : "false")
-                        .queryParam("geometries", includeWaypoints ? "geojson" : "polyline")
-                        .queryParam("alternatives", "false")
-                        .queryParam("steps", "false")
-                        .build(routeProfile, coordinates))
-                .retrieve()
-                .bodyToMono(OsrmRouteResponse.class)
-                .block(Duration.ofMillis(osrmTimeout));
-    }
-    
-    private boolean isRespostaOSRMValida(OsrmRouteResponse response) {
-        if (response == null || response.getCode() == null || !"Ok".equals(response.getCode())) {
-            logger.warning("OSRM retornou código inválido: " + (response != null ? response.getCode() : "null"));
-            return false;
+    /**
+     * Calcula distância e tempo de uma origem para vários destinos com uma consulta de matriz ao motor de rotas.
+     * Pares já presentes no cache de rotas não são recalculados e os resultados novos são armazenados nele.
+     * A lista retornada tem o mesmo tamanho e ordem de {@code destinos}; destinos nulos, inalcançáveis
+     * ou sem resposta do motor ficam vazios para que o chamador aplique o fallback.
+     */
+    public List<Optional<RouteResult>> calculateRouteMatrix(BigDecimal origemLat, BigDecimal origemLon,
+                                                            List<Coordinates> destinos, String profile) {
+        List<Optional<RouteResult>> resultados = new ArrayList<>(Collections.nCopies(destinos.size(), Optional.empty()));
+        if (origemLat == null || origemLon == null) {
+            logger.warning("Coordenadas de origem inválidas para cálculo de matriz de rotas");
+            return resultados;
         }
         
-        if (response.getRoutes() == null || response.getRoutes().isEmpty()) {
-            logger.warning("OSRM não retornou rotas");
-            return false;
+        String routeProfile = obterProfile(profile);
+        List<Integer> pendentes = new ArrayList<>();
+        List<Coordinates> destinosPendentes = new ArrayList<>();
+        for (int i = 0; i < destinos.size(); i++) {
+            Coordinates destino = destinos.get(i);
+            if (!isDestinoValido(destino)) {
+                continue;
+            }
+            Optional<RouteResult> emCache = rotaCacheService.buscar(criarChaveMatriz(origemLat, origemLon, destino, routeProfile));
+            if (emCache.isPresent()) {
+                resultados.set(i, emCache);
+            } else {
+                pendentes.add(i);
+                destinosPendentes.add(destino);
+            }
         }
         
-        return true;
-    }
-    
-    private Optional<RouteResult> criarRouteResult(OsrmRoute route, boolean includeWaypoints) {
-        BigDecimal distanciaKm = calcularDistanciaKm(route);
-        int tempoMinutos = calcularTempoMinutos(route);
-        List<Coordinates> waypoints = includeWaypoints ? extrairWaypoints(route) : null;
-        
-        RouteResult result = new RouteResult(distanciaKm, tempoMinutos, waypoints);
-        logarRotaCalculada(distanciaKm, tempoMinutos, waypoints);
-        return Optional.of(result);
-    }
-    
-    private BigDecimal calcularDistanciaKm(OsrmRoute route) {
-        double distanciaMetros = route.getDistance();
-        return BigDecimal.valueOf(distanciaMetros / 1000.0)
-                .setScale(2, RoundingMode.HALF_UP);
-    }
-    
-    private int calcularTempoMinutos(OsrmRoute route) {
-        double tempoSegundos = route.getDuration();
-        return (int) Math.ceil(tempoSegundos / 60.0);
-    }
-    
-    private void logarRotaCalculada(BigDecimal distanciaKm, int tempoMinutos, List<Coordinates> waypoints) {
-        String waypointsInfo = waypoints != null ? ", " + waypoints.size() + " waypoints" : "";
-        logger.fine("Rota calculada via OSRM: " + distanciaKm + " km, " + tempoMinutos + " min" + waypointsInfo);
-    }
-    
-    private List<Coordinates> extrairWaypoints(OsrmRoute route) {
-        if (temCoordenadasNaRota(route)) {
-            return extrairWaypointsDeCoordenadas(route.getCoordinates());
+        if (pendentes.isEmpty()) {
+            return resultados;
+        }
+        if (!routingEngine.isDisponivel()) {
+            logger.fine("Motor de rotas " + routingEngine.getNome() + " indisponível, matriz não calculada para "
+                    + pendentes.size() + " destinos");
+            return resultados;
         }
         
-        return extrairWaypointsDeGeometry(route);
-    }
-    
-    private boolean temCoordenadasNaRota(OsrmRoute route) {
-        List<List<Double>> coordinates = route.getCoordinates();
-        return coordinates != null && !coordinates.isEmpty();
-    }
-    
-    private List<Coordinates> extrairWaypointsDeCoordenadas(List<List<Double>> coordinates) {
-        List<Coordinates> waypoints = new ArrayList<>();
-        for (List<Double> coord : coordinates) {
-            if (isCoordenadaValida(coord)) {
-                BigDecimal longitude = BigDecimal.valueOf(coord.get(0));
-                BigDecimal latitude = BigDecimal.valueOf(coord.get(1));
-                waypoints.add(new Coordinates(latitude, longitude));
-            }
+        List<Optional<RouteResult>> calculadas = routingEngine.calcularMatriz(origemLat, origemLon, destinosPendentes, routeProfile);
+        for (int i = 0; i < pendentes.size() && i < calculadas.size(); i++) {
+            Coordinates destino = destinosPendentes.get(i);
+            calculadas.get(i).ifPresent(rota ->
+                    rotaCacheService.armazenar(criarChaveMatriz(origemLat, origemLon, destino, routeProfile), rota));
+            resultados.set(pendentes.get(i), calculadas.get(i));
         }
-        return waypoints;
+        
+        return resultados;
     }
     
-    private boolean isCoordenadaValida(List<Double> coord) {
-        return coord != null && coord.size() >= 2;
+    private RotaChave criarChaveMatriz(BigDecimal origemLat, BigDecimal origemLon, Coordinates destino, String routeProfile) {
+        return rotaCacheService.criarChave(origemLat, origemLon, destino.getLatitude(), destino.getLongitude(),
+                routeProfile, false);
     }
     
-    private List<Coordinates> extrairWaypointsDeGeometry(OsrmRoute route) {
-        String geometryStr = route.getGeometryAsString();
-        if (temGeometryValida(geometryStr)) {
-            return PolylineDecoder.decode(geometryStr);
-        }
-        return new ArrayList<>();
+    private boolean isDestinoValido(Coordinates destino) {
+        return destino != null && destino.getLatitude() != null && destino.getLongitude() != null;
     }
     
-    private boolean temGeometryValida(String geometryStr) {
-        return geometryStr != null && !geometryStr.isEmpty();
+    /**
+     * Indica se o motor de rotas está indisponível (ex.: circuit breaker do OSRM aberto); enquanto estiver,
+     * cálculos de rota retornam vazio de imediato e os chamadores devem usar a distância em linha reta.
+     */
+    public boolean isRoteamentoIndisponivel() {
+        return !routingEngine.isDisponivel();
     }
     
     public String obterProfileOSRM(TipoVeiculo tipoVeiculo) {
         return VehicleConstants.getOsrmProfile(tipoVeiculo);
     }
     
+    public List<SingleFlightEstatisticasDTO> obterEstatisticasCoalescencia() {
+        return List.of(
+                geocodificacoesEmAndamento.obterEstatisticas(),
+                consultasCepEmAndamento.obterEstatisticas(),
+                rotasEmAndamento.obterEstatisticas()
+        );
+    }
+    
     public void clearCache() {
-        cache.clear();
+        geocodingCacheService.limpar();
+        rotaCacheService.limpar();
     }
 }
 
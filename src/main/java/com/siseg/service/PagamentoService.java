@@ -14,9 +14,11 @@ import com.siseg.model.enumerations.StatusPagamento;
 import com.siseg.model.enumerations.StatusPedido;
 import com.siseg.repository.PagamentoRepository;
 import com.siseg.repository.PedidoRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
 import com.siseg.util.SecurityUtils;
 import com.siseg.validator.PagamentoValidator;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,17 +34,20 @@ public class PagamentoService {
     private final ModelMapper modelMapper;
     private final PagamentoValidator pagamentoValidator;
     private final AsaasService asaasService;
+    private final ApplicationEventPublisher eventPublisher;
     
     public PagamentoService(PagamentoRepository pagamentoRepository, 
                            PedidoRepository pedidoRepository,
                            ModelMapper modelMapper,
                            PagamentoValidator pagamentoValidator,
-                           AsaasService asaasService) {
+                           AsaasService asaasService,
+                           ApplicationEventPublisher eventPublisher) {
         this.pagamentoRepository = pagamentoRepository;
         this.pedidoRepository = pedidoRepository;
         this.modelMapper = modelMapper;
         this.pagamentoValidator = pagamentoValidator;
         this.asaasService = asaasService;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -239,6 +244,9 @@ public class PagamentoService {
         pedidoRepository.save(pedido);
         
         logger.info("Reembolso processado para pedido " + pedidoId + " - Valor: R$ " + pagamento.getValorReembolsado());
+        if (pedido.getStatus() == StatusPedido.CANCELED) {
+            eventPublisher.publishEvent(new PedidoEncerradoEvent(pedidoId));
+        }
         
         PagamentoResponseDTO response = modelMapper.map(saved, PagamentoResponseDTO.class);
         response.setPedidoId(saved.getPedido().getId());
@@ -15,7 +15,9 @@ import com.siseg.validator.PedidoValidator;
 import com.siseg.service.pedido.PedidoEnderecoService;
 import com.siseg.service.pedido.PedidoFinanceiroService;
 import com.siseg.service.pedido.PedidoNotificacaoService;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
 import com.siseg.service.pedido.PedidoEntregadorService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -39,6 +41,7 @@ public class PedidoService {
     private final PedidoFinanceiroService pedidoFinanceiroService;
     private final PedidoNotificacaoService pedidoNotificacaoService;
     private final PedidoEntregadorService pedidoEntregadorService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PedidoService(PedidoRepository pedidoRepository, ClienteRepository clienteRepository,
                          RestauranteRepository restauranteRepository,
@@ -46,7 +49,8 @@ public class PedidoService {
                          PedidoValidator pedidoValidator, PedidoEnderecoService pedidoEnderecoService,
                          PedidoFinanceiroService pedidoFinanceiroService,
                          PedidoNotificacaoService pedidoNotificacaoService,
-                         PedidoEntregadorService pedidoEntregadorService) {
+                         PedidoEntregadorService pedidoEntregadorService,
+                         ApplicationEventPublisher eventPublisher) {
         this.pedidoRepository = pedidoRepository;
         this.clienteRepository = clienteRepository;
         this.restauranteRepository = restauranteRepository;
@@ -57,6 +61,7 @@ public class PedidoService {
         this.pedidoFinanceiroService = pedidoFinanceiroService;
         this.pedidoNotificacaoService = pedidoNotificacaoService;
         this.pedidoEntregadorService = pedidoEntregadorService;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -277,6 +282,7 @@ public class PedidoService {
         Pedido saved = pedidoRepository.save(pedido);
         
         logger.info("Pedido " + id + " cancelado");
+        eventPublisher.publishEvent(new PedidoEncerradoEvent(saved.getId()));
         
         return pedidoMapper.toResponseDTO(saved);
     }
@@ -1,5 +1,6 @@
 package com.siseg.service;
 
+import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.dto.rastreamento.RastreamentoDTO;
 import com.siseg.exception.ResourceNotFoundException;
 import com.siseg.model.Endereco;
@@ -9,12 +10,18 @@ import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.PedidoRepository;
 import com.siseg.service.EnderecoService;
 import com.siseg.service.RouteService;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.routing.RotaAtiva;
 import com.siseg.util.TempoEstimadoCalculator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 @Service
@@ -23,36 +30,77 @@ public class RastreamentoService {
     private static final Logger logger = Logger.getLogger(RastreamentoService.class.getName());
     private static final BigDecimal DISTANCIA_PROXIMO_DESTINO = new BigDecimal("0.1");
     
+    /**
+     * Rastreamento e a etag que identifica o estado dele; {@code rastreamento} vem nulo quando a etag
+     * ainda é a que o cliente conhece.
+     */
+    public record RastreamentoVersionado(String etag, RastreamentoDTO rastreamento) {
+        
+        public boolean naoModificado() {
+            return rastreamento == null;
+        }
+    }
+    
     private final PedidoRepository pedidoRepository;
     private final EntregadorRepository entregadorRepository;
     private final TempoEstimadoCalculator tempoEstimadoCalculator;
     private final EnderecoService enderecoService;
     private final RouteService routeService;
+    private final CourierPositionStore courierPositionStore;
     
     public RastreamentoService(PedidoRepository pedidoRepository, EntregadorRepository entregadorRepository,
                                TempoEstimadoCalculator tempoEstimadoCalculator, EnderecoService enderecoService,
-                               RouteService routeService) {
+                               RouteService routeService, CourierPositionStore courierPositionStore) {
         this.pedidoRepository = pedidoRepository;
         this.entregadorRepository = entregadorRepository;
         this.tempoEstimadoCalculator = tempoEstimadoCalculator;
         this.enderecoService = enderecoService;
         this.routeService = routeService;
+        this.courierPositionStore = courierPositionStore;
     }
     
     @Transactional(readOnly = true)
     public RastreamentoDTO obterRastreamento(Long pedidoId) {
+        return obterRastreamento(pedidoId, null, etag -> false).rastreamento();
+    }
+    
+    /**
+     * Rastreamento versionado pelo índice da rota. A resposta leva a versão {@code <rotaId>.<índice>}; quem
+     * envia de volta uma versão da mesma rota já tem os waypoints e recebe só posição, índice e estimativa.
+     *
+     * <p>A etag resume o que muda entre consultas (rota, índice, posição e status) e é testada com
+     * {@code naoModificado} antes de qualquer cálculo de estimativa ou de rota: se ele a aceitar, o
+     * retorno não traz rastreamento.
+     */
+    @Transactional(readOnly = true)
+    public RastreamentoVersionado obterRastreamento(Long pedidoId, String versaoConhecida, Predicate<String> naoModificado) {
         Pedido pedido = buscarPedidoComEntregador(pedidoId);
         Entregador entregador = buscarEntregador(pedido.getEntregador().getId());
+        Coordinates posicao = posicaoAtual(entregador);
+        Optional<RotaAtiva> rota = routeService.buscarRotaAtiva(pedidoId);
+        // O índice é lido uma vez: a simulação pode avançá-lo durante a consulta
+        int indice = rota.map(RotaAtiva::getIndiceAtual).orElse(0);
+        String versao = rota.map(r -> r.getRotaId() + "." + indice).orElse(null);
         
-        RastreamentoDTO rastreamento = criarRastreamentoDTO(pedido, entregador);
+        String etag = calcularEtag(pedido, posicao, versao);
+        if (naoModificado.test(etag)) {
+            return new RastreamentoVersionado(etag, null);
+        }
         
-        if (!temCoordenadasValidas(pedido, entregador)) {
-            return rastreamento;
+        RastreamentoDTO rastreamento = criarRastreamentoBase(pedido, posicao);
+        if (rota.isEmpty() || !mesmaRota(versaoConhecida, rota.get())) {
+            completarRastreamento(rastreamento, pedido, rota.orElse(null), indice);
+        }
+        if (rota.isPresent()) {
+            rastreamento.setIndiceRota(indice);
+            rastreamento.setVersao(versao);
         }
         
-        calcularDistanciaETempoRastreamento(rastreamento, entregador, pedido);
+        if (temCoordenadasValidas(pedido, posicao)) {
+            calcularDistanciaETempoRastreamento(rastreamento, entregador, posicao, pedido);
+        }
         
-        return rastreamento;
+        return new RastreamentoVersionado(etag, rastreamento);
     }
     
     private Pedido buscarPedidoComEntregador(Long pedidoId) {
@@ -71,10 +119,52 @@ public class RastreamentoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Entregador não encontrado"));
     }
     
-    private RastreamentoDTO criarRastreamentoDTO(Pedido pedido, Entregador entregador) {
+    /**
+     * Posição do {@link CourierPositionStore}, mais recente que a gravada na entidade enquanto a
+     * simulação está rodando; a da entidade só quando o entregador não está em memória.
+     */
+    private Coordinates posicaoAtual(Entregador entregador) {
+        return courierPositionStore.obter(entregador.getId())
+                .map(posicao -> new Coordinates(posicao.latitudeDecimal(), posicao.longitudeDecimal()))
+                .orElseGet(() -> new Coordinates(entregador.getLatitude(), entregador.getLongitude()));
+    }
+    
+    private String calcularEtag(Pedido pedido, Coordinates posicao, String versao) {
+        int resumo = Objects.hash(pedido.getStatus(), normalizar(posicao.getLatitude()), normalizar(posicao.getLongitude()));
+        return (versao != null ? versao : "0") + "-" + Integer.toHexString(resumo);
+    }
+    
+    private static BigDecimal normalizar(BigDecimal valor) {
+        return valor != null ? valor.stripTrailingZeros() : null;
+    }
+    
+    private static boolean mesmaRota(String versaoConhecida, RotaAtiva rota) {
+        if (versaoConhecida == null) {
+            return false;
+        }
+        int separador = versaoConhecida.indexOf('.');
+        String rotaId = separador >= 0 ? versaoConhecida.substring(0, separador) : versaoConhecida;
+        return rotaId.equals(String.valueOf(rota.getRotaId()));
+    }
+    
+    /**
+     * Status, posição atual e estimativa zerada: o que toda resposta leva.
+     */
+    private RastreamentoDTO criarRastreamentoBase(Pedido pedido, Coordinates posicao) {
         RastreamentoDTO rastreamento = new RastreamentoDTO();
         rastreamento.setStatusEntrega(pedido.getStatus());
-        
+        rastreamento.setPosicaoAtualLat(posicao.getLatitude());
+        rastreamento.setPosicaoAtualLon(posicao.getLongitude());
+        rastreamento.setDistanciaRestanteKm(BigDecimal.ZERO);
+        rastreamento.setTempoEstimadoMinutos(0);
+        rastreamento.setProximoAoDestino(true);
+        return rastreamento;
+    }
+    
+    /**
+     * Destino, restaurante e waypoints restantes de exibição, que só mudam com a rota.
+     */
+    private void completarRastreamento(RastreamentoDTO rastreamento, Pedido pedido, RotaAtiva rota, int indice) {
         if (pedido.getEnderecoEntrega() != null) {
             rastreamento.setPosicaoDestinoLat(pedido.getEnderecoEntrega().getLatitude());
             rastreamento.setPosicaoDestinoLon(pedido.getEnderecoEntrega().getLongitude());
@@ -92,21 +182,23 @@ public class RastreamentoService {
             }
         }
         
-        rastreamento.setPosicaoAtualLat(entregador.getLatitude());
-        rastreamento.setPosicaoAtualLon(entregador.getLongitude());
-        rastreamento.setDistanciaRestanteKm(BigDecimal.ZERO);
-        rastreamento.setTempoEstimadoMinutos(0);
-        rastreamento.setProximoAoDestino(true);
-        
-        var waypointsRestantes = routeService.obterWaypointsRestantes(pedido.getId());
-        if (!waypointsRestantes.isEmpty()) {
-            rastreamento.setWaypoints(waypointsRestantes);
+        if (rota == null) {
+            return;
+        }
+        int[] indices = routeService.obterIndicesRestantesParaExibicao(rota, indice);
+        if (indices.length > 0) {
+            List<Coordinates> waypoints = new ArrayList<>(indices.length);
+            List<Integer> indicesWaypoints = new ArrayList<>(indices.length);
+            for (int i : indices) {
+                waypoints.add(rota.waypoint(i));
+                indicesWaypoints.add(i);
+            }
+            rastreamento.setWaypoints(waypoints);
+            rastreamento.setIndicesWaypoints(indicesWaypoints);
         }
-        
-        return rastreamento;
     }
     
-    private boolean temCoordenadasValidas(Pedido pedido, Entregador entregador) {
+    private boolean temCoordenadasValidas(Pedido pedido, Coordinates posicao) {
         if (pedido.getEnderecoEntrega() == null || 
             pedido.getEnderecoEntrega().getLatitude() == null || 
             pedido.getEnderecoEntrega().getLongitude() == null) {
@@ -114,7 +206,7 @@ public class RastreamentoService {
             return false;
         }
         
-        if (entregador.getLatitude() == null || entregador.getLongitude() == null) {
+        if (posicao.getLatitude() == null || posicao.getLongitude() == null) {
             logger.warning("Entregador sem coordenadas para rastreamento");
             return false;
         }
@@ -122,14 +214,18 @@ public class RastreamentoService {
         return true;
     }
     
-    private void calcularDistanciaETempoRastreamento(RastreamentoDTO rastreamento, Entregador entregador, Pedido pedido) {
-        var resultado = tempoEstimadoCalculator.calculateDistanceAndTime(
-            entregador.getLatitude(),
-            entregador.getLongitude(),
+    private void calcularDistanciaETempoRastreamento(RastreamentoDTO rastreamento, Entregador entregador,
+                                                     Coordinates posicao, Pedido pedido) {
+        // Com o entregador sobre a rota registrada, o restante sai dela; só fora da rota consulta o motor de rotas
+        var resultado = routeService.estimarRestante(
+            pedido.getId(), posicao.getLatitude(), posicao.getLongitude(), entregador.getTipoVeiculo()
+        ).orElseGet(() -> tempoEstimadoCalculator.calculateDistanceAndTime(
+            posicao.getLatitude(),
+            posicao.getLongitude(),
             pedido.getEnderecoEntrega().getLatitude(),
             pedido.getEnderecoEntrega().getLongitude(),
             entregador.getTipoVeiculo()
-        );
+        ));
         
         if (resultado.getDistanciaKm() != null && resultado.getDistanciaKm().compareTo(BigDecimal.ZERO) > 0) {
             rastreamento.setDistanciaRestanteKm(resultado.getDistanciaKm());
@@ -30,6 +30,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.dto.geocoding.ResultadoCalculo;
 import com.siseg.util.TempoEstimadoCalculator;
 import com.siseg.model.Endereco;
@@ -38,8 +39,10 @@ import com.siseg.model.enumerations.TipoVeiculo;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -237,10 +240,12 @@ public class RestauranteService {
                                                              Optional<Endereco> enderecoCliente) {
         List<RestauranteBuscaDTO> dtos = new ArrayList<>();
         BigDecimal raioPadrao = new BigDecimal("10.00");
+        Map<Long, ResultadoCalculo> distancias = calcularDistancias(restaurantes, enderecoCliente);
         
         for (Restaurante restaurante : restaurantes) {
-            if (deveIncluirRestaurante(restaurante, enderecoCliente, raioPadrao)) {
-                RestauranteBuscaDTO dto = criarDTOComDistancia(restaurante, cliente, enderecoCliente);
+            ResultadoCalculo resultado = distancias.get(restaurante.getId());
+            if (deveIncluirRestaurante(restaurante, resultado, raioPadrao)) {
+                RestauranteBuscaDTO dto = criarDTOComDistancia(restaurante, cliente, resultado);
                 dtos.add(dto);
             }
         }
@@ -248,31 +253,46 @@ public class RestauranteService {
         return dtos;
     }
     
-    private boolean deveIncluirRestaurante(Restaurante restaurante, 
-                                            Optional<Endereco> enderecoCliente, 
-                                            BigDecimal raioPadrao) {
-        if (!enderecoCliente.isPresent()) {
-            return true;
+    /**
+     * Calcula distância e tempo do cliente para todos os restaurantes com coordenadas em uma única
+     * consulta de matriz. Restaurantes sem endereço ou coordenadas ficam fora do mapa.
+     */
+    private Map<Long, ResultadoCalculo> calcularDistancias(List<Restaurante> restaurantes, 
+                                                          Optional<Endereco> enderecoCliente) {
+        Map<Long, ResultadoCalculo> distancias = new HashMap<>();
+        if (enderecoCliente.isEmpty() || !temCoordenadasValidas(enderecoCliente.get())) {
+            return distancias;
         }
         
-        Optional<Endereco> enderecoRestaurante = enderecoService.buscarEnderecoPrincipalRestaurante(restaurante.getId());
-        if (!enderecoRestaurante.isPresent()) {
-            return true;
+        List<Long> restauranteIds = new ArrayList<>();
+        List<Coordinates> destinos = new ArrayList<>();
+        for (Restaurante restaurante : restaurantes) {
+            enderecoService.buscarEnderecoPrincipalRestaurante(restaurante.getId())
+                    .filter(this::temCoordenadasValidas)
+                    .ifPresent(endereco -> {
+                        restauranteIds.add(restaurante.getId());
+                        destinos.add(new Coordinates(endereco.getLatitude(), endereco.getLongitude()));
+                    });
         }
         
-        Endereco endCliente = enderecoCliente.get();
-        Endereco endRestaurante = enderecoRestaurante.get();
-        
-        if (!temCoordenadasValidas(endCliente) || !temCoordenadasValidas(endRestaurante)) {
-            return true;
+        if (destinos.isEmpty()) {
+            return distancias;
         }
         
-        ResultadoCalculo resultado = tempoEstimadoCalculator.calculateDistanceAndTime(
-            endCliente.getLatitude(), endCliente.getLongitude(),
-            endRestaurante.getLatitude(), endRestaurante.getLongitude(),
-            TipoVeiculo.MOTO
+        Endereco endCliente = enderecoCliente.get();
+        List<ResultadoCalculo> resultados = tempoEstimadoCalculator.calculateDistanceAndTimeBatch(
+            endCliente.getLatitude(), endCliente.getLongitude(), destinos, TipoVeiculo.MOTO
         );
         
+        for (int i = 0; i < restauranteIds.size(); i++) {
+            distancias.put(restauranteIds.get(i), resultados.get(i));
+        }
+        return distancias;
+    }
+    
+    private boolean deveIncluirRestaurante(Restaurante restaurante, 
+                                            ResultadoCalculo resultado, 
+                                            BigDecimal raioPadrao) {
         if (resultado == null || resultado.getDistanciaKm() == null) {
             return true;
         }
@@ -286,8 +306,6 @@ public class RestauranteService {
             return false;
         }
         return true;
-        
-     
     }
     
     private BigDecimal obterRaioEntrega(Restaurante restaurante, BigDecimal raioPadrao) {
@@ -296,31 +314,15 @@ public class RestauranteService {
     
     private RestauranteBuscaDTO criarDTOComDistancia(Restaurante restaurante, 
                                                        Cliente cliente, 
-                                                       Optional<Endereco> enderecoCliente) {
+                                                       ResultadoCalculo resultado) {
         RestauranteBuscaDTO dto = restauranteMapper.toRestauranteBuscaDTO(restaurante, cliente);
         
-        if (enderecoCliente.isPresent()) {
-            Optional<Endereco> enderecoRestaurante = enderecoService.buscarEnderecoPrincipalRestaurante(restaurante.getId());
-            if (enderecoRestaurante.isPresent()) {
-                Endereco endCliente = enderecoCliente.get();
-                Endereco endRestaurante = enderecoRestaurante.get();
-                
-                if (temCoordenadasValidas(endCliente) && temCoordenadasValidas(endRestaurante)) {
-                    ResultadoCalculo resultado = tempoEstimadoCalculator.calculateDistanceAndTime(
-                        endCliente.getLatitude(), endCliente.getLongitude(),
-                        endRestaurante.getLatitude(), endRestaurante.getLongitude(),
-                        TipoVeiculo.MOTO
-                    );
-                    
-                    if (resultado != null && resultado.getDistanciaKm() != null) {
-                        dto.setDistanciaKm(resultado.getDistanciaKm());
-                    }
-                    
-                    if (resultado != null && resultado.getTempoMinutos() > 0) {
-                        dto.setTempoEstimadoMinutos(resultado.getTempoMinutos());
-                    }
-                }
-            }
+        if (resultado != null && resultado.getDistanciaKm() != null) {
+            dto.setDistanciaKm(resultado.getDistanciaKm());
+        }
+        
+        if (resultado != null && resultado.getTempoMinutos() > 0) {
+            dto.setTempoEstimadoMinutos(resultado.getTempoMinutos());
         }
         
         return dto;
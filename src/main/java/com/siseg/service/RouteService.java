@@ -1,23 +1,31 @@
 package com.siseg.service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.ResultadoCalculo;
 import com.siseg.dto.geocoding.RouteResult;
 import com.siseg.exception.ResourceNotFoundException;
 import com.siseg.model.Entregador;
 import com.siseg.model.Pedido;
 import com.siseg.model.RotaEntrega;
+import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.RotaEntregaRepository;
+import com.siseg.service.routing.ActiveRouteRegistry;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.service.routing.RotaCalculadaEvent;
+import com.siseg.service.routing.SimplificacaoRotaService;
+import com.siseg.util.DistanceCalculator;
+import com.siseg.util.WaypointCodec;
 
 @Service
 public class RouteService {
@@ -26,14 +34,23 @@ public class RouteService {
     
     private final GeocodingService geocodingService;
     private final RotaEntregaRepository rotaEntregaRepository;
-    private final ObjectMapper objectMapper;
+    private final ActiveRouteRegistry activeRouteRegistry;
+    private final SimplificacaoRotaService simplificacaoRotaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final double desvioMaximoMetros;
     
     public RouteService(GeocodingService geocodingService,
                        RotaEntregaRepository rotaEntregaRepository,
-                       ObjectMapper objectMapper) {
+                       ActiveRouteRegistry activeRouteRegistry,
+                       SimplificacaoRotaService simplificacaoRotaService,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${rotas.ativas.offRouteMeters:150}") double desvioMaximoMetros) {
         this.geocodingService = geocodingService;
         this.rotaEntregaRepository = rotaEntregaRepository;
-        this.objectMapper = objectMapper;
+        this.activeRouteRegistry = activeRouteRegistry;
+        this.simplificacaoRotaService = simplificacaoRotaService;
+        this.eventPublisher = eventPublisher;
+        this.desvioMaximoMetros = desvioMaximoMetros;
     }
     
     @Transactional
@@ -72,18 +89,15 @@ public class RouteService {
         RotaEntrega rota = new RotaEntrega();
         rota.setPedido(pedido);
         rota.setIndiceAtual(0);
-        
-        try {
-            String waypointsJson = objectMapper.writeValueAsString(routeResult.get().getWaypoints());
-            rota.setWaypointsJson(waypointsJson);
-        } catch (JsonProcessingException e) {
-            logger.severe("Erro ao serializar waypoints para JSON: " + e.getMessage());
-            throw new IllegalStateException("Erro ao salvar waypoints da rota", e);
-        }
+        List<Coordinates> waypoints = simplificacaoRotaService.simplificarParaArmazenamento(routeResult.get().getWaypoints());
+        rota.setWaypointsCodificados(WaypointCodec.codificar(waypoints));
+        rota.setTotalWaypoints(waypoints.size());
+        rota.setDuracaoSegundos(routeResult.get().getDuracaoSegundos());
         
         RotaEntrega saved = rotaEntregaRepository.save(rota);
+        eventPublisher.publishEvent(new RotaCalculadaEvent(saved));
         logger.info("Rota calculada e registrada para pedido " + pedido.getId() + " com " + 
-                   routeResult.get().getWaypoints().size() + " waypoints");
+                   waypoints.size() + " waypoints (" + routeResult.get().getWaypoints().size() + " antes da simplificação)");
         
         return saved;
     }
@@ -93,74 +107,111 @@ public class RouteService {
         return rotaEntregaRepository.findByPedidoId(pedidoId);
     }
     
-    @Transactional(readOnly = true)
+    /**
+     * Indica se o pedido já tem rota calculada, consultando primeiro as rotas ativas em memória.
+     */
+    public boolean possuiRota(Long pedidoId) {
+        return activeRouteRegistry.obter(pedidoId).isPresent();
+    }
+    
+    /**
+     * Rota ativa do pedido em memória.
+     *
+     * @throws ResourceNotFoundException se o pedido não tiver rota registrada
+     */
+    public RotaAtiva obterRotaAtiva(Long pedidoId) {
+        return activeRouteRegistry.obter(pedidoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Rota não encontrada para pedido: " + pedidoId));
+    }
+    
+    /**
+     * Rota ativa do pedido, vazia se ele ainda não tiver rota registrada.
+     */
+    public Optional<RotaAtiva> buscarRotaAtiva(Long pedidoId) {
+        return activeRouteRegistry.obter(pedidoId);
+    }
+    
     public Optional<Coordinates> obterProximoWaypoint(Long pedidoId) {
-        RotaEntrega rota = buscarRotaPorPedidoId(pedidoId);
-        List<Coordinates> waypoints = deserializarWaypoints(rota);
+        RotaAtiva rota = obterRotaAtiva(pedidoId);
         
-        if (waypoints == null || waypoints.isEmpty()) {
+        if (rota.getTotalWaypoints() == 0) {
             return Optional.empty();
         }
         
-        int indiceAtual = rota.getIndiceAtual();
-        if (indiceAtual >= waypoints.size()) {
-            return Optional.empty();
-        }
-        
-        return Optional.of(waypoints.get(indiceAtual));
+        return Optional.of(rota.waypoint(rota.getIndiceAtual()));
     }
     
-    @Transactional
     public void avancarWaypoint(Long pedidoId) {
         avancarWaypoints(pedidoId, 1);
     }
     
-    @Transactional
+    /**
+     * Avança o índice apenas em memória; {@link ActiveRouteRegistry} grava o índice periodicamente.
+     */
     public void avancarWaypoints(Long pedidoId, int quantidade) {
-        RotaEntrega rota = buscarRotaPorPedidoId(pedidoId);
-        int indiceAtual = rota.getIndiceAtual();
-        List<Coordinates> waypoints = deserializarWaypoints(rota);
+        RotaAtiva rota = obterRotaAtiva(pedidoId);
+        int indiceAnterior = rota.getIndiceAtual();
+        int novoIndice = rota.avancar(quantidade);
         
-        if (waypoints != null && indiceAtual < waypoints.size() - 1) {
-            int novoIndice = Math.min(indiceAtual + quantidade, waypoints.size() - 1);
-            rota.setIndiceAtual(novoIndice);
-            rotaEntregaRepository.save(rota);
-            logger.fine("Waypoints avançados para pedido " + pedidoId + ": " + novoIndice + "/" + waypoints.size());
+        if (novoIndice != indiceAnterior) {
+            logger.fine("Waypoints avançados para pedido " + pedidoId + ": " + novoIndice + "/" + rota.getTotalWaypoints());
         }
     }
     
-    @Transactional(readOnly = true)
     public List<Coordinates> obterWaypointsRestantes(Long pedidoId) {
-        RotaEntrega rota = buscarRotaPorPedidoId(pedidoId);
-        List<Coordinates> waypoints = deserializarWaypoints(rota);
-        
-        if (waypoints == null || waypoints.isEmpty()) {
-            return List.of();
-        }
-        
-        int indiceAtual = rota.getIndiceAtual();
-        if (indiceAtual >= waypoints.size()) {
-            return List.of();
-        }
-        
-        return waypoints.subList(indiceAtual, waypoints.size());
+        return obterRotaAtiva(pedidoId).waypointsRestantes();
+    }
+    
+    /**
+     * Waypoints restantes simplificados com a tolerância de exibição, para desenhar a rota no mapa.
+     */
+    public List<Coordinates> obterWaypointsRestantesParaExibicao(Long pedidoId) {
+        return simplificacaoRotaService.waypointsRestantesParaExibicao(obterRotaAtiva(pedidoId));
+    }
+    
+    /**
+     * Índices na rota dos waypoints de exibição a partir de {@code indiceAtual}.
+     */
+    public int[] obterIndicesRestantesParaExibicao(RotaAtiva rota, int indiceAtual) {
+        return simplificacaoRotaService.indicesRestantesParaExibicao(rota, indiceAtual);
     }
     
-    @Transactional(readOnly = true)
     public boolean isRotaCompleta(Long pedidoId) {
-        RotaEntrega rota = buscarRotaPorPedidoId(pedidoId);
-        List<Coordinates> waypoints = deserializarWaypoints(rota);
+        return obterRotaAtiva(pedidoId).isCompleta();
+    }
+    
+    /**
+     * Distância e tempo restantes calculados sobre a rota já registrada, a partir da posição informada.
+     * Vazio quando o pedido não tem rota ativa ou a posição está a mais de {@code rotas.ativas.offRouteMeters}
+     * da rota; nesses casos o chamador deve recalcular com o motor de rotas.
+     */
+    public Optional<ResultadoCalculo> estimarRestante(Long pedidoId, BigDecimal latitude, BigDecimal longitude,
+                                                      TipoVeiculo tipoVeiculo) {
+        if (latitude == null || longitude == null) {
+            return Optional.empty();
+        }
+        Optional<RotaAtiva> ativa = activeRouteRegistry.obter(pedidoId);
+        if (ativa.isEmpty() || ativa.get().getTotalWaypoints() == 0) {
+            return Optional.empty();
+        }
         
-        if (waypoints == null || waypoints.isEmpty()) {
-            return true;
+        RotaAtiva rota = ativa.get();
+        RotaAtiva.PosicaoNaRota posicao = rota.localizar(latitude.doubleValue(), longitude.doubleValue());
+        if (posicao.desvioMetros() > desvioMaximoMetros) {
+            logger.fine("Entregador fora da rota do pedido " + pedidoId + " (" + Math.round(posicao.desvioMetros()) + " m)");
+            return Optional.empty();
         }
         
-        return rota.getIndiceAtual() >= waypoints.size() - 1;
-    }
-    
-    private RotaEntrega buscarRotaPorPedidoId(Long pedidoId) {
-        return rotaEntregaRepository.findByPedidoId(pedidoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Rota não encontrada para pedido: " + pedidoId));
+        BigDecimal distanciaKm = BigDecimal.valueOf(rota.distanciaRestanteKm(posicao.distanciaPercorridaKm()))
+                .setScale(2, RoundingMode.HALF_UP);
+        int tempoMinutos;
+        if (rota.possuiDuracao()) {
+            tempoMinutos = (int) Math.ceil(rota.tempoRestanteSegundos(posicao.distanciaPercorridaKm()) / 60);
+        } else {
+            tempoMinutos = DistanceCalculator.estimateDeliveryTime(distanciaKm,
+                    tipoVeiculo != null ? tipoVeiculo.name() : null);
+        }
+        return Optional.of(new ResultadoCalculo(distanciaKm, tempoMinutos, true));
     }
     
     private BigDecimal obterLatitudeOrigem(Pedido pedido, Entregador entregador) {
@@ -185,16 +236,21 @@ public class RouteService {
     
     @Transactional(readOnly = true)
     public List<Coordinates> deserializarWaypoints(RotaEntrega rota) {
-        if (rota.getWaypointsJson() == null || rota.getWaypointsJson().isEmpty()) {
+        if (!possuiWaypoints(rota)) {
             return null;
         }
         
         try {
-            return objectMapper.readValue(rota.getWaypointsJson(), new TypeReference<List<Coordinates>>() {});
-        } catch (JsonProcessingException e) {
-            logger.warning("Erro ao deserializar waypoints do JSON: " + e.getMessage());
+            return WaypointCodec.decodificar(rota.getWaypointsCodificados());
+        } catch (IllegalArgumentException e) {
+            logger.warning("Erro ao decodificar waypoints da rota " + rota.getId() + ": " + e.getMessage());
             return null;
         }
     }
+    
+    private boolean possuiWaypoints(RotaEntrega rota) {
+        return rota.getWaypointsCodificados() != null && rota.getWaypointsCodificados().length > 0
+                && rota.getTotalWaypoints() != null && rota.getTotalWaypoints() > 0;
+    }
 }
 
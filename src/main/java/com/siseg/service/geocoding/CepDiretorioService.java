@@ -0,0 +1,153 @@
+package com.siseg.service.geocoding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.siseg.dto.EnderecoCepResponseDTO;
+import com.siseg.dto.geocoding.CepDiretorioEstatisticasDTO;
+import com.siseg.model.CepCache;
+import com.siseg.repository.CepCacheRepository;
+
+/**
+ * Resolução de CEPs sem depender do ViaCEP a cada requisição. A consulta passa por dois níveis: o
+ * {@link IndiceCep} em memória, importado de {@code geocoding.cep.directoryFile}, e a tabela
+ * {@code cep_cache}, onde ficam os CEPs que o {@link com.siseg.service.GeocodingService} precisou buscar no
+ * ViaCEP. Sem arquivo configurado o índice fica vazio e só a tabela é usada.
+ */
+@Service
+public class CepDiretorioService {
+
+    private static final Logger logger = Logger.getLogger(CepDiretorioService.class.getName());
+
+    private final CepCacheRepository cepCacheRepository;
+    private final String arquivoDiretorio;
+
+    private volatile IndiceCep indice = IndiceCep.vazio();
+    private volatile Instant carregadoEm;
+
+    private final LongAdder hitsIndice = new LongAdder();
+    private final LongAdder hitsPersistente = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder gravadosPersistente = new LongAdder();
+
+    public CepDiretorioService(CepCacheRepository cepCacheRepository,
+                               @Value("${geocoding.cep.directoryFile:}") String arquivoDiretorio) {
+        this.cepCacheRepository = cepCacheRepository;
+        this.arquivoDiretorio = arquivoDiretorio;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarNaInicializacao() {
+        if (arquivoDiretorio.isBlank()) {
+            logger.info("Diretório de CEPs não configurado; CEPs serão resolvidos pelo cache persistente e ViaCEP");
+            return;
+        }
+        try {
+            importar(Path.of(arquivoDiretorio));
+        } catch (IOException | UncheckedIOException e) {
+            logger.warning("Não foi possível carregar o diretório de CEPs de " + arquivoDiretorio + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reimporta o arquivo configurado, substituindo o índice atual só depois que o novo estiver pronto.
+     */
+    public CepDiretorioEstatisticasDTO recarregar() {
+        if (arquivoDiretorio.isBlank()) {
+            throw new IllegalArgumentException("Nenhum arquivo de diretório de CEPs configurado");
+        }
+        try {
+            importar(Path.of(arquivoDiretorio));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao importar diretório de CEPs: " + e.getMessage(), e);
+        }
+        return obterEstatisticas();
+    }
+
+    public void importar(Path arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        IndiceCep novo;
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            novo = IndiceCep.carregar(leitor);
+        }
+        indice = novo;
+        carregadoEm = Instant.now();
+        logger.info(String.format("Diretório de CEPs importado de %s: %d CEPs, %d textos distintos, %d KB em %d ms",
+                arquivo, novo.getQuantidadeCeps(), novo.getQuantidadeTextos(), novo.getTamanhoEstimadoBytes() / 1024,
+                (System.nanoTime() - inicio) / 1_000_000));
+    }
+
+    /**
+     * Consulta apenas o índice em memória; não bloqueia.
+     */
+    public Optional<EnderecoCepResponseDTO> buscarNoIndice(String cep) {
+        EnderecoCepResponseDTO encontrado = indice.buscar(cep);
+        if (encontrado != null) {
+            hitsIndice.increment();
+        }
+        return Optional.ofNullable(encontrado);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<EnderecoCepResponseDTO> buscarPersistido(String cep) {
+        Optional<EnderecoCepResponseDTO> encontrado = cepCacheRepository.findById(cep).map(this::paraDTO);
+        if (encontrado.isPresent()) {
+            hitsPersistente.increment();
+        } else {
+            misses.increment();
+        }
+        return encontrado;
+    }
+
+    @Transactional
+    public void armazenar(EnderecoCepResponseDTO dto) {
+        CepCache registro = cepCacheRepository.findById(dto.getCep()).orElseGet(CepCache::new);
+        registro.setCep(dto.getCep());
+        registro.setLogradouro(dto.getLogradouro());
+        registro.setBairro(dto.getBairro());
+        registro.setCidade(dto.getCidade());
+        registro.setEstado(dto.getEstado());
+        registro.setCriadoEm(Instant.now());
+        cepCacheRepository.save(registro);
+        gravadosPersistente.increment();
+    }
+
+    public CepDiretorioEstatisticasDTO obterEstatisticas() {
+        IndiceCep atual = indice;
+        return new CepDiretorioEstatisticasDTO(
+                arquivoDiretorio.isBlank() ? null : arquivoDiretorio,
+                carregadoEm,
+                atual.getQuantidadeCeps(),
+                atual.getQuantidadeTextos(),
+                atual.getTamanhoEstimadoBytes() / 1024,
+                hitsIndice.sum(),
+                hitsPersistente.sum(),
+                misses.sum(),
+                gravadosPersistente.sum()
+        );
+    }
+
+    private EnderecoCepResponseDTO paraDTO(CepCache registro) {
+        EnderecoCepResponseDTO dto = new EnderecoCepResponseDTO();
+        dto.setLogradouro(registro.getLogradouro());
+        dto.setBairro(registro.getBairro());
+        dto.setCidade(registro.getCidade());
+        dto.setEstado(registro.getEstado());
+        dto.setCep(registro.getCep());
+        return dto;
+    }
+}
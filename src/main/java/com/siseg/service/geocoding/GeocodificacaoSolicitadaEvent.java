@@ -0,0 +1,7 @@
+package com.siseg.service.geocoding;
+
+/**
+ * Publicado quando um endereço entra na fila de geocodificação; tratado após o commit da transação.
+ */
+public record GeocodificacaoSolicitadaEvent(Long enderecoId) {
+}
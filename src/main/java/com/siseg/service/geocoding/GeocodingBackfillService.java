@@ -0,0 +1,353 @@
+package com.siseg.service.geocoding;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.siseg.dto.geocoding.GeocodingBackfillProgressoDTO;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.Endereco;
+import com.siseg.model.enumerations.SituacaoBackfill;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.service.GeocodingService;
+import com.siseg.util.TokenBucketRateLimiter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Geocodificação em massa dos endereços que ficaram sem coordenadas (cadastrados antes da geocodificação
+ * existir ou durante falhas dos provedores). Percorre os endereços em lotes por keyset de id, agrupa os que
+ * têm o mesmo endereço normalizado para consultar cada um uma única vez, geocodifica em paralelo dentro do
+ * limite do LocationIQ e grava o lote com um único batch JDBC.
+ *
+ * <p>O paralelismo segue {@link TokenBucketRateLimiter#vagasDisponiveis()}. Se ainda assim o limiter recusar
+ * uma consulta (o tráfego das requisições HTTP usa o mesmo balde), o endereço não conta como falha: o job
+ * espera, dobrando a espera a cada recusa, e consulta de novo. Se as esperas de um lote passarem de
+ * {@code geocoding.backfill.maxRateLimitWaitMs}, a execução termina como interrompida, com o cursor antes
+ * do primeiro endereço não consultado, e pode ser retomada depois.
+ *
+ * <p>Só uma execução roda por vez. O último id percorrido é gravado em {@code geocoding_backfill_progresso}
+ * a cada lote, e uma execução iniciada sem id de partida continua dali, mesmo depois de um reinício da
+ * aplicação; ao concluir a passada o cursor volta ao início.
+ */
+@Service
+public class GeocodingBackfillService {
+
+    private static final Logger logger = Logger.getLogger(GeocodingBackfillService.class.getName());
+    private static final Duration ESPERA_MINIMA_LIMITE = Duration.ofMillis(10);
+
+    /** Grava também os campos que a geocodificação corrigiu pelo CEP; os endereços de um grupo têm o mesmo CEP. */
+    static final String SQL_ATUALIZAR_COORDENADAS =
+            "UPDATE enderecos SET logradouro = ?, bairro = ?, cidade = ?, estado = ?, latitude = ?, longitude = ?, "
+                    + "status_geocodificacao = 'CONCLUIDA' WHERE id = ? AND (latitude IS NULL OR longitude IS NULL)";
+
+    static final String SQL_LER_CURSOR = "SELECT ultimo_id FROM geocoding_backfill_progresso WHERE id = 1";
+
+    static final String SQL_ATUALIZAR_CURSOR =
+            "UPDATE geocoding_backfill_progresso SET ultimo_id = ?, atualizado_em = CURRENT_TIMESTAMP WHERE id = 1";
+
+    static final String SQL_INSERIR_CURSOR = "INSERT INTO geocoding_backfill_progresso (id, ultimo_id) VALUES (1, ?)";
+
+    /** Endereços com item na fila de geocodificação ficam a cargo dela e mantêm o status PENDENTE. */
+    static final String SQL_MARCAR_FALHA =
+            "UPDATE enderecos SET status_geocodificacao = 'FALHOU' "
+                    + "WHERE id = ? AND (latitude IS NULL OR longitude IS NULL) "
+                    + "AND NOT EXISTS (SELECT 1 FROM geocoding_outbox o WHERE o.endereco_id = enderecos.id)";
+
+    private final EnderecoRepository enderecoRepository;
+    private final GeocodingService geocodingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenBucketRateLimiter locationIQRateLimiter;
+    private final int tamanhoLote;
+    private final int concorrenciaMaxima;
+    private final Duration esperaMaximaLimite;
+
+    private final AtomicBoolean emExecucao = new AtomicBoolean();
+    private volatile boolean cancelamentoSolicitado;
+    private volatile Execucao execucao;
+
+    public GeocodingBackfillService(EnderecoRepository enderecoRepository,
+                                    GeocodingService geocodingService,
+                                    JdbcTemplate jdbcTemplate,
+                                    TokenBucketRateLimiter locationIQRateLimiter,
+                                    @Value("${geocoding.backfill.batchSize:200}") int tamanhoLote,
+                                    @Value("${geocoding.backfill.concurrency:4}") int concorrenciaMaxima,
+                                    @Value("${geocoding.backfill.maxRateLimitWaitMs:60000}") long esperaMaximaLimiteMs) {
+        this.enderecoRepository = enderecoRepository;
+        this.geocodingService = geocodingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.locationIQRateLimiter = locationIQRateLimiter;
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.concorrenciaMaxima = Math.max(1, concorrenciaMaxima);
+        this.esperaMaximaLimite = Duration.ofMillis(Math.max(0, esperaMaximaLimiteMs));
+    }
+
+    /**
+     * Inicia o job em segundo plano a partir do último id gravado. Se já houver uma execução em andamento,
+     * nada é iniciado e o progresso dela é devolvido.
+     */
+    public GeocodingBackfillProgressoDTO iniciar() {
+        return iniciar(lerCursor());
+    }
+
+    /**
+     * Inicia o job em segundo plano a partir do id informado (exclusivo). Se já houver uma execução em
+     * andamento, nada é iniciado e o progresso dela é devolvido.
+     */
+    public GeocodingBackfillProgressoDTO iniciar(long aPartirDoId) {
+        Execucao nova = reservarExecucao(aPartirDoId);
+        if (nova != null) {
+            Mono.fromRunnable(() -> processar(nova))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe();
+        }
+        return obterProgresso();
+    }
+
+    /**
+     * Executa o job na thread chamadora e devolve o progresso final.
+     */
+    public GeocodingBackfillProgressoDTO executar(long aPartirDoId) {
+        Execucao nova = reservarExecucao(aPartirDoId);
+        if (nova != null) {
+            processar(nova);
+        }
+        return obterProgresso();
+    }
+
+    /**
+     * Pede o encerramento da execução em andamento; o lote atual é concluído antes de parar.
+     */
+    public GeocodingBackfillProgressoDTO cancelar() {
+        if (emExecucao.get()) {
+            cancelamentoSolicitado = true;
+        }
+        return obterProgresso();
+    }
+
+    public GeocodingBackfillProgressoDTO obterProgresso() {
+        Execucao atual = execucao;
+        if (atual == null) {
+            return new GeocodingBackfillProgressoDTO(SituacaoBackfill.NUNCA_EXECUTADO, null, null, 0, 0, 0, 0, 0, 0, 0, 0.0, null);
+        }
+        return atual.paraDTO();
+    }
+
+    private Execucao reservarExecucao(long aPartirDoId) {
+        if (!emExecucao.compareAndSet(false, true)) {
+            return null;
+        }
+        cancelamentoSolicitado = false;
+        Execucao nova = new Execucao(Math.max(0, aPartirDoId));
+        execucao = nova;
+        return nova;
+    }
+
+    private void processar(Execucao atual) {
+        logger.info("Backfill de geocodificação iniciado a partir do id " + atual.ultimoId);
+        try {
+            while (!cancelamentoSolicitado) {
+                List<Endereco> lote = enderecoRepository.findSemCoordenadasAposId(atual.ultimoId,
+                        PageRequest.of(0, tamanhoLote));
+                if (lote.isEmpty()) {
+                    break;
+                }
+                long ultimoConcluido = processarLote(lote, atual);
+                if (ultimoConcluido > atual.ultimoId) {
+                    atual.ultimoId = ultimoConcluido;
+                    gravarCursor(ultimoConcluido);
+                }
+                if (atual.limiteEsgotado) {
+                    break;
+                }
+            }
+            if (atual.limiteEsgotado) {
+                atual.finalizar(SituacaoBackfill.INTERROMPIDO, "Rate limiter do LocationIQ recusou consultas por mais de "
+                        + esperaMaximaLimite.toMillis() + " ms; retome a execução mais tarde");
+                logger.warning("Backfill de geocodificação interrompido pelo rate limiter após o id " + atual.ultimoId);
+                return;
+            }
+            if (!cancelamentoSolicitado) {
+                gravarCursor(0);
+            }
+            atual.finalizar(cancelamentoSolicitado ? SituacaoBackfill.CANCELADO : SituacaoBackfill.CONCLUIDO, null);
+            logger.info("Backfill de geocodificação " + atual.situacao + ": " + atual.atualizados.sum()
+                    + " endereços atualizados, " + atual.falhas.sum() + " falhas");
+        } catch (RuntimeException e) {
+            atual.finalizar(SituacaoBackfill.INTERROMPIDO, e.getMessage());
+            logger.warning("Backfill de geocodificação interrompido após o id " + atual.ultimoId + ": " + e.getMessage());
+        } finally {
+            emExecucao.set(false);
+        }
+    }
+
+    /**
+     * Geocodifica e grava o lote. Devolve o maior id até onde o lote foi resolvido: o último do lote ou,
+     * se o job parou (cancelamento ou espera máxima esgotada) com consultas ainda adiadas pelo rate limiter,
+     * o anterior à primeira delas.
+     */
+    private long processarLote(List<Endereco> lote, Execucao atual) {
+        Map<String, List<Endereco>> porEndereco = new LinkedHashMap<>();
+        List<Object[]> falhas = new ArrayList<>();
+        for (Endereco endereco : lote) {
+            if (endereco.isCompleto()) {
+                String chave = GeocodingCacheService.normalizarChave(endereco.toGeocodingString());
+                porEndereco.computeIfAbsent(chave, k -> new ArrayList<>()).add(endereco);
+            } else {
+                falhas.add(new Object[]{endereco.getId()});
+            }
+        }
+        atual.lidos.add(lote.size());
+        atual.consultas.add(porEndereco.size());
+        atual.duplicados.add(lote.size() - falhas.size() - porEndereco.size());
+
+        List<List<Endereco>> grupos = new ArrayList<>();
+        List<List<Endereco>> pendentes = new ArrayList<>(porEndereco.values());
+        Duration espera = null;
+        Duration esperado = Duration.ZERO;
+        while (!pendentes.isEmpty()) {
+            List<List<Endereco>> adiados = Collections.synchronizedList(new ArrayList<>());
+            grupos.addAll(geocodificar(pendentes, adiados));
+            pendentes = new ArrayList<>(adiados);
+            if (!pendentes.isEmpty()) {
+                atual.adiadas.add(pendentes.size());
+                if (cancelamentoSolicitado) {
+                    break;
+                }
+                espera = espera == null ? primeiraEspera() : espera.multipliedBy(2);
+                if (esperado.plus(espera).compareTo(esperaMaximaLimite) > 0) {
+                    atual.limiteEsgotado = true;
+                    break;
+                }
+                Mono.delay(espera).block();
+                esperado = esperado.plus(espera);
+            }
+        }
+
+        List<Object[]> atualizacoes = new ArrayList<>();
+        for (List<Endereco> grupo : grupos) {
+            Endereco geocodificado = grupo.get(0);
+            for (Endereco endereco : grupo) {
+                if (geocodificado.getLatitude() != null && geocodificado.getLongitude() != null) {
+                    atualizacoes.add(new Object[]{geocodificado.getLogradouro(), geocodificado.getBairro(),
+                            geocodificado.getCidade(), geocodificado.getEstado(), geocodificado.getLatitude(),
+                            geocodificado.getLongitude(), endereco.getId()});
+                } else {
+                    falhas.add(new Object[]{endereco.getId()});
+                }
+            }
+        }
+
+        if (!atualizacoes.isEmpty()) {
+            atual.atualizados.add(somar(jdbcTemplate.batchUpdate(SQL_ATUALIZAR_COORDENADAS, atualizacoes)));
+        }
+        if (!falhas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_MARCAR_FALHA, falhas);
+            atual.falhas.add(falhas.size());
+        }
+
+        long ultimoId = lote.get(lote.size() - 1).getId();
+        for (List<Endereco> grupo : pendentes) {
+            for (Endereco endereco : grupo) {
+                ultimoId = Math.min(ultimoId, endereco.getId() - 1);
+            }
+        }
+        return ultimoId;
+    }
+
+    /**
+     * Consulta o primeiro endereço de cada grupo com o paralelismo que o rate limiter comporta agora. Os
+     * grupos recusados pelo limiter vão para {@code adiados}, e não para o resultado.
+     */
+    private List<List<Endereco>> geocodificar(List<List<Endereco>> grupos, List<List<Endereco>> adiados) {
+        int concorrencia = Math.max(1, Math.min(concorrenciaMaxima, locationIQRateLimiter.vagasDisponiveis()));
+        return Flux.fromIterable(grupos)
+                .flatMap(grupo -> geocodingService.geocodeAsyncEmSegundoPlano(grupo.get(0))
+                        .thenReturn(grupo)
+                        .onErrorResume(RateLimitExceededException.class, e -> {
+                            adiados.add(grupo);
+                            return Mono.empty();
+                        }), concorrencia)
+                .collectList()
+                .block();
+    }
+
+    private Duration primeiraEspera() {
+        Duration intervalo = locationIQRateLimiter.getIntervalo();
+        return intervalo.compareTo(ESPERA_MINIMA_LIMITE) < 0 ? ESPERA_MINIMA_LIMITE : intervalo;
+    }
+
+    private long lerCursor() {
+        List<Long> cursor = jdbcTemplate.queryForList(SQL_LER_CURSOR, Long.class);
+        return cursor.isEmpty() || cursor.get(0) == null ? 0 : cursor.get(0);
+    }
+
+    private void gravarCursor(long ultimoId) {
+        try {
+            if (jdbcTemplate.update(SQL_ATUALIZAR_CURSOR, ultimoId) == 0) {
+                jdbcTemplate.update(SQL_INSERIR_CURSOR, ultimoId);
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Falha ao gravar progresso do backfill de geocodificação: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Alguns drivers devolvem {@link java.sql.Statement#SUCCESS_NO_INFO} (-2) por comando em batch;
+     * nesse caso cada comando é contado como uma linha atualizada.
+     */
+    private static long somar(int[] linhasAfetadas) {
+        long total = 0;
+        for (int linhas : linhasAfetadas) {
+            total += linhas < 0 ? 1 : linhas;
+        }
+        return total;
+    }
+
+    private static final class Execucao {
+        private final Instant iniciadoEm = Instant.now();
+        private volatile Instant finalizadoEm;
+        private volatile SituacaoBackfill situacao = SituacaoBackfill.EM_EXECUCAO;
+        private volatile long ultimoId;
+        private volatile String erro;
+        private volatile boolean limiteEsgotado;
+        private final LongAdder lidos = new LongAdder();
+        private final LongAdder consultas = new LongAdder();
+        private final LongAdder duplicados = new LongAdder();
+        private final LongAdder atualizados = new LongAdder();
+        private final LongAdder falhas = new LongAdder();
+        private final LongAdder adiadas = new LongAdder();
+
+        private Execucao(long ultimoId) {
+            this.ultimoId = ultimoId;
+        }
+
+        private void finalizar(SituacaoBackfill situacaoFinal, String mensagemErro) {
+            this.erro = mensagemErro;
+            this.finalizadoEm = Instant.now();
+            this.situacao = situacaoFinal;
+        }
+
+        private GeocodingBackfillProgressoDTO paraDTO() {
+            Instant fim = finalizadoEm != null ? finalizadoEm : Instant.now();
+            long milissegundos = Math.max(1, Duration.between(iniciadoEm, fim).toMillis());
+            double porSegundo = Math.round(lidos.sum() * 1000.0 / milissegundos * 100.0) / 100.0;
+            return new GeocodingBackfillProgressoDTO(situacao, iniciadoEm, finalizadoEm, ultimoId, lidos.sum(),
+                    consultas.sum(), duplicados.sum(), atualizados.sum(), falhas.sum(), adiadas.sum(), porSegundo, erro);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.siseg.service.geocoding;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.GeocodingCacheEstatisticasDTO;
+import com.siseg.model.GeocodingCache;
+import com.siseg.repository.GeocodingCacheRepository;
+
+/**
+ * Cache de geocodificação em dois níveis: memória (Caffeine, W-TinyLFU com TTL por entrada)
+ * e tabela {@code geocoding_cache}. O nível persistente sobrevive a restarts e aquece a memória no startup.
+ */
+@Service
+public class GeocodingCacheService {
+
+    private static final Logger logger = Logger.getLogger(GeocodingCacheService.class.getName());
+    private static final int TAMANHO_MAXIMO_CHAVE = 500;
+
+    private final GeocodingCacheRepository geocodingCacheRepository;
+    private final Cache<String, EntradaCache> memoria;
+    private final long capacidadeMaxima;
+    private final Duration ttl;
+
+    private final LongAdder hitsPersistente = new LongAdder();
+    private final LongAdder entradasAquecidas = new LongAdder();
+
+    public GeocodingCacheService(GeocodingCacheRepository geocodingCacheRepository,
+                                 @Value("${geocoding.cache.maxSize:10000}") long capacidadeMaxima,
+                                 @Value("${geocoding.cache.ttlHours:720}") long ttlHoras) {
+        this.geocodingCacheRepository = geocodingCacheRepository;
+        this.capacidadeMaxima = capacidadeMaxima;
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.memoria = Caffeine.newBuilder()
+                .maximumSize(capacidadeMaxima)
+                .expireAfter(new ExpiracaoPorEntrada())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Normaliza o endereço para uso como chave: remove acentos, converte para minúsculas
+     * e colapsa espaços, de modo que variações triviais de digitação compartilhem a mesma entrada.
+     */
+    public static String normalizarChave(String endereco) {
+        if (endereco == null) {
+            return null;
+        }
+        String semAcentos = Normalizer.normalize(endereco, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        String normalizada = semAcentos.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+        return normalizada.length() > TAMANHO_MAXIMO_CHAVE ? normalizada.substring(0, TAMANHO_MAXIMO_CHAVE) : normalizada;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Coordinates> buscar(String endereco) {
+        String chave = normalizarChave(endereco);
+        if (chave == null || chave.isEmpty()) {
+            return Optional.empty();
+        }
+
+        EntradaCache entrada = memoria.getIfPresent(chave);
+        if (entrada != null) {
+            return Optional.of(entrada.coordenadas());
+        }
+
+        return buscarNoNivelPersistente(chave);
+    }
+
+    private Optional<Coordinates> buscarNoNivelPersistente(String chave) {
+        Optional<GeocodingCache> persistido = geocodingCacheRepository.findByChave(chave)
+                .filter(registro -> registro.getExpiraEm().isAfter(Instant.now()));
+
+        persistido.ifPresent(registro -> {
+            hitsPersistente.increment();
+            memoria.put(chave, paraEntrada(registro));
+        });
+
+        return persistido.map(registro -> new Coordinates(registro.getLatitude(), registro.getLongitude()));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void armazenar(String endereco, Coordinates coordenadas) {
+        String chave = normalizarChave(endereco);
+        if (chave == null || chave.isEmpty() || coordenadas == null) {
+            return;
+        }
+
+        Instant expiraEm = Instant.now().plus(ttl);
+        memoria.put(chave, new EntradaCache(coordenadas, expiraEm));
+
+        GeocodingCache registro = geocodingCacheRepository.findByChave(chave).orElseGet(GeocodingCache::new);
+        registro.setChave(chave);
+        registro.setLatitude(coordenadas.getLatitude());
+        registro.setLongitude(coordenadas.getLongitude());
+        registro.setCriadoEm(Instant.now());
+        registro.setExpiraEm(expiraEm);
+        geocodingCacheRepository.save(registro);
+    }
+
+    @Transactional
+    public void limpar() {
+        memoria.invalidateAll();
+        geocodingCacheRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Remove registros expirados do nível persistente e carrega os mais recentes na memória,
+     * até a capacidade configurada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void aquecer() {
+        Instant agora = Instant.now();
+        int removidos = geocodingCacheRepository.deleteExpirados(agora);
+
+        List<GeocodingCache> recentes = geocodingCacheRepository.findByExpiraEmAfterOrderByCriadoEmDesc(
+                agora, PageRequest.of(0, (int) Math.min(capacidadeMaxima, Integer.MAX_VALUE)));
+        recentes.forEach(registro -> memoria.put(registro.getChave(), paraEntrada(registro)));
+        entradasAquecidas.add(recentes.size());
+
+        logger.info("Cache de geocodificação aquecido com " + recentes.size()
+                + " entradas (" + removidos + " expiradas removidas)");
+    }
+
+    public GeocodingCacheEstatisticasDTO obterEstatisticas() {
+        CacheStats stats = memoria.stats();
+        return new GeocodingCacheEstatisticasDTO(
+                memoria.estimatedSize(),
+                capacidadeMaxima,
+                stats.hitCount(),
+                hitsPersistente.sum(),
+                stats.missCount() - hitsPersistente.sum(),
+                stats.evictionCount(),
+                entradasAquecidas.sum()
+        );
+    }
+
+    private EntradaCache paraEntrada(GeocodingCache registro) {
+        return new EntradaCache(new Coordinates(registro.getLatitude(), registro.getLongitude()), registro.getExpiraEm());
+    }
+
+    private record EntradaCache(Coordinates coordenadas, Instant expiraEm) {
+    }
+
+    private static class ExpiracaoPorEntrada implements Expiry<String, EntradaCache> {
+
+        @Override
+        public long expireAfterCreate(String chave, EntradaCache entrada, long tempoAtual) {
+            return Math.max(0, Duration.between(Instant.now(), entrada.expiraEm()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, EntradaCache entrada, long tempoAtual, long duracaoAtual) {
+            return expireAfterCreate(chave, entrada, tempoAtual);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, EntradaCache entrada, long tempoAtual, long duracaoAtual) {
+            return duracaoAtual;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.siseg.service.geocoding;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.siseg.dto.geocoding.GeocodingFilaEstatisticasDTO;
+import com.siseg.model.Endereco;
+import com.siseg.model.GeocodingOutbox;
+import com.siseg.model.enumerations.StatusGeocodificacao;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.repository.GeocodingOutboxRepository;
+
+/**
+ * Fila durável de geocodificação (padrão outbox). O item é gravado na mesma transação que cria ou altera
+ * o endereço, então nada se perde se a aplicação cair antes do processamento; o
+ * {@link GeocodingOutboxWorker} consome a fila depois do commit. Cada item é reservado por um prazo antes
+ * de ser processado, e só é concluído ou reagendado se a reserva ainda for a mesma: se o endereço foi
+ * alterado e reenfileirado nesse meio tempo, o resultado antigo é descartado.
+ */
+@Service
+public class GeocodingOutboxService {
+
+    private static final Logger logger = Logger.getLogger(GeocodingOutboxService.class.getName());
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private final GeocodingOutboxRepository outboxRepository;
+    private final EnderecoRepository enderecoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxTentativas;
+    private final Duration atrasoBase;
+    private final Duration atrasoMaximo;
+    private final Duration prazoReserva;
+
+    private final LongAdder concluidos = new LongAdder();
+    private final LongAdder reagendados = new LongAdder();
+    private final LongAdder adiados = new LongAdder();
+    private final LongAdder falhasDefinitivas = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public GeocodingOutboxService(GeocodingOutboxRepository outboxRepository,
+                                  EnderecoRepository enderecoRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${geocoding.outbox.maxAttempts:6}") int maxTentativas,
+                                  @Value("${geocoding.outbox.retryDelayMs:30000}") long atrasoBaseMs,
+                                  @Value("${geocoding.outbox.maxRetryDelayMs:3600000}") long atrasoMaximoMs,
+                                  @Value("${geocoding.outbox.leaseSeconds:120}") long prazoReservaSegundos) {
+        this.outboxRepository = outboxRepository;
+        this.enderecoRepository = enderecoRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxTentativas = Math.max(1, maxTentativas);
+        this.atrasoBase = Duration.ofMillis(atrasoBaseMs);
+        this.atrasoMaximo = Duration.ofMillis(atrasoMaximoMs);
+        this.prazoReserva = Duration.ofSeconds(prazoReservaSegundos);
+    }
+
+    /**
+     * Marca o endereço como pendente e coloca-o na fila. Se já houver item para o endereço, ele é
+     * reiniciado, de modo que o endereço tem no máximo um item na fila.
+     */
+    @Transactional
+    public void enfileirar(Endereco endereco) {
+        endereco.setStatusGeocodificacao(StatusGeocodificacao.PENDENTE);
+
+        GeocodingOutbox item = outboxRepository.findByEnderecoId(endereco.getId()).orElseGet(() -> {
+            GeocodingOutbox novo = new GeocodingOutbox();
+            novo.setEnderecoId(endereco.getId());
+            return novo;
+        });
+        item.setTentativas(0);
+        item.setProximaTentativaEm(agora());
+        item.setUltimoErro(null);
+        outboxRepository.save(item);
+
+        eventPublisher.publishEvent(new GeocodificacaoSolicitadaEvent(endereco.getId()));
+    }
+
+    /**
+     * Reserva até {@code limite} itens cuja próxima tentativa já venceu. Os itens devolvidos trazem em
+     * {@code proximaTentativaEm} o fim da reserva, usado para confirmar a posse ao concluir ou reagendar.
+     */
+    @Transactional
+    public List<GeocodingOutbox> reservarLote(int limite) {
+        Instant agora = agora();
+        Instant reservadoAte = agora.plus(prazoReserva);
+        List<GeocodingOutbox> prontos = outboxRepository.findByProximaTentativaEmLessThanEqualOrderByProximaTentativaEm(
+                agora, PageRequest.of(0, limite));
+
+        List<GeocodingOutbox> reservados = new ArrayList<>(prontos.size());
+        for (GeocodingOutbox item : prontos) {
+            if (outboxRepository.reservar(item.getId(), item.getProximaTentativaEm(), reservadoAte) == 1) {
+                item.setProximaTentativaEm(reservadoAte);
+                reservados.add(item);
+            }
+        }
+        return reservados;
+    }
+
+    /**
+     * Grava as coordenadas e os campos que a geocodificação corrigiu pelo CEP (logradouro, bairro, cidade e
+     * estado), na mesma transação que remove o item da fila.
+     */
+    @Transactional
+    public void concluir(GeocodingOutbox item, Endereco geocodificado) {
+        if (outboxRepository.removerReservado(item.getId(), item.getProximaTentativaEm()) == 0) {
+            return;
+        }
+        enderecoRepository.atualizarGeocodificacao(item.getEnderecoId(), geocodificado.getLogradouro(),
+                geocodificado.getBairro(), geocodificado.getCidade(), geocodificado.getEstado(),
+                geocodificado.getLatitude(), geocodificado.getLongitude());
+        concluidos.increment();
+    }
+
+    /**
+     * Reagenda o item com backoff exponencial ou, esgotadas as tentativas, remove-o e marca o endereço
+     * como {@link StatusGeocodificacao#FALHOU}.
+     */
+    @Transactional
+    public void registrarFalha(GeocodingOutbox item, String motivo) {
+        int tentativas = item.getTentativas() + 1;
+        if (tentativas >= maxTentativas) {
+            if (outboxRepository.removerReservado(item.getId(), item.getProximaTentativaEm()) == 1) {
+                enderecoRepository.atualizarStatusGeocodificacao(item.getEnderecoId(), StatusGeocodificacao.FALHOU);
+                falhasDefinitivas.increment();
+                logger.warning("Geocodificação do endereço " + item.getEnderecoId() + " abandonada após "
+                        + tentativas + " tentativas: " + motivo);
+            }
+            return;
+        }
+
+        Instant proximaTentativa = agora().plus(calcularAtraso(tentativas));
+        if (outboxRepository.reagendarReservado(item.getId(), item.getProximaTentativaEm(), tentativas,
+                proximaTentativa, truncarErro(motivo)) == 1) {
+            reagendados.increment();
+        }
+    }
+
+    /**
+     * Devolve o item à fila para depois de {@code atraso} sem contar tentativa, para quando a consulta nem
+     * chegou a ser feita (o rate limiter do LocationIQ recusou).
+     */
+    @Transactional
+    public void adiar(GeocodingOutbox item, Duration atraso) {
+        if (outboxRepository.reagendarReservado(item.getId(), item.getProximaTentativaEm(), item.getTentativas(),
+                agora().plus(atraso), item.getUltimoErro()) == 1) {
+            adiados.increment();
+        }
+    }
+
+    /**
+     * Remove o item de um endereço que não existe mais.
+     */
+    @Transactional
+    public void descartar(GeocodingOutbox item) {
+        if (outboxRepository.removerReservado(item.getId(), item.getProximaTentativaEm()) == 1) {
+            descartados.increment();
+        }
+    }
+
+    Duration calcularAtraso(int tentativas) {
+        int expoente = Math.min(tentativas - 1, 30);
+        Duration atraso = atrasoBase.multipliedBy(1L << expoente);
+        return atraso.compareTo(atrasoMaximo) > 0 ? atrasoMaximo : atraso;
+    }
+
+    public GeocodingFilaEstatisticasDTO obterEstatisticas() {
+        return new GeocodingFilaEstatisticasDTO(
+                outboxRepository.count(),
+                outboxRepository.countByProximaTentativaEmLessThanEqual(agora()),
+                concluidos.sum(),
+                reagendados.sum(),
+                adiados.sum(),
+                falhasDefinitivas.sum(),
+                descartados.sum()
+        );
+    }
+
+    /**
+     * Instantes gravados na fila são truncados em segundos para que a comparação da reserva não dependa
+     * da precisão da coluna TIMESTAMP.
+     */
+    private static Instant agora() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static String truncarErro(String motivo) {
+        if (motivo == null || motivo.length() <= TAMANHO_MAXIMO_ERRO) {
+            return motivo;
+        }
+        return motivo.substring(0, TAMANHO_MAXIMO_ERRO);
+    }
+}
@@ -0,0 +1,151 @@
+package com.siseg.service.geocoding;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.Endereco;
+import com.siseg.model.GeocodingOutbox;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.service.GeocodingService;
+import com.siseg.util.TokenBucketRateLimiter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Consome a fila de geocodificação. É acionado logo após o commit que enfileirou um endereço e, como
+ * garantia, a cada {@code geocoding.outbox.pollIntervalMs} para retomar itens reagendados ou cuja reserva
+ * venceu. Só uma drenagem roda por vez nesta instância; solicitações que chegam durante ela provocam uma
+ * nova passada ao final.
+ *
+ * <p>Os itens de um lote são geocodificados em paralelo, mas a concorrência nunca passa do que o rate
+ * limiter do LocationIQ consegue liberar dentro da espera máxima, e a drenagem é adiada enquanto ele não
+ * tiver vaga. Um item recusado pelo limiter (o tráfego das requisições HTTP usa o mesmo balde) volta à
+ * fila sem contar tentativa, e a drenagem para até a próxima passada.
+ */
+@Component
+@ConditionalOnProperty(name = "geocoding.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class GeocodingOutboxWorker {
+
+    private static final Logger logger = Logger.getLogger(GeocodingOutboxWorker.class.getName());
+
+    private final GeocodingOutboxService outboxService;
+    private final EnderecoRepository enderecoRepository;
+    private final GeocodingService geocodingService;
+    private final TokenBucketRateLimiter locationIQRateLimiter;
+    private final int tamanhoLote;
+    private final int concorrenciaMaxima;
+
+    private final AtomicBoolean drenando = new AtomicBoolean();
+    private final AtomicBoolean solicitado = new AtomicBoolean();
+    private final AtomicBoolean limiteAtingido = new AtomicBoolean();
+
+    public GeocodingOutboxWorker(GeocodingOutboxService outboxService,
+                                 EnderecoRepository enderecoRepository,
+                                 GeocodingService geocodingService,
+                                 TokenBucketRateLimiter locationIQRateLimiter,
+                                 @Value("${geocoding.outbox.batchSize:20}") int tamanhoLote,
+                                 @Value("${geocoding.outbox.concurrency:4}") int concorrenciaMaxima) {
+        this.outboxService = outboxService;
+        this.enderecoRepository = enderecoRepository;
+        this.geocodingService = geocodingService;
+        this.locationIQRateLimiter = locationIQRateLimiter;
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.concorrenciaMaxima = Math.max(1, concorrenciaMaxima);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoSolicitarGeocodificacao(GeocodificacaoSolicitadaEvent evento) {
+        Mono.fromRunnable(this::processarPendentes)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> logger.warning("Erro ao processar fila de geocodificação: " + e.getMessage()));
+    }
+
+    @Scheduled(fixedDelayString = "${geocoding.outbox.pollIntervalMs:5000}")
+    public void processarPendentes() {
+        solicitado.set(true);
+        while (solicitado.get() && drenando.compareAndSet(false, true)) {
+            try {
+                solicitado.set(false);
+                drenar();
+            } finally {
+                drenando.set(false);
+            }
+        }
+    }
+
+    private void drenar() {
+        while (true) {
+            int concorrencia = calcularConcorrencia();
+            if (concorrencia == 0) {
+                logger.fine("Fila do LocationIQ ocupada; geocodificação em segundo plano adiada");
+                return;
+            }
+
+            List<GeocodingOutbox> lote = outboxService.reservarLote(tamanhoLote);
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            limiteAtingido.set(false);
+            Flux.fromIterable(lote)
+                    .flatMap(this::processar, concorrencia)
+                    .then()
+                    .block();
+
+            if (limiteAtingido.get()) {
+                logger.fine("Rate limiter do LocationIQ recusou consultas; geocodificação em segundo plano adiada");
+                return;
+            }
+            if (lote.size() < tamanhoLote) {
+                return;
+            }
+        }
+    }
+
+    private int calcularConcorrencia() {
+        return Math.min(concorrenciaMaxima, locationIQRateLimiter.vagasDisponiveis());
+    }
+
+    private Mono<Void> processar(GeocodingOutbox item) {
+        return Mono.fromCallable(() -> enderecoRepository.findById(item.getEnderecoId()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(endereco -> geocodificar(item, endereco))
+                .onErrorResume(e -> Mono.fromRunnable(() -> {
+                    if (e instanceof RateLimitExceededException) {
+                        limiteAtingido.set(true);
+                        outboxService.adiar(item, locationIQRateLimiter.getIntervalo());
+                    } else {
+                        outboxService.registrarFalha(item, e.getMessage());
+                    }
+                }));
+    }
+
+    private Mono<Void> geocodificar(GeocodingOutbox item, Optional<Endereco> endereco) {
+        if (endereco.isEmpty()) {
+            return Mono.fromRunnable(() -> outboxService.descartar(item));
+        }
+
+        return geocodingService.geocodeAsyncEmSegundoPlano(endereco.get())
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(resultado -> {
+                    if (resultado.getLatitude() != null && resultado.getLongitude() != null) {
+                        outboxService.concluir(item, resultado);
+                    } else {
+                        outboxService.registrarFalha(item, "Coordenadas não encontradas para o endereço");
+                    }
+                })
+                .then();
+    }
+}
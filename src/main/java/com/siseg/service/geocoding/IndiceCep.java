@@ -0,0 +1,187 @@
+package com.siseg.service.geocoding;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.siseg.dto.EnderecoCepResponseDTO;
+
+/**
+ * Diretório de CEPs imutável e compacto. As chaves ficam num {@code int[]} ordenado (busca binária) e cada
+ * registro guarda quatro ids de texto (logradouro, bairro, cidade, UF). Os textos distintos são gravados uma
+ * única vez em UTF-8 num pool de bytes contíguo, com um {@code int[]} de offsets; nomes de cidades, bairros e
+ * UFs, que se repetem em milhares de CEPs, custam um int por registro e nenhum objeto por entrada.
+ *
+ * <p>Formato do arquivo: uma linha por CEP, campos separados por {@code ;}:
+ * <pre>
+ * cep;logradouro;bairro;cidade;uf
+ * </pre>
+ * O CEP pode ter hífen. Linhas vazias, comentários ({@code #}) e um cabeçalho não numérico são ignorados;
+ * se o mesmo CEP aparecer mais de uma vez vale a primeira ocorrência.
+ */
+public final class IndiceCep {
+
+    private static final int CAMPOS_POR_REGISTRO = 4;
+    private static final int LOGRADOURO = 0;
+    private static final int BAIRRO = 1;
+    private static final int CIDADE = 2;
+    private static final int UF = 3;
+
+    private final int[] ceps;
+    private final int[] textosPorRegistro;
+    private final byte[] pool;
+    private final int[] inicioTextos;
+
+    private IndiceCep(int[] ceps, int[] textosPorRegistro, byte[] pool, int[] inicioTextos) {
+        this.ceps = ceps;
+        this.textosPorRegistro = textosPorRegistro;
+        this.pool = pool;
+        this.inicioTextos = inicioTextos;
+    }
+
+    public static IndiceCep vazio() {
+        return new IndiceCep(new int[0], new int[0], new byte[0], new int[]{0});
+    }
+
+    public static IndiceCep carregar(BufferedReader leitor) throws IOException {
+        Construtor construtor = new Construtor();
+        String linha;
+        int numeroLinha = 0;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            if (linha.isBlank() || linha.startsWith("#")) {
+                continue;
+            }
+            String[] campos = linha.split(";", -1);
+            String cep = campos[0].replace("-", "").strip();
+            if (numeroLinha == 1 && !cep.chars().allMatch(Character::isDigit)) {
+                continue;
+            }
+            if (campos.length < 5 || cep.length() != 8 || !cep.chars().allMatch(Character::isDigit)) {
+                throw new IOException("Linha " + numeroLinha + " inválida no diretório de CEPs");
+            }
+            construtor.adicionar(Integer.parseInt(cep), campos[1].strip(), campos[2].strip(),
+                    campos[3].strip(), campos[4].strip().toUpperCase());
+        }
+        return construtor.construir();
+    }
+
+    /**
+     * @param cep CEP com 8 dígitos, sem máscara
+     */
+    public EnderecoCepResponseDTO buscar(String cep) {
+        if (cep == null || cep.length() != 8) {
+            return null;
+        }
+        int posicao;
+        try {
+            posicao = Arrays.binarySearch(ceps, Integer.parseInt(cep));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (posicao < 0) {
+            return null;
+        }
+
+        int base = posicao * CAMPOS_POR_REGISTRO;
+        EnderecoCepResponseDTO dto = new EnderecoCepResponseDTO();
+        dto.setLogradouro(texto(textosPorRegistro[base + LOGRADOURO]));
+        dto.setBairro(texto(textosPorRegistro[base + BAIRRO]));
+        dto.setCidade(texto(textosPorRegistro[base + CIDADE]));
+        dto.setEstado(texto(textosPorRegistro[base + UF]));
+        dto.setCep(cep);
+        return dto;
+    }
+
+    private String texto(int id) {
+        return new String(pool, inicioTextos[id], inicioTextos[id + 1] - inicioTextos[id], StandardCharsets.UTF_8);
+    }
+
+    public int getQuantidadeCeps() {
+        return ceps.length;
+    }
+
+    public int getQuantidadeTextos() {
+        return inicioTextos.length - 1;
+    }
+
+    /**
+     * Memória aproximada ocupada pelos arrays do índice, em bytes.
+     */
+    public long getTamanhoEstimadoBytes() {
+        return 4L * ceps.length + 4L * textosPorRegistro.length + pool.length + 4L * inicioTextos.length;
+    }
+
+    private static final class Construtor {
+        private final Map<String, Integer> idsPorTexto = new HashMap<>();
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private int[] inicioTextos = new int[1024];
+        private int quantidadeTextos;
+
+        private int[] ceps = new int[1024];
+        private int[] textos = new int[1024 * CAMPOS_POR_REGISTRO];
+        private int registros;
+
+        void adicionar(int cep, String logradouro, String bairro, String cidade, String uf) {
+            if (registros == ceps.length) {
+                ceps = Arrays.copyOf(ceps, registros * 2);
+                textos = Arrays.copyOf(textos, registros * 2 * CAMPOS_POR_REGISTRO);
+            }
+            int base = registros * CAMPOS_POR_REGISTRO;
+            textos[base + LOGRADOURO] = idTexto(logradouro);
+            textos[base + BAIRRO] = idTexto(bairro);
+            textos[base + CIDADE] = idTexto(cidade);
+            textos[base + UF] = idTexto(uf);
+            ceps[registros++] = cep;
+        }
+
+        private int idTexto(String texto) {
+            Integer existente = idsPorTexto.get(texto);
+            if (existente != null) {
+                return existente;
+            }
+            if (quantidadeTextos + 1 >= inicioTextos.length) {
+                inicioTextos = Arrays.copyOf(inicioTextos, inicioTextos.length * 2);
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            pool.write(bytes, 0, bytes.length);
+            int id = quantidadeTextos++;
+            inicioTextos[quantidadeTextos] = pool.size();
+            idsPorTexto.put(texto, id);
+            return id;
+        }
+
+        IndiceCep construir() {
+            // Ordena pares (cep, linha) empacotados em long; a linha no desempate mantém a primeira ocorrência
+            long[] ordem = new long[registros];
+            for (int i = 0; i < registros; i++) {
+                ordem[i] = ((long) ceps[i] << 32) | i;
+            }
+            Arrays.sort(ordem);
+
+            int[] cepsOrdenados = new int[registros];
+            int[] textosOrdenados = new int[registros * CAMPOS_POR_REGISTRO];
+            int unicos = 0;
+            for (long par : ordem) {
+                int cep = (int) (par >>> 32);
+                if (unicos > 0 && cepsOrdenados[unicos - 1] == cep) {
+                    continue;
+                }
+                int linha = (int) par;
+                System.arraycopy(textos, linha * CAMPOS_POR_REGISTRO, textosOrdenados, unicos * CAMPOS_POR_REGISTRO,
+                        CAMPOS_POR_REGISTRO);
+                cepsOrdenados[unicos++] = cep;
+            }
+
+            return new IndiceCep(
+                    Arrays.copyOf(cepsOrdenados, unicos),
+                    Arrays.copyOf(textosOrdenados, unicos * CAMPOS_POR_REGISTRO),
+                    pool.toByteArray(),
+                    Arrays.copyOf(inicioTextos, quantidadeTextos + 1));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.siseg.service.geocoding;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.siseg.dto.geocoding.RotaCacheEstatisticasDTO;
+import com.siseg.dto.geocoding.RouteResult;
+
+/**
+ * Cache em memória de rotas calculadas pelo OSRM. A chave ajusta origem e destino a uma grade configurável,
+ * de modo que consultas para pontos muito próximos reaproveitam a mesma rota; resultados com e sem waypoints
+ * ficam em entradas separadas. A remoção é por peso estimado em memória, já que listas de waypoints
+ * podem ter milhares de pontos enquanto uma rota sem waypoints ocupa poucos bytes.
+ */
+@Service
+public class RotaCacheService {
+
+    private static final int BYTES_POR_ENTRADA = 160;
+    private static final int BYTES_POR_WAYPOINT = 120;
+
+    private final Cache<RotaChave, RouteResult> rotas;
+    private final long pesoMaximoKb;
+    private final Duration ttl;
+    private final double gradeGraus;
+
+    public RotaCacheService(@Value("${geocoding.osrm.cache.maxWeightKb:16384}") long pesoMaximoKb,
+                            @Value("${geocoding.osrm.cache.ttlSeconds:600}") long ttlSegundos,
+                            @Value("${geocoding.osrm.cache.gridDegrees:0.0005}") double gradeGraus) {
+        if (gradeGraus <= 0) {
+            throw new IllegalArgumentException("geocoding.osrm.cache.gridDegrees deve ser positivo");
+        }
+        this.pesoMaximoKb = pesoMaximoKb;
+        this.ttl = Duration.ofSeconds(ttlSegundos);
+        this.gradeGraus = gradeGraus;
+        this.rotas = Caffeine.newBuilder()
+                .maximumWeight(pesoMaximoKb * 1024)
+                .weigher((RotaChave chave, RouteResult rota) -> estimarPeso(rota))
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    public RotaChave criarChave(BigDecimal origemLat, BigDecimal origemLon,
+                                BigDecimal destinoLat, BigDecimal destinoLon,
+                                String profile, boolean comWaypoints) {
+        return RotaChave.de(origemLat, origemLon, destinoLat, destinoLon, profile, comWaypoints, gradeGraus);
+    }
+
+    public Optional<RouteResult> buscar(RotaChave chave) {
+        return Optional.ofNullable(rotas.getIfPresent(chave));
+    }
+
+    public void armazenar(RotaChave chave, RouteResult rota) {
+        if (rota == null) {
+            return;
+        }
+        rotas.put(chave, comWaypointsImutaveis(rota));
+    }
+
+    public void limpar() {
+        rotas.invalidateAll();
+    }
+
+    public RotaCacheEstatisticasDTO obterEstatisticas() {
+        CacheStats stats = rotas.stats();
+        long pesoAtual = rotas.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new RotaCacheEstatisticasDTO(
+                rotas.estimatedSize(),
+                pesoAtual / 1024,
+                pesoMaximoKb,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount(),
+                ttl.toSeconds(),
+                gradeGraus
+        );
+    }
+
+    /**
+     * A mesma instância é entregue a todos os chamadores enquanto estiver no cache; a lista de waypoints
+     * é copiada para uma lista imutável para que nenhum deles altere a rota dos demais.
+     */
+    private RouteResult comWaypointsImutaveis(RouteResult rota) {
+        if (rota.getWaypoints() == null) {
+            return rota;
+        }
+        return new RouteResult(rota.getDistanciaKm(), rota.getTempoMinutos(), rota.getDuracaoSegundos(),
+                List.copyOf(rota.getWaypoints()));
+    }
+
+    static int estimarPeso(RouteResult rota) {
+        int waypoints = rota.getWaypoints() != null ? rota.getWaypoints().size() : 0;
+        long peso = BYTES_POR_ENTRADA + (long) waypoints * BYTES_POR_WAYPOINT;
+        return (int) Math.min(peso, Integer.MAX_VALUE);
+    }
+}
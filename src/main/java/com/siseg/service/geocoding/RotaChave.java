@@ -0,0 +1,28 @@
+package com.siseg.service.geocoding;
+
+import java.math.BigDecimal;
+
+/**
+ * Chave de rota com origem e destino ajustados a uma grade (em graus), perfil OSRM e indicação
+ * de waypoints. Pontos que caem na mesma célula da grade produzem a mesma chave.
+ */
+public record RotaChave(long origemLat, long origemLon, long destinoLat, long destinoLon,
+                        String profile, boolean comWaypoints) {
+
+    public static RotaChave de(BigDecimal origemLat, BigDecimal origemLon,
+                               BigDecimal destinoLat, BigDecimal destinoLon,
+                               String profile, boolean comWaypoints, double gradeGraus) {
+        return new RotaChave(
+                ajustarAGrade(origemLat, gradeGraus),
+                ajustarAGrade(origemLon, gradeGraus),
+                ajustarAGrade(destinoLat, gradeGraus),
+                ajustarAGrade(destinoLon, gradeGraus),
+                profile,
+                comWaypoints
+        );
+    }
+
+    private static long ajustarAGrade(BigDecimal coordenada, double gradeGraus) {
+        return Math.round(coordenada.doubleValue() / gradeGraus);
+    }
+}
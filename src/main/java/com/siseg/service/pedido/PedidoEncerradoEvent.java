@@ -0,0 +1,7 @@
+package com.siseg.service.pedido;
+
+/**
+ * Publicado quando um pedido chega a um estado final (entregue ou cancelado); tratado após o commit da transação.
+ */
+public record PedidoEncerradoEvent(Long pedidoId) {
+}
@@ -9,6 +9,7 @@ import com.siseg.model.Pedido;
 import com.siseg.model.Restaurante;
 import com.siseg.repository.EntregadorRepository;
 import com.siseg.service.EnderecoService;
+import com.siseg.service.rastreamento.CourierPositionStore;
 import com.siseg.util.TempoEstimadoCalculator;
 import com.siseg.util.VehicleConstants;
 import org.springframework.stereotype.Service;
@@ -26,13 +27,16 @@ public class PedidoEnderecoService {
     private final EnderecoService enderecoService;
     private final TempoEstimadoCalculator tempoEstimadoCalculator;
     private final EntregadorRepository entregadorRepository;
+    private final CourierPositionStore courierPositionStore;
 
     public PedidoEnderecoService(EnderecoService enderecoService,
                                  TempoEstimadoCalculator tempoEstimadoCalculator,
-                                 EntregadorRepository entregadorRepository) {
+                                 EntregadorRepository entregadorRepository,
+                                 CourierPositionStore courierPositionStore) {
         this.enderecoService = enderecoService;
         this.tempoEstimadoCalculator = tempoEstimadoCalculator;
         this.entregadorRepository = entregadorRepository;
+        this.courierPositionStore = courierPositionStore;
     }
 
     public void processarEnderecoEntrega(Pedido pedido, Cliente cliente, PedidoRequestDTO dto) {
@@ -136,6 +140,7 @@ public class PedidoEnderecoService {
                             entregador.setLatitude(endereco.getLatitude());
                             entregador.setLongitude(endereco.getLongitude());
                             entregadorRepository.save(entregador);
+                            courierPositionStore.registrarPersistida(entregador.getId(), endereco.getLatitude(), endereco.getLongitude());
                             logger.info("Posição inicial do entregador definida com coordenadas do restaurante para iniciar entrega");
                         }
                     },
@@ -12,6 +12,7 @@ import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.PedidoRepository;
 import com.siseg.util.SecurityUtils;
 import com.siseg.validator.PedidoValidator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -32,6 +33,7 @@ public class PedidoEntregadorService {
     private final PedidoEnderecoService pedidoEnderecoService;
     private final PedidoFinanceiroService pedidoFinanceiroService;
     private final PedidoNotificacaoService pedidoNotificacaoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PedidoEntregadorService(PedidoRepository pedidoRepository,
                                    EntregadorRepository entregadorRepository,
@@ -39,7 +41,8 @@ public class PedidoEntregadorService {
                                    PedidoValidator pedidoValidator,
                                    PedidoEnderecoService pedidoEnderecoService,
                                    PedidoFinanceiroService pedidoFinanceiroService,
-                                   PedidoNotificacaoService pedidoNotificacaoService) {
+                                   PedidoNotificacaoService pedidoNotificacaoService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.pedidoRepository = pedidoRepository;
         this.entregadorRepository = entregadorRepository;
         this.pedidoMapper = pedidoMapper;
@@ -47,6 +50,7 @@ public class PedidoEntregadorService {
         this.pedidoEnderecoService = pedidoEnderecoService;
         this.pedidoFinanceiroService = pedidoFinanceiroService;
         this.pedidoNotificacaoService = pedidoNotificacaoService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -76,6 +80,7 @@ public class PedidoEntregadorService {
 
         logger.info("Pedido " + saved.getId() + " marcado como entregue. Cliente pode criar avaliação agora.");
         pedidoNotificacaoService.enviarNotificacoesEntregaPedido(saved);
+        eventPublisher.publishEvent(new PedidoEncerradoEvent(saved.getId()));
 
         return pedidoMapper.toResponseDTO(saved);
     }
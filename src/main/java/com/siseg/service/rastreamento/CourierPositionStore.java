@@ -0,0 +1,186 @@
+package com.siseg.service.rastreamento;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.siseg.dto.rastreamento.PosicoesEntregadoresEstatisticasDTO;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Posição atual dos entregadores mantida em memória, indexada pelo id do entregador. A simulação e o
+ * rastreamento leem e escrevem aqui; {@code entregadores.latitude/longitude} só recebe a última posição
+ * de cada entregador a cada {@code rastreamento.posicoes.flushIntervalMs}, num único {@code UPDATE} em
+ * lote, então várias atualizações do mesmo entregador entre duas gravações viram uma só linha.
+ *
+ * <p>Quem não encontra o entregador aqui usa a posição da entidade, que é a última gravada. Entradas já
+ * gravadas e sem atualização há {@code rastreamento.posicoes.inactivityMinutes} saem da memória.
+ */
+@Component
+public class CourierPositionStore {
+
+    private static final Logger logger = Logger.getLogger(CourierPositionStore.class.getName());
+
+    private static final String SQL_ATUALIZAR_POSICAO =
+            "UPDATE entregadores SET latitude = ?, longitude = ? WHERE id = ?";
+
+    // Escala das colunas latitude/longitude de entregadores
+    private static final int ESCALA_COORDENADAS = 8;
+
+    /**
+     * Posição de um entregador em graus e o instante da atualização.
+     */
+    public record PosicaoEntregador(double latitude, double longitude, long atualizadoEmMillis) {
+
+        public BigDecimal latitudeDecimal() {
+            return paraCoordenada(latitude);
+        }
+
+        public BigDecimal longitudeDecimal() {
+            return paraCoordenada(longitude);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long inatividadeMillis;
+
+    private final ConcurrentHashMap<Long, PosicaoEntregador> posicoes = new ConcurrentHashMap<>();
+    private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+    private final LongAdder atualizacoes = new LongAdder();
+    private final LongAdder linhasGravadas = new LongAdder();
+
+    public CourierPositionStore(JdbcTemplate jdbcTemplate,
+                                @Value("${rastreamento.posicoes.inactivityMinutes:60}") long inatividadeMinutos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inatividadeMillis = inatividadeMinutos * 60_000;
+    }
+
+    public Optional<PosicaoEntregador> obter(Long entregadorId) {
+        return Optional.ofNullable(posicoes.get(entregadorId));
+    }
+
+    /**
+     * Nova posição do entregador, gravada no banco na próxima descarga.
+     */
+    public void atualizar(Long entregadorId, double latitude, double longitude) {
+        posicoes.put(entregadorId, new PosicaoEntregador(latitude, longitude, System.currentTimeMillis()));
+        pendentes.add(entregadorId);
+        atualizacoes.increment();
+    }
+
+    public void atualizar(Long entregadorId, BigDecimal latitude, BigDecimal longitude) {
+        atualizar(entregadorId, latitude.doubleValue(), longitude.doubleValue());
+    }
+
+    /**
+     * Posição que acabou de ser salva na entidade por outro caminho. Passa a valer em memória sem gerar
+     * nova gravação e descarta qualquer posição pendente mais antiga. Dentro de uma transação isso só
+     * acontece após o commit; num rollback a memória continua com a posição anterior.
+     */
+    public void registrarPersistida(Long entregadorId, BigDecimal latitude, BigDecimal longitude) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicarPersistida(entregadorId, latitude, longitude);
+                }
+            });
+            return;
+        }
+        aplicarPersistida(entregadorId, latitude, longitude);
+    }
+
+    private void aplicarPersistida(Long entregadorId, BigDecimal latitude, BigDecimal longitude) {
+        pendentes.remove(entregadorId);
+        if (latitude == null || longitude == null) {
+            posicoes.remove(entregadorId);
+            return;
+        }
+        posicoes.put(entregadorId, new PosicaoEntregador(latitude.doubleValue(), longitude.doubleValue(),
+                System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${rastreamento.posicoes.flushIntervalMs:5000}")
+    public void gravarPendentes() {
+        if (!pendentes.isEmpty()) {
+            gravar();
+        }
+        removerInativas();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (!pendentes.isEmpty()) {
+            gravar();
+        }
+    }
+
+    public int tamanho() {
+        return posicoes.size();
+    }
+
+    /**
+     * Atualizações recebidas contra linhas gravadas: a diferença é o que a coalescência economizou.
+     */
+    public PosicoesEntregadoresEstatisticasDTO obterEstatisticas() {
+        return new PosicoesEntregadoresEstatisticasDTO(posicoes.size(), pendentes.size(),
+                atualizacoes.sum(), linhasGravadas.sum());
+    }
+
+    /**
+     * Coordenada em {@code double} na escala das colunas de {@code entregadores}.
+     */
+    public static BigDecimal paraCoordenada(double valor) {
+        return BigDecimal.valueOf(valor).setScale(ESCALA_COORDENADAS, RoundingMode.HALF_UP);
+    }
+
+    private void gravar() {
+        // O id sai de pendentes antes de ler a posição: uma atualização concorrente o recoloca e é
+        // gravada na próxima descarga, no pior caso em duplicidade
+        List<Long> ids = new ArrayList<>(pendentes.size());
+        List<Object[]> parametros = new ArrayList<>(pendentes.size());
+        for (Iterator<Long> iterador = pendentes.iterator(); iterador.hasNext(); ) {
+            Long entregadorId = iterador.next();
+            iterador.remove();
+            PosicaoEntregador posicao = posicoes.get(entregadorId);
+            if (posicao != null) {
+                ids.add(entregadorId);
+                parametros.add(new Object[]{posicao.latitudeDecimal(), posicao.longitudeDecimal(), entregadorId});
+            }
+        }
+        if (parametros.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR_POSICAO, parametros);
+            linhasGravadas.add(parametros.size());
+        } catch (RuntimeException e) {
+            pendentes.addAll(ids);
+            logger.warning("Falha ao gravar posição de " + ids.size() + " entregadores: " + e.getMessage());
+        }
+    }
+
+    private void removerInativas() {
+        long limite = System.currentTimeMillis() - inatividadeMillis;
+        posicoes.forEach((entregadorId, posicao) -> {
+            if (posicao.atualizadoEmMillis() < limite && !pendentes.contains(entregadorId)) {
+                posicoes.remove(entregadorId, posicao);
+            }
+        });
+    }
+}
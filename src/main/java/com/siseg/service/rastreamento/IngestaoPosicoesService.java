@@ -0,0 +1,341 @@
+package com.siseg.service.rastreamento;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.siseg.dto.rastreamento.IngestaoPosicoesEstatisticasDTO;
+import com.siseg.dto.rastreamento.PontoGpsDTO;
+import com.siseg.exception.AccessDeniedException;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.repository.EntregadorRepository;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import com.siseg.service.routing.ActiveRouteRegistry;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.util.FilaCircularPosicoes;
+import com.siseg.util.SecurityUtils;
+import com.siseg.util.SegmentoPosicoesCodec;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recebe as posições GPS enviadas pelos entregadores em lotes. A requisição só valida os pontos e os
+ * publica numa {@link FilaCircularPosicoes}; o entregador e o pedido em entrega vêm de caches em memória,
+ * então o caminho da requisição não vai ao banco depois do primeiro lote. Uma única thread consome a fila
+ * e, para cada ponto, atualiza o {@link CourierPositionStore}, avança o índice da {@link RotaAtiva} pela
+ * projeção no segmento mais próximo, acrescenta o ponto à trilha do pedido e avisa o
+ * {@link RastreamentoPublisher}. Nenhum desses passos grava no banco: cada um tem a sua descarga em lote.
+ *
+ * <p>Com a fila cheia o lote é recusado inteiro com 429 e o aplicativo reenvia depois. Pontos com instante
+ * anterior ao último já processado do entregador são descartados. Com a fila vazia a thread consumidora
+ * fica estacionada até que uma publicação a acorde.
+ */
+@Service
+public class IngestaoPosicoesService {
+
+    private static final Logger logger = Logger.getLogger(IngestaoPosicoesService.class.getName());
+
+    private static final int LOTE_CONSUMO = 1024;
+    // Teto da espera estacionada; normalmente a publicação acorda o consumidor antes
+    private static final long ESPERA_MAXIMA_SEM_POSICOES_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Tolerância para relógios de aparelhos adiantados
+    private static final long TOLERANCIA_FUTURO_MILLIS = 60_000;
+    private static final long SEM_PEDIDO = 0;
+
+    private record PedidoEmEntrega(long pedidoId, long expiraEmMillis) {
+    }
+
+    private final CourierPositionStore courierPositionStore;
+    private final ActiveRouteRegistry activeRouteRegistry;
+    private final PosicaoHistoricoService posicaoHistoricoService;
+    private final RastreamentoPublisher rastreamentoPublisher;
+    private final EntregadorRepository entregadorRepository;
+    private final PedidoRepository pedidoRepository;
+    private final FilaCircularPosicoes fila;
+    private final int maxPontosPorRequisicao;
+    private final long pedidoCacheMillis;
+    private final double desvioMaximoMetros;
+    private final long gpsAtivoMillis;
+
+    private final ConcurrentHashMap<Long, Long> entregadorPorUsuario = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PedidoEmEntrega> pedidoPorEntregador = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> ultimoRecebimento = new ConcurrentHashMap<>();
+    // Só a thread consumidora escreve
+    private final ConcurrentHashMap<Long, Long> ultimoInstanteProcessado = new ConcurrentHashMap<>();
+    private final FilaCircularPosicoes.ConsumidorPosicao processador = this::processar;
+
+    private final LongAdder recebidos = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+    private final LongAdder processados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder waypointsAvancados = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+
+    private volatile boolean ativo;
+    private volatile boolean consumidorEstacionado;
+    private volatile Thread consumidor;
+
+    public IngestaoPosicoesService(CourierPositionStore courierPositionStore,
+                                   ActiveRouteRegistry activeRouteRegistry,
+                                   PosicaoHistoricoService posicaoHistoricoService,
+                                   RastreamentoPublisher rastreamentoPublisher,
+                                   EntregadorRepository entregadorRepository,
+                                   PedidoRepository pedidoRepository,
+                                   @Value("${rastreamento.ingestao.capacidade:65536}") int capacidade,
+                                   @Value("${rastreamento.ingestao.maxPontosPorRequisicao:100}") int maxPontosPorRequisicao,
+                                   @Value("${rastreamento.ingestao.pedidoCacheMs:10000}") long pedidoCacheMillis,
+                                   @Value("${rastreamento.ingestao.gpsAtivoMs:30000}") long gpsAtivoMillis,
+                                   @Value("${rotas.ativas.offRouteMeters:150}") double desvioMaximoMetros) {
+        this.courierPositionStore = courierPositionStore;
+        this.activeRouteRegistry = activeRouteRegistry;
+        this.posicaoHistoricoService = posicaoHistoricoService;
+        this.rastreamentoPublisher = rastreamentoPublisher;
+        this.entregadorRepository = entregadorRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.fila = new FilaCircularPosicoes(capacidade);
+        this.maxPontosPorRequisicao = maxPontosPorRequisicao;
+        this.pedidoCacheMillis = pedidoCacheMillis;
+        this.gpsAtivoMillis = gpsAtivoMillis;
+        this.desvioMaximoMetros = desvioMaximoMetros;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        ativo = true;
+        consumidor = new Thread(this::consumirContinuamente, "ingestao-posicoes");
+        consumidor.setDaemon(true);
+        consumidor.start();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        ativo = false;
+        if (consumidor != null) {
+            LockSupport.unpark(consumidor);
+            try {
+                consumidor.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (consumidor.isAlive()) {
+                // A fila só admite um consumidor por vez; o que sobrar se perde com o desligamento
+                logger.warning("Thread de ingestão de posições não terminou; " + fila.tamanho() + " posições não processadas");
+                return;
+            }
+        }
+        processarPendentes();
+    }
+
+    /**
+     * Publica as posições do entregador autenticado, em ordem cronológica.
+     *
+     * @return quantas posições foram aceitas
+     * @throws IllegalArgumentException se o lote estiver vazio, grande demais ou com posição inválida
+     * @throws RateLimitExceededException se a fila não tiver espaço para o lote
+     */
+    public int receber(List<PontoGpsDTO> pontos) {
+        int quantidade = validarQuantidade(pontos == null ? 0 : pontos.size());
+        long[] instantes = new long[quantidade];
+        double[] latitudes = new double[quantidade];
+        double[] longitudes = new double[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            PontoGpsDTO ponto = pontos.get(i);
+            if (ponto == null || ponto.getInstante() == null || ponto.getLatitude() == null || ponto.getLongitude() == null) {
+                throw new IllegalArgumentException("Posição incompleta no índice " + i);
+            }
+            instantes[i] = ponto.getInstante();
+            latitudes[i] = ponto.getLatitude();
+            longitudes[i] = ponto.getLongitude();
+        }
+        return publicar(instantes, latitudes, longitudes, quantidade);
+    }
+
+    /**
+     * Mesmo que {@link #receber}, com o lote no formato compacto de {@link SegmentoPosicoesCodec}.
+     */
+    public int receberCodificado(byte[] corpo) {
+        long[] instantes;
+        double[] latitudes;
+        double[] longitudes;
+        int quantidade;
+        try {
+            SegmentoPosicoesCodec.Leitor leitor = new SegmentoPosicoesCodec.Leitor(corpo);
+            quantidade = validarQuantidade(leitor.total());
+            instantes = new long[quantidade];
+            latitudes = new double[quantidade];
+            longitudes = new double[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                leitor.avancar();
+                instantes[i] = leitor.instanteMillis();
+                latitudes[i] = leitor.latitude();
+                longitudes[i] = leitor.longitude();
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Lote de posições em formato inválido");
+        }
+        return publicar(instantes, latitudes, longitudes, quantidade);
+    }
+
+    /**
+     * Se o entregador enviou posições reais recentemente; a simulação deixa esses entregadores parados.
+     */
+    public boolean recebendoGps(Long entregadorId) {
+        Long recebidoEm = ultimoRecebimento.get(entregadorId);
+        return recebidoEm != null && System.currentTimeMillis() - recebidoEm < gpsAtivoMillis;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoEncerrarPedido(PedidoEncerradoEvent evento) {
+        pedidoPorEntregador.values().removeIf(pedido -> pedido.pedidoId() == evento.pedidoId());
+    }
+
+    public IngestaoPosicoesEstatisticasDTO obterEstatisticas() {
+        return new IngestaoPosicoesEstatisticasDTO(fila.capacidade(), fila.tamanho(), recebidos.sum(), recusados.sum(),
+                processados.sum(), descartados.sum(), waypointsAvancados.sum(), erros.sum());
+    }
+
+    /**
+     * Processa na thread atual tudo o que já foi publicado.
+     */
+    int processarPendentes() {
+        int total = 0;
+        int lidas;
+        while ((lidas = fila.consumir(processador, LOTE_CONSUMO)) > 0) {
+            total += lidas;
+        }
+        return total;
+    }
+
+    private void consumirContinuamente() {
+        while (ativo) {
+            if (fila.consumir(processador, LOTE_CONSUMO) > 0) {
+                continue;
+            }
+            // Marca antes de conferir a fila: um produtor que publicar depois da conferência vê a marca e acorda
+            consumidorEstacionado = true;
+            if (fila.tamanho() == 0 && ativo) {
+                LockSupport.parkNanos(this, ESPERA_MAXIMA_SEM_POSICOES_NANOS);
+            } else {
+                // Lote reservado, ainda sendo escrito pelo produtor
+                Thread.onSpinWait();
+            }
+            consumidorEstacionado = false;
+        }
+    }
+
+    private int publicar(long[] instantes, double[] latitudes, double[] longitudes, int quantidade) {
+        long agora = System.currentTimeMillis();
+        for (int i = 0; i < quantidade; i++) {
+            validarPonto(i, instantes[i], latitudes[i], longitudes[i], agora);
+        }
+        long entregadorId = obterEntregadorAutenticado();
+        long pedidoId = obterPedidoEmEntrega(entregadorId, agora);
+
+        if (!fila.publicar(entregadorId, pedidoId, instantes, latitudes, longitudes, quantidade)) {
+            recusados.add(quantidade);
+            throw new RateLimitExceededException("Fila de posições cheia, tente novamente");
+        }
+        if (consumidorEstacionado) {
+            LockSupport.unpark(consumidor);
+        }
+        recebidos.add(quantidade);
+        ultimoRecebimento.put(entregadorId, agora);
+        return quantidade;
+    }
+
+    private void processar(long entregadorId, long pedidoId, long instanteMillis, double latitude, double longitude) {
+        Long ultimo = ultimoInstanteProcessado.get(entregadorId);
+        if (ultimo != null && instanteMillis <= ultimo) {
+            descartados.increment();
+            return;
+        }
+        ultimoInstanteProcessado.put(entregadorId, instanteMillis);
+        try {
+            courierPositionStore.atualizar(entregadorId, latitude, longitude);
+            if (pedidoId != SEM_PEDIDO) {
+                avancarRota(pedidoId, latitude, longitude);
+                posicaoHistoricoService.registrar(pedidoId, entregadorId, latitude, longitude, instanteMillis);
+                rastreamentoPublisher.notificarMovimento(pedidoId);
+            }
+            processados.increment();
+        } catch (RuntimeException e) {
+            erros.increment();
+            logger.warning("Falha ao processar posição do entregador " + entregadorId + ": " + e.getMessage());
+        }
+    }
+
+    private void avancarRota(long pedidoId, double latitude, double longitude) {
+        Optional<RotaAtiva> rota = activeRouteRegistry.obterEmMemoria(pedidoId);
+        if (rota.isEmpty()) {
+            return;
+        }
+        RotaAtiva.PosicaoNaRota posicao = rota.get().localizar(latitude, longitude);
+        if (posicao.desvioMetros() <= desvioMaximoMetros) {
+            waypointsAvancados.add(rota.get().avancarAte(posicao.distanciaPercorridaKm()));
+        }
+    }
+
+    private long obterEntregadorAutenticado() {
+        Long usuarioId = SecurityUtils.getCurrentUserId();
+        Long entregadorId = entregadorPorUsuario.get(usuarioId);
+        if (entregadorId == null) {
+            entregadorId = entregadorRepository.findByUserId(usuarioId)
+                    .orElseThrow(() -> new AccessDeniedException("Usuário não é entregador"))
+                    .getId();
+            entregadorPorUsuario.put(usuarioId, entregadorId);
+        }
+        return entregadorId;
+    }
+
+    /**
+     * Pedido em entrega do entregador, consultado no máximo uma vez a cada
+     * {@code rastreamento.ingestao.pedidoCacheMs}. Na consulta a rota do pedido já sobe para a memória,
+     * onde a thread consumidora a procura.
+     */
+    private long obterPedidoEmEntrega(long entregadorId, long agora) {
+        PedidoEmEntrega emCache = pedidoPorEntregador.get(entregadorId);
+        if (emCache != null && emCache.expiraEmMillis() > agora) {
+            return emCache.pedidoId();
+        }
+        List<Long> pedidos = pedidoRepository.findIdsByEntregadorIdAndStatus(entregadorId, StatusPedido.OUT_FOR_DELIVERY);
+        long pedidoId = pedidos.isEmpty() ? SEM_PEDIDO : pedidos.get(0);
+        if (pedidoId != SEM_PEDIDO) {
+            activeRouteRegistry.obter(pedidoId);
+        }
+        pedidoPorEntregador.put(entregadorId, new PedidoEmEntrega(pedidoId, agora + pedidoCacheMillis));
+        return pedidoId;
+    }
+
+    private int validarQuantidade(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Informe ao menos uma posição");
+        }
+        if (quantidade > maxPontosPorRequisicao) {
+            throw new IllegalArgumentException("Máximo de " + maxPontosPorRequisicao + " posições por requisição");
+        }
+        return quantidade;
+    }
+
+    private static void validarPonto(int indice, long instanteMillis, double latitude, double longitude, long agora) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Coordenadas inválidas no índice " + indice);
+        }
+        if (instanteMillis <= 0 || instanteMillis > agora + TOLERANCIA_FUTURO_MILLIS) {
+            throw new IllegalArgumentException("Instante inválido no índice " + indice);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.siseg.service.rastreamento;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import com.siseg.util.SegmentoPosicoesCodec;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Histórico das posições do entregador por pedido. Os pontos ficam num segmento aberto em memória por
+ * pedido; ao completar {@code rastreamento.historico.segmentoMinutos} o segmento é fechado, compactado com
+ * {@link SegmentoPosicoesCodec} e gravado em {@code posicao_historico} junto com os demais num
+ * {@code INSERT} em lote. A entrega do pedido fecha e grava o segmento na hora.
+ *
+ * <p>A leitura percorre a trilha ponto a ponto, buscando os segmentos gravados em páginas de
+ * {@value #SEGMENTOS_POR_PAGINA} e terminando nos que ainda estão em memória, sem montar a trilha inteira.
+ * As páginas seguem {@code (inicio, id)}, e não só o id, porque um lote que falhou é gravado depois e
+ * recebe ids maiores que os de segmentos mais novos que ele.
+ */
+@Service
+public class PosicaoHistoricoService {
+
+    private static final Logger logger = Logger.getLogger(PosicaoHistoricoService.class.getName());
+
+    private static final String SQL_INSERIR_SEGMENTO =
+            "INSERT INTO posicao_historico (pedido_id, entregador_id, inicio, fim, total_pontos, pontos) VALUES (?, ?, ?, ?, ?, ?)";
+
+    static final int SEGMENTOS_POR_PAGINA = 16;
+
+    private static final String SQL_PRIMEIRA_PAGINA_SEGMENTOS =
+            "SELECT id, inicio, pontos FROM posicao_historico WHERE pedido_id = ? ORDER BY inicio, id LIMIT " + SEGMENTOS_POR_PAGINA;
+
+    private static final String SQL_PAGINA_SEGMENTOS =
+            "SELECT id, inicio, pontos FROM posicao_historico WHERE pedido_id = ? AND (inicio > ? OR (inicio = ? AND id > ?)) "
+            + "ORDER BY inicio, id LIMIT " + SEGMENTOS_POR_PAGINA;
+
+    /**
+     * Recebe os pontos da trilha em ordem cronológica.
+     */
+    @FunctionalInterface
+    public interface ConsumidorPonto {
+        void aceitar(long instanteMillis, double latitude, double longitude);
+    }
+
+    record SegmentoFechado(Long pedidoId, Long entregadorId, long inicioMillis, long fimMillis, int totalPontos, byte[] pontos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long duracaoSegmentoMillis;
+
+    private final ConcurrentHashMap<Long, SegmentoAberto> abertos = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<SegmentoFechado> fechados = new ConcurrentLinkedDeque<>();
+
+    public PosicaoHistoricoService(JdbcTemplate jdbcTemplate,
+                                   @Value("${rastreamento.historico.segmentoMinutos:1}") long segmentoMinutos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.duracaoSegmentoMillis = segmentoMinutos * 60_000;
+    }
+
+    public void registrar(Long pedidoId, Long entregadorId, double latitude, double longitude) {
+        registrar(pedidoId, entregadorId, latitude, longitude, System.currentTimeMillis());
+    }
+
+    /**
+     * Acrescenta um ponto à trilha do pedido. Pontos que não são posteriores ao último registrado ou que
+     * repetem a coordenada dele são descartados, o que mantém a trilha enxuta com o entregador parado.
+     */
+    public void registrar(Long pedidoId, Long entregadorId, double latitude, double longitude, long instanteMillis) {
+        int latitudeMicro = SegmentoPosicoesCodec.paraMicrograus(latitude);
+        int longitudeMicro = SegmentoPosicoesCodec.paraMicrograus(longitude);
+        abertos.compute(pedidoId, (id, segmento) -> {
+            if (segmento == null) {
+                segmento = new SegmentoAberto(entregadorId);
+            } else if (!segmento.vazio() && instanteMillis - segmento.inicioMillis() >= duracaoSegmentoMillis) {
+                fechados.add(segmento.fechar(id));
+                segmento = segmento.proximo(entregadorId);
+            }
+            segmento.adicionar(instanteMillis, latitudeMicro, longitudeMicro);
+            return segmento;
+        });
+    }
+
+    /**
+     * Entrega a trilha do pedido ao consumidor: primeiro os segmentos gravados, página por página, depois
+     * os que ainda estão em memória.
+     *
+     * <p>Os segmentos em memória são copiados antes da leitura do banco; se uma gravação concorrente levar
+     * algum deles para o banco no meio do caminho, ele sai na leitura do banco e a cópia é ignorada, já que
+     * os instantes da trilha são estritamente crescentes.
+     */
+    public void percorrerTrilha(Long pedidoId, ConsumidorPonto consumidor) {
+        List<byte[]> emMemoria = new ArrayList<>();
+        for (SegmentoFechado segmento : fechados) {
+            if (segmento.pedidoId().equals(pedidoId)) {
+                emMemoria.add(segmento.pontos());
+            }
+        }
+        abertos.computeIfPresent(pedidoId, (id, segmento) -> {
+            if (!segmento.vazio()) {
+                emMemoria.add(segmento.codificar());
+            }
+            return segmento;
+        });
+
+        long[] ultimoInstante = {Long.MIN_VALUE};
+        ConsumidorPonto emOrdem = (instante, latitude, longitude) -> {
+            if (instante > ultimoInstante[0]) {
+                ultimoInstante[0] = instante;
+                consumidor.aceitar(instante, latitude, longitude);
+            }
+        };
+        Timestamp[] ultimoInicio = {null};
+        long[] ultimoId = {0};
+        int[] lidos = new int[1];
+        RowCallbackHandler leitorPagina = linha -> {
+            ultimoInicio[0] = linha.getTimestamp("inicio");
+            ultimoId[0] = linha.getLong("id");
+            lidos[0]++;
+            percorrerSegmento(linha.getBytes("pontos"), emOrdem);
+        };
+        jdbcTemplate.query(SQL_PRIMEIRA_PAGINA_SEGMENTOS, leitorPagina, pedidoId);
+        while (lidos[0] == SEGMENTOS_POR_PAGINA) {
+            lidos[0] = 0;
+            jdbcTemplate.query(SQL_PAGINA_SEGMENTOS, leitorPagina, pedidoId, ultimoInicio[0], ultimoInicio[0], ultimoId[0]);
+        }
+
+        for (byte[] pontos : emMemoria) {
+            percorrerSegmento(pontos, emOrdem);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rastreamento.historico.flushIntervalMs:30000}")
+    public void gravarSegmentos() {
+        long limite = System.currentTimeMillis() - duracaoSegmentoMillis;
+        for (Long pedidoId : abertos.keySet()) {
+            abertos.computeIfPresent(pedidoId, (id, segmento) -> {
+                if (segmento.inicioMillis() > limite) {
+                    return segmento;
+                }
+                if (!segmento.vazio()) {
+                    fechados.add(segmento.fechar(id));
+                }
+                return null;
+            });
+        }
+        gravarFechados();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoEncerrarPedido(PedidoEncerradoEvent evento) {
+        SegmentoAberto segmento = abertos.remove(evento.pedidoId());
+        if (segmento != null && !segmento.vazio()) {
+            fechados.add(segmento.fechar(evento.pedidoId()));
+        }
+        gravarFechados();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        abertos.forEach((pedidoId, segmento) -> {
+            if (!segmento.vazio()) {
+                fechados.add(segmento.fechar(pedidoId));
+            }
+        });
+        abertos.clear();
+        gravarFechados();
+    }
+
+    public int segmentosAbertos() {
+        return abertos.size();
+    }
+
+    public int segmentosPendentes() {
+        return fechados.size();
+    }
+
+    private void percorrerSegmento(byte[] pontos, ConsumidorPonto consumidor) {
+        SegmentoPosicoesCodec.Leitor leitor = new SegmentoPosicoesCodec.Leitor(pontos);
+        while (leitor.temProximo()) {
+            leitor.avancar();
+            consumidor.aceitar(leitor.instanteMillis(), leitor.latitude(), leitor.longitude());
+        }
+    }
+
+    /**
+     * Grava de uma vez os segmentos fechados. As chamadas são serializadas para que uma gravação não leve
+     * ao banco segmentos mais novos enquanto outra ainda tenta os anteriores; se o lote falhar, ele volta
+     * para o início da fila, à frente dos segmentos fechados nesse meio tempo.
+     */
+    private synchronized void gravarFechados() {
+        List<SegmentoFechado> lote = new ArrayList<>();
+        SegmentoFechado segmento;
+        while ((segmento = fechados.poll()) != null) {
+            lote.add(segmento);
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<Object[]> parametros = new ArrayList<>(lote.size());
+        for (SegmentoFechado fechado : lote) {
+            parametros.add(new Object[]{fechado.pedidoId(), fechado.entregadorId(), new Timestamp(fechado.inicioMillis()),
+                    new Timestamp(fechado.fimMillis()), fechado.totalPontos(), fechado.pontos()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_INSERIR_SEGMENTO, parametros);
+        } catch (RuntimeException e) {
+            for (int i = lote.size() - 1; i >= 0; i--) {
+                fechados.addFirst(lote.get(i));
+            }
+            logger.warning("Falha ao gravar " + lote.size() + " segmentos do histórico de posições: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pontos de um pedido ainda não compactados. Só é acessado dentro de {@code compute} do mapa, que
+     * serializa o acesso por pedido.
+     */
+    private static final class SegmentoAberto {
+
+        private final Long entregadorId;
+        private long[] instantes = new long[16];
+        private int[] latitudes = new int[16];
+        private int[] longitudes = new int[16];
+        private int tamanho;
+        // Último ponto aceito, inclusive do segmento anterior, para descartar repetidos e fora de ordem
+        private long ultimoInstante = Long.MIN_VALUE;
+        private int ultimaLatitude;
+        private int ultimaLongitude;
+
+        SegmentoAberto(Long entregadorId) {
+            this.entregadorId = entregadorId;
+        }
+
+        boolean vazio() {
+            return tamanho == 0;
+        }
+
+        long inicioMillis() {
+            return tamanho > 0 ? instantes[0] : ultimoInstante;
+        }
+
+        void adicionar(long instanteMillis, int latitudeMicro, int longitudeMicro) {
+            if (instanteMillis <= ultimoInstante
+                    || (ultimoInstante != Long.MIN_VALUE && ultimaLatitude == latitudeMicro && ultimaLongitude == longitudeMicro)) {
+                return;
+            }
+            if (tamanho == instantes.length) {
+                instantes = Arrays.copyOf(instantes, tamanho * 2);
+                latitudes = Arrays.copyOf(latitudes, tamanho * 2);
+                longitudes = Arrays.copyOf(longitudes, tamanho * 2);
+            }
+            instantes[tamanho] = instanteMillis;
+            latitudes[tamanho] = latitudeMicro;
+            longitudes[tamanho] = longitudeMicro;
+            tamanho++;
+            ultimoInstante = instanteMillis;
+            ultimaLatitude = latitudeMicro;
+            ultimaLongitude = longitudeMicro;
+        }
+
+        byte[] codificar() {
+            return SegmentoPosicoesCodec.codificar(instantes, latitudes, longitudes, 0, tamanho);
+        }
+
+        SegmentoFechado fechar(Long pedidoId) {
+            return new SegmentoFechado(pedidoId, entregadorId, instantes[0], instantes[tamanho - 1], tamanho, codificar());
+        }
+
+        /**
+         * Segmento seguinte, vazio mas lembrando o último ponto deste.
+         */
+        SegmentoAberto proximo(Long novoEntregadorId) {
+            SegmentoAberto proximo = new SegmentoAberto(novoEntregadorId);
+            proximo.ultimoInstante = ultimoInstante;
+            proximo.ultimaLatitude = ultimaLatitude;
+            proximo.ultimaLongitude = ultimaLongitude;
+            return proximo;
+        }
+    }
+}
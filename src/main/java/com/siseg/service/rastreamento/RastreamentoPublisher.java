@@ -0,0 +1,275 @@
+package com.siseg.service.rastreamento;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siseg.dto.rastreamento.RastreamentoDTO;
+import com.siseg.dto.rastreamento.RastreamentoSseEstatisticasDTO;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.service.RastreamentoService;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rastreamento ao vivo por Server-Sent Events. Cada pedido observado tem um canal em memória com as
+ * conexões abertas e o último {@link RastreamentoDTO} calculado. Quem move o entregador chama
+ * {@link #notificarMovimento}, que só marca o pedido; a cada {@code rastreamento.sse.publicacaoMs} o
+ * rastreamento de cada pedido marcado é recalculado uma vez e os campos que mudaram vão, já serializados,
+ * para todas as conexões do pedido. O custo passa a ser um cálculo por movimento, e não um por consulta.
+ *
+ * <p>Ao se inscrever a conexão recebe o evento {@code rastreamento} com o estado completo, rota restante
+ * incluída; depois só eventos {@code delta}, sem a rota, cujo {@code id} é sequencial por pedido. Um
+ * comentário a cada {@code rastreamento.sse.heartbeatMs} mantém a conexão viva em proxies e detecta
+ * clientes que foram embora. A entrega do pedido envia o estado final e encerra as conexões.
+ */
+@Component
+public class RastreamentoPublisher {
+
+    private static final Logger logger = Logger.getLogger(RastreamentoPublisher.class.getName());
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final RastreamentoService rastreamentoService;
+    private final ObjectMapper objectMapper;
+    private final int maxConexoes;
+    private final int maxConexoesPorPedido;
+    private final long timeoutMillis;
+
+    private final ConcurrentHashMap<Long, Canal> canais = new ConcurrentHashMap<>();
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conexoes = new AtomicInteger();
+    private final LongAdder conexoesRecusadas = new LongAdder();
+    private final LongAdder recalculos = new LongAdder();
+    private final LongAdder eventosEnviados = new LongAdder();
+
+    public RastreamentoPublisher(RastreamentoService rastreamentoService, ObjectMapper objectMapper,
+                                 @Value("${rastreamento.sse.maxConexoes:5000}") int maxConexoes,
+                                 @Value("${rastreamento.sse.maxConexoesPorPedido:20}") int maxConexoesPorPedido,
+                                 @Value("${rastreamento.sse.timeoutMs:1800000}") long timeoutMillis) {
+        this.rastreamentoService = rastreamentoService;
+        this.objectMapper = objectMapper;
+        this.maxConexoes = maxConexoes;
+        this.maxConexoesPorPedido = maxConexoesPorPedido;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Abre uma conexão para o pedido e envia o estado atual, reaproveitando o último cálculo se o pedido
+     * já é observado.
+     *
+     * @throws RateLimitExceededException se o limite de conexões, geral ou do pedido, foi atingido
+     */
+    public SseEmitter inscrever(Long pedidoId) {
+        if (conexoes.incrementAndGet() > maxConexoes) {
+            conexoes.decrementAndGet();
+            conexoesRecusadas.increment();
+            throw new RateLimitExceededException("Limite de conexões de rastreamento atingido");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Canal canal;
+        try {
+            canal = canais.compute(pedidoId, (id, atual) -> {
+                Canal novo = atual != null ? atual : new Canal();
+                if (novo.ouvintes.size() >= maxConexoesPorPedido) {
+                    throw new RateLimitExceededException("Limite de conexões de rastreamento do pedido atingido");
+                }
+                novo.ouvintes.add(emitter);
+                return novo;
+            });
+        } catch (RateLimitExceededException e) {
+            conexoes.decrementAndGet();
+            conexoesRecusadas.increment();
+            throw e;
+        }
+        emitter.onCompletion(() -> remover(pedidoId, emitter));
+        emitter.onError(erro -> remover(pedidoId, emitter));
+
+        RastreamentoDTO estado = canal.ultimo;
+        try {
+            if (estado == null) {
+                estado = rastreamentoService.obterRastreamento(pedidoId);
+                recalculos.increment();
+                canal.ultimo = estado;
+            }
+            enviar(pedidoId, emitter, SseEmitter.event()
+                    .id(String.valueOf(canal.versao.get()))
+                    .name("rastreamento")
+                    .data(serializar(estado))
+                    .build());
+        } catch (RuntimeException e) {
+            remover(pedidoId, emitter);
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * O entregador do pedido se moveu. Não calcula nada; pedidos sem ninguém observando são ignorados.
+     */
+    public void notificarMovimento(Long pedidoId) {
+        if (canais.containsKey(pedidoId)) {
+            alterados.add(pedidoId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rastreamento.sse.publicacaoMs:1000}")
+    public void publicarAlterados() {
+        for (Iterator<Long> iterador = alterados.iterator(); iterador.hasNext(); ) {
+            Long pedidoId = iterador.next();
+            iterador.remove();
+            Canal canal = canais.get(pedidoId);
+            if (canal != null) {
+                publicar(pedidoId, canal);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rastreamento.sse.heartbeatMs:15000}")
+    public void enviarHeartbeat() {
+        canais.forEach((pedidoId, canal) -> {
+            for (SseEmitter emitter : canal.ouvintes) {
+                enviar(pedidoId, emitter, HEARTBEAT);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoEncerrarPedido(PedidoEncerradoEvent evento) {
+        alterados.remove(evento.pedidoId());
+        Canal canal = canais.remove(evento.pedidoId());
+        if (canal == null) {
+            return;
+        }
+        publicar(evento.pedidoId(), canal);
+        encerrarCanal(canal);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        canais.forEach((pedidoId, canal) -> {
+            if (canais.remove(pedidoId, canal)) {
+                encerrarCanal(canal);
+            }
+        });
+    }
+
+    public RastreamentoSseEstatisticasDTO obterEstatisticas() {
+        return new RastreamentoSseEstatisticasDTO(canais.size(), conexoes.get(), conexoesRecusadas.sum(),
+                recalculos.sum(), eventosEnviados.sum());
+    }
+
+    /**
+     * Campos do rastreamento que mudaram, exceto a rota, que só vai no estado completo.
+     */
+    static Map<String, Object> calcularDelta(RastreamentoDTO anterior, RastreamentoDTO atual) {
+        RastreamentoDTO base = anterior != null ? anterior : new RastreamentoDTO();
+        Map<String, Object> delta = new LinkedHashMap<>();
+        comparar(delta, "posicaoAtualLat", base.getPosicaoAtualLat(), atual.getPosicaoAtualLat());
+        comparar(delta, "posicaoAtualLon", base.getPosicaoAtualLon(), atual.getPosicaoAtualLon());
+        comparar(delta, "posicaoDestinoLat", base.getPosicaoDestinoLat(), atual.getPosicaoDestinoLat());
+        comparar(delta, "posicaoDestinoLon", base.getPosicaoDestinoLon(), atual.getPosicaoDestinoLon());
+        comparar(delta, "posicaoRestauranteLat", base.getPosicaoRestauranteLat(), atual.getPosicaoRestauranteLat());
+        comparar(delta, "posicaoRestauranteLon", base.getPosicaoRestauranteLon(), atual.getPosicaoRestauranteLon());
+        comparar(delta, "distanciaRestanteKm", base.getDistanciaRestanteKm(), atual.getDistanciaRestanteKm());
+        comparar(delta, "tempoEstimadoMinutos", base.getTempoEstimadoMinutos(), atual.getTempoEstimadoMinutos());
+        comparar(delta, "statusEntrega", base.getStatusEntrega(), atual.getStatusEntrega());
+        comparar(delta, "proximoAoDestino", base.getProximoAoDestino(), atual.getProximoAoDestino());
+        comparar(delta, "indiceRota", base.getIndiceRota(), atual.getIndiceRota());
+        return delta;
+    }
+
+    private static void comparar(Map<String, Object> delta, String campo, Object anterior, Object atual) {
+        boolean iguais = anterior instanceof BigDecimal a && atual instanceof BigDecimal b
+                ? a.compareTo(b) == 0
+                : Objects.equals(anterior, atual);
+        if (!iguais) {
+            delta.put(campo, atual);
+        }
+    }
+
+    private void publicar(Long pedidoId, Canal canal) {
+        RastreamentoDTO atual;
+        try {
+            atual = rastreamentoService.obterRastreamento(pedidoId);
+            recalculos.increment();
+        } catch (RuntimeException e) {
+            logger.warning("Falha ao recalcular rastreamento do pedido " + pedidoId + ": " + e.getMessage());
+            return;
+        }
+        Map<String, Object> delta = calcularDelta(canal.ultimo, atual);
+        canal.ultimo = atual;
+        if (delta.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> evento = SseEmitter.event()
+                .id(String.valueOf(canal.versao.incrementAndGet()))
+                .name("delta")
+                .data(serializar(delta))
+                .build();
+        for (SseEmitter emitter : canal.ouvintes) {
+            enviar(pedidoId, emitter, evento);
+        }
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento de rastreamento", e);
+        }
+    }
+
+    private void enviar(Long pedidoId, SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+        try {
+            emitter.send(evento);
+            eventosEnviados.increment();
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado ou conexão já encerrada
+            remover(pedidoId, emitter);
+        }
+    }
+
+    private void remover(Long pedidoId, SseEmitter emitter) {
+        canais.computeIfPresent(pedidoId, (id, canal) -> {
+            if (canal.ouvintes.remove(emitter)) {
+                conexoes.decrementAndGet();
+            }
+            return canal.ouvintes.isEmpty() ? null : canal;
+        });
+    }
+
+    private void encerrarCanal(Canal canal) {
+        conexoes.addAndGet(-canal.ouvintes.size());
+        for (SseEmitter emitter : canal.ouvintes) {
+            emitter.complete();
+        }
+    }
+
+    private static final class Canal {
+        private final CopyOnWriteArrayList<SseEmitter> ouvintes = new CopyOnWriteArrayList<>();
+        private final AtomicLong versao = new AtomicLong();
+        private volatile RastreamentoDTO ultimo;
+    }
+}
@@ -0,0 +1,215 @@
+package com.siseg.service.routing;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.siseg.model.RotaEntrega;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.repository.RotaEntregaRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rotas dos pedidos em entrega mantidas em memória, indexadas por pedido. Cada rota é lida do banco e
+ * decodificada uma única vez (na criação ou no primeiro acesso após um restart); o avanço do índice
+ * acontece só em memória e é gravado periodicamente em lote, de modo que o tick da simulação não
+ * consulta nem grava {@code rota_entrega}.
+ *
+ * <p>Uma rota sai do registro quando o pedido é entregue ou cancelado ({@link PedidoEncerradoEvent}), quando a
+ * varredura periódica encontra o pedido em estado final por outro caminho, ou após ficar sem acesso
+ * por {@code rotas.ativas.inactivityMinutes}.
+ */
+@Component
+public class ActiveRouteRegistry {
+
+    private static final Logger logger = Logger.getLogger(ActiveRouteRegistry.class.getName());
+
+    private static final String SQL_ATUALIZAR_INDICE =
+            "UPDATE rota_entrega SET indice_atual = ?, atualizado_em = ? WHERE id = ?";
+
+    private static final List<StatusPedido> STATUS_FINAIS = List.of(StatusPedido.DELIVERED, StatusPedido.CANCELED);
+
+    private final RotaEntregaRepository rotaEntregaRepository;
+    private final PedidoRepository pedidoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long inatividadeMillis;
+
+    private final ConcurrentHashMap<Long, RotaAtiva> rotas = new ConcurrentHashMap<>();
+
+    public ActiveRouteRegistry(RotaEntregaRepository rotaEntregaRepository,
+                               PedidoRepository pedidoRepository,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${rotas.ativas.inactivityMinutes:60}") long inatividadeMinutos) {
+        this.rotaEntregaRepository = rotaEntregaRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inatividadeMillis = inatividadeMinutos * 60_000;
+    }
+
+    /**
+     * Rota ativa do pedido, carregada do banco se ainda não estiver em memória.
+     */
+    public Optional<RotaAtiva> obter(Long pedidoId) {
+        long agora = System.currentTimeMillis();
+        RotaAtiva rota = rotas.get(pedidoId);
+        if (rota == null) {
+            Optional<RotaEntrega> persistida = rotaEntregaRepository.findByPedidoId(pedidoId);
+            if (persistida.isEmpty() || persistida.get().getWaypointsCodificados() == null) {
+                return Optional.empty();
+            }
+            rota = rotas.computeIfAbsent(pedidoId, id -> criar(persistida.get(), agora));
+        }
+        rota.registrarAcesso(agora);
+        return Optional.of(rota);
+    }
+
+    /**
+     * Rota ativa do pedido apenas se já estiver em memória, sem consultar o banco.
+     */
+    public Optional<RotaAtiva> obterEmMemoria(Long pedidoId) {
+        RotaAtiva rota = rotas.get(pedidoId);
+        if (rota == null) {
+            return Optional.empty();
+        }
+        rota.registrarAcesso(System.currentTimeMillis());
+        return Optional.of(rota);
+    }
+
+    /**
+     * Carrega numa única consulta as rotas dos pedidos informados que ainda não estão em memória.
+     */
+    public void carregar(Collection<Long> pedidoIds) {
+        List<Long> ausentes = pedidoIds.stream().filter(id -> !rotas.containsKey(id)).toList();
+        if (ausentes.isEmpty()) {
+            return;
+        }
+        long agora = System.currentTimeMillis();
+        for (RotaEntrega rota : rotaEntregaRepository.findByPedidoIdIn(ausentes)) {
+            if (rota.getWaypointsCodificados() != null) {
+                rotas.computeIfAbsent(rota.getPedido().getId(), id -> criar(rota, agora));
+            }
+        }
+    }
+
+    /**
+     * Registra uma rota recém-calculada, substituindo qualquer versão anterior do mesmo pedido.
+     */
+    public RotaAtiva registrar(RotaEntrega rota) {
+        RotaAtiva ativa = criar(rota, System.currentTimeMillis());
+        rotas.put(rota.getPedido().getId(), ativa);
+        return ativa;
+    }
+
+    /**
+     * Registra a rota calculada só depois do commit, para que um rollback não deixe em memória uma rota
+     * que não existe no banco.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoCalcularRota(RotaCalculadaEvent evento) {
+        registrar(evento.rota());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoEncerrarPedido(PedidoEncerradoEvent evento) {
+        remover(evento.pedidoId());
+    }
+
+    /**
+     * Retira a rota do registro, gravando antes o índice se ele ainda não tiver sido persistido.
+     */
+    public void remover(Long pedidoId) {
+        RotaAtiva rota = rotas.remove(pedidoId);
+        if (rota != null && rota.precisaPersistir()) {
+            gravar(List.of(rota));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rotas.ativas.flushIntervalMs:15000}")
+    public void persistirIndices() {
+        if (rotas.isEmpty()) {
+            return;
+        }
+        gravarIndicesPendentes();
+        removerEncerradas();
+    }
+
+    /**
+     * Grava num único lote o índice das rotas que avançaram desde a última gravação.
+     */
+    public void gravarIndicesPendentes() {
+        gravar(rotas.values().stream().filter(RotaAtiva::precisaPersistir).toList());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravarIndicesPendentes();
+    }
+
+    public int tamanho() {
+        return rotas.size();
+    }
+
+    private RotaAtiva criar(RotaEntrega rota, long agora) {
+        return new RotaAtiva(rota.getId(), rota.getPedido().getId(), rota.getWaypointsCodificados(),
+                rota.getIndiceAtual() != null ? rota.getIndiceAtual() : 0, rota.getDuracaoSegundos(), agora);
+    }
+
+    private void gravar(List<RotaAtiva> pendentes) {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        Timestamp agora = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        List<Object[]> parametros = new ArrayList<>(pendentes.size());
+        int[] indices = new int[pendentes.size()];
+        for (int i = 0; i < pendentes.size(); i++) {
+            RotaAtiva rota = pendentes.get(i);
+            indices[i] = rota.getIndiceAtual();
+            parametros.add(new Object[]{indices[i], agora, rota.getRotaId()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR_INDICE, parametros);
+            for (int i = 0; i < pendentes.size(); i++) {
+                pendentes.get(i).marcarPersistido(indices[i]);
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Falha ao gravar índice de " + pendentes.size() + " rotas ativas: " + e.getMessage());
+        }
+    }
+
+    private void removerEncerradas() {
+        long limite = System.currentTimeMillis() - inatividadeMillis;
+        List<Long> inativos = new ArrayList<>();
+        rotas.forEach((pedidoId, rota) -> {
+            if (rota.getUltimoAcessoMillis() < limite) {
+                inativos.add(pedidoId);
+            }
+        });
+        inativos.forEach(rotas::remove);
+
+        if (rotas.isEmpty()) {
+            return;
+        }
+        try {
+            pedidoRepository.findIdsByIdInAndStatusIn(List.copyOf(rotas.keySet()), STATUS_FINAIS)
+                    .forEach(rotas::remove);
+        } catch (RuntimeException e) {
+            logger.warning("Falha ao verificar pedidos encerrados com rota ativa: " + e.getMessage());
+        }
+    }
+}
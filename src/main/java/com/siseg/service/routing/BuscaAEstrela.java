@@ -0,0 +1,188 @@
+package com.siseg.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * Caminho de menor tempo no {@link GrafoViario} por A*, com heurística de tempo em linha reta na velocidade
+ * máxima permitida ao perfil (admissível, portanto o caminho é ótimo). As estruturas de trabalho têm o
+ * tamanho do grafo e são reaproveitadas entre consultas da mesma thread; um contador de geração evita
+ * limpá-las a cada busca.
+ */
+final class BuscaAEstrela {
+
+    record Caminho(double metros, double segundos, int[] vertices) {
+    }
+
+    private final GrafoViario grafo;
+    private final ThreadLocal<EspacoBusca> espacos;
+
+    BuscaAEstrela(GrafoViario grafo) {
+        this.grafo = grafo;
+        this.espacos = ThreadLocal.withInitial(() -> new EspacoBusca(grafo.getQuantidadeVertices()));
+    }
+
+    /**
+     * @param limiteVelocidadeKmh teto de velocidade do perfil (ex.: bicicleta), aplicado sobre a velocidade da via
+     * @return caminho encontrado ou {@code null} se o destino for inalcançável
+     */
+    Caminho buscar(int origem, int destino, int perfil, double limiteVelocidadeKmh) {
+        EspacoBusca espaco = espacos.get();
+        espaco.iniciar();
+
+        double velocidadeHeuristicaMs = Math.min(grafo.getVelocidadeMaximaKmh(), limiteVelocidadeKmh) / 3.6;
+        double destinoLat = grafo.latitude(destino);
+        double destinoLon = grafo.longitude(destino);
+
+        espaco.atualizar(origem, 0, -1);
+        espaco.heap.inserir(origem, heuristica(origem, destinoLat, destinoLon, velocidadeHeuristicaMs));
+
+        while (!espaco.heap.isVazio()) {
+            int vertice = espaco.heap.removerMinimo();
+            if (espaco.fechado[vertice] == espaco.geracao) {
+                continue;
+            }
+            espaco.fechado[vertice] = espaco.geracao;
+            if (vertice == destino) {
+                return reconstruir(espaco, origem, destino);
+            }
+
+            double custoAtual = espaco.custo[vertice];
+            for (int arco = grafo.inicioArcos(vertice); arco < grafo.fimArcos(vertice); arco++) {
+                if (!grafo.permitePerfil(arco, perfil)) {
+                    continue;
+                }
+                int vizinho = grafo.destino(arco);
+                if (espaco.fechado[vizinho] == espaco.geracao) {
+                    continue;
+                }
+                double velocidadeMs = Math.min(grafo.velocidadeKmh(arco), limiteVelocidadeKmh) / 3.6;
+                double novoCusto = custoAtual + grafo.metros(arco) / velocidadeMs;
+                if (espaco.melhora(vizinho, novoCusto)) {
+                    espaco.atualizar(vizinho, novoCusto, arco);
+                    espaco.heap.inserir(vizinho, novoCusto + heuristica(vizinho, destinoLat, destinoLon, velocidadeHeuristicaMs));
+                }
+            }
+        }
+        return null;
+    }
+
+    private double heuristica(int vertice, double destinoLat, double destinoLon, double velocidadeMs) {
+        return GrafoViario.distanciaMetros(grafo.latitude(vertice), grafo.longitude(vertice), destinoLat, destinoLon)
+                / velocidadeMs;
+    }
+
+    private Caminho reconstruir(EspacoBusca espaco, int origem, int destino) {
+        int quantidade = 1;
+        for (int v = destino; v != origem; v = grafo.origem(espaco.arcoAnterior[v])) {
+            quantidade++;
+        }
+
+        int[] vertices = new int[quantidade];
+        double metros = 0;
+        int v = destino;
+        for (int i = quantidade - 1; i > 0; i--) {
+            vertices[i] = v;
+            int arco = espaco.arcoAnterior[v];
+            metros += grafo.metros(arco);
+            v = grafo.origem(arco);
+        }
+        vertices[0] = origem;
+        return new Caminho(metros, espaco.custo[destino], vertices);
+    }
+
+    private static final class EspacoBusca {
+        private final double[] custo;
+        private final int[] arcoAnterior;
+        private final int[] visitado;
+        private final int[] fechado;
+        private final HeapMinimo heap = new HeapMinimo();
+        private int geracao;
+
+        EspacoBusca(int vertices) {
+            this.custo = new double[vertices];
+            this.arcoAnterior = new int[vertices];
+            this.visitado = new int[vertices];
+            this.fechado = new int[vertices];
+        }
+
+        void iniciar() {
+            geracao++;
+            heap.limpar();
+        }
+
+        boolean melhora(int vertice, double novoCusto) {
+            return visitado[vertice] != geracao || novoCusto < custo[vertice];
+        }
+
+        void atualizar(int vertice, double novoCusto, int arco) {
+            visitado[vertice] = geracao;
+            custo[vertice] = novoCusto;
+            arcoAnterior[vertice] = arco;
+        }
+    }
+
+    /**
+     * Heap binário de pares (vértice, prioridade) em arrays primitivos. Entradas obsoletas são descartadas
+     * na remoção (o vértice já estará fechado), o que dispensa a operação de diminuir chave.
+     */
+    private static final class HeapMinimo {
+        private int[] vertices = new int[256];
+        private double[] prioridades = new double[256];
+        private int tamanho;
+
+        void limpar() {
+            tamanho = 0;
+        }
+
+        boolean isVazio() {
+            return tamanho == 0;
+        }
+
+        void inserir(int vertice, double prioridade) {
+            if (tamanho == vertices.length) {
+                vertices = Arrays.copyOf(vertices, tamanho * 2);
+                prioridades = Arrays.copyOf(prioridades, tamanho * 2);
+            }
+            int i = tamanho++;
+            while (i > 0) {
+                int pai = (i - 1) >>> 1;
+                if (prioridades[pai] <= prioridade) {
+                    break;
+                }
+                vertices[i] = vertices[pai];
+                prioridades[i] = prioridades[pai];
+                i = pai;
+            }
+            vertices[i] = vertice;
+            prioridades[i] = prioridade;
+        }
+
+        int removerMinimo() {
+            int minimo = vertices[0];
+            tamanho--;
+            if (tamanho > 0) {
+                int ultimo = vertices[tamanho];
+                double prioridadeUltimo = prioridades[tamanho];
+                int i = 0;
+                while (true) {
+                    int filho = 2 * i + 1;
+                    if (filho >= tamanho) {
+                        break;
+                    }
+                    if (filho + 1 < tamanho && prioridades[filho + 1] < prioridades[filho]) {
+                        filho++;
+                    }
+                    if (prioridadeUltimo <= prioridades[filho]) {
+                        break;
+                    }
+                    vertices[i] = vertices[filho];
+                    prioridades[i] = prioridades[filho];
+                    i = filho;
+                }
+                vertices[i] = ultimo;
+                prioridades[i] = prioridadeUltimo;
+            }
+            return minimo;
+        }
+    }
+}
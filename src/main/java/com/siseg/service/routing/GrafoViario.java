@@ -0,0 +1,295 @@
+package com.siseg.service.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Grafo viário imutável em arrays primitivos, com adjacência em formato CSR (compressed sparse row):
+ * os arcos que saem do vértice {@code v} ocupam as posições {@code inicioArcos[v]} até
+ * {@code inicioArcos[v + 1] - 1}. Um índice espacial em grade (vértices ordenados por célula) permite
+ * localizar o vértice mais próximo de uma coordenada sem percorrer o grafo inteiro.
+ *
+ * <p>Formato do arquivo (texto, uma entrada por linha, {@code #} inicia comentário):
+ * <pre>
+ * V &lt;lat&gt; &lt;lon&gt;
+ * E &lt;de&gt; &lt;para&gt; &lt;metros&gt; &lt;velocidadeKmh&gt; &lt;perfis&gt; &lt;maoUnica&gt;
+ * </pre>
+ * Vértices recebem ids na ordem em que aparecem, a partir de 0. {@code perfis} é uma máscara de bits
+ * ({@value #PERFIL_DRIVING} = driving, {@value #PERFIL_CYCLING} = cycling) e {@code maoUnica} é 1 quando
+ * a via só pode ser percorrida de {@code de} para {@code para}.
+ */
+public final class GrafoViario {
+
+    public static final int PERFIL_DRIVING = 1;
+    public static final int PERFIL_CYCLING = 2;
+
+    private static final double RAIO_TERRA_METROS = 6_371_000.0;
+    private static final double TAMANHO_CELULA_GRAUS = 0.01;
+    private static final int MAX_ANEIS_BUSCA = 10;
+
+    private final int quantidadeVertices;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private final int[] inicioArcos;
+    private final int[] origemArcos;
+    private final int[] destinoArcos;
+    private final float[] metrosArcos;
+    private final float[] velocidadeArcos;
+    private final byte[] perfisArcos;
+    private final byte[] perfisVertices;
+    private final float velocidadeMaximaKmh;
+
+    private final long[] celulasOrdenadas;
+    private final int[] verticesPorCelula;
+
+    private GrafoViario(double[] latitudes, double[] longitudes, int quantidadeVertices,
+                        int[] origens, int[] destinos, float[] metros, float[] velocidades, byte[] perfis,
+                        int quantidadeArcos) {
+        this.quantidadeVertices = quantidadeVertices;
+        this.latitudes = Arrays.copyOf(latitudes, quantidadeVertices);
+        this.longitudes = Arrays.copyOf(longitudes, quantidadeVertices);
+
+        this.inicioArcos = new int[quantidadeVertices + 1];
+        for (int i = 0; i < quantidadeArcos; i++) {
+            inicioArcos[origens[i] + 1]++;
+        }
+        for (int v = 0; v < quantidadeVertices; v++) {
+            inicioArcos[v + 1] += inicioArcos[v];
+        }
+
+        this.origemArcos = new int[quantidadeArcos];
+        this.destinoArcos = new int[quantidadeArcos];
+        this.metrosArcos = new float[quantidadeArcos];
+        this.velocidadeArcos = new float[quantidadeArcos];
+        this.perfisArcos = new byte[quantidadeArcos];
+        this.perfisVertices = new byte[quantidadeVertices];
+        int[] proximaPosicao = Arrays.copyOf(inicioArcos, quantidadeVertices);
+        float maxima = 0;
+        for (int i = 0; i < quantidadeArcos; i++) {
+            int posicao = proximaPosicao[origens[i]]++;
+            origemArcos[posicao] = origens[i];
+            destinoArcos[posicao] = destinos[i];
+            metrosArcos[posicao] = metros[i];
+            velocidadeArcos[posicao] = velocidades[i];
+            perfisArcos[posicao] = perfis[i];
+            perfisVertices[origens[i]] |= perfis[i];
+            perfisVertices[destinos[i]] |= perfis[i];
+            maxima = Math.max(maxima, velocidades[i]);
+        }
+        this.velocidadeMaximaKmh = maxima;
+
+        this.celulasOrdenadas = new long[quantidadeVertices];
+        this.verticesPorCelula = new int[quantidadeVertices];
+        indexarVertices();
+    }
+
+    public static GrafoViario carregar(BufferedReader leitor) throws IOException {
+        double[] latitudes = new double[1024];
+        double[] longitudes = new double[1024];
+        int vertices = 0;
+
+        int[] origens = new int[4096];
+        int[] destinos = new int[4096];
+        float[] metros = new float[4096];
+        float[] velocidades = new float[4096];
+        byte[] perfis = new byte[4096];
+        int arcos = 0;
+
+        String linha;
+        int numeroLinha = 0;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            linha = linha.strip();
+            if (linha.isEmpty() || linha.startsWith("#")) {
+                continue;
+            }
+            String[] campos = linha.split("\\s+");
+            try {
+                if ("V".equals(campos[0])) {
+                    if (vertices == latitudes.length) {
+                        latitudes = Arrays.copyOf(latitudes, vertices * 2);
+                        longitudes = Arrays.copyOf(longitudes, vertices * 2);
+                    }
+                    latitudes[vertices] = Double.parseDouble(campos[1]);
+                    longitudes[vertices] = Double.parseDouble(campos[2]);
+                    vertices++;
+                } else if ("E".equals(campos[0])) {
+                    int de = Integer.parseInt(campos[1]);
+                    int para = Integer.parseInt(campos[2]);
+                    float distancia = Float.parseFloat(campos[3]);
+                    float velocidade = Float.parseFloat(campos[4]);
+                    byte mascara = Byte.parseByte(campos[5]);
+                    boolean maoUnica = campos.length > 6 && "1".equals(campos[6]);
+                    if (de < 0 || para < 0 || de >= vertices || para >= vertices || velocidade <= 0) {
+                        throw new IllegalArgumentException("aresta inválida");
+                    }
+
+                    int necessarios = arcos + (maoUnica ? 1 : 2);
+                    if (necessarios > origens.length) {
+                        int novoTamanho = Math.max(necessarios, origens.length * 2);
+                        origens = Arrays.copyOf(origens, novoTamanho);
+                        destinos = Arrays.copyOf(destinos, novoTamanho);
+                        metros = Arrays.copyOf(metros, novoTamanho);
+                        velocidades = Arrays.copyOf(velocidades, novoTamanho);
+                        perfis = Arrays.copyOf(perfis, novoTamanho);
+                    }
+                    origens[arcos] = de;
+                    destinos[arcos] = para;
+                    metros[arcos] = distancia;
+                    velocidades[arcos] = velocidade;
+                    perfis[arcos] = mascara;
+                    arcos++;
+                    if (!maoUnica) {
+                        origens[arcos] = para;
+                        destinos[arcos] = de;
+                        metros[arcos] = distancia;
+                        velocidades[arcos] = velocidade;
+                        perfis[arcos] = mascara;
+                        arcos++;
+                    }
+                } else {
+                    throw new IllegalArgumentException("tipo de registro desconhecido");
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Linha " + numeroLinha + " inválida no grafo viário: " + e.getMessage(), e);
+            }
+        }
+
+        return new GrafoViario(latitudes, longitudes, vertices, origens, destinos, metros, velocidades, perfis, arcos);
+    }
+
+    private void indexarVertices() {
+        long[] pares = new long[quantidadeVertices];
+        Integer[] ordem = new Integer[quantidadeVertices];
+        for (int v = 0; v < quantidadeVertices; v++) {
+            pares[v] = celula(latitudes[v], longitudes[v]);
+            ordem[v] = v;
+        }
+        Arrays.sort(ordem, (a, b) -> Long.compare(pares[a], pares[b]));
+        for (int i = 0; i < quantidadeVertices; i++) {
+            verticesPorCelula[i] = ordem[i];
+            celulasOrdenadas[i] = pares[ordem[i]];
+        }
+    }
+
+    private static long celula(double latitude, double longitude) {
+        return chaveCelula((int) Math.floor(latitude / TAMANHO_CELULA_GRAUS),
+                (int) Math.floor(longitude / TAMANHO_CELULA_GRAUS));
+    }
+
+    private static long chaveCelula(int linha, int coluna) {
+        return ((long) linha << 32) | (coluna & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Vértice mais próximo da coordenada que toque ao menos um arco utilizável pelo perfil,
+     * ou -1 se nenhum for encontrado nas células vizinhas.
+     */
+    public int verticeMaisProximo(double latitude, double longitude, int perfil) {
+        int linhaCentral = (int) Math.floor(latitude / TAMANHO_CELULA_GRAUS);
+        int colunaCentral = (int) Math.floor(longitude / TAMANHO_CELULA_GRAUS);
+        int melhor = -1;
+        double melhorDistancia = Double.MAX_VALUE;
+
+        for (int anel = 0; anel <= MAX_ANEIS_BUSCA; anel++) {
+            for (int linha = linhaCentral - anel; linha <= linhaCentral + anel; linha++) {
+                for (int coluna = colunaCentral - anel; coluna <= colunaCentral + anel; coluna++) {
+                    if (Math.abs(linha - linhaCentral) != anel && Math.abs(coluna - colunaCentral) != anel) {
+                        continue;
+                    }
+                    long chave = chaveCelula(linha, coluna);
+                    int posicao = primeiraPosicao(chave);
+                    for (; posicao < quantidadeVertices && celulasOrdenadas[posicao] == chave; posicao++) {
+                        int vertice = verticesPorCelula[posicao];
+                        if ((perfisVertices[vertice] & perfil) == 0) {
+                            continue;
+                        }
+                        double distancia = distanciaMetros(latitude, longitude, latitudes[vertice], longitudes[vertice]);
+                        if (distancia < melhorDistancia) {
+                            melhorDistancia = distancia;
+                            melhor = vertice;
+                        }
+                    }
+                }
+            }
+            // Qualquer vértice em anéis mais externos está a pelo menos 'anel' células de distância
+            if (melhor >= 0 && melhorDistancia <= anel * TAMANHO_CELULA_GRAUS * Math.PI / 180 * RAIO_TERRA_METROS
+                    * Math.cos(Math.toRadians(latitude))) {
+                break;
+            }
+        }
+        return melhor;
+    }
+
+    private int primeiraPosicao(long chave) {
+        int baixo = 0;
+        int alto = quantidadeVertices;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (celulasOrdenadas[meio] < chave) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    public static double distanciaMetros(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RAIO_TERRA_METROS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public int getQuantidadeVertices() {
+        return quantidadeVertices;
+    }
+
+    public int getQuantidadeArcos() {
+        return destinoArcos.length;
+    }
+
+    public double latitude(int vertice) {
+        return latitudes[vertice];
+    }
+
+    public double longitude(int vertice) {
+        return longitudes[vertice];
+    }
+
+    int inicioArcos(int vertice) {
+        return inicioArcos[vertice];
+    }
+
+    int fimArcos(int vertice) {
+        return inicioArcos[vertice + 1];
+    }
+
+    int origem(int arco) {
+        return origemArcos[arco];
+    }
+
+    int destino(int arco) {
+        return destinoArcos[arco];
+    }
+
+    float metros(int arco) {
+        return metrosArcos[arco];
+    }
+
+    float velocidadeKmh(int arco) {
+        return velocidadeArcos[arco];
+    }
+
+    boolean permitePerfil(int arco, int perfil) {
+        return (perfisArcos[arco] & perfil) != 0;
+    }
+
+    float getVelocidadeMaximaKmh() {
+        return velocidadeMaximaKmh;
+    }
+}
@@ -0,0 +1,141 @@
+package com.siseg.service.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.RouteResult;
+import com.siseg.util.VehicleConstants;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Motor de rotas em processo, sem dependência de servidor externo. O grafo viário é carregado uma única
+ * vez de {@code geocoding.routing.local.graphFile} (ver {@link GrafoViario} para o formato) e as rotas
+ * são calculadas por A* sobre o tempo de percurso. Origem e destino são ligados ao vértice mais próximo
+ * (até {@code geocoding.routing.local.maxSnapMeters}); esses trechos de acesso entram na distância e no tempo.
+ */
+@Component
+@ConditionalOnProperty(name = "geocoding.routing.engine", havingValue = "local")
+public class LocalRoutingEngine implements RoutingEngine {
+    
+    private static final Logger logger = Logger.getLogger(LocalRoutingEngine.class.getName());
+    
+    private final GrafoViario grafo;
+    private final BuscaAEstrela busca;
+    private final double maxSnapMetros;
+    
+    @Autowired
+    public LocalRoutingEngine(@Value("${geocoding.routing.local.graphFile}") String arquivoGrafo,
+                              @Value("${geocoding.routing.local.maxSnapMeters:500}") double maxSnapMetros) {
+        this(carregarGrafo(Path.of(arquivoGrafo)), maxSnapMetros);
+    }
+    
+    LocalRoutingEngine(GrafoViario grafo, double maxSnapMetros) {
+        this.grafo = grafo;
+        this.busca = new BuscaAEstrela(grafo);
+        this.maxSnapMetros = maxSnapMetros;
+    }
+    
+    private static GrafoViario carregarGrafo(Path arquivo) {
+        long inicio = System.nanoTime();
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            GrafoViario grafo = GrafoViario.carregar(leitor);
+            logger.info(String.format("Grafo viário carregado de %s: %d vértices, %d arcos em %d ms",
+                    arquivo, grafo.getQuantidadeVertices(), grafo.getQuantidadeArcos(),
+                    (System.nanoTime() - inicio) / 1_000_000));
+            return grafo;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível carregar o grafo viário de " + arquivo, e);
+        }
+    }
+    
+    @Override
+    public String getNome() {
+        return "local";
+    }
+    
+    @Override
+    public Mono<RouteResult> calcularRota(BigDecimal origemLat, BigDecimal origemLon,
+                                          BigDecimal destinoLat, BigDecimal destinoLon,
+                                          String profile, boolean incluirWaypoints) {
+        return Mono.fromSupplier(() -> calcular(origemLat.doubleValue(), origemLon.doubleValue(),
+                destinoLat.doubleValue(), destinoLon.doubleValue(), profile, incluirWaypoints));
+    }
+    
+    private RouteResult calcular(double origemLat, double origemLon, double destinoLat, double destinoLon,
+                                 String profile, boolean incluirWaypoints) {
+        boolean bicicleta = "cycling".equals(profile);
+        int perfil = bicicleta ? GrafoViario.PERFIL_CYCLING : GrafoViario.PERFIL_DRIVING;
+        double limiteVelocidadeKmh = bicicleta ? VehicleConstants.VELOCIDADE_MEDIA_BICICLETA_KMH : Double.MAX_VALUE;
+        double velocidadeAcessoKmh = bicicleta
+                ? VehicleConstants.VELOCIDADE_MEDIA_BICICLETA_KMH
+                : VehicleConstants.VELOCIDADE_MEDIA_MOTO_CARRO_KMH;
+        
+        int verticeOrigem = encaixar(origemLat, origemLon, perfil);
+        int verticeDestino = encaixar(destinoLat, destinoLon, perfil);
+        if (verticeOrigem < 0 || verticeDestino < 0) {
+            logger.fine("Coordenada fora da cobertura do grafo viário local");
+            return null;
+        }
+        
+        BuscaAEstrela.Caminho caminho = busca.buscar(verticeOrigem, verticeDestino, perfil, limiteVelocidadeKmh);
+        if (caminho == null) {
+            logger.fine("Sem rota no grafo viário local entre os vértices " + verticeOrigem + " e " + verticeDestino);
+            return null;
+        }
+        
+        double metrosAcesso = GrafoViario.distanciaMetros(origemLat, origemLon,
+                grafo.latitude(verticeOrigem), grafo.longitude(verticeOrigem))
+                + GrafoViario.distanciaMetros(destinoLat, destinoLon,
+                grafo.latitude(verticeDestino), grafo.longitude(verticeDestino));
+        double metros = caminho.metros() + metrosAcesso;
+        double segundos = caminho.segundos() + metrosAcesso / (velocidadeAcessoKmh / 3.6);
+        
+        BigDecimal distanciaKm = BigDecimal.valueOf(metros / 1000.0).setScale(2, RoundingMode.HALF_UP);
+        int tempoMinutos = (int) Math.ceil(segundos / 60.0);
+        List<Coordinates> waypoints = incluirWaypoints
+                ? montarWaypoints(origemLat, origemLon, caminho.vertices(), destinoLat, destinoLon)
+                : null;
+        return new RouteResult(distanciaKm, tempoMinutos, (int) Math.round(segundos), waypoints);
+    }
+    
+    private int encaixar(double latitude, double longitude, int perfil) {
+        int vertice = grafo.verticeMaisProximo(latitude, longitude, perfil);
+        if (vertice < 0) {
+            return -1;
+        }
+        double distancia = GrafoViario.distanciaMetros(latitude, longitude,
+                grafo.latitude(vertice), grafo.longitude(vertice));
+        return distancia <= maxSnapMetros ? vertice : -1;
+    }
+    
+    private List<Coordinates> montarWaypoints(double origemLat, double origemLon, int[] vertices,
+                                              double destinoLat, double destinoLon) {
+        List<Coordinates> waypoints = new ArrayList<>(vertices.length + 2);
+        waypoints.add(coordenada(origemLat, origemLon));
+        for (int vertice : vertices) {
+            waypoints.add(coordenada(grafo.latitude(vertice), grafo.longitude(vertice)));
+        }
+        waypoints.add(coordenada(destinoLat, destinoLon));
+        return waypoints;
+    }
+    
+    private Coordinates coordenada(double latitude, double longitude) {
+        return new Coordinates(BigDecimal.valueOf(latitude), BigDecimal.valueOf(longitude));
+    }
+}
@@ -0,0 +1,86 @@
+package com.siseg.service.routing;
+
+import com.siseg.util.DistanceCalculator;
+
+/**
+ * Avanço de uma posição ao longo de uma rota em arrays primitivos. A posição segue de waypoint em waypoint
+ * consumindo a distância do passo; quando a distância acaba no meio de um trecho, a posição é interpolada
+ * linearmente entre o ponto atual e o próximo waypoint.
+ *
+ * <p>Os trechos entre waypoints têm poucos metros, então a distância usa a aproximação equirretangular
+ * de {@link DistanceCalculator}, cujo erro nessa escala é desprezível.
+ */
+public final class MotorMovimento {
+
+    /**
+     * Posição mutável de um entregador simulado, reaproveitada entre passos.
+     */
+    public static final class Posicao {
+
+        private double latitude;
+        private double longitude;
+        private boolean chegouAoFim;
+
+        public Posicao(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /** Se o último passo alcançou o último waypoint da rota. */
+        public boolean isChegouAoFim() {
+            return chegouAoFim;
+        }
+
+        public void definir(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private MotorMovimento() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Move a posição por {@code distanciaKm} em direção aos waypoints a partir de {@code indiceAtual}
+     * e devolve quantos waypoints foram alcançados.
+     */
+    public static int mover(double[] latitudes, double[] longitudes, int total, int indiceAtual,
+                            Posicao posicao, double distanciaKm) {
+        double latitude = posicao.latitude;
+        double longitude = posicao.longitude;
+        double restante = distanciaKm;
+        int indice = indiceAtual;
+
+        while (indice < total && restante > 0) {
+            double destinoLat = latitudes[indice];
+            double destinoLon = longitudes[indice];
+            double distancia = DistanceCalculator.equirectangularKm(latitude, longitude, destinoLat, destinoLon);
+
+            if (distancia <= restante) {
+                latitude = destinoLat;
+                longitude = destinoLon;
+                restante -= distancia;
+                indice++;
+            } else {
+                double fracao = restante / distancia;
+                latitude += (destinoLat - latitude) * fracao;
+                longitude += (destinoLon - longitude) * fracao;
+                restante = 0;
+            }
+        }
+
+        posicao.latitude = latitude;
+        posicao.longitude = longitude;
+        posicao.chegouAoFim = indice >= total;
+        return indice - indiceAtual;
+    }
+}
@@ -0,0 +1,332 @@
+package com.siseg.service.routing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.OsrmRoute;
+import com.siseg.dto.geocoding.OsrmRouteResponse;
+import com.siseg.dto.geocoding.OsrmTableResponse;
+import com.siseg.dto.geocoding.RouteResult;
+import com.siseg.exception.CircuitBreakerOpenException;
+import com.siseg.util.CircuitBreaker;
+import com.siseg.util.FalhasTransitorias;
+import com.siseg.util.PolylineDecoder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Motor de rotas remoto: serviços route e table de um servidor OSRM em {@code geocoding.osrm.baseUrl}.
+ */
+@Component
+@ConditionalOnProperty(name = "geocoding.routing.engine", havingValue = "osrm", matchIfMissing = true)
+public class OsrmRoutingEngine implements RoutingEngine {
+    
+    private static final Logger logger = Logger.getLogger(OsrmRoutingEngine.class.getName());
+    
+    private final WebClient osrmClient;
+    private final CircuitBreaker circuitBreaker;
+    private final int osrmTimeout;
+    private final int osrmMaxRetries;
+    private final long osrmRetryDelay;
+    private final int osrmTableMaxCoordenadas;
+    
+    public OsrmRoutingEngine(@Value("${geocoding.osrm.baseUrl}") String osrmBaseUrl,
+                             @Value("${geocoding.osrm.timeout:5000}") int osrmTimeout,
+                             @Value("${geocoding.osrm.retry.maxAttempts:3}") int osrmMaxRetries,
+                             @Value("${geocoding.osrm.retry.delay:1000}") long osrmRetryDelay,
+                             @Value("${geocoding.osrm.table.maxCoordinates:100}") int osrmTableMaxCoordenadas,
+                             CircuitBreaker osrmCircuitBreaker) {
+        this.circuitBreaker = osrmCircuitBreaker;
+        this.osrmTimeout = osrmTimeout;
+        this.osrmMaxRetries = osrmMaxRetries;
+        this.osrmRetryDelay = osrmRetryDelay;
+        this.osrmTableMaxCoordenadas = Math.max(2, osrmTableMaxCoordenadas);
+        this.osrmClient = WebClient.builder()
+                .baseUrl(osrmBaseUrl)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
+                .build();
+    }
+    
+    @Override
+    public String getNome() {
+        return "osrm";
+    }
+    
+    @Override
+    public boolean isDisponivel() {
+        return !circuitBreaker.isAberto();
+    }
+    
+    /**
+     * Cada tentativa passa pelo circuit breaker e tem timeout de {@code geocoding.osrm.timeout}; falhas
+     * transitórias são repetidas com backoff exponencial a partir de {@code geocoding.osrm.retry.delay}, até
+     * {@code geocoding.osrm.retry.maxAttempts} tentativas.
+     */
+    @Override
+    public Mono<RouteResult> calcularRota(BigDecimal origemLat, BigDecimal origemLon,
+                                          BigDecimal destinoLat, BigDecimal destinoLon,
+                                          String routeProfile, boolean includeWaypoints) {
+        String coordinates = formatarCoordenadas(origemLat, origemLon, destinoLat, destinoLon);
+        AtomicInteger tentativa = new AtomicInteger();
+        
+        Mono<OsrmRouteResponse> tentativaProtegida = circuitBreaker.proteger(
+                Mono.defer(() -> {
+                            tentativa.incrementAndGet();
+                            return buscarRotaNoOSRM(routeProfile, coordinates, includeWaypoints);
+                        })
+                        .timeout(Duration.ofMillis(osrmTimeout))
+                        .doOnError(e -> logarFalhaOSRM(e, tentativa.get())),
+                FalhasTransitorias::isTransitoria);
+        
+        return tentativaProtegida
+                .retryWhen(FalhasTransitorias.retentar(Math.max(0, osrmMaxRetries - 1), Duration.ofMillis(osrmRetryDelay)))
+                .flatMap(response -> {
+                    if (!isRespostaOSRMValida(response)) {
+                        return Mono.empty();
+                    }
+                    if (tentativa.get() > 1) {
+                        logger.info("Rota calculada com sucesso na tentativa " + tentativa.get());
+                    }
+                    return Mono.justOrEmpty(criarRouteResult(response.getRoutes().get(0), includeWaypoints));
+                })
+                .onErrorResume(CircuitBreakerOpenException.class, e -> {
+                    logger.warning("Cálculo de rota OSRM interrompido: " + e.getMessage());
+                    return Mono.empty();
+                })
+                .onErrorResume(e -> {
+                    logger.severe(String.format(
+                        "Falha ao calcular rota OSRM após %d tentativas. Último erro: %s",
+                        tentativa.get(), e.getMessage()
+                    ));
+                    return Mono.empty();
+                });
+    }
+    
+    private void logarFalhaOSRM(Throwable erro, int tentativa) {
+        if (erro instanceof WebClientResponseException e) {
+            int statusCode = e.getStatusCode().value();
+            String errorBody = e.getResponseBodyAsString();
+            logger.warning(String.format(
+                "Erro ao calcular rota OSRM (tentativa %d/%d): Status %d - %s",
+                tentativa, osrmMaxRetries, statusCode, !errorBody.isEmpty() ? errorBody : e.getMessage()
+            ));
+            if (e.getStatusCode().is4xxClientError()) {
+                logger.severe("Erro do cliente (4xx), não será feito retry: " + statusCode);
+            }
+        } else if (erro instanceof WebClientException) {
+            logger.warning(String.format(
+                "Erro de conexão com OSRM (tentativa %d/%d): %s",
+                tentativa, osrmMaxRetries, erro.getMessage()
+            ));
+        } else {
+            logger.warning(String.format(
+                "Erro inesperado ao calcular rota OSRM (tentativa %d/%d): %s",
+                tentativa, osrmMaxRetries, erro.getMessage()
+            ));
+        }
+    }
+    
+    private String formatarCoordenadas(BigDecimal origemLat, BigDecimal origemLon,
+                                       BigDecimal destinoLat, BigDecimal destinoLon) {
+        return String.format("%s,%s;%s,%s", origemLon, origemLat, destinoLon, destinoLat);
+    }
+    
+    private Mono<OsrmRouteResponse> buscarRotaNoOSRM(String routeProfile, String coordinates, boolean includeWaypoints) {
+        return osrmClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/route/v1/{profile}/{coordinates}")
+                        .queryParam("overview", includeWaypoints ? "full" : "false")
+                        .queryParam("geometries", includeWaypoints ? "polyline6" : "polyline")
+                        .queryParam("alternatives", "false")
+                        .queryParam("steps", "false")
+                        .build(routeProfile, coordinates))
+                .retrieve()
+                .bodyToMono(OsrmRouteResponse.class);
+    }
+    
+    private boolean isRespostaOSRMValida(OsrmRouteResponse response) {
+        if (response == null || response.getCode() == null || !"Ok".equals(response.getCode())) {
+            logger.warning("OSRM retornou código inválido: " + (response != null ? response.getCode() : "null"));
+            return false;
+        }
+        
+        if (response.getRoutes() == null || response.getRoutes().isEmpty()) {
+            logger.warning("OSRM não retornou rotas");
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Usa o serviço table do OSRM, em uma requisição por bloco de até {@code geocoding.osrm.table.maxCoordinates}
+     * coordenadas. Destinos inalcançáveis ou de um bloco que falhou ficam vazios.
+     */
+    @Override
+    public List<Optional<RouteResult>> calcularMatriz(BigDecimal origemLat, BigDecimal origemLon,
+                                                      List<Coordinates> destinos, String routeProfile) {
+        List<Optional<RouteResult>> resultados = new ArrayList<>(Collections.nCopies(destinos.size(), Optional.empty()));
+        int destinosPorBloco = osrmTableMaxCoordenadas - 1;
+        for (int inicio = 0; inicio < destinos.size(); inicio += destinosPorBloco) {
+            int fim = Math.min(inicio + destinosPorBloco, destinos.size());
+            calcularBlocoDaMatriz(origemLat, origemLon, destinos, inicio, fim, routeProfile, resultados);
+        }
+        return resultados;
+    }
+    
+    private void calcularBlocoDaMatriz(BigDecimal origemLat, BigDecimal origemLon, List<Coordinates> destinos,
+                                       int inicio, int fim, String routeProfile,
+                                       List<Optional<RouteResult>> resultados) {
+        StringBuilder coordenadas = new StringBuilder().append(origemLon).append(',').append(origemLat);
+        for (int i = inicio; i < fim; i++) {
+            Coordinates destino = destinos.get(i);
+            coordenadas.append(';').append(destino.getLongitude()).append(',').append(destino.getLatitude());
+        }
+        
+        try {
+            OsrmTableResponse response = circuitBreaker.proteger(
+                            buscarMatrizNoOSRM(routeProfile, coordenadas.toString()).timeout(Duration.ofMillis(osrmTimeout)),
+                            FalhasTransitorias::isTransitoria)
+                    .block();
+            if (!isRespostaMatrizValida(response)) {
+                return;
+            }
+            
+            List<Double> duracoes = response.getDurations().get(0);
+            List<Double> distancias = response.getDistances().get(0);
+            for (int coluna = 0; coluna < fim - inicio; coluna++) {
+                Double duracao = duracoes.get(coluna);
+                Double distancia = distancias.get(coluna);
+                if (duracao != null && distancia != null) {
+                    RouteResult rota = new RouteResult(calcularDistanciaKm(distancia), calcularTempoMinutos(duracao));
+                    resultados.set(inicio + coluna, Optional.of(rota));
+                }
+            }
+            logger.fine("Matriz OSRM calculada para " + (fim - inicio) + " destinos");
+            
+        } catch (CircuitBreakerOpenException e) {
+            logger.fine("Matriz OSRM não consultada: " + e.getMessage());
+        } catch (WebClientException e) {
+            logger.warning("Erro ao consultar matriz OSRM para " + (fim - inicio) + " destinos: " + e.getMessage());
+        } catch (Exception e) {
+            logger.warning("Erro inesperado ao calcular matriz OSRM: " + e.getMessage());
+        }
+    }
+    
+    private Mono<OsrmTableResponse> buscarMatrizNoOSRM(String routeProfile, String coordinates) {
+        return osrmClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/table/v1/{profile}/{coordinates}")
+                        .queryParam("sources", "0")
+                        .queryParam("annotations", "duration,distance")
+                        .build(routeProfile, coordinates))
+                .retrieve()
+                .bodyToMono(OsrmTableResponse.class);
+    }
+    
+    private boolean isRespostaMatrizValida(OsrmTableResponse response) {
+        if (response == null || !"Ok".equals(response.getCode())) {
+            logger.warning("OSRM table retornou código inválido: " + (response != null ? response.getCode() : "null"));
+            return false;
+        }
+        
+        if (response.getDurations() == null || response.getDurations().isEmpty()
+                || response.getDistances() == null || response.getDistances().isEmpty()) {
+            logger.warning("OSRM table não retornou durações e distâncias");
+            return false;
+        }
+        
+        return true;
+    }
+    
+    private Optional<RouteResult> criarRouteResult(OsrmRoute route, boolean includeWaypoints) {
+        BigDecimal distanciaKm = calcularDistanciaKm(route);
+        int tempoMinutos = calcularTempoMinutos(route);
+        List<Coordinates> waypoints = includeWaypoints ? extrairWaypoints(route) : null;
+        
+        RouteResult result = new RouteResult(distanciaKm, tempoMinutos, (int) Math.round(route.getDuration()), waypoints);
+        logarRotaCalculada(distanciaKm, tempoMinutos, waypoints);
+        return Optional.of(result);
+    }
+    
+    private BigDecimal calcularDistanciaKm(OsrmRoute route) {
+        return calcularDistanciaKm(route.getDistance());
+    }
+    
+    private BigDecimal calcularDistanciaKm(double distanciaMetros) {
+        return BigDecimal.valueOf(distanciaMetros / 1000.0)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private int calcularTempoMinutos(OsrmRoute route) {
+        return calcularTempoMinutos(route.getDuration());
+    }
+    
+    private int calcularTempoMinutos(double tempoSegundos) {
+        return (int) Math.ceil(tempoSegundos / 60.0);
+    }
+    
+    private void logarRotaCalculada(BigDecimal distanciaKm, int tempoMinutos, List<Coordinates> waypoints) {
+        String waypointsInfo = waypoints != null ? ", " + waypoints.size() + " waypoints" : "";
+        logger.fine("Rota calculada via OSRM: " + distanciaKm + " km, " + tempoMinutos + " min" + waypointsInfo);
+    }
+    
+    private List<Coordinates> extrairWaypoints(OsrmRoute route) {
+        if (temCoordenadasNaRota(route)) {
+            return extrairWaypointsDeCoordenadas(route.getCoordinates());
+        }
+        
+        return extrairWaypointsDeGeometry(route);
+    }
+    
+    private boolean temCoordenadasNaRota(OsrmRoute route) {
+        List<List<Double>> coordinates = route.getCoordinates();
+        return coordinates != null && !coordinates.isEmpty();
+    }
+    
+    private List<Coordinates> extrairWaypointsDeCoordenadas(List<List<Double>> coordinates) {
+        List<Coordinates> waypoints = new ArrayList<>();
+        for (List<Double> coord : coordinates) {
+            if (isCoordenadaValida(coord)) {
+                BigDecimal longitude = BigDecimal.valueOf(coord.get(0));
+                BigDecimal latitude = BigDecimal.valueOf(coord.get(1));
+                waypoints.add(new Coordinates(latitude, longitude));
+            }
+        }
+        return waypoints;
+    }
+    
+    private boolean isCoordenadaValida(List<Double> coord) {
+        return coord != null && coord.size() >= 2;
+    }
+    
+    private List<Coordinates> extrairWaypointsDeGeometry(OsrmRoute route) {
+        String geometryStr = route.getGeometryAsString();
+        if (temGeometryValida(geometryStr)) {
+            return PolylineDecoder.decode(geometryStr, PolylineDecoder.PRECISAO_POLYLINE6);
+        }
+        return new ArrayList<>();
+    }
+    
+    private boolean temGeometryValida(String geometryStr) {
+        return geometryStr != null && !geometryStr.isEmpty();
+    }
+}
@@ -0,0 +1,252 @@
+package com.siseg.service.routing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.util.DistanceCalculator;
+import com.siseg.util.WaypointCodec;
+
+/**
+ * Rota de um pedido em entrega, decodificada uma única vez para arrays primitivos. As coordenadas e a
+ * soma prefixada de distância (km) desde o primeiro waypoint são imutáveis; apenas o índice atual muda, e
+ * a diferença entre ele e o último índice gravado indica se a rota precisa ser persistida. Distância e
+ * tempo restantes a partir de qualquer ponto da rota saem da soma prefixada, sem nova consulta ao motor
+ * de rotas.
+ */
+public final class RotaAtiva {
+
+    private static final double KM_POR_GRAU = 6371.0 * Math.PI / 180;
+    private static final int JANELA_SEGMENTOS = 8;
+
+    /**
+     * Projeção de uma coordenada na rota: quanto da rota já foi percorrido até o ponto projetado e a que
+     * distância a coordenada está da rota.
+     */
+    public record PosicaoNaRota(double distanciaPercorridaKm, double desvioMetros) {
+    }
+
+    private final Long rotaId;
+    private final Long pedidoId;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] distanciaAcumuladaKm;
+    private final Integer duracaoSegundos;
+
+    private volatile int indiceAtual;
+    private volatile int indicePersistido;
+    private volatile long ultimoAcessoMillis;
+    private volatile int[] indicesExibicao;
+
+    public RotaAtiva(Long rotaId, Long pedidoId, byte[] waypointsCodificados, int indiceAtual, Integer duracaoSegundos,
+              long agoraMillis) {
+        this.rotaId = rotaId;
+        this.pedidoId = pedidoId;
+
+        WaypointCodec.Leitor leitor = new WaypointCodec.Leitor(waypointsCodificados);
+        int total = leitor.total();
+        this.latitudes = new double[total];
+        this.longitudes = new double[total];
+        this.distanciaAcumuladaKm = new double[total];
+        for (int i = 0; i < total; i++) {
+            leitor.avancar();
+            latitudes[i] = leitor.latitudeMicro() / 1e6;
+            longitudes[i] = leitor.longitudeMicro() / 1e6;
+            if (i > 0) {
+                distanciaAcumuladaKm[i] = distanciaAcumuladaKm[i - 1] + DistanceCalculator.haversineKm(
+                        latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            }
+        }
+
+        this.duracaoSegundos = duracaoSegundos != null && duracaoSegundos > 0 ? duracaoSegundos : null;
+
+        int indice = Math.max(0, Math.min(indiceAtual, Math.max(0, total - 1)));
+        this.indiceAtual = indice;
+        this.indicePersistido = indice;
+        this.ultimoAcessoMillis = agoraMillis;
+    }
+
+    public Long getRotaId() {
+        return rotaId;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public int getTotalWaypoints() {
+        return latitudes.length;
+    }
+
+    public int getIndiceAtual() {
+        return indiceAtual;
+    }
+
+    public double latitude(int indice) {
+        return latitudes[indice];
+    }
+
+    public double longitude(int indice) {
+        return longitudes[indice];
+    }
+
+    public double distanciaAcumuladaKm(int indice) {
+        return distanciaAcumuladaKm[indice];
+    }
+
+    /** Distância ao longo da rota entre o waypoint atual e o último. */
+    public double distanciaRestanteKm() {
+        if (latitudes.length == 0) {
+            return 0;
+        }
+        return distanciaAcumuladaKm[latitudes.length - 1] - distanciaAcumuladaKm[indiceAtual];
+    }
+
+    public boolean possuiDuracao() {
+        return duracaoSegundos != null;
+    }
+
+    /**
+     * Projeta a coordenada no segmento mais próximo entre os que cercam o índice atual (o entregador
+     * segue do waypoint {@code indiceAtual - 1} para o {@code indiceAtual}).
+     */
+    public PosicaoNaRota localizar(double latitude, double longitude) {
+        int total = latitudes.length;
+        if (total < 2) {
+            double desvio = total == 0 ? Double.MAX_VALUE
+                    : DistanceCalculator.haversineKm(latitude, longitude, latitudes[0], longitudes[0]) * 1000;
+            return new PosicaoNaRota(0, desvio);
+        }
+
+        int indice = indiceAtual;
+        int primeiro = Math.max(1, indice);
+        int ultimo = Math.min(total - 1, indice + JANELA_SEGMENTOS);
+        double melhorDesvioKm = Double.MAX_VALUE;
+        double melhorPercorrida = distanciaAcumuladaKm[primeiro - 1];
+
+        for (int fim = primeiro; fim <= ultimo; fim++) {
+            int inicio = fim - 1;
+            double cosLat = Math.cos(Math.toRadians(latitudes[inicio]));
+            double segX = (longitudes[fim] - longitudes[inicio]) * cosLat * KM_POR_GRAU;
+            double segY = (latitudes[fim] - latitudes[inicio]) * KM_POR_GRAU;
+            double pontoX = (longitude - longitudes[inicio]) * cosLat * KM_POR_GRAU;
+            double pontoY = (latitude - latitudes[inicio]) * KM_POR_GRAU;
+
+            double comprimento2 = segX * segX + segY * segY;
+            double t = comprimento2 == 0 ? 0 : Math.max(0, Math.min(1, (pontoX * segX + pontoY * segY) / comprimento2));
+            double dx = pontoX - t * segX;
+            double dy = pontoY - t * segY;
+            double desvioKm = Math.sqrt(dx * dx + dy * dy);
+
+            if (desvioKm < melhorDesvioKm) {
+                melhorDesvioKm = desvioKm;
+                melhorPercorrida = distanciaAcumuladaKm[inicio] + t * (distanciaAcumuladaKm[fim] - distanciaAcumuladaKm[inicio]);
+            }
+        }
+        return new PosicaoNaRota(melhorPercorrida, melhorDesvioKm * 1000);
+    }
+
+    public double distanciaRestanteKm(double distanciaPercorridaKm) {
+        if (latitudes.length == 0) {
+            return 0;
+        }
+        return Math.max(0, distanciaAcumuladaKm[latitudes.length - 1] - distanciaPercorridaKm);
+    }
+
+    /**
+     * Tempo restante a partir do ponto da rota a {@code distanciaPercorridaKm} do início. O motor de rotas
+     * informa só a duração total, então ela é tomada na proporção da distância que falta.
+     */
+    public double tempoRestanteSegundos(double distanciaPercorridaKm) {
+        if (duracaoSegundos == null) {
+            throw new IllegalStateException("Rota sem duração registrada");
+        }
+        if (latitudes.length < 2) {
+            return 0;
+        }
+        double total = distanciaAcumuladaKm[latitudes.length - 1];
+        if (total <= 0) {
+            return 0;
+        }
+        return duracaoSegundos * distanciaRestanteKm(Math.max(0, distanciaPercorridaKm)) / total;
+    }
+
+    public boolean isCompleta() {
+        return indiceAtual >= latitudes.length - 1;
+    }
+
+    /**
+     * Avança o índice em até {@code quantidade} waypoints, sem passar do último, e devolve o novo índice.
+     */
+    public synchronized int avancar(int quantidade) {
+        if (quantidade > 0 && !isCompleta()) {
+            indiceAtual = Math.min(indiceAtual + quantidade, latitudes.length - 1);
+        }
+        return indiceAtual;
+    }
+
+    /**
+     * Avança o índice até o waypoint que vem depois do ponto da rota a {@code distanciaPercorridaKm} do
+     * início, encontrado por busca binária na soma prefixada de distâncias. Nunca volta; devolve quantos
+     * waypoints avançou.
+     */
+    public synchronized int avancarAte(double distanciaPercorridaKm) {
+        int total = latitudes.length;
+        if (total == 0) {
+            return 0;
+        }
+        int posicao = Arrays.binarySearch(distanciaAcumuladaKm, distanciaPercorridaKm);
+        int proximo = Math.min(posicao >= 0 ? posicao + 1 : -posicao - 1, total - 1);
+        int anterior = indiceAtual;
+        return anterior < proximo ? avancar(proximo - anterior) - anterior : 0;
+    }
+
+    /**
+     * Move a posição por {@code distanciaKm} ao longo dos waypoints restantes e avança o índice atual
+     * pelos waypoints alcançados, que são devolvidos.
+     */
+    public synchronized int mover(MotorMovimento.Posicao posicao, double distanciaKm) {
+        int alcancados = MotorMovimento.mover(latitudes, longitudes, latitudes.length, indiceAtual, posicao, distanciaKm);
+        avancar(alcancados);
+        return alcancados;
+    }
+
+    public Coordinates waypoint(int indice) {
+        return new Coordinates(BigDecimal.valueOf(latitudes[indice]), BigDecimal.valueOf(longitudes[indice]));
+    }
+
+    public List<Coordinates> waypointsRestantes() {
+        int inicio = indiceAtual;
+        List<Coordinates> restantes = new ArrayList<>(latitudes.length - inicio);
+        for (int i = inicio; i < latitudes.length; i++) {
+            restantes.add(waypoint(i));
+        }
+        return restantes;
+    }
+
+    int[] getIndicesExibicao() {
+        return indicesExibicao;
+    }
+
+    void definirIndicesExibicao(int[] indices) {
+        this.indicesExibicao = indices;
+    }
+
+    boolean precisaPersistir() {
+        return indiceAtual != indicePersistido;
+    }
+
+    void marcarPersistido(int indice) {
+        this.indicePersistido = indice;
+    }
+
+    void registrarAcesso(long agoraMillis) {
+        this.ultimoAcessoMillis = agoraMillis;
+    }
+
+    long getUltimoAcessoMillis() {
+        return ultimoAcessoMillis;
+    }
+}
@@ -0,0 +1,10 @@
+package com.siseg.service.routing;
+
+import com.siseg.model.RotaEntrega;
+
+/**
+ * Publicado quando a rota de um pedido é calculada e gravada; a rota só entra no
+ * {@link ActiveRouteRegistry} após o commit da transação.
+ */
+public record RotaCalculadaEvent(RotaEntrega rota) {
+}
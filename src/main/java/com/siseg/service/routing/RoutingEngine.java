@@ -0,0 +1,52 @@
+package com.siseg.service.routing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.RouteResult;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Motor de cálculo de rotas usado pelo {@link com.siseg.service.GeocodingService}. A implementação ativa
+ * é escolhida por {@code geocoding.routing.engine} ({@code osrm} ou {@code local}). Cache, coalescência
+ * e fallback ficam no serviço; o motor só calcula.
+ */
+public interface RoutingEngine {
+
+    String getNome();
+
+    /**
+     * Calcula a rota entre dois pontos. Completa vazio quando não há rota ou o motor não conseguiu responder.
+     *
+     * @param profile perfil já normalizado ({@code driving} ou {@code cycling})
+     */
+    Mono<RouteResult> calcularRota(BigDecimal origemLat, BigDecimal origemLon,
+                                   BigDecimal destinoLat, BigDecimal destinoLon,
+                                   String profile, boolean incluirWaypoints);
+
+    /**
+     * Distância e tempo de uma origem para vários destinos, na ordem de {@code destinos}. A implementação
+     * padrão calcula rota a rota; motores com consulta de matriz devem sobrescrever.
+     */
+    default List<Optional<RouteResult>> calcularMatriz(BigDecimal origemLat, BigDecimal origemLon,
+                                                       List<Coordinates> destinos, String profile) {
+        List<Optional<RouteResult>> resultados = new ArrayList<>(destinos.size());
+        for (Coordinates destino : destinos) {
+            resultados.add(calcularRota(origemLat, origemLon, destino.getLatitude(), destino.getLongitude(),
+                    profile, false).blockOptional());
+        }
+        return resultados;
+    }
+
+    /**
+     * Indica se o motor está aceitando chamadas. Quando falso, o serviço não o consulta e os chamadores
+     * usam a distância em linha reta.
+     */
+    default boolean isDisponivel() {
+        return true;
+    }
+}
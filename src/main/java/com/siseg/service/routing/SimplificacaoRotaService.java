@@ -0,0 +1,159 @@
+package com.siseg.service.routing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.SimplificacaoRotaEstatisticasDTO;
+import com.siseg.util.SimplificadorPolilinha;
+import com.siseg.util.WaypointCodec;
+
+/**
+ * Simplificação da geometria das rotas com uma tolerância por uso: uma fina para a rota gravada, que a
+ * simulação de movimento percorre ponto a ponto, e outra mais grossa para os waypoints enviados ao mapa
+ * do rastreamento. A versão de exibição é calculada uma vez por rota ativa e fatiada a partir do índice
+ * atual a cada consulta.
+ */
+@Service
+public class SimplificacaoRotaService {
+
+    // {"latitude":,"longitude":} mais a vírgula que separa os elementos do array
+    private static final int BYTES_JSON_FIXOS_POR_PONTO = 27;
+
+    private final double toleranciaArmazenamentoMetros;
+    private final double toleranciaExibicaoMetros;
+
+    private final LongAdder rotasArmazenadas = new LongAdder();
+    private final LongAdder pontosOriginaisArmazenamento = new LongAdder();
+    private final LongAdder pontosArmazenados = new LongAdder();
+    private final LongAdder bytesOriginaisArmazenamento = new LongAdder();
+    private final LongAdder bytesArmazenados = new LongAdder();
+    private final LongAdder rotasExibicao = new LongAdder();
+    private final LongAdder pontosOriginaisExibicao = new LongAdder();
+    private final LongAdder pontosExibicao = new LongAdder();
+    private final LongAdder bytesJsonOriginaisExibicao = new LongAdder();
+    private final LongAdder bytesJsonExibicao = new LongAdder();
+
+    public SimplificacaoRotaService(@Value("${rotas.simplificacao.armazenamentoMetros:1}") double toleranciaArmazenamentoMetros,
+                                    @Value("${rotas.simplificacao.exibicaoMetros:10}") double toleranciaExibicaoMetros) {
+        this.toleranciaArmazenamentoMetros = toleranciaArmazenamentoMetros;
+        this.toleranciaExibicaoMetros = toleranciaExibicaoMetros;
+    }
+
+    /**
+     * Geometria a ser gravada para a rota. Com a tolerância de armazenamento em 0 a rota é mantida intacta.
+     */
+    public List<Coordinates> simplificarParaArmazenamento(List<Coordinates> waypoints) {
+        int total = waypoints.size();
+        double[] latitudes = new double[total];
+        double[] longitudes = new double[total];
+        for (int i = 0; i < total; i++) {
+            latitudes[i] = waypoints.get(i).getLatitude().doubleValue();
+            longitudes[i] = waypoints.get(i).getLongitude().doubleValue();
+        }
+
+        int[] mantidos = SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, total - 1, toleranciaArmazenamentoMetros);
+        List<Coordinates> simplificados = new ArrayList<>(mantidos.length);
+        for (int indice : mantidos) {
+            simplificados.add(waypoints.get(indice));
+        }
+
+        rotasArmazenadas.increment();
+        pontosOriginaisArmazenamento.add(total);
+        pontosArmazenados.add(mantidos.length);
+        bytesOriginaisArmazenamento.add(WaypointCodec.codificar(waypoints).length);
+        bytesArmazenados.add(WaypointCodec.codificar(simplificados).length);
+        return simplificados;
+    }
+
+    /**
+     * Waypoints restantes da rota para exibição: o waypoint atual seguido dos pontos da versão simplificada
+     * que vêm depois dele.
+     */
+    public List<Coordinates> waypointsRestantesParaExibicao(RotaAtiva rota) {
+        int[] indices = indicesRestantesParaExibicao(rota, rota.getIndiceAtual());
+        List<Coordinates> restantes = new ArrayList<>(indices.length);
+        for (int indice : indices) {
+            restantes.add(rota.waypoint(indice));
+        }
+        return restantes;
+    }
+
+    /**
+     * Índices na rota dos waypoints de {@link #waypointsRestantesParaExibicao} a partir de {@code indiceAtual},
+     * para quem precisa relacionar os pontos exibidos com o índice atual informado depois.
+     */
+    public int[] indicesRestantesParaExibicao(RotaAtiva rota, int indiceAtual) {
+        if (rota.getTotalWaypoints() == 0) {
+            return new int[0];
+        }
+        int[] indices = indicesExibicao(rota);
+
+        int posicao = Arrays.binarySearch(indices, indiceAtual);
+        int proximo = posicao >= 0 ? posicao + 1 : -posicao - 1;
+        int[] restantes = new int[indices.length - proximo + 1];
+        restantes[0] = indiceAtual;
+        System.arraycopy(indices, proximo, restantes, 1, indices.length - proximo);
+        return restantes;
+    }
+
+    public SimplificacaoRotaEstatisticasDTO obterEstatisticas() {
+        return new SimplificacaoRotaEstatisticasDTO(
+                toleranciaArmazenamentoMetros,
+                toleranciaExibicaoMetros,
+                rotasArmazenadas.sum(),
+                pontosOriginaisArmazenamento.sum(),
+                pontosArmazenados.sum(),
+                bytesOriginaisArmazenamento.sum(),
+                bytesArmazenados.sum(),
+                rotasExibicao.sum(),
+                pontosOriginaisExibicao.sum(),
+                pontosExibicao.sum(),
+                bytesJsonOriginaisExibicao.sum(),
+                bytesJsonExibicao.sum()
+        );
+    }
+
+    private int[] indicesExibicao(RotaAtiva rota) {
+        int[] indices = rota.getIndicesExibicao();
+        if (indices != null) {
+            return indices;
+        }
+
+        int total = rota.getTotalWaypoints();
+        double[] latitudes = new double[total];
+        double[] longitudes = new double[total];
+        for (int i = 0; i < total; i++) {
+            latitudes[i] = rota.latitude(i);
+            longitudes[i] = rota.longitude(i);
+        }
+        indices = SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, total - 1, toleranciaExibicaoMetros);
+        rota.definirIndicesExibicao(indices);
+
+        long[] bytesPorPonto = new long[total];
+        long bytesTotais = 2;
+        for (int i = 0; i < total; i++) {
+            bytesPorPonto[i] = BYTES_JSON_FIXOS_POR_PONTO
+                    + BigDecimal.valueOf(latitudes[i]).toString().length()
+                    + BigDecimal.valueOf(longitudes[i]).toString().length();
+            bytesTotais += bytesPorPonto[i];
+        }
+        long bytesSimplificados = 2;
+        for (int indice : indices) {
+            bytesSimplificados += bytesPorPonto[indice];
+        }
+
+        rotasExibicao.increment();
+        pontosOriginaisExibicao.add(total);
+        pontosExibicao.add(indices.length);
+        bytesJsonOriginaisExibicao.add(bytesTotais);
+        bytesJsonExibicao.add(bytesSimplificados);
+        return indices;
+    }
+}
@@ -0,0 +1,230 @@
+package com.siseg.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import com.siseg.dto.geocoding.CircuitBreakerEstatisticasDTO;
+import com.siseg.dto.geocoding.TransicaoCircuitoDTO;
+import com.siseg.exception.CircuitBreakerOpenException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker com janela deslizante das últimas {@code tamanhoJanela} chamadas.
+ * <ul>
+ *   <li>FECHADO: chamadas passam; com ao menos {@code minimoChamadas} na janela, abre se a taxa de falhas
+ *       ou de chamadas lentas atingir o limiar.</li>
+ *   <li>ABERTO: chamadas são rejeitadas de imediato até {@code duracaoAberto} passar.</li>
+ *   <li>SEMI_ABERTO: deixa passar {@code chamadasSemiAberto} chamadas de teste; qualquer falha ou lentidão
+ *       reabre o circuito, e se todas tiverem sucesso ele fecha com a janela zerada.</li>
+ * </ul>
+ * O estado é pequeno e as seções críticas são curtas, então os métodos são sincronizados.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+    private static final int MAX_TRANSICOES_REGISTRADAS = 20;
+
+    public enum Estado {
+        FECHADO, ABERTO, SEMI_ABERTO
+    }
+
+    public record Configuracao(int tamanhoJanela, int minimoChamadas, int limiarFalhasPercentual,
+                               int limiarLentasPercentual, Duration chamadaLenta, Duration duracaoAberto,
+                               int chamadasSemiAberto) {
+    }
+
+    private final String nome;
+    private final Configuracao configuracao;
+    private final LongSupplier relogio;
+
+    private final boolean[] falhas;
+    private final boolean[] lentas;
+    private int posicao;
+    private int chamadasNaJanela;
+    private int falhasNaJanela;
+    private int lentasNaJanela;
+
+    private Estado estado = Estado.FECHADO;
+    private long abertoDesde;
+    private int testesLiberados;
+    private int testesBemSucedidos;
+
+    private long chamadasPermitidas;
+    private long chamadasRejeitadas;
+    private long totalTransicoes;
+    private final Deque<TransicaoCircuitoDTO> transicoes = new ArrayDeque<>();
+
+    public CircuitBreaker(String nome, Configuracao configuracao) {
+        this(nome, configuracao, System::nanoTime);
+    }
+
+    CircuitBreaker(String nome, Configuracao configuracao, LongSupplier relogio) {
+        if (configuracao.tamanhoJanela() < 1 || configuracao.minimoChamadas() < 1
+                || configuracao.chamadasSemiAberto() < 1) {
+            throw new IllegalArgumentException("Configuração inválida para circuit breaker " + nome);
+        }
+        this.nome = nome;
+        this.configuracao = configuracao;
+        this.relogio = relogio;
+        this.falhas = new boolean[configuracao.tamanhoJanela()];
+        this.lentas = new boolean[configuracao.tamanhoJanela()];
+    }
+
+    /**
+     * Executa a operação se o circuito permitir, registrando duração e resultado. Quando o circuito
+     * está aberto o {@link Mono} falha com {@link CircuitBreakerOpenException} sem assinar a operação.
+     *
+     * @param contaComoFalha decide quais erros indicam indisponibilidade do serviço; os demais
+     *                       (ex.: 4xx) contam como sucesso
+     */
+    public <T> Mono<T> proteger(Mono<T> operacao, Predicate<Throwable> contaComoFalha) {
+        return Mono.defer(() -> {
+            if (!permitirChamada()) {
+                return Mono.error(new CircuitBreakerOpenException("Circuito aberto para " + nome));
+            }
+            long inicio = relogio.getAsLong();
+            return operacao
+                    .doOnSuccess(valor -> registrarResultado(false, relogio.getAsLong() - inicio))
+                    .doOnError(erro -> registrarResultado(contaComoFalha.test(erro), relogio.getAsLong() - inicio))
+                    .doOnCancel(this::liberarTeste);
+        });
+    }
+
+    public synchronized boolean permitirChamada() {
+        if (estado == Estado.ABERTO && relogio.getAsLong() - abertoDesde >= configuracao.duracaoAberto().toNanos()) {
+            transicionar(Estado.SEMI_ABERTO, "tempo de abertura expirado");
+        }
+
+        if (estado == Estado.ABERTO
+                || (estado == Estado.SEMI_ABERTO && testesLiberados >= configuracao.chamadasSemiAberto())) {
+            chamadasRejeitadas++;
+            return false;
+        }
+
+        if (estado == Estado.SEMI_ABERTO) {
+            testesLiberados++;
+        }
+        chamadasPermitidas++;
+        return true;
+    }
+
+    public synchronized void registrarResultado(boolean falha, long duracaoNanos) {
+        boolean lenta = duracaoNanos >= configuracao.chamadaLenta().toNanos();
+
+        if (estado == Estado.SEMI_ABERTO) {
+            registrarTeste(falha || lenta, falha ? "falha" : "chamada lenta");
+            return;
+        }
+        if (estado == Estado.ABERTO) {
+            return;
+        }
+
+        adicionarNaJanela(falha, lenta);
+        avaliarAbertura();
+    }
+
+    public synchronized boolean isAberto() {
+        return estado == Estado.ABERTO
+                && relogio.getAsLong() - abertoDesde < configuracao.duracaoAberto().toNanos();
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    private synchronized void liberarTeste() {
+        if (estado == Estado.SEMI_ABERTO && testesLiberados > testesBemSucedidos) {
+            testesLiberados--;
+        }
+    }
+
+    private void registrarTeste(boolean malSucedido, String motivo) {
+        if (malSucedido) {
+            transicionar(Estado.ABERTO, motivo + " em chamada de teste");
+            return;
+        }
+        testesBemSucedidos++;
+        if (testesBemSucedidos >= configuracao.chamadasSemiAberto()) {
+            transicionar(Estado.FECHADO, testesBemSucedidos + " chamadas de teste bem-sucedidas");
+        }
+    }
+
+    private void adicionarNaJanela(boolean falha, boolean lenta) {
+        if (chamadasNaJanela == falhas.length) {
+            falhasNaJanela -= falhas[posicao] ? 1 : 0;
+            lentasNaJanela -= lentas[posicao] ? 1 : 0;
+        } else {
+            chamadasNaJanela++;
+        }
+        falhas[posicao] = falha;
+        lentas[posicao] = lenta;
+        falhasNaJanela += falha ? 1 : 0;
+        lentasNaJanela += lenta ? 1 : 0;
+        posicao = (posicao + 1) % falhas.length;
+    }
+
+    private void avaliarAbertura() {
+        if (chamadasNaJanela < configuracao.minimoChamadas()) {
+            return;
+        }
+        double taxaFalhas = percentual(falhasNaJanela);
+        double taxaLentas = percentual(lentasNaJanela);
+        if (taxaFalhas >= configuracao.limiarFalhasPercentual()) {
+            transicionar(Estado.ABERTO, String.format("taxa de falhas %.0f%%", taxaFalhas));
+        } else if (taxaLentas >= configuracao.limiarLentasPercentual()) {
+            transicionar(Estado.ABERTO, String.format("taxa de chamadas lentas %.0f%%", taxaLentas));
+        }
+    }
+
+    private double percentual(int quantidade) {
+        return chamadasNaJanela == 0 ? 0 : quantidade * 100.0 / chamadasNaJanela;
+    }
+
+    private void transicionar(Estado novo, String motivo) {
+        Estado anterior = estado;
+        estado = novo;
+        testesLiberados = 0;
+        testesBemSucedidos = 0;
+        if (novo == Estado.ABERTO) {
+            abertoDesde = relogio.getAsLong();
+        }
+        if (novo == Estado.FECHADO) {
+            limparJanela();
+        }
+
+        totalTransicoes++;
+        transicoes.addFirst(new TransicaoCircuitoDTO(Instant.now(), anterior.name(), novo.name(), motivo));
+        if (transicoes.size() > MAX_TRANSICOES_REGISTRADAS) {
+            transicoes.removeLast();
+        }
+        logger.warning("Circuit breaker " + nome + ": " + anterior + " -> " + novo + " (" + motivo + ")");
+    }
+
+    private void limparJanela() {
+        posicao = 0;
+        chamadasNaJanela = 0;
+        falhasNaJanela = 0;
+        lentasNaJanela = 0;
+    }
+
+    public synchronized CircuitBreakerEstatisticasDTO obterEstatisticas() {
+        return new CircuitBreakerEstatisticasDTO(
+                nome,
+                estado.name(),
+                chamadasNaJanela,
+                percentual(falhasNaJanela),
+                percentual(lentasNaJanela),
+                chamadasPermitidas,
+                chamadasRejeitadas,
+                totalTransicoes,
+                new ArrayList<>(transicoes)
+        );
+    }
+}
@@ -28,22 +28,88 @@ public class DistanceCalculator {
             return null;
         }
         
-        double lat1Rad = Math.toRadians(lat1.doubleValue());
-        double lon1Rad = Math.toRadians(lon1.doubleValue());
-        double lat2Rad = Math.toRadians(lat2.doubleValue());
-        double lon2Rad = Math.toRadians(lon2.doubleValue());
+        double distance = haversineKm(lat1.doubleValue(), lon1.doubleValue(),
+                                       lat2.doubleValue(), lon2.doubleValue());
         
-        double deltaLat = lat2Rad - lat1Rad;
-        double deltaLon = lon2Rad - lon1Rad;
+        return BigDecimal.valueOf(distance).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Versão primitiva de {@link #calculateDistance}, sem arredondamento, para laços sobre muitos pontos
+     * 
+     * @return Distância em quilômetros
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Rad = Math.toRadians(lat1);
+        double lat2Rad = Math.toRadians(lat2);
         
-        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
-                   Math.cos(lat1Rad) * Math.cos(lat2Rad) *
-                   Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
+        double sinDeltaLat = Math.sin((lat2Rad - lat1Rad) / 2);
+        double sinDeltaLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
         
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = EARTH_RADIUS_KM * c;
+        double a = sinDeltaLat * sinDeltaLat + Math.cos(lat1Rad) * Math.cos(lat2Rad) * sinDeltaLon * sinDeltaLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
+    
+    /**
+     * Aproximação equirretangular: trata o trecho como plano, com a longitude escalada pelo cosseno da
+     * latitude média. Custa um cosseno e uma raiz, contra quatro funções trigonométricas do Haversine.
+     * 
+     * <p>Serve para distâncias de escala urbana. Até 50 km e latitudes de ±60° o erro relativo ao
+     * Haversine fica abaixo de 0,1% (menos de 50 m); até 10 km fica abaixo de 0,02% (menos de 2 m).
+     * Não usar para trechos que cruzam o antimeridiano.
+     * 
+     * @return Distância aproximada em quilômetros
+     */
+    public static double equirectangularKm(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+    }
+    
+    /**
+     * Haversine de uma origem para os {@code quantidade} primeiros destinos, escrevendo em {@code distanciasKm}.
+     * Os termos da origem são calculados uma vez só.
+     */
+    public static void haversineKm(double origemLat, double origemLon,
+                                   double[] latitudes, double[] longitudes, double[] distanciasKm, int quantidade) {
+        verificarLote(latitudes, longitudes, distanciasKm, quantidade);
+        double origemLatRad = Math.toRadians(origemLat);
+        double cosOrigem = Math.cos(origemLatRad);
+        double origemLonRad = Math.toRadians(origemLon);
         
-        return BigDecimal.valueOf(distance).setScale(2, RoundingMode.HALF_UP);
+        for (int i = 0; i < quantidade; i++) {
+            double latRad = Math.toRadians(latitudes[i]);
+            double sinDeltaLat = Math.sin((latRad - origemLatRad) / 2);
+            double sinDeltaLon = Math.sin((Math.toRadians(longitudes[i]) - origemLonRad) / 2);
+            double a = sinDeltaLat * sinDeltaLat + cosOrigem * Math.cos(latRad) * sinDeltaLon * sinDeltaLon;
+            distanciasKm[i] = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+    
+    /**
+     * Aproximação equirretangular de uma origem para os {@code quantidade} primeiros destinos. Usa o cosseno
+     * da latitude da origem para todos, então o laço só tem multiplicações, somas e raiz, sem desvios, e o
+     * JIT consegue vetorizá-lo. Isso soma ao erro de {@link #equirectangularKm} um termo proporcional à
+     * diferença de latitude; até 10 km da origem e latitudes de ±60° o erro continua abaixo de 0,2%.
+     */
+    public static void equirectangularKm(double origemLat, double origemLon,
+                                         double[] latitudes, double[] longitudes, double[] distanciasKm, int quantidade) {
+        verificarLote(latitudes, longitudes, distanciasKm, quantidade);
+        double escalaLon = Math.toRadians(1) * Math.cos(Math.toRadians(origemLat));
+        double escalaLat = Math.toRadians(1);
+        
+        for (int i = 0; i < quantidade; i++) {
+            double x = (longitudes[i] - origemLon) * escalaLon;
+            double y = (latitudes[i] - origemLat) * escalaLat;
+            distanciasKm[i] = EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        }
+    }
+    
+    private static void verificarLote(double[] latitudes, double[] longitudes, double[] distanciasKm, int quantidade) {
+        if (quantidade < 0 || quantidade > latitudes.length || quantidade > longitudes.length
+                || quantidade > distanciasKm.length) {
+            throw new IllegalArgumentException("Quantidade maior que os arrays informados: " + quantidade);
+        }
     }
     
     /**
@@ -0,0 +1,35 @@
+package com.siseg.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.util.retry.Retry;
+
+/**
+ * Política de retry compartilhada pelas integrações HTTP externas.
+ */
+public final class FalhasTransitorias {
+
+    private FalhasTransitorias() {
+    }
+
+    /**
+     * Repete apenas falhas transitórias (timeout, erro de conexão, 5xx) com backoff exponencial.
+     * Erros 4xx e demais exceções são propagados na primeira ocorrência.
+     */
+    public static Retry retentar(int tentativasExtras, Duration atrasoInicial) {
+        return Retry.backoff(tentativasExtras, atrasoInicial)
+                .filter(FalhasTransitorias::isTransitoria)
+                .onRetryExhaustedThrow((spec, sinal) -> sinal.failure());
+    }
+
+    public static boolean isTransitoria(Throwable erro) {
+        if (erro instanceof WebClientResponseException e) {
+            return !e.getStatusCode().is4xxClientError();
+        }
+        return erro instanceof WebClientException || erro instanceof TimeoutException;
+    }
+}
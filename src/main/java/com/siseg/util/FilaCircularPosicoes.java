@@ -0,0 +1,131 @@
+package com.siseg.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fila circular limitada e sem locks de posições GPS, com vários produtores e um único consumidor. Os
+ * campos ficam em arrays primitivos pré-alocados, então publicar e consumir não criam objetos.
+ *
+ * <p>O produtor reserva de uma vez as posições do lote avançando a cauda com CAS, escreve os campos e
+ * marca cada posição com a sua sequência; o consumidor só lê uma posição depois de ver a marca, e libera
+ * o espaço avançando a cabeça ao fim de cada rodada. Um lote que não cabe é recusado inteiro.
+ */
+public final class FilaCircularPosicoes {
+
+    /**
+     * Recebe as posições na ordem em que foram publicadas. {@code pedidoId} é 0 quando o entregador não
+     * tinha pedido em entrega.
+     */
+    @FunctionalInterface
+    public interface ConsumidorPosicao {
+        void aceitar(long entregadorId, long pedidoId, long instanteMillis, double latitude, double longitude);
+    }
+
+    private final int capacidade;
+    private final int mascara;
+    private final long[] entregadores;
+    private final long[] pedidos;
+    private final long[] instantes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Sequência gravada em cada posição; o consumidor espera a sequência que vai ler
+    private final AtomicLongArray publicadas;
+
+    private final AtomicLong cauda = new AtomicLong();
+    private volatile long cabeca;
+
+    /**
+     * @param capacidade arredondada para a próxima potência de 2
+     */
+    public FilaCircularPosicoes(int capacidade) {
+        if (capacidade < 1 || capacidade > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        this.capacidade = Integer.bitCount(capacidade) == 1 ? capacidade : Integer.highestOneBit(capacidade) << 1;
+        this.mascara = this.capacidade - 1;
+        this.entregadores = new long[this.capacidade];
+        this.pedidos = new long[this.capacidade];
+        this.instantes = new long[this.capacidade];
+        this.latitudes = new double[this.capacidade];
+        this.longitudes = new double[this.capacidade];
+        this.publicadas = new AtomicLongArray(this.capacidade);
+        for (int i = 0; i < this.capacidade; i++) {
+            publicadas.set(i, -1);
+        }
+    }
+
+    /**
+     * Publica {@code quantidade} posições do mesmo entregador, todas ou nenhuma.
+     *
+     * @return {@code false} se não houver espaço para o lote inteiro
+     */
+    public boolean publicar(long entregadorId, long pedidoId, long[] instantesMillis, double[] latitudes,
+                            double[] longitudes, int quantidade) {
+        if (quantidade <= 0) {
+            return true;
+        }
+        if (quantidade > capacidade) {
+            return false;
+        }
+        long inicio;
+        do {
+            inicio = cauda.get();
+            if (inicio + quantidade - cabeca > capacidade) {
+                return false;
+            }
+        } while (!cauda.compareAndSet(inicio, inicio + quantidade));
+
+        for (int i = 0; i < quantidade; i++) {
+            long sequencia = inicio + i;
+            int posicao = (int) (sequencia & mascara);
+            this.entregadores[posicao] = entregadorId;
+            this.pedidos[posicao] = pedidoId;
+            this.instantes[posicao] = instantesMillis[i];
+            this.latitudes[posicao] = latitudes[i];
+            this.longitudes[posicao] = longitudes[i];
+            publicadas.lazySet(posicao, sequencia);
+        }
+        return true;
+    }
+
+    /**
+     * Entrega ao consumidor até {@code maximo} posições já publicadas. Só pode ser chamado por uma thread
+     * de cada vez.
+     *
+     * @return quantas posições foram consumidas
+     */
+    public int consumir(ConsumidorPosicao consumidor, int maximo) {
+        long sequencia = cabeca;
+        int lidas = 0;
+        try {
+            while (lidas < maximo) {
+                int posicao = (int) (sequencia & mascara);
+                if (publicadas.get(posicao) != sequencia) {
+                    break;
+                }
+                long entregadorId = entregadores[posicao];
+                long pedidoId = pedidos[posicao];
+                long instante = instantes[posicao];
+                double latitude = latitudes[posicao];
+                double longitude = longitudes[posicao];
+                // A sequência avança antes de entregar ao consumidor, e o finally publica a cabeça já depois
+                // desta posição: uma exceção do consumidor não a repete. O espaço só é liberado no finally.
+                sequencia++;
+                lidas++;
+                consumidor.aceitar(entregadorId, pedidoId, instante, latitude, longitude);
+            }
+        } finally {
+            cabeca = sequencia;
+        }
+        return lidas;
+    }
+
+    public int capacidade() {
+        return capacidade;
+    }
+
+    public int tamanho() {
+        return (int) Math.max(0, cauda.get() - cabeca);
+    }
+}
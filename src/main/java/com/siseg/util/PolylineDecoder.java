@@ -6,55 +6,213 @@ import java.util.List;
 
 import com.siseg.dto.geocoding.Coordinates;
 
+/**
+ * Codificação de polilinhas no formato do Google (usado pelo OSRM com {@code geometries=polyline} e
+ * {@code polyline6}). Cada coordenada é um inteiro em 10^-precisão graus, gravado como diferença em
+ * relação ao ponto anterior em grupos de 5 bits.
+ *
+ * <p>Os métodos primitivos decodificam direto para arrays ou para um {@link RouteBuffer}, sem criar
+ * objetos por ponto; {@link #decode(String)} continua disponível como adaptador para {@link Coordinates}.
+ * Só as precisões {@value #PRECISAO_POLYLINE} e {@value #PRECISAO_POLYLINE6} são aceitas.
+ */
 public class PolylineDecoder {
-    
+
+    public static final int PRECISAO_POLYLINE = 5;
+    public static final int PRECISAO_POLYLINE6 = 6;
+
+    /**
+     * Recebe cada ponto decodificado, já acumulado, na unidade da precisão da polilinha.
+     */
+    @FunctionalInterface
+    private interface ConsumidorPonto {
+        void aceitar(int indice, int latitude, int longitude);
+    }
+
     private PolylineDecoder() {
         throw new UnsupportedOperationException("Utility class");
     }
-    
+
     public static List<Coordinates> decode(String encoded) {
+        return decode(encoded, PRECISAO_POLYLINE);
+    }
+
+    /**
+     * Decodifica para {@link Coordinates}. Os valores são criados com {@link BigDecimal#valueOf(double)},
+     * e por isso têm a menor escala que representa cada coordenada (38.5, e não 38.50000).
+     */
+    public static List<Coordinates> decode(String encoded, int precisao) {
+        double fator = fator(precisao);
         if (encoded == null || encoded.isEmpty()) {
             return new ArrayList<>();
         }
-        
-        List<Coordinates> coordinates = new ArrayList<>();
+
+        List<Coordinates> coordinates = new ArrayList<>(contarPontos(encoded));
+        percorrer(encoded, (indice, lat, lon) ->
+                coordinates.add(new Coordinates(BigDecimal.valueOf(lat / fator), BigDecimal.valueOf(lon / fator))));
+        return coordinates;
+    }
+
+    /**
+     * Quantidade de pontos codificados, contando os bytes que terminam um valor (dois por ponto).
+     */
+    public static int contarPontos(CharSequence encoded) {
+        int valores = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            if (encoded.charAt(i) - 63 < 0x20) {
+                valores++;
+            }
+        }
+        return valores / 2;
+    }
+
+    /**
+     * Decodifica em inteiros na unidade da precisão da polilinha (10^-5 ou 10^-6 graus) e devolve quantos
+     * pontos foram escritos.
+     *
+     * @throws IllegalArgumentException se os arrays não couberem todos os pontos ou a polilinha estiver truncada
+     */
+    public static int decodeInteiros(CharSequence encoded, int[] latitudes, int[] longitudes) {
+        return percorrer(encoded, (indice, lat, lon) -> {
+            verificarCapacidade(indice, latitudes.length, longitudes.length);
+            latitudes[indice] = lat;
+            longitudes[indice] = lon;
+        });
+    }
+
+    /**
+     * Decodifica em graus nos arrays informados e devolve quantos pontos foram escritos.
+     *
+     * @throws IllegalArgumentException se os arrays não couberem todos os pontos ou a polilinha estiver truncada
+     */
+    public static int decode(CharSequence encoded, int precisao, double[] latitudes, double[] longitudes) {
+        double fator = fator(precisao);
+        return percorrer(encoded, (indice, lat, lon) -> {
+            verificarCapacidade(indice, latitudes.length, longitudes.length);
+            latitudes[indice] = lat / fator;
+            longitudes[indice] = lon / fator;
+        });
+    }
+
+    /**
+     * Decodifica em graus no buffer, que é limpo antes e cresce se necessário. Devolve o próprio buffer.
+     */
+    public static RouteBuffer decode(CharSequence encoded, int precisao, RouteBuffer buffer) {
+        double fator = fator(precisao);
+        buffer.limpar();
+        if (encoded == null || encoded.isEmpty()) {
+            return buffer;
+        }
+        percorrer(encoded, (indice, lat, lon) -> buffer.adicionar(lat / fator, lon / fator));
+        return buffer;
+    }
+
+    public static String encode(List<Coordinates> coordinates, int precisao) {
+        double fator = fator(precisao);
+        StringBuilder saida = new StringBuilder(coordinates.size() * 8);
+        int latAnterior = 0;
+        int lonAnterior = 0;
+        for (Coordinates coordenada : coordinates) {
+            int lat = (int) Math.round(coordenada.getLatitude().doubleValue() * fator);
+            int lon = (int) Math.round(coordenada.getLongitude().doubleValue() * fator);
+            escreverValor(saida, lat - latAnterior);
+            escreverValor(saida, lon - lonAnterior);
+            latAnterior = lat;
+            lonAnterior = lon;
+        }
+        return saida.toString();
+    }
+
+    /**
+     * Codifica os pontos de {@code inicio} (inclusive) a {@code fim} (exclusive).
+     */
+    public static String encode(double[] latitudes, double[] longitudes, int inicio, int fim, int precisao) {
+        double fator = fator(precisao);
+        StringBuilder saida = new StringBuilder(Math.max(0, fim - inicio) * 8);
+        int latAnterior = 0;
+        int lonAnterior = 0;
+        for (int i = inicio; i < fim; i++) {
+            int lat = (int) Math.round(latitudes[i] * fator);
+            int lon = (int) Math.round(longitudes[i] * fator);
+            escreverValor(saida, lat - latAnterior);
+            escreverValor(saida, lon - lonAnterior);
+            latAnterior = lat;
+            lonAnterior = lon;
+        }
+        return saida.toString();
+    }
+
+    public static String encode(RouteBuffer buffer, int precisao) {
+        return encode(buffer.latitudes(), buffer.longitudes(), 0, buffer.tamanho(), precisao);
+    }
+
+    /**
+     * Laço único de decodificação: lê os pares de diferenças, acumula e entrega cada ponto ao consumidor.
+     * Devolve quantos pontos foram lidos.
+     */
+    private static int percorrer(CharSequence encoded, ConsumidorPonto consumidor) {
         int index = 0;
+        int total = 0;
         int lat = 0;
         int lon = 0;
-        
-        while (index < encoded.length()) {
-            int b;
-            int shift = 0;
-            int result = 0;
-            
-            do {
-                b = encoded.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            
-            int dlat = ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
-            lat += dlat;
-            
-            shift = 0;
-            result = 0;
-            
-            do {
-                b = encoded.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            
-            int dlon = ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
-            lon += dlon;
-            
-            BigDecimal latitude = BigDecimal.valueOf(lat / 1e5);
-            BigDecimal longitude = BigDecimal.valueOf(lon / 1e5);
-            
-            coordinates.add(new Coordinates(latitude, longitude));
-        }
-        
-        return coordinates;
+        int tamanho = encoded.length();
+
+        while (index < tamanho) {
+            long dlat = lerValor(encoded, index);
+            index = (int) (dlat >>> 32);
+            long dlon = lerValor(encoded, index);
+            index = (int) (dlon >>> 32);
+
+            lat += (int) dlat;
+            lon += (int) dlon;
+            consumidor.aceitar(total++, lat, lon);
+        }
+        return total;
     }
-}
 
+    private static void verificarCapacidade(int indice, int tamanhoLatitudes, int tamanhoLongitudes) {
+        if (indice >= tamanhoLatitudes || indice >= tamanhoLongitudes) {
+            throw new IllegalArgumentException("Buffer insuficiente para a polilinha");
+        }
+    }
+
+    private static double fator(int precisao) {
+        if (precisao == PRECISAO_POLYLINE) {
+            return 1e5;
+        }
+        if (precisao == PRECISAO_POLYLINE6) {
+            return 1e6;
+        }
+        throw new IllegalArgumentException("Precisão de polilinha não suportada: " + precisao);
+    }
+
+    /**
+     * Lê um valor a partir de {@code index}: os 32 bits baixos trazem o valor e os altos a posição seguinte.
+     */
+    private static long lerValor(CharSequence encoded, int index) {
+        int tamanho = encoded.length();
+        int b;
+        int shift = 0;
+        int result = 0;
+
+        do {
+            if (index >= tamanho || shift > 30) {
+                throw new IllegalArgumentException("Polilinha truncada ou inválida na posição " + index);
+            }
+            b = encoded.charAt(index++) - 63;
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+
+        int valor = ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
+        return ((long) index << 32) | (valor & 0xFFFFFFFFL);
+    }
+
+    private static void escreverValor(StringBuilder saida, int valor) {
+        int restante = valor < 0 ? ~(valor << 1) : (valor << 1);
+        while (restante >= 0x20) {
+            saida.append((char) ((0x20 | (restante & 0x1f)) + 63));
+            restante >>>= 5;
+        }
+        saida.append((char) (restante + 63));
+    }
+}
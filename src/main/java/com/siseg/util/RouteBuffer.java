@@ -0,0 +1,68 @@
+package com.siseg.util;
+
+import java.util.Arrays;
+
+/**
+ * Sequência reutilizável de coordenadas em arrays primitivos. Os arrays crescem quando necessário e são
+ * mantidos entre usos; {@link #limpar()} apenas zera o tamanho, então decodificar várias rotas no mesmo
+ * buffer não aloca depois que ele atinge o tamanho da maior delas.
+ */
+public final class RouteBuffer {
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private int tamanho;
+
+    public RouteBuffer() {
+        this(256);
+    }
+
+    public RouteBuffer(int capacidadeInicial) {
+        int capacidade = Math.max(1, capacidadeInicial);
+        this.latitudes = new double[capacidade];
+        this.longitudes = new double[capacidade];
+    }
+
+    public void limpar() {
+        tamanho = 0;
+    }
+
+    public void adicionar(double latitude, double longitude) {
+        if (tamanho == latitudes.length) {
+            garantirCapacidade(tamanho + 1);
+        }
+        latitudes[tamanho] = latitude;
+        longitudes[tamanho] = longitude;
+        tamanho++;
+    }
+
+    public void garantirCapacidade(int capacidade) {
+        if (capacidade > latitudes.length) {
+            int novaCapacidade = Math.max(capacidade, latitudes.length * 2);
+            latitudes = Arrays.copyOf(latitudes, novaCapacidade);
+            longitudes = Arrays.copyOf(longitudes, novaCapacidade);
+        }
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public double latitude(int indice) {
+        return latitudes[indice];
+    }
+
+    public double longitude(int indice) {
+        return longitudes[indice];
+    }
+
+    /** Array interno de latitudes; só as primeiras {@link #tamanho()} posições são válidas. */
+    public double[] latitudes() {
+        return latitudes;
+    }
+
+    /** Array interno de longitudes; só as primeiras {@link #tamanho()} posições são válidas. */
+    public double[] longitudes() {
+        return longitudes;
+    }
+}
@@ -0,0 +1,145 @@
+package com.siseg.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * Formato binário de um segmento do histórico de posições: pontos com instante (ms) e coordenada em
+ * micrograus (1e-6°), cada um gravado como diferença em relação ao anterior em varint com zigzag. Com
+ * pontos a cada poucos segundos, um ponto costuma custar de 4 a 7 bytes.
+ *
+ * <pre>
+ * [versão: 1 byte] [quantidade: varint] ([Δinstante: varint] [Δlat: zigzag varint] [Δlon: zigzag varint])*
+ * </pre>
+ *
+ * O primeiro instante é a diferença em relação a zero, então o segmento não depende de nenhuma outra
+ * coluna para ser decodificado. Os instantes devem ser não decrescentes.
+ */
+public final class SegmentoPosicoesCodec {
+
+    public static final byte VERSAO = 1;
+
+    private SegmentoPosicoesCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Codifica os pontos de {@code inicio} (inclusive) a {@code fim} (exclusive).
+     *
+     * @throws IllegalArgumentException se os instantes não estiverem em ordem
+     */
+    public static byte[] codificar(long[] instantes, int[] latitudesMicro, int[] longitudesMicro, int inicio, int fim) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(16 + (fim - inicio) * 7);
+        saida.write(VERSAO);
+        escreverVarint(saida, fim - inicio);
+
+        long instanteAnterior = 0;
+        int latAnterior = 0;
+        int lonAnterior = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (instantes[i] < instanteAnterior) {
+                throw new IllegalArgumentException("Instantes do segmento fora de ordem na posição " + i);
+            }
+            escreverVarint(saida, instantes[i] - instanteAnterior);
+            escreverVarint(saida, zigzag(latitudesMicro[i] - latAnterior));
+            escreverVarint(saida, zigzag(longitudesMicro[i] - lonAnterior));
+            instanteAnterior = instantes[i];
+            latAnterior = latitudesMicro[i];
+            lonAnterior = longitudesMicro[i];
+        }
+        return saida.toByteArray();
+    }
+
+    public static int contar(byte[] dados) {
+        return new Leitor(dados).total;
+    }
+
+    public static int paraMicrograus(double graus) {
+        return (int) Math.round(graus * 1e6);
+    }
+
+    private static long zigzag(int valor) {
+        return ((long) valor << 1) ^ (valor >> 31);
+    }
+
+    private static void escreverVarint(ByteArrayOutputStream saida, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+
+    /**
+     * Cursor de leitura sequencial sobre um segmento codificado, sem criar objetos por ponto.
+     */
+    public static final class Leitor {
+
+        private final byte[] dados;
+        private final int total;
+        private int posicao;
+        private int lidos;
+        private long instanteMillis;
+        private int latitudeMicro;
+        private int longitudeMicro;
+
+        public Leitor(byte[] dados) {
+            if (dados == null || dados.length == 0 || dados[0] != VERSAO) {
+                throw new IllegalArgumentException("Segmento de posições em formato desconhecido");
+            }
+            this.dados = dados;
+            this.posicao = 1;
+            this.total = (int) lerVarint();
+        }
+
+        public int total() {
+            return total;
+        }
+
+        public boolean temProximo() {
+            return lidos < total;
+        }
+
+        /** Avança para o próximo ponto, disponível em {@link #instanteMillis()}, {@link #latitude()} e {@link #longitude()}. */
+        public void avancar() {
+            if (!temProximo()) {
+                throw new NoSuchElementException();
+            }
+            instanteMillis += lerVarint();
+            latitudeMicro += dezigzag(lerVarint());
+            longitudeMicro += dezigzag(lerVarint());
+            lidos++;
+        }
+
+        public long instanteMillis() {
+            return instanteMillis;
+        }
+
+        public double latitude() {
+            return latitudeMicro / 1e6;
+        }
+
+        public double longitude() {
+            return longitudeMicro / 1e6;
+        }
+
+        private long lerVarint() {
+            long resultado = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                if (posicao >= dados.length || deslocamento > 63) {
+                    throw new IllegalArgumentException("Segmento de posições truncado ou corrompido");
+                }
+                b = dados[posicao++];
+                resultado |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while ((b & 0x80) != 0);
+            return resultado;
+        }
+
+        private static int dezigzag(long valor) {
+            return (int) (valor >>> 1) ^ -(int) (valor & 1);
+        }
+    }
+}
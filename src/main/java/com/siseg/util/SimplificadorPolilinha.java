@@ -0,0 +1,97 @@
+package com.siseg.util;
+
+import java.util.Arrays;
+
+/**
+ * Simplificação de polilinhas por Douglas–Peucker sobre arrays primitivos. Mantém o primeiro e o último
+ * ponto e, recursivamente, o ponto mais afastado do segmento entre dois pontos mantidos enquanto esse
+ * afastamento exceder a tolerância. A recursão usa uma pilha explícita, então rotas longas não estouram
+ * a pilha de chamadas.
+ *
+ * <p>As distâncias são calculadas numa projeção equirretangular local (em metros), precisa o bastante
+ * para as dimensões de uma rota urbana.
+ */
+public final class SimplificadorPolilinha {
+
+    private static final double METROS_POR_GRAU = 6_371_000.0 * Math.PI / 180;
+
+    private SimplificadorPolilinha() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Índices, em ordem crescente, dos pontos mantidos entre {@code inicio} e {@code fim} (inclusive).
+     * Com tolerância menor ou igual a zero todos os pontos do intervalo são mantidos.
+     */
+    public static int[] simplificar(double[] latitudes, double[] longitudes, int inicio, int fim, double toleranciaMetros) {
+        if (fim < inicio) {
+            return new int[0];
+        }
+        int quantidade = fim - inicio + 1;
+        if (toleranciaMetros <= 0 || quantidade <= 2) {
+            int[] todos = new int[quantidade];
+            Arrays.setAll(todos, i -> inicio + i);
+            return todos;
+        }
+
+        double cosLat = Math.cos(Math.toRadians(latitudes[inicio]));
+        double tolerancia2 = toleranciaMetros * toleranciaMetros;
+        boolean[] manter = new boolean[quantidade];
+        manter[0] = true;
+        manter[quantidade - 1] = true;
+        int mantidos = 2;
+
+        int[] pilha = new int[64];
+        int topo = 0;
+        pilha[topo++] = inicio;
+        pilha[topo++] = fim;
+
+        while (topo > 0) {
+            int b = pilha[--topo];
+            int a = pilha[--topo];
+            if (b - a < 2) {
+                continue;
+            }
+
+            double segX = (longitudes[b] - longitudes[a]) * cosLat * METROS_POR_GRAU;
+            double segY = (latitudes[b] - latitudes[a]) * METROS_POR_GRAU;
+            double comprimento2 = segX * segX + segY * segY;
+
+            int maisDistante = -1;
+            double maiorDistancia2 = tolerancia2;
+            for (int i = a + 1; i < b; i++) {
+                double pontoX = (longitudes[i] - longitudes[a]) * cosLat * METROS_POR_GRAU;
+                double pontoY = (latitudes[i] - latitudes[a]) * METROS_POR_GRAU;
+                double t = comprimento2 == 0 ? 0 : Math.max(0, Math.min(1, (pontoX * segX + pontoY * segY) / comprimento2));
+                double dx = pontoX - t * segX;
+                double dy = pontoY - t * segY;
+                double distancia2 = dx * dx + dy * dy;
+                if (distancia2 > maiorDistancia2) {
+                    maiorDistancia2 = distancia2;
+                    maisDistante = i;
+                }
+            }
+
+            if (maisDistante >= 0) {
+                manter[maisDistante - inicio] = true;
+                mantidos++;
+                if (topo + 4 > pilha.length) {
+                    pilha = Arrays.copyOf(pilha, pilha.length * 2);
+                }
+                pilha[topo++] = a;
+                pilha[topo++] = maisDistante;
+                pilha[topo++] = maisDistante;
+                pilha[topo++] = b;
+            }
+        }
+
+        int[] indices = new int[mantidos];
+        int posicao = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (manter[i]) {
+                indices[posicao++] = inicio + i;
+            }
+        }
+        return indices;
+    }
+}
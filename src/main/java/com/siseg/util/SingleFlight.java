@@ -0,0 +1,96 @@
+package com.siseg.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.siseg.dto.geocoding.SingleFlightEstatisticasDTO;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalescência de requisições concorrentes: enquanto uma chamada para uma chave está em andamento,
+ * chamadas concorrentes com a mesma chave aguardam e recebem o mesmo resultado em vez de repetir
+ * a operação. Nada é guardado após a conclusão; para reaproveitar resultados use um cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final String nome;
+    private final ConcurrentMap<K, CompletableFuture<V>> emAndamento = new ConcurrentHashMap<>();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+
+    public SingleFlight(String nome) {
+        this.nome = nome;
+    }
+
+    public V executar(K chave, Supplier<V> operacao) {
+        CompletableFuture<V> nova = new CompletableFuture<>();
+        CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, nova);
+
+        if (existente != null) {
+            compartilhadas.increment();
+            return aguardar(existente);
+        }
+
+        execucoes.increment();
+        try {
+            V resultado = operacao.get();
+            nova.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    /**
+     * Versão reativa de {@link #executar}: o primeiro assinante para a chave dispara a operação e os
+     * concorrentes recebem o mesmo resultado. Um {@link Mono} vazio é compartilhado como vazio. O
+     * cancelamento de um assinante não cancela a operação, que pode estar servindo outros.
+     */
+    public Mono<V> executarAsync(K chave, Supplier<Mono<V>> operacao) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> nova = new CompletableFuture<>();
+            CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, nova);
+
+            if (existente != null) {
+                compartilhadas.increment();
+                return Mono.fromFuture(existente, true);
+            }
+
+            execucoes.increment();
+            Mono<V> execucao;
+            try {
+                execucao = operacao.get();
+            } catch (RuntimeException e) {
+                emAndamento.remove(chave, nova);
+                return Mono.error(e);
+            }
+
+            execucao.doFinally(sinal -> emAndamento.remove(chave, nova))
+                    .subscribe(nova::complete, nova::completeExceptionally, () -> nova.complete(null));
+            return Mono.fromFuture(nova, true);
+        });
+    }
+
+    private V aguardar(CompletableFuture<V> existente) {
+        try {
+            return existente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    public SingleFlightEstatisticasDTO obterEstatisticas() {
+        return new SingleFlightEstatisticasDTO(nome, execucoes.sum(), compartilhadas.sum(), emAndamento.size());
+    }
+}
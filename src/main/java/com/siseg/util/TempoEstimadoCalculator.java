@@ -1,11 +1,17 @@
 package com.siseg.util;
 
+import com.siseg.dto.geocoding.Coordinates;
 import com.siseg.dto.geocoding.ResultadoCalculo;
+import com.siseg.dto.geocoding.RouteResult;
 import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.service.GeocodingService;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 @Component
@@ -27,15 +33,111 @@ public class TempoEstimadoCalculator {
             return new ResultadoCalculo(null, VehicleConstants.TEMPO_PADRAO_ENTREGA_MINUTOS, false);
         }
         
-        var resultadoOSRM = calcularViaOSRM(origemLat, origemLon, destinoLat, destinoLon, tipoVeiculo);
-        if (resultadoOSRM != null) {
-            return resultadoOSRM;
+        if (!geocodingService.isRoteamentoIndisponivel()) {
+            var resultadoOSRM = calcularViaOSRM(origemLat, origemLon, destinoLat, destinoLon, tipoVeiculo);
+            if (resultadoOSRM != null) {
+                return resultadoOSRM;
+            }
         }
         
         var resultadoHaversine = calcularViaHaversine(origemLat, origemLon, destinoLat, destinoLon, tipoVeiculo);
         return normalizarResultado(resultadoHaversine);
     }
     
+    /**
+     * Versão em lote de {@link #calculateDistanceAndTime}: uma origem para vários destinos com uma única
+     * consulta de matriz ao OSRM. Destinos sem resultado do OSRM são calculados juntos, numa única
+     * passada do Haversine em lote.
+     * O resultado segue a ordem de {@code destinos}.
+     */
+    public List<ResultadoCalculo> calculateDistanceAndTimeBatch(BigDecimal origemLat, BigDecimal origemLon,
+                                                                List<Coordinates> destinos,
+                                                                TipoVeiculo tipoVeiculo) {
+        List<Optional<RouteResult>> rotas = calcularMatrizViaOSRM(origemLat, origemLon, destinos, tipoVeiculo);
+        List<ResultadoCalculo> resultados = new ArrayList<>(destinos.size());
+        int[] pendentes = new int[destinos.size()];
+        int quantidadePendentes = 0;
+        
+        for (int i = 0; i < destinos.size(); i++) {
+            Coordinates destino = destinos.get(i);
+            BigDecimal destinoLat = destino != null ? destino.getLatitude() : null;
+            BigDecimal destinoLon = destino != null ? destino.getLongitude() : null;
+            
+            if (temCoordenadasInvalidas(origemLat, origemLon, destinoLat, destinoLon)) {
+                resultados.add(new ResultadoCalculo(null, VehicleConstants.TEMPO_PADRAO_ENTREGA_MINUTOS, false));
+            } else if (rotas.get(i).isPresent()) {
+                RouteResult rota = rotas.get(i).get();
+                resultados.add(new ResultadoCalculo(rota.getDistanciaKm(), rota.getTempoMinutos(), true));
+            } else {
+                resultados.add(null);
+                pendentes[quantidadePendentes++] = i;
+            }
+        }
+        
+        if (quantidadePendentes > 0) {
+            calcularViaHaversineEmLote(origemLat, origemLon, destinos, pendentes, quantidadePendentes, tipoVeiculo, resultados);
+        }
+        return resultados;
+    }
+    
+    /**
+     * Fallback do lote: as distâncias dos destinos sem resultado do OSRM saem de uma única chamada
+     * primitiva e só o resultado final vira {@link BigDecimal}.
+     */
+    private void calcularViaHaversineEmLote(BigDecimal origemLat, BigDecimal origemLon, List<Coordinates> destinos,
+                                            int[] pendentes, int quantidade, TipoVeiculo tipoVeiculo,
+                                            List<ResultadoCalculo> resultados) {
+        double[] latitudes = new double[quantidade];
+        double[] longitudes = new double[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            Coordinates destino = destinos.get(pendentes[i]);
+            latitudes[i] = destino.getLatitude().doubleValue();
+            longitudes[i] = destino.getLongitude().doubleValue();
+        }
+        
+        double[] distanciasKm = new double[quantidade];
+        DistanceCalculator.haversineKm(origemLat.doubleValue(), origemLon.doubleValue(),
+                latitudes, longitudes, distanciasKm, quantidade);
+        
+        String tipoVeiculoStr = tipoVeiculo != null ? tipoVeiculo.name() : null;
+        for (int i = 0; i < quantidade; i++) {
+            BigDecimal distanciaKm = BigDecimal.valueOf(distanciasKm[i]).setScale(2, RoundingMode.HALF_UP);
+            ResultadoCalculo resultado = distanciaKm.compareTo(BigDecimal.ZERO) > 0
+                    ? new ResultadoCalculo(distanciaKm, DistanceCalculator.estimateDeliveryTime(distanciaKm, tipoVeiculoStr), false)
+                    : null;
+            resultados.set(pendentes[i], normalizarResultado(resultado));
+        }
+        logger.fine("Distâncias calculadas via Haversine em lote: " + quantidade + " destinos");
+    }
+    
+    private List<Optional<RouteResult>> calcularMatrizViaOSRM(BigDecimal origemLat, BigDecimal origemLon,
+                                                             List<Coordinates> destinos, TipoVeiculo tipoVeiculo) {
+        String routeProfile = VehicleConstants.getOsrmProfile(tipoVeiculo);
+        
+        try {
+            if (geocodingService.isRoteamentoIndisponivel()) {
+                return semResultados(destinos.size());
+            }
+            List<Optional<RouteResult>> rotas = geocodingService.calculateRouteMatrix(origemLat, origemLon, destinos, routeProfile);
+            if (rotas != null && rotas.size() == destinos.size()) {
+                return rotas;
+            }
+            logger.warning("Matriz OSRM retornou tamanho inesperado, usando fallback Haversine");
+        } catch (Exception e) {
+            logger.warning("Erro ao calcular matriz via OSRM, usando fallback Haversine: " + e.getMessage());
+        }
+        
+        return semResultados(destinos.size());
+    }
+    
+    private List<Optional<RouteResult>> semResultados(int quantidade) {
+        List<Optional<RouteResult>> vazias = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            vazias.add(Optional.empty());
+        }
+        return vazias;
+    }
+    
     private boolean temCoordenadasInvalidas(BigDecimal origemLat, BigDecimal origemLon, 
                                            BigDecimal destinoLat, BigDecimal destinoLon) {
         return origemLat == null || origemLon == null || destinoLat == null || destinoLon == null;
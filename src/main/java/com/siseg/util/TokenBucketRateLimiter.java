@@ -0,0 +1,158 @@
+package com.siseg.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.siseg.dto.geocoding.RateLimiterEstatisticasDTO;
+import com.siseg.exception.RateLimitExceededException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Token bucket sem locks, implementado como GCRA (Generic Cell Rate Algorithm): o estado inteiro é
+ * um único "theoretical arrival time" atualizado por CAS. Uma permissão é concedida de imediato
+ * enquanto houver tokens no balde; caso contrário é reservada para o próximo slot livre, desde que
+ * a espera não ultrapasse {@code maxEspera} e a fila de espera não esteja cheia. Nenhuma thread dorme
+ * aqui: quem precisa esperar recebe um {@link Mono} temporizado pelo scheduler do Reactor.
+ */
+public class TokenBucketRateLimiter {
+
+    private final String nome;
+    private final long intervaloNanos;
+    private final int capacidade;
+    private final long toleranciaRajadaNanos;
+    private final long maxEsperaNanos;
+    private final int maxFila;
+    private final LongSupplier relogio;
+
+    private final AtomicLong chegadaTeorica;
+    private final AtomicInteger aguardando = new AtomicInteger();
+
+    private final LongAdder permissoesImediatas = new LongAdder();
+    private final LongAdder permissoesEnfileiradas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+
+    public TokenBucketRateLimiter(String nome, Duration intervalo, int capacidade, Duration maxEspera, int maxFila) {
+        this(nome, intervalo, capacidade, maxEspera, maxFila, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(String nome, Duration intervalo, int capacidade, Duration maxEspera, int maxFila,
+                           LongSupplier relogio) {
+        if (intervalo.isNegative() || capacidade < 1 || maxEspera.isNegative() || maxFila < 0) {
+            throw new IllegalArgumentException("Configuração inválida para rate limiter " + nome);
+        }
+        this.nome = nome;
+        this.intervaloNanos = intervalo.toNanos();
+        this.capacidade = capacidade;
+        this.toleranciaRajadaNanos = (capacidade - 1) * intervaloNanos;
+        this.maxEsperaNanos = maxEspera.toNanos();
+        this.maxFila = maxFila;
+        this.relogio = relogio;
+        this.chegadaTeorica = new AtomicLong(relogio.getAsLong());
+    }
+
+    /**
+     * Reserva uma permissão e devolve quantos nanossegundos o chamador deve aguardar antes de usá-la
+     * (0 quando imediata). Quando a espera é positiva o chamador passa a ocupar uma vaga na fila e
+     * deve chamar {@link #liberarFila()} ao terminar de esperar.
+     *
+     * @throws RateLimitExceededException se a espera excederia o máximo ou a fila estiver cheia
+     */
+    public long reservar() {
+        while (true) {
+            long agora = relogio.getAsLong();
+            long atual = chegadaTeorica.get();
+            long base = Math.max(atual, agora);
+            long espera = Math.max(0, base - toleranciaRajadaNanos - agora);
+
+            if (espera > maxEsperaNanos) {
+                rejeitadas.increment();
+                throw new RateLimitExceededException("Limite de requisições excedido para " + nome);
+            }
+
+            boolean enfileirada = espera > 0;
+            if (enfileirada && aguardando.incrementAndGet() > maxFila) {
+                aguardando.decrementAndGet();
+                rejeitadas.increment();
+                throw new RateLimitExceededException("Fila de espera cheia para " + nome);
+            }
+
+            if (chegadaTeorica.compareAndSet(atual, base + intervaloNanos)) {
+                if (enfileirada) {
+                    permissoesEnfileiradas.increment();
+                } else {
+                    permissoesImediatas.increment();
+                }
+                return espera;
+            }
+
+            if (enfileirada) {
+                aguardando.decrementAndGet();
+            }
+        }
+    }
+
+    public void liberarFila() {
+        aguardando.decrementAndGet();
+    }
+
+    /**
+     * Quantas permissões podem ser pedidas agora, uma atrás da outra, sem rejeição: os tokens livres no
+     * balde mais as reservas cuja espera (um intervalo a mais para cada uma) não passa de {@code maxEspera},
+     * limitadas às vagas livres na fila de espera. Serve para dimensionar o paralelismo de processamentos
+     * em lote que passam por aqui; com a configuração padrão (balde 1, espera máxima de um intervalo) são 2.
+     */
+    public int vagasDisponiveis() {
+        long agora = relogio.getAsLong();
+        long espera = Math.max(chegadaTeorica.get(), agora) - toleranciaRajadaNanos - agora;
+        if (espera > maxEsperaNanos) {
+            return 0;
+        }
+        if (intervaloNanos == 0) {
+            return Integer.MAX_VALUE;
+        }
+        long total = (maxEsperaNanos - espera) / intervaloNanos + 1;
+        long imediatas = espera <= 0 ? Math.min(total, -espera / intervaloNanos + 1) : 0;
+        long enfileiradas = Math.max(0, Math.min(total - imediatas, maxFila - aguardando.get()));
+        return (int) Math.min(Integer.MAX_VALUE, imediatas + enfileiradas);
+    }
+
+    /**
+     * Intervalo entre duas permissões: depois de uma rejeição, é quanto vale esperar antes de tentar de novo.
+     */
+    public Duration getIntervalo() {
+        return Duration.ofNanos(intervaloNanos);
+    }
+
+    /**
+     * Versão reativa de {@link #reservar()}: completa quando a permissão puder ser usada, sem bloquear
+     * a thread chamadora, ou falha com {@link RateLimitExceededException}.
+     */
+    public Mono<Void> aguardarPermissao() {
+        return Mono.defer(() -> {
+            long espera = reservar();
+            if (espera == 0) {
+                return Mono.empty();
+            }
+            return Mono.delay(Duration.ofNanos(espera))
+                    .doFinally(sinal -> liberarFila())
+                    .then();
+        });
+    }
+
+    public RateLimiterEstatisticasDTO obterEstatisticas() {
+        return new RateLimiterEstatisticasDTO(
+                nome,
+                Duration.ofNanos(intervaloNanos).toMillis(),
+                capacidade,
+                maxFila,
+                aguardando.get(),
+                permissoesImediatas.sum(),
+                permissoesEnfileiradas.sum(),
+                rejeitadas.sum()
+        );
+    }
+}
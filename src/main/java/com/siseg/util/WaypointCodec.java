@@ -0,0 +1,182 @@
+package com.siseg.util;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.siseg.dto.geocoding.Coordinates;
+
+/**
+ * Formato binário compacto para sequências de waypoints. Cada coordenada vira um int32 em
+ * micrograus (1e-6°, ~11 cm) e é gravada como diferença em relação ao ponto anterior, em varint
+ * com zigzag; pontos consecutivos de uma rota costumam custar de 2 a 4 bytes por eixo.
+ *
+ * <pre>
+ * [versão: 1 byte] [quantidade: varint] ([Δlat: zigzag varint] [Δlon: zigzag varint])*
+ * </pre>
+ *
+ * A quantidade fica no cabeçalho para que {@link #contar(byte[])} não precise percorrer os pontos,
+ * e {@link Leitor} decodifica sob demanda, sem materializar a lista inteira.
+ */
+public final class WaypointCodec {
+
+    public static final byte VERSAO = 1;
+
+    private static final int ESCALA = 6;
+
+    private WaypointCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static byte[] codificar(List<Coordinates> waypoints) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(8 + waypoints.size() * 6);
+        saida.write(VERSAO);
+        escreverVarint(saida, waypoints.size());
+
+        int latAnterior = 0;
+        int lonAnterior = 0;
+        for (Coordinates ponto : waypoints) {
+            int lat = paraMicrograus(ponto.getLatitude());
+            int lon = paraMicrograus(ponto.getLongitude());
+            escreverVarint(saida, zigzag(lat - latAnterior));
+            escreverVarint(saida, zigzag(lon - lonAnterior));
+            latAnterior = lat;
+            lonAnterior = lon;
+        }
+        return saida.toByteArray();
+    }
+
+    public static List<Coordinates> decodificar(byte[] dados) {
+        return decodificarAPartirDe(dados, 0);
+    }
+
+    /**
+     * Decodifica os waypoints a partir de {@code indice}; os anteriores são apenas acumulados,
+     * sem criar objetos.
+     */
+    public static List<Coordinates> decodificarAPartirDe(byte[] dados, int indice) {
+        Leitor leitor = new Leitor(dados);
+        leitor.pular(indice);
+        List<Coordinates> waypoints = new ArrayList<>(Math.max(0, leitor.restantes()));
+        while (leitor.temProximo()) {
+            waypoints.add(leitor.proximo());
+        }
+        return waypoints;
+    }
+
+    public static Coordinates obter(byte[] dados, int indice) {
+        Leitor leitor = new Leitor(dados);
+        if (indice < 0 || indice >= leitor.total) {
+            throw new IndexOutOfBoundsException("Waypoint " + indice + " fora da rota com " + leitor.total + " pontos");
+        }
+        leitor.pular(indice);
+        return leitor.proximo();
+    }
+
+    public static int contar(byte[] dados) {
+        return new Leitor(dados).total;
+    }
+
+    private static int paraMicrograus(BigDecimal graus) {
+        return graus.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+
+    private static int zigzag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private static void escreverVarint(ByteArrayOutputStream saida, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            saida.write((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.write(valor);
+    }
+
+    /**
+     * Cursor de leitura sequencial sobre um array codificado. Mantém a última coordenada em
+     * micrograus, de modo que avançar custa apenas a leitura de dois varints.
+     */
+    public static final class Leitor {
+
+        private final byte[] dados;
+        private final int total;
+        private int posicao;
+        private int lidos;
+        private int latitudeMicro;
+        private int longitudeMicro;
+
+        public Leitor(byte[] dados) {
+            if (dados == null || dados.length == 0 || dados[0] != VERSAO) {
+                throw new IllegalArgumentException("Waypoints codificados em formato desconhecido");
+            }
+            this.dados = dados;
+            this.posicao = 1;
+            this.total = lerVarint();
+        }
+
+        public int total() {
+            return total;
+        }
+
+        public int restantes() {
+            return total - lidos;
+        }
+
+        public boolean temProximo() {
+            return lidos < total;
+        }
+
+        /** Avança para o próximo ponto, disponível em {@link #latitudeMicro()} e {@link #longitudeMicro()}. */
+        public void avancar() {
+            if (!temProximo()) {
+                throw new NoSuchElementException();
+            }
+            latitudeMicro += dezigzag(lerVarint());
+            longitudeMicro += dezigzag(lerVarint());
+            lidos++;
+        }
+
+        public void pular(int quantidade) {
+            int limite = Math.min(quantidade, total - lidos);
+            for (int i = 0; i < limite; i++) {
+                avancar();
+            }
+        }
+
+        public Coordinates proximo() {
+            avancar();
+            return new Coordinates(BigDecimal.valueOf(latitudeMicro, ESCALA), BigDecimal.valueOf(longitudeMicro, ESCALA));
+        }
+
+        public int latitudeMicro() {
+            return latitudeMicro;
+        }
+
+        public int longitudeMicro() {
+            return longitudeMicro;
+        }
+
+        private int lerVarint() {
+            int resultado = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                if (posicao >= dados.length || deslocamento > 28) {
+                    throw new IllegalArgumentException("Waypoints codificados truncados ou corrompidos");
+                }
+                b = dados[posicao++];
+                resultado |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while ((b & 0x80) != 0);
+            return resultado;
+        }
+
+        private static int dezigzag(int valor) {
+            return (valor >>> 1) ^ -(valor & 1);
+        }
+    }
+}
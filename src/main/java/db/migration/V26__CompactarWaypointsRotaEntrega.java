@@ -0,0 +1,188 @@
+package db.migration;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Migração V26: troca o JSON de waypoints de rota_entrega pelo formato binário versão 1 de
+ * {@code WaypointCodec}. A codificação é copiada aqui, e não chamada do codec, para que esta migração
+ * continue produzindo o mesmo formato mesmo que o codec evolua.
+ *
+ * <p>As linhas são lidas em páginas por id, para não carregar todas as rotas de uma vez, e são todas
+ * validadas antes de qualquer DDL: se algum JSON não puder ser lido, a migração falha com os ids das
+ * rotas e a coluna antiga não é removida.
+ */
+public class V26__CompactarWaypointsRotaEntrega extends BaseJavaMigration {
+
+    private static final Logger logger = Logger.getLogger(V26__CompactarWaypointsRotaEntrega.class.getName());
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final int MAXIMO_IDS_NO_ERRO = 20;
+    private static final byte VERSAO_CODEC = 1;
+    private static final int ESCALA = 6;
+
+    private static final String SQL_PAGINA = "SELECT id, waypoints FROM rota_entrega WHERE id > ? ORDER BY id LIMIT " + TAMANHO_LOTE;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection conexao = context.getConnection();
+        validar(conexao);
+
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("ALTER TABLE rota_entrega ADD COLUMN waypoints_codificados MEDIUMBLOB");
+            ddl.execute("ALTER TABLE rota_entrega ADD COLUMN total_waypoints INT NOT NULL DEFAULT 0");
+        }
+
+        long ultimoId = 0;
+        long convertidas = 0;
+        long vazias = 0;
+        try (PreparedStatement consulta = conexao.prepareStatement(SQL_PAGINA);
+             PreparedStatement atualizacao = conexao.prepareStatement(
+                "UPDATE rota_entrega SET waypoints_codificados = ?, total_waypoints = ? WHERE id = ?")) {
+            while (true) {
+                consulta.setLong(1, ultimoId);
+                int lidas = 0;
+                try (ResultSet linhas = consulta.executeQuery()) {
+                    while (linhas.next()) {
+                        lidas++;
+                        ultimoId = linhas.getLong(1);
+                        List<int[]> waypoints = lerJson(linhas.getString(2));
+                        if (waypoints.isEmpty()) {
+                            vazias++;
+                            continue;
+                        }
+                        atualizacao.setBytes(1, codificar(waypoints));
+                        atualizacao.setInt(2, waypoints.size());
+                        atualizacao.setLong(3, ultimoId);
+                        atualizacao.addBatch();
+                        convertidas++;
+                    }
+                }
+                atualizacao.executeBatch();
+                if (lidas < TAMANHO_LOTE) {
+                    break;
+                }
+            }
+        }
+
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("ALTER TABLE rota_entrega DROP COLUMN waypoints");
+        }
+        logger.info("Waypoints de rota_entrega compactados: " + convertidas + " rotas convertidas, "
+                + vazias + " sem waypoints");
+    }
+
+    /**
+     * Percorre todas as rotas e falha se alguma tiver JSON ilegível. No MySQL o DDL faz commit implícito,
+     * então a verificação precisa vir antes dele para que uma falha deixe a tabela como estava.
+     */
+    private void validar(Connection conexao) throws SQLException {
+        List<Long> ilegiveis = new ArrayList<>();
+        long totalIlegiveis = 0;
+        long ultimoId = 0;
+        try (PreparedStatement consulta = conexao.prepareStatement(SQL_PAGINA)) {
+            while (true) {
+                consulta.setLong(1, ultimoId);
+                int lidas = 0;
+                try (ResultSet linhas = consulta.executeQuery()) {
+                    while (linhas.next()) {
+                        lidas++;
+                        ultimoId = linhas.getLong(1);
+                        try {
+                            lerJson(linhas.getString(2));
+                        } catch (RuntimeException e) {
+                            totalIlegiveis++;
+                            if (ilegiveis.size() < MAXIMO_IDS_NO_ERRO) {
+                                ilegiveis.add(ultimoId);
+                            }
+                        }
+                    }
+                }
+                if (lidas < TAMANHO_LOTE) {
+                    break;
+                }
+            }
+        }
+        if (totalIlegiveis > 0) {
+            throw new IllegalStateException(totalIlegiveis + " rota(s) com waypoints ilegíveis em rota_entrega "
+                    + "(ids " + ilegiveis + (totalIlegiveis > ilegiveis.size() ? ", ..." : "")
+                    + "); corrija ou remova essas linhas antes de migrar");
+        }
+    }
+
+    /**
+     * Lê o JSON como pares [latitude, longitude] em micrograus. Nulo ou em branco é uma rota sem
+     * waypoints; qualquer outro conteúdo que não seja uma lista de pontos lança exceção.
+     */
+    private List<int[]> lerJson(String json) {
+        List<int[]> waypoints = new ArrayList<>();
+        if (json == null || json.isBlank()) {
+            return waypoints;
+        }
+        JsonNode raiz;
+        try {
+            raiz = objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getMessage(), e);
+        }
+        if (!raiz.isArray()) {
+            throw new IllegalArgumentException("Waypoints não são uma lista");
+        }
+        for (JsonNode ponto : raiz) {
+            waypoints.add(new int[]{
+                    paraMicrograus(ponto.get("latitude").decimalValue()),
+                    paraMicrograus(ponto.get("longitude").decimalValue())});
+        }
+        return waypoints;
+    }
+
+    private static byte[] codificar(List<int[]> waypoints) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(8 + waypoints.size() * 6);
+        saida.write(VERSAO_CODEC);
+        escreverVarint(saida, waypoints.size());
+
+        int latAnterior = 0;
+        int lonAnterior = 0;
+        for (int[] ponto : waypoints) {
+            escreverVarint(saida, zigzag(ponto[0] - latAnterior));
+            escreverVarint(saida, zigzag(ponto[1] - lonAnterior));
+            latAnterior = ponto[0];
+            lonAnterior = ponto[1];
+        }
+        return saida.toByteArray();
+    }
+
+    private static int paraMicrograus(BigDecimal graus) {
+        return graus.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+
+    private static int zigzag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private static void escreverVarint(ByteArrayOutputStream saida, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            saida.write((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.write(valor);
+    }
+}
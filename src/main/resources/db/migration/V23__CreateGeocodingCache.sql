@@ -0,0 +1,12 @@
+-- Migração V23: Cache persistente de geocodificação (chave = endereço normalizado)
+CREATE TABLE IF NOT EXISTS geocoding_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    chave VARCHAR(500) NOT NULL,
+    latitude DECIMAL(10,8) NOT NULL,
+    longitude DECIMAL(11,8) NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expira_em TIMESTAMP NOT NULL,
+    CONSTRAINT uk_geocoding_cache_chave UNIQUE (chave)
+);
+
+CREATE INDEX idx_geocoding_cache_expira_em ON geocoding_cache(expira_em);
@@ -0,0 +1,19 @@
+-- Migração V24: Fila de geocodificação assíncrona de endereços (outbox) e status no endereço
+ALTER TABLE enderecos
+ADD COLUMN status_geocodificacao VARCHAR(20) NOT NULL DEFAULT 'PENDENTE';
+
+UPDATE enderecos SET status_geocodificacao = 'CONCLUIDA'
+WHERE latitude IS NOT NULL AND longitude IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS geocoding_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    endereco_id BIGINT NOT NULL,
+    tentativas INT NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL,
+    ultimo_erro VARCHAR(500),
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_geocoding_outbox_endereco UNIQUE (endereco_id),
+    CONSTRAINT fk_geocoding_outbox_endereco FOREIGN KEY (endereco_id) REFERENCES enderecos(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_geocoding_outbox_proxima_tentativa ON geocoding_outbox(proxima_tentativa_em);
@@ -0,0 +1,9 @@
+-- Migração V25: CEPs consultados no ViaCEP por ausência no diretório local
+CREATE TABLE IF NOT EXISTS cep_cache (
+    cep VARCHAR(8) PRIMARY KEY,
+    logradouro VARCHAR(200) NOT NULL,
+    bairro VARCHAR(100),
+    cidade VARCHAR(100) NOT NULL,
+    estado VARCHAR(2) NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,2 @@
+-- Migração V27: duração total da rota, usada para estimar o tempo restante sem nova consulta ao motor de rotas
+ALTER TABLE rota_entrega ADD COLUMN duracao_segundos INT NULL;
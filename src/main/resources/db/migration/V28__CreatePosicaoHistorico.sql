@@ -0,0 +1,15 @@
+-- Migração V28: histórico de posições do entregador por pedido, em segmentos compactados de alguns minutos
+CREATE TABLE IF NOT EXISTS posicao_historico (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    pedido_id BIGINT NOT NULL,
+    entregador_id BIGINT NOT NULL,
+    inicio TIMESTAMP(3) NOT NULL,
+    fim TIMESTAMP(3) NOT NULL,
+    total_pontos INT NOT NULL,
+    pontos BLOB NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_posicao_historico_pedido FOREIGN KEY (pedido_id) REFERENCES pedidos(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_posicao_historico_pedido ON posicao_historico(pedido_id, inicio, id);
+CREATE INDEX idx_posicao_historico_entregador ON posicao_historico(entregador_id, inicio);
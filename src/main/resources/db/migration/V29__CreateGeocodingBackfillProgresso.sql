@@ -0,0 +1,6 @@
+-- Migração V29: último id percorrido pelo backfill de geocodificação, para retomar depois de um reinício
+CREATE TABLE IF NOT EXISTS geocoding_backfill_progresso (
+    id TINYINT PRIMARY KEY,
+    ultimo_id BIGINT NOT NULL,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,98 @@
+package com.siseg.controller;
+
+import com.siseg.model.enumerations.ERole;
+import com.siseg.service.rastreamento.IngestaoPosicoesService;
+import com.siseg.util.TestJwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LocalizacaoEntregadorControllerFunctionalTest {
+
+    private static final String LOTE = """
+            {"pontos": [
+              {"instante": 1700000000000, "latitude": -23.5505, "longitude": -46.6333},
+              {"instante": 1700000001000, "latitude": -23.5506, "longitude": -46.6334}
+            ]}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestJwtUtil testJwtUtil;
+
+    @MockBean
+    private IngestaoPosicoesService ingestaoPosicoesService;
+
+    private String entregadorToken;
+
+    @BeforeEach
+    void setUp() {
+        entregadorToken = testJwtUtil.generateTokenForUser("testentregador", ERole.ROLE_ENTREGADOR);
+    }
+
+    @Test
+    void deveAceitarLoteDePosicoesDoEntregador() throws Exception {
+        when(ingestaoPosicoesService.receber(anyList())).thenReturn(2);
+
+        mockMvc.perform(post("/api/entregadores/localizacoes")
+                        .header("Authorization", "Bearer " + entregadorToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LOTE))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.aceitos").value(2));
+    }
+
+    @Test
+    void deveAceitarLoteNoFormatoBinario() throws Exception {
+        when(ingestaoPosicoesService.receberCodificado(any())).thenReturn(1);
+
+        mockMvc.perform(post("/api/entregadores/localizacoes")
+                        .header("Authorization", "Bearer " + entregadorToken)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[]{1, 1, 0, 0, 0}))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.aceitos").value(1));
+    }
+
+    @Test
+    void deveRejeitarPosicaoComCoordenadaInvalida() throws Exception {
+        mockMvc.perform(post("/api/entregadores/localizacoes")
+                        .header("Authorization", "Bearer " + entregadorToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"pontos\": [{\"instante\": 1700000000000, \"latitude\": 95.0, \"longitude\": -46.6333}]}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        verifyNoInteractions(ingestaoPosicoesService);
+    }
+
+    @Test
+    void deveNegarEnvioDePosicoesPorCliente() throws Exception {
+        String clienteToken = testJwtUtil.generateTokenForUser("testcliente", ERole.ROLE_CLIENTE);
+
+        mockMvc.perform(post("/api/entregadores/localizacoes")
+                        .header("Authorization", "Bearer " + clienteToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LOTE))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(ingestaoPosicoesService);
+    }
+}
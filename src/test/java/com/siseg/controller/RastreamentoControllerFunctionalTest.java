@@ -14,6 +14,7 @@ import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.ClienteRepository;
 import com.siseg.repository.PedidoRepository;
 import com.siseg.service.RastreamentoService;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
 import com.siseg.util.TestJwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,12 +25,19 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.function.Predicate;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -53,6 +61,9 @@ class RastreamentoControllerFunctionalTest {
     @MockBean
     private ClienteRepository clienteRepository;
     
+    @MockBean
+    private PosicaoHistoricoService posicaoHistoricoService;
+    
     private String clienteToken;
     private Pedido pedido;
     private Cliente cliente;
@@ -115,12 +126,13 @@ class RastreamentoControllerFunctionalTest {
         rastreamento.setStatusEntrega(StatusPedido.OUT_FOR_DELIVERY);
         rastreamento.setProximoAoDestino(false);
         
-        when(rastreamentoService.obterRastreamento(1L)).thenReturn(rastreamento);
+        versionar(rastreamento, "3.10-1f2e");
         
         mockMvc.perform(get("/api/pedidos/1/rastreamento")
                 .header("Authorization", "Bearer " + clienteToken)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3.10-1f2e\""))
                 .andExpect(jsonPath("$.posicaoAtualLat").value(-23.5505))
                 .andExpect(jsonPath("$.posicaoAtualLon").value(-46.6333))
                 .andExpect(jsonPath("$.posicaoDestinoLat").value(-23.5631))
@@ -131,6 +143,20 @@ class RastreamentoControllerFunctionalTest {
                 .andExpect(jsonPath("$.proximoAoDestino").value(false));
     }
     
+    @Test
+    void deveRetornar304QuandoEtagAindaVale() throws Exception {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        versionar(new RastreamentoDTO(), "3.10-1f2e");
+        
+        mockMvc.perform(get("/api/pedidos/1/rastreamento")
+                .param("versao", "3.10")
+                .header("Authorization", "Bearer " + clienteToken)
+                .header("If-None-Match", "\"3.10-1f2e\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3.10-1f2e\""))
+                .andExpect(content().string(""));
+    }
+    
     @Test
     void deveRetornar404QuandoPedidoNaoExiste() throws Exception {
         when(pedidoRepository.findById(1L)).thenReturn(Optional.empty());
@@ -140,5 +166,54 @@ class RastreamentoControllerFunctionalTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+    
+    @Test
+    void deveConsultarHistoricoDoPedidoEmOrdem() throws Exception {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        doAnswer(invocacao -> {
+            PosicaoHistoricoService.ConsumidorPonto consumidor = invocacao.getArgument(1);
+            consumidor.aceitar(1_700_000_000_000L, -23.5505, -46.6333);
+            consumidor.aceitar(1_700_000_002_000L, -23.551, -46.634);
+            return null;
+        }).when(posicaoHistoricoService).percorrerTrilha(eq(1L), any());
+        
+        MvcResult resultado = mockMvc.perform(get("/api/pedidos/1/rastreamento/historico")
+                .header("Authorization", "Bearer " + clienteToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].instante").value(1_700_000_000_000L))
+                .andExpect(jsonPath("$[0].latitude").value(-23.5505))
+                .andExpect(jsonPath("$[1].longitude").value(-46.634));
+    }
+    
+    @Test
+    void deveAbrirStreamComEstadoAtualDoRastreamento() throws Exception {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        RastreamentoDTO rastreamento = new RastreamentoDTO();
+        rastreamento.setPosicaoAtualLat(new BigDecimal("-23.5505"));
+        rastreamento.setStatusEntrega(StatusPedido.OUT_FOR_DELIVERY);
+        when(rastreamentoService.obterRastreamento(1L)).thenReturn(rastreamento);
+        
+        MvcResult resultado = mockMvc.perform(get("/api/pedidos/1/rastreamento/stream")
+                .header("Authorization", "Bearer " + clienteToken)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        String corpo = resultado.getResponse().getContentAsString();
+        assertTrue(corpo.contains("event:rastreamento"), corpo);
+        assertTrue(corpo.contains("\"posicaoAtualLat\":-23.5505"), corpo);
+    }
+    
+    private void versionar(RastreamentoDTO rastreamento, String etag) {
+        when(rastreamentoService.obterRastreamento(eq(1L), any(), any())).thenAnswer(invocacao -> {
+            Predicate<String> naoModificado = invocacao.getArgument(2);
+            return new RastreamentoService.RastreamentoVersionado(etag,
+                    naoModificado.test(etag) ? null : rastreamento);
+        });
+    }
 }
-
@@ -0,0 +1,186 @@
+package com.siseg.service;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.rastreamento.PedidoEmEntregaResumo;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.model.enumerations.TipoVeiculo;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.rastreamento.IngestaoPosicoesService;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
+import com.siseg.service.routing.ActiveRouteRegistry;
+import com.siseg.service.routing.MotorMovimento;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.util.WaypointCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryBatchMovementServiceUnitTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ActiveRouteRegistry activeRouteRegistry;
+
+    @Mock
+    private DeliveryMovementService deliveryMovementService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PosicaoHistoricoService posicaoHistoricoService;
+
+    @Mock
+    private RastreamentoPublisher rastreamentoPublisher;
+
+    @Mock
+    private IngestaoPosicoesService ingestaoPosicoesService;
+
+    private CourierPositionStore courierPositionStore;
+
+    private DeliveryBatchMovementService deliveryBatchMovementService;
+
+    private RotaAtiva rota;
+
+    @BeforeEach
+    void setUp() {
+        courierPositionStore = new CourierPositionStore(jdbcTemplate, 60);
+        deliveryBatchMovementService = new DeliveryBatchMovementService(
+                pedidoRepository, activeRouteRegistry, deliveryMovementService, courierPositionStore, posicaoHistoricoService, rastreamentoPublisher,
+                ingestaoPosicoesService);
+        rota = new RotaAtiva(1L, 1L, WaypointCodec.codificar(List.of(
+                new Coordinates(new BigDecimal("-23.5505"), new BigDecimal("-46.6333")),
+                new Coordinates(new BigDecimal("-23.5631"), new BigDecimal("-46.6542")))), 0, null, 0);
+    }
+
+    @Test
+    void deveMoverEmLoteEGuardarPosicoesEmMemoria() {
+        PedidoEmEntregaResumo emRota = resumo(1L, 10L, 100L);
+        PedidoEmEntregaResumo chegando = resumo(2L, 20L, 200L);
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY))
+                .thenReturn(List.of(emRota, chegando));
+        when(activeRouteRegistry.obterEmMemoria(anyLong())).thenReturn(Optional.of(rota));
+        when(deliveryMovementService.avancarPelaRota(eq(rota), any(), eq(TipoVeiculo.MOTO), anyDouble(), anyDouble()))
+                .thenAnswer(invocacao -> {
+                    MotorMovimento.Posicao posicao = invocacao.getArgument(1);
+                    posicao.definir(-23.551, -46.634);
+                    return false;
+                })
+                .thenReturn(true);
+
+        DeliveryBatchMovementService.ResultadoLote resultado = deliveryBatchMovementService.simularLote();
+
+        assertEquals(2, resultado.movidos());
+        assertTrue(resultado.individuais().isEmpty());
+        verify(activeRouteRegistry).carregar(List.of(1L, 2L));
+        verify(activeRouteRegistry).gravarIndicesPendentes();
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(-23.551, courierPositionStore.obter(10L).orElseThrow().latitude());
+        assertEquals(chegando.getDestinoLatitude(), courierPositionStore.obter(20L).orElseThrow().latitudeDecimal());
+        assertEquals(chegando.getDestinoLongitude(), courierPositionStore.obter(20L).orElseThrow().longitudeDecimal());
+        verify(posicaoHistoricoService).registrar(1L, 10L, -23.551, -46.634);
+        verify(posicaoHistoricoService).registrar(eq(2L), eq(20L), anyDouble(), anyDouble());
+        verify(rastreamentoPublisher).notificarMovimento(1L);
+        verify(rastreamentoPublisher).notificarMovimento(2L);
+    }
+
+    @Test
+    void devePartirDaPosicaoEmMemoriaQuandoMaisRecenteQueADoBanco() {
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY))
+                .thenReturn(List.of(resumo(1L, 10L, 100L)));
+        when(activeRouteRegistry.obterEmMemoria(1L)).thenReturn(Optional.of(rota));
+        courierPositionStore.atualizar(10L, -23.5600, -46.6500);
+        ArgumentCaptor<MotorMovimento.Posicao> posicao = ArgumentCaptor.forClass(MotorMovimento.Posicao.class);
+
+        deliveryBatchMovementService.simularLote();
+
+        verify(deliveryMovementService).avancarPelaRota(eq(rota), posicao.capture(), any(), anyDouble(), anyDouble());
+        assertEquals(-23.5600, posicao.getValue().getLatitude());
+        assertEquals(-46.6500, posicao.getValue().getLongitude());
+    }
+
+    @Test
+    void deveContarFalhaEContinuarLoteQuandoMovimentoDeUmPedidoFalha() {
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY))
+                .thenReturn(List.of(resumo(1L, 10L, 100L), resumo(2L, 20L, 200L)));
+        when(activeRouteRegistry.obterEmMemoria(anyLong())).thenReturn(Optional.of(rota));
+        when(deliveryMovementService.avancarPelaRota(eq(rota), any(), any(), anyDouble(), anyDouble()))
+                .thenThrow(new IllegalStateException("Erro simulado"))
+                .thenReturn(false);
+
+        DeliveryBatchMovementService.ResultadoLote resultado = deliveryBatchMovementService.simularLote();
+
+        assertEquals(1, resultado.movidos());
+        assertEquals(1, resultado.falhas());
+        assertTrue(resultado.individuais().isEmpty());
+        verify(rastreamentoPublisher).notificarMovimento(2L);
+        verify(activeRouteRegistry).gravarIndicesPendentes();
+    }
+
+    @Test
+    void naoDeveMoverEntregadorQueEstaEnviandoGps() {
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY))
+                .thenReturn(List.of(resumo(1L, 10L, 100L), resumo(2L, 20L, null)));
+        when(ingestaoPosicoesService.recebendoGps(anyLong())).thenReturn(true);
+
+        DeliveryBatchMovementService.ResultadoLote resultado = deliveryBatchMovementService.simularLote();
+
+        assertEquals(0, resultado.movidos());
+        assertTrue(resultado.individuais().isEmpty());
+        verify(activeRouteRegistry, never()).obterEmMemoria(anyLong());
+        verifyNoInteractions(deliveryMovementService, posicaoHistoricoService, rastreamentoPublisher);
+        assertEquals(0, courierPositionStore.tamanho());
+    }
+
+    @Test
+    void deveEnviarAoCaminhoIndividualPedidosSemRotaOuSemCoordenadas() {
+        PedidoEmEntregaResumo semRota = resumo(1L, 10L, null);
+        PedidoEmEntregaResumo semPosicao = resumo(2L, 20L, 200L);
+        semPosicao.setEntregadorLatitude(null);
+        PedidoEmEntregaResumo foraDaMemoria = resumo(3L, 30L, 300L);
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY))
+                .thenReturn(List.of(semRota, semPosicao, foraDaMemoria));
+        when(activeRouteRegistry.obterEmMemoria(3L)).thenReturn(Optional.empty());
+
+        DeliveryBatchMovementService.ResultadoLote resultado = deliveryBatchMovementService.simularLote();
+
+        assertEquals(0, resultado.movidos());
+        assertEquals(List.of(1L, 2L, 3L), resultado.individuais());
+        verifyNoInteractions(deliveryMovementService);
+        assertEquals(0, courierPositionStore.tamanho());
+        verify(activeRouteRegistry, never()).gravarIndicesPendentes();
+    }
+
+    @Test
+    void naoDeveAcessarRotasQuandoNaoHaPedidosEmEntrega() {
+        when(pedidoRepository.findResumosComEntregadorByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(List.of());
+
+        DeliveryBatchMovementService.ResultadoLote resultado = deliveryBatchMovementService.simularLote();
+
+        assertEquals(0, resultado.movidos());
+        verifyNoInteractions(activeRouteRegistry, jdbcTemplate);
+    }
+
+    private PedidoEmEntregaResumo resumo(Long pedidoId, Long entregadorId, Long rotaId) {
+        return new PedidoEmEntregaResumo(pedidoId, entregadorId, TipoVeiculo.MOTO,
+                new BigDecimal("-23.55050000"), new BigDecimal("-46.63330000"),
+                new BigDecimal("-23.56310000"), new BigDecimal("-46.65420000"), rotaId);
+    }
+}
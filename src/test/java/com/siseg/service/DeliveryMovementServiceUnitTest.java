@@ -12,13 +12,20 @@ import com.siseg.model.enumerations.TipoEndereco;
 import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.PedidoRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.rastreamento.PosicaoHistoricoService;
+import com.siseg.service.rastreamento.RastreamentoPublisher;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.util.WaypointCodec;
 import com.siseg.validator.PedidoValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -27,6 +34,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
 
@@ -45,6 +54,15 @@ class DeliveryMovementServiceUnitTest {
     @Mock
     private PedidoValidator pedidoValidator;
     
+    @Spy
+    private CourierPositionStore courierPositionStore = new CourierPositionStore(mock(JdbcTemplate.class), 60);
+    
+    @Mock
+    private PosicaoHistoricoService posicaoHistoricoService;
+    
+    @Mock
+    private RastreamentoPublisher rastreamentoPublisher;
+    
     @InjectMocks
     private DeliveryMovementService deliveryMovementService;
     
@@ -124,8 +142,8 @@ class DeliveryMovementServiceUnitTest {
         // Arrange
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
-        when(routeService.obterWaypointsRestantes(1L)).thenReturn(waypoints);
+        when(routeService.possuiRota(1L)).thenReturn(true);
+        when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypoints));
         when(routeService.isRotaCompleta(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
@@ -134,14 +152,16 @@ class DeliveryMovementServiceUnitTest {
         // Act
         deliveryMovementService.simularMovimento(1L);
         
-        // Assert
-        verify(entregadorRepository, atLeastOnce()).save(any(Entregador.class));
-        assertNotNull(entregador.getLatitude());
-        assertNotNull(entregador.getLongitude());
+        // Assert - A posição vai para a memória, sem salvar o entregador a cada passo
+        verify(courierPositionStore).atualizar(eq(1L), anyDouble(), anyDouble());
+        verify(posicaoHistoricoService).registrar(eq(1L), eq(1L), anyDouble(), anyDouble());
+        verify(rastreamentoPublisher).notificarMovimento(1L);
+        verify(entregadorRepository, never()).save(any(Entregador.class));
+        CourierPositionStore.PosicaoEntregador posicao = courierPositionStore.obter(1L).orElseThrow();
         
         // Verificar que a posição mudou (não está mais na posição inicial)
-        assertNotEquals(enderecoRestaurante.getLatitude(), entregador.getLatitude());
-        assertNotEquals(enderecoRestaurante.getLongitude(), entregador.getLongitude());
+        assertNotEquals(enderecoRestaurante.getLatitude().doubleValue(), posicao.latitude());
+        assertNotEquals(enderecoRestaurante.getLongitude().doubleValue(), posicao.longitude());
     }
     
     @Test
@@ -152,8 +172,8 @@ class DeliveryMovementServiceUnitTest {
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
-        when(routeService.obterWaypointsRestantes(1L)).thenReturn(waypoints);
+        when(routeService.possuiRota(1L)).thenReturn(true);
+        when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypoints));
         when(routeService.isRotaCompleta(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
@@ -163,7 +183,7 @@ class DeliveryMovementServiceUnitTest {
         deliveryMovementService.simularMovimento(1L);
         
         // Assert - Pode avançar waypoint se estiver muito próximo
-        verify(entregadorRepository, atLeastOnce()).save(any(Entregador.class));
+        verify(courierPositionStore, atLeastOnce()).atualizar(eq(1L), anyDouble(), anyDouble());
     }
     
     @Test
@@ -171,7 +191,7 @@ class DeliveryMovementServiceUnitTest {
         // Arrange
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
+        when(routeService.possuiRota(1L)).thenReturn(true);
         when(routeService.isRotaCompleta(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
@@ -180,19 +200,18 @@ class DeliveryMovementServiceUnitTest {
         // Simular múltiplas iterações de movimento
         for (int i = 0; i < waypoints.size() - 1; i++) {
             List<Coordinates> waypointsRestantes = waypoints.subList(i, waypoints.size());
-            when(routeService.obterWaypointsRestantes(1L)).thenReturn(waypointsRestantes);
+            when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypointsRestantes));
             
             // Atualizar posição do entregador para próximo do waypoint atual
-            entregador.setLatitude(waypoints.get(i).getLatitude());
-            entregador.setLongitude(waypoints.get(i).getLongitude());
+            courierPositionStore.registrarPersistida(1L, waypoints.get(i).getLatitude(), waypoints.get(i).getLongitude());
             
             // Act
             deliveryMovementService.simularMovimento(1L);
         }
         
         // Assert
-        verify(routeService, atLeast(waypoints.size() - 1)).obterWaypointsRestantes(1L);
-        verify(entregadorRepository, atLeast(waypoints.size() - 1)).save(any(Entregador.class));
+        verify(routeService, atLeast(waypoints.size() - 1)).obterRotaAtiva(1L);
+        verify(courierPositionStore, atLeast(waypoints.size() - 1)).atualizar(eq(1L), anyDouble(), anyDouble());
     }
     
     @Test
@@ -204,8 +223,9 @@ class DeliveryMovementServiceUnitTest {
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
+        when(routeService.possuiRota(1L)).thenReturn(true);
         when(routeService.isRotaCompleta(1L)).thenReturn(true);
+        when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypoints.subList(waypoints.size() - 1, waypoints.size())));
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
         doNothing().when(pedidoValidator).validateCoordenadasDestino(any());
@@ -214,9 +234,9 @@ class DeliveryMovementServiceUnitTest {
         deliveryMovementService.simularMovimento(1L);
         
         // Assert
-        verify(entregadorRepository).save(entregador);
-        assertEquals(enderecoEntrega.getLatitude(), entregador.getLatitude());
-        assertEquals(enderecoEntrega.getLongitude(), entregador.getLongitude());
+        CourierPositionStore.PosicaoEntregador posicao = courierPositionStore.obter(1L).orElseThrow();
+        assertEquals(enderecoEntrega.getLatitude().doubleValue(), posicao.latitude());
+        assertEquals(enderecoEntrega.getLongitude().doubleValue(), posicao.longitude());
     }
     
     @Test
@@ -224,17 +244,18 @@ class DeliveryMovementServiceUnitTest {
         // Arrange
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.empty());
+        when(routeService.possuiRota(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
         doNothing().when(pedidoValidator).validateCoordenadasDestino(any());
         when(routeService.calcularERegistrarRota(any(), any())).thenReturn(rota);
+        when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypoints));
         
         // Act
         deliveryMovementService.simularMovimento(1L);
         
         // Assert - Verificar que tentou calcular rota
-        verify(routeService).obterRota(1L);
+        verify(routeService).possuiRota(1L);
         verify(routeService).calcularERegistrarRota(any(), any());
     }
     
@@ -266,7 +287,7 @@ class DeliveryMovementServiceUnitTest {
         // Arrange - Simular movimento completo
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
+        when(routeService.possuiRota(1L)).thenReturn(true);
         when(routeService.isRotaCompleta(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
@@ -283,7 +304,7 @@ class DeliveryMovementServiceUnitTest {
             }
             
             List<Coordinates> waypointsRestantes = waypoints.subList(indiceAtual, waypoints.size());
-            when(routeService.obterWaypointsRestantes(1L)).thenReturn(waypointsRestantes);
+            when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypointsRestantes));
             
             // Act
             deliveryMovementService.simularMovimento(1L);
@@ -295,12 +316,11 @@ class DeliveryMovementServiceUnitTest {
         }
         
         // Assert
-        verify(entregadorRepository, atLeast(10)).save(any(Entregador.class));
-        verify(routeService, atLeast(10)).obterWaypointsRestantes(1L);
+        verify(courierPositionStore, atLeast(10)).atualizar(eq(1L), anyDouble(), anyDouble());
+        verify(routeService, atLeast(10)).obterRotaAtiva(1L);
         
         // Verificar que entregador se moveu
-        assertNotNull(entregador.getLatitude());
-        assertNotNull(entregador.getLongitude());
+        assertTrue(courierPositionStore.obter(1L).isPresent());
     }
     
     @Test
@@ -311,8 +331,8 @@ class DeliveryMovementServiceUnitTest {
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
-        when(routeService.obterRota(1L)).thenReturn(Optional.of(rota));
-        when(routeService.obterWaypointsRestantes(1L)).thenReturn(waypoints);
+        when(routeService.possuiRota(1L)).thenReturn(true);
+        when(routeService.obterRotaAtiva(1L)).thenReturn(rotaAtiva(waypoints));
         when(routeService.isRotaCompleta(1L)).thenReturn(false);
         doNothing().when(pedidoValidator).validateStatusEntrega(any());
         doNothing().when(pedidoValidator).validateEntregadorAssociado(any());
@@ -323,9 +343,10 @@ class DeliveryMovementServiceUnitTest {
         
         // Assert - Verificar que a posição mudou em direção ao waypoint
         BigDecimal latInicial = origem.getLatitude();
-        BigDecimal latFinal = entregador.getLatitude();
+        CourierPositionStore.PosicaoEntregador posicao = courierPositionStore.obter(1L).orElseThrow();
+        BigDecimal latFinal = CourierPositionStore.paraCoordenada(posicao.latitude());
         BigDecimal lonInicial = origem.getLongitude();
-        BigDecimal lonFinal = entregador.getLongitude();
+        BigDecimal lonFinal = CourierPositionStore.paraCoordenada(posicao.longitude());
         
         // Verificar que se moveu em direção ao destino
         BigDecimal deltaLat = destino.getLatitude().subtract(latInicial);
@@ -341,5 +362,8 @@ class DeliveryMovementServiceUnitTest {
             "Movimento deve estar na direção do waypoint"
         );
     }
+    
+    private RotaAtiva rotaAtiva(List<Coordinates> waypointsRota) {
+        return new RotaAtiva(1L, 1L, WaypointCodec.codificar(waypointsRota), 0, null, 0);
+    }
 }
-
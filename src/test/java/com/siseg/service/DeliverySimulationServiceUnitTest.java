@@ -1,20 +1,27 @@
 package com.siseg.service;
 
+import com.siseg.dto.rastreamento.SimulacaoEntregasEstatisticasDTO;
 import com.siseg.model.Entregador;
 import com.siseg.model.Pedido;
 import com.siseg.model.enumerations.StatusPedido;
 import com.siseg.repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -27,7 +34,9 @@ class DeliverySimulationServiceUnitTest {
     @Mock
     private DeliveryMovementService deliveryMovementService;
     
-    @InjectMocks
+    @Mock
+    private DeliveryBatchMovementService deliveryBatchMovementService;
+    
     private DeliverySimulationService deliverySimulationService;
     
     private Pedido pedido1;
@@ -35,6 +44,10 @@ class DeliverySimulationServiceUnitTest {
     
     @BeforeEach
     void setUp() {
+        deliverySimulationService = new DeliverySimulationService(pedidoRepository, deliveryMovementService, deliveryBatchMovementService, 2, 10, 8000);
+        // Sem o lote, todos os pedidos seguem pelo caminho individual
+        lenient().when(deliveryBatchMovementService.simularLote()).thenThrow(new RuntimeException("Lote indisponível"));
+        
         Entregador entregador = new Entregador();
         entregador.setId(1L);
         
@@ -49,12 +62,17 @@ class DeliverySimulationServiceUnitTest {
         pedido2.setEntregador(entregador);
     }
     
+    @AfterEach
+    void tearDown() {
+        deliverySimulationService.encerrar();
+    }
+    
     @Test
     void deveSimularTodosPedidosEmEntrega() {
         List<Pedido> pedidos = Arrays.asList(pedido1, pedido2);
         when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(pedidos);
         
-        deliverySimulationService.simularEntregasAtivas();
+        deliverySimulationService.executarTick();
         
         verify(deliveryMovementService, times(2)).simularMovimento(anyLong());
         verify(deliveryMovementService).simularMovimento(1L);
@@ -65,7 +83,7 @@ class DeliverySimulationServiceUnitTest {
     void naoDeveFazerNadaQuandoNaoHaPedidosEmEntrega() {
         when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(Collections.emptyList());
         
-        deliverySimulationService.simularEntregasAtivas();
+        deliverySimulationService.executarTick();
         
         verify(deliveryMovementService, never()).simularMovimento(anyLong());
     }
@@ -76,7 +94,7 @@ class DeliverySimulationServiceUnitTest {
         List<Pedido> pedidos = Arrays.asList(pedido1, pedido2);
         when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(pedidos);
         
-        deliverySimulationService.simularEntregasAtivas();
+        deliverySimulationService.executarTick();
         
         verify(deliveryMovementService, times(1)).simularMovimento(anyLong());
         verify(deliveryMovementService).simularMovimento(2L);
@@ -89,10 +107,136 @@ class DeliverySimulationServiceUnitTest {
         when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(pedidos);
         doThrow(new RuntimeException("Erro simulado")).when(deliveryMovementService).simularMovimento(1L);
         
-        deliverySimulationService.simularEntregasAtivas();
+        deliverySimulationService.executarTick();
         
         verify(deliveryMovementService).simularMovimento(1L);
         verify(deliveryMovementService).simularMovimento(2L);
     }
+    
+    @Test
+    void deveAdiarPedidosQuandoPrazoDoTickEsgota() {
+        DeliverySimulationService semPrazo = new DeliverySimulationService(pedidoRepository, deliveryMovementService, deliveryBatchMovementService, 2, 10, 0);
+        when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(Arrays.asList(pedido1, pedido2));
+        
+        semPrazo.executarTick();
+        semPrazo.encerrar();
+        
+        verify(deliveryMovementService, never()).simularMovimento(anyLong());
+        SimulacaoEntregasEstatisticasDTO estatisticas = semPrazo.obterEstatisticas();
+        assertEquals(1, estatisticas.getTicksExecutados());
+        assertEquals(2, estatisticas.getPedidosAdiados());
+        assertEquals(0, estatisticas.getPedidosProcessados());
+    }
+    
+    @Test
+    void deveComecarProximoTickPelaParticaoInterrompidaPeloPrazo() {
+        DeliverySimulationService comPrazo = new DeliverySimulationService(pedidoRepository, deliveryMovementService, deliveryBatchMovementService, 1, 10, 1000);
+        List<Pedido> pedidos = new ArrayList<>();
+        for (long id = 1; id <= 96; id++) {
+            Pedido pedido = new Pedido();
+            pedido.setId(id);
+            pedido.setEntregador(pedido1.getEntregador());
+            pedidos.add(pedido);
+        }
+        when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(pedidos);
+        List<Long> simulados = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean atrasar = new AtomicBoolean(true);
+        doAnswer(invocacao -> {
+            Long pedidoId = invocacao.getArgument(0);
+            simulados.add(pedidoId);
+            if (pedidoId == 40L && atrasar.getAndSet(false)) {
+                Thread.sleep(1200);
+            }
+            return null;
+        }).when(deliveryMovementService).simularMovimento(anyLong());
+        
+        comPrazo.executarTick();
+        assertEquals(40, simulados.size());
+        simulados.clear();
+        comPrazo.executarTick();
+        comPrazo.encerrar();
+        
+        assertEquals(96, simulados.size());
+        assertEquals(33L, simulados.get(0));
+        assertEquals(32L, simulados.get(95));
+    }
+    
+    @Test
+    void deveSomarFalhasDoLoteAosErros() {
+        doReturn(new DeliveryBatchMovementService.ResultadoLote(5, 2, List.of()))
+                .when(deliveryBatchMovementService).simularLote();
+        
+        deliverySimulationService.executarTick();
+        
+        verifyNoInteractions(pedidoRepository);
+        assertEquals(2, deliverySimulationService.obterEstatisticas().getPedidosComErro());
+        assertEquals(5, deliverySimulationService.obterEstatisticas().getPedidosProcessados());
+    }
+    
+    @Test
+    void devePularTickQuandoAnteriorAindaEstaEmExecucao() throws InterruptedException {
+        CountDownLatch iniciado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(List.of(pedido1));
+        doAnswer(invocacao -> {
+            iniciado.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(deliveryMovementService).simularMovimento(1L);
+        
+        deliverySimulationService.simularEntregasAtivas();
+        assertTrue(iniciado.await(5, TimeUnit.SECONDS));
+        deliverySimulationService.simularEntregasAtivas();
+        liberar.countDown();
+        
+        verify(deliveryMovementService, timeout(5000).times(1)).simularMovimento(1L);
+        assertEquals(1, deliverySimulationService.obterEstatisticas().getTicksPulados());
+    }
+    
+    @Test
+    void deveDistribuirPedidosEntreWorkersERegistrarEstatisticas() {
+        List<Pedido> pedidos = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            Pedido pedido = new Pedido();
+            pedido.setId(id);
+            pedido.setEntregador(pedido1.getEntregador());
+            pedidos.add(pedido);
+        }
+        when(pedidoRepository.findByStatus(StatusPedido.OUT_FOR_DELIVERY)).thenReturn(pedidos);
+        lenient().doThrow(new RuntimeException("Erro simulado")).when(deliveryMovementService).simularMovimento(50L);
+        
+        deliverySimulationService.executarTick();
+        
+        verify(deliveryMovementService, times(100)).simularMovimento(anyLong());
+        SimulacaoEntregasEstatisticasDTO estatisticas = deliverySimulationService.obterEstatisticas();
+        assertEquals(99, estatisticas.getPedidosProcessados());
+        assertEquals(1, estatisticas.getPedidosComErro());
+        assertEquals(0, estatisticas.getPedidosAdiados());
+    }
+    
+    @Test
+    void deveSimularEmLoteEEnviarRestanteAoCaminhoIndividual() {
+        doReturn(new DeliveryBatchMovementService.ResultadoLote(40, 0, List.of(2L)))
+                .when(deliveryBatchMovementService).simularLote();
+        
+        deliverySimulationService.executarTick();
+        
+        verify(pedidoRepository, never()).findByStatus(any());
+        verify(deliveryMovementService, times(1)).simularMovimento(anyLong());
+        verify(deliveryMovementService).simularMovimento(2L);
+        SimulacaoEntregasEstatisticasDTO estatisticas = deliverySimulationService.obterEstatisticas();
+        assertEquals(41, estatisticas.getPedidosProcessados());
+        assertEquals(1, estatisticas.getTicksExecutados());
+    }
+    
+    @Test
+    void deveRegistrarTickQuandoTodosPedidosForamMovidosEmLote() {
+        doReturn(new DeliveryBatchMovementService.ResultadoLote(3, 0, List.of()))
+                .when(deliveryBatchMovementService).simularLote();
+        
+        deliverySimulationService.executarTick();
+        
+        verify(deliveryMovementService, never()).simularMovimento(anyLong());
+        assertEquals(3, deliverySimulationService.obterEstatisticas().getUltimoTickProcessados());
+    }
 }
-
@@ -11,6 +11,7 @@ import com.siseg.model.User;
 import com.siseg.repository.ClienteRepository;
 import com.siseg.repository.EnderecoRepository;
 import com.siseg.repository.RestauranteRepository;
+import com.siseg.service.geocoding.GeocodingOutboxService;
 import com.siseg.validator.EnderecoValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,9 @@ class EnderecoServiceUnitTest {
     @Mock
     private RestauranteRepository restauranteRepository;
 
+    @Mock
+    private GeocodingOutboxService geocodingOutboxService;
+
     @InjectMocks
     private EnderecoService enderecoService;
 
@@ -200,10 +204,26 @@ class EnderecoServiceUnitTest {
         EnderecoResponseDTO result = enderecoService.atualizarEnderecoCliente(1L, dtoAtualizado, 1L);
 
         assertNotNull(result);
-        verify(enderecoRepository, times(2)).save(any(Endereco.class));
+        verify(enderecoRepository, times(1)).save(any(Endereco.class));
+        verify(geocodingOutboxService).enfileirar(endereco);
+        verify(geocodingService, never()).geocodeAddress(any(Endereco.class));
         verify(enderecoValidator).validateEnderecoPertenceAoCliente(endereco, 1L, cliente);
     }
 
+    @Test
+    void deveEnfileirarGeocodificacaoAoCriarEnderecoSemGeocodificarNaRequisicao() {
+        when(enderecoRepository.findByClienteId(1L)).thenReturn(List.of());
+        when(enderecoRepository.save(any(Endereco.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Endereco criado = enderecoService.criarEndereco(enderecoRequestDTO, cliente);
+
+        assertTrue(criado.getPrincipal());
+        assertEquals("01310100", criado.getCep());
+        verify(enderecoRepository, times(1)).save(any(Endereco.class));
+        verify(geocodingOutboxService).enfileirar(criado);
+        verify(geocodingService, never()).geocodeAddress(any(Endereco.class));
+    }
+
     @Test
     void deveExcluirEnderecoCliente() {
         endereco.setPrincipal(false);
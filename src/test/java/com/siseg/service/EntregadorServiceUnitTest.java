@@ -15,6 +15,7 @@ import com.siseg.mapper.EntregadorMapper;
 import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.RoleRepository;
 import com.siseg.repository.UserRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
 import com.siseg.util.SecurityUtils;
 import com.siseg.validator.EntregadorValidator;
 import org.junit.jupiter.api.BeforeEach;
@@ -62,6 +63,9 @@ class EntregadorServiceUnitTest {
 
     @Mock
     private EntregadorValidator entregadorValidator;
+    
+    @Mock
+    private CourierPositionStore courierPositionStore;
 
     @InjectMocks
     private EntregadorService entregadorService;
@@ -18,6 +18,7 @@ import com.siseg.model.enumerations.StatusPedido;
 import com.siseg.mapper.PagamentoMapper;
 import com.siseg.repository.PagamentoRepository;
 import com.siseg.repository.PedidoRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
 import com.siseg.util.SecurityUtils;
 import com.siseg.validator.PagamentoValidator;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,6 +29,7 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -58,6 +60,9 @@ class PagamentoServiceUnitTest {
     @Mock
     private AsaasService asaasService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PagamentoService pagamentoService;
 
@@ -346,6 +351,7 @@ class PagamentoServiceUnitTest {
                 p.getDataReembolso() != null));
             verify(pedidoRepository, times(1)).save(argThat(p -> 
                 p.getStatus() == StatusPedido.CANCELED));
+            verify(eventPublisher).publishEvent(new PedidoEncerradoEvent(1L));
         }
     }
 
@@ -12,6 +12,7 @@ import com.siseg.model.enumerations.MetodoPagamento;
 import com.siseg.model.enumerations.TipoEndereco;
 import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.EntregadorRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
 import com.siseg.service.pedido.PedidoEnderecoService;
 import com.siseg.util.TempoEstimadoCalculator;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,6 +40,9 @@ class PedidoEnderecoServiceTest {
 
     @Mock
     private EntregadorRepository entregadorRepository;
+    
+    @Mock
+    private CourierPositionStore courierPositionStore;
 
     @InjectMocks
     private PedidoEnderecoService pedidoEnderecoService;
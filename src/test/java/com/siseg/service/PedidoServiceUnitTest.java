@@ -20,6 +20,7 @@ import com.siseg.model.enumerations.TipoEndereco;
 import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.mapper.PedidoMapper;
 import com.siseg.repository.*;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
 import com.siseg.service.pedido.PedidoEnderecoService;
 import com.siseg.service.pedido.PedidoEntregadorService;
 import com.siseg.service.pedido.PedidoFinanceiroService;
@@ -34,6 +35,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -107,6 +109,9 @@ class PedidoServiceUnitTest {
     @Mock
     private PedidoEntregadorService pedidoEntregadorService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PedidoService pedidoService;
 
@@ -467,6 +472,7 @@ class PedidoServiceUnitTest {
             assertNotNull(response);
             assertEquals(StatusPedido.CANCELED, pedido.getStatus());
             verify(pedidoFinanceiroService).processarReembolsoSeNecessario(pedido);
+            verify(eventPublisher).publishEvent(new PedidoEncerradoEvent(pedido.getId()));
         }
     }
 
@@ -481,6 +487,7 @@ class PedidoServiceUnitTest {
             assertThrows(IllegalStateException.class,
                 () -> pedidoService.cancelarPedido(pedido.getId()));
             verify(pedidoFinanceiroService, never()).processarReembolsoSeNecessario(any());
+            verifyNoInteractions(eventPublisher);
         }
     }
 
@@ -11,6 +11,10 @@ import com.siseg.model.enumerations.TipoEndereco;
 import com.siseg.model.enumerations.TipoVeiculo;
 import com.siseg.repository.EntregadorRepository;
 import com.siseg.repository.PedidoRepository;
+import com.siseg.service.rastreamento.CourierPositionStore;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.util.WaypointCodec;
 import com.siseg.util.TempoEstimadoCalculator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,10 +24,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +51,9 @@ class RastreamentoServiceUnitTest {
     @Mock
     private RouteService routeService;
     
+    @Mock
+    private CourierPositionStore courierPositionStore;
+    
     @InjectMocks
     private RastreamentoService rastreamentoService;
     
@@ -107,7 +117,6 @@ class RastreamentoServiceUnitTest {
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
         when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRestaurante));
-        when(routeService.obterWaypointsRestantes(1L)).thenReturn(java.util.Collections.emptyList());
         
         ResultadoCalculo resultado = new ResultadoCalculo(
             new BigDecimal("1.5"), 15, false
@@ -130,6 +139,101 @@ class RastreamentoServiceUnitTest {
         assertTrue(rastreamento.getTempoEstimadoMinutos() > 0);
     }
     
+    @Test
+    void deveUsarRotaRegistradaSemConsultarMotorDeRotas() {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
+        when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRestaurante));
+        when(routeService.estimarRestante(1L, entregador.getLatitude(), entregador.getLongitude(), TipoVeiculo.MOTO))
+            .thenReturn(Optional.of(new ResultadoCalculo(new BigDecimal("2.40"), 6, true)));
+        
+        RastreamentoDTO rastreamento = rastreamentoService.obterRastreamento(1L);
+        
+        assertEquals(new BigDecimal("2.40"), rastreamento.getDistanciaRestanteKm());
+        assertEquals(6, rastreamento.getTempoEstimadoMinutos());
+        assertFalse(rastreamento.getProximoAoDestino());
+        verifyNoInteractions(tempoEstimadoCalculator);
+    }
+    
+    @Test
+    void deveUsarPosicaoEmMemoriaNoLugarDaGravadaNaEntidade() {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
+        when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRestaurante));
+        when(courierPositionStore.obter(1L)).thenReturn(Optional.of(
+            new CourierPositionStore.PosicaoEntregador(-23.5568, -46.644, System.currentTimeMillis())));
+        BigDecimal latitudeEmMemoria = new BigDecimal("-23.55680000");
+        BigDecimal longitudeEmMemoria = new BigDecimal("-46.64400000");
+        when(routeService.estimarRestante(1L, latitudeEmMemoria, longitudeEmMemoria, TipoVeiculo.MOTO))
+            .thenReturn(Optional.of(new ResultadoCalculo(new BigDecimal("1.10"), 3, true)));
+        
+        RastreamentoDTO rastreamento = rastreamentoService.obterRastreamento(1L);
+        
+        assertEquals(latitudeEmMemoria, rastreamento.getPosicaoAtualLat());
+        assertEquals(longitudeEmMemoria, rastreamento.getPosicaoAtualLon());
+        assertEquals(new BigDecimal("1.10"), rastreamento.getDistanciaRestanteKm());
+    }
+    
+    @Test
+    void deveEnviarRotaCompletaComVersaoNaPrimeiraConsulta() {
+        RotaAtiva rota = rotaAtiva(1);
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
+        when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRestaurante));
+        when(routeService.buscarRotaAtiva(1L)).thenReturn(Optional.of(rota));
+        when(routeService.obterIndicesRestantesParaExibicao(rota, 1)).thenReturn(new int[]{1, 2});
+        when(routeService.estimarRestante(eq(1L), any(), any(), any()))
+            .thenReturn(Optional.of(new ResultadoCalculo(new BigDecimal("1.20"), 4, true)));
+        
+        RastreamentoService.RastreamentoVersionado resultado = rastreamentoService.obterRastreamento(1L, null, etag -> false);
+        
+        RastreamentoDTO rastreamento = resultado.rastreamento();
+        assertEquals("7.1", rastreamento.getVersao());
+        assertEquals(1, rastreamento.getIndiceRota());
+        assertEquals(List.of(rota.waypoint(1), rota.waypoint(2)), rastreamento.getWaypoints());
+        assertEquals(List.of(1, 2), rastreamento.getIndicesWaypoints());
+        assertNotNull(rastreamento.getPosicaoRestauranteLat());
+        assertTrue(resultado.etag().startsWith("7.1-"));
+    }
+    
+    @Test
+    void deveEnviarSomentePosicaoIndiceEEstimativaParaVersaoDaMesmaRota() {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
+        when(routeService.buscarRotaAtiva(1L)).thenReturn(Optional.of(rotaAtiva(2)));
+        when(routeService.estimarRestante(eq(1L), any(), any(), any()))
+            .thenReturn(Optional.of(new ResultadoCalculo(new BigDecimal("0.60"), 2, true)));
+        
+        RastreamentoDTO rastreamento = rastreamentoService.obterRastreamento(1L, "7.1", etag -> false).rastreamento();
+        
+        assertEquals("7.2", rastreamento.getVersao());
+        assertEquals(2, rastreamento.getIndiceRota());
+        assertEquals(new BigDecimal("0.60"), rastreamento.getDistanciaRestanteKm());
+        assertEquals(entregador.getLatitude(), rastreamento.getPosicaoAtualLat());
+        assertNull(rastreamento.getWaypoints());
+        assertNull(rastreamento.getPosicaoDestinoLat());
+        verifyNoInteractions(enderecoService);
+        verify(routeService, never()).obterIndicesRestantesParaExibicao(any(), anyInt());
+    }
+    
+    @Test
+    void naoDeveCalcularNadaQuandoEtagConhecidaAindaVale() {
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
+        when(routeService.buscarRotaAtiva(1L)).thenReturn(Optional.of(rotaAtiva(1)));
+        String etag = rastreamentoService.obterRastreamento(1L, "7.1", e -> true).etag();
+        
+        RastreamentoService.RastreamentoVersionado resultado = rastreamentoService.obterRastreamento(1L, "7.1", etag::equals);
+        
+        assertTrue(resultado.naoModificado());
+        verifyNoInteractions(enderecoService, tempoEstimadoCalculator);
+        verify(routeService, never()).estimarRestante(any(), any(), any(), any());
+        
+        // O entregador se moveu: a etag muda
+        entregador.setLatitude(new BigDecimal("-23.5510"));
+        assertNotEquals(etag, rastreamentoService.obterRastreamento(1L, "7.1", e -> true).etag());
+    }
+    
     @Test
     void deveLancarExcecaoQuandoPedidoNaoExiste() {
         when(pedidoRepository.findById(1L)).thenReturn(Optional.empty());
@@ -146,7 +250,6 @@ class RastreamentoServiceUnitTest {
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
         when(entregadorRepository.findById(1L)).thenReturn(Optional.of(entregador));
         when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRestaurante));
-        when(routeService.obterWaypointsRestantes(1L)).thenReturn(java.util.Collections.emptyList());
         
         RastreamentoDTO rastreamento = rastreamentoService.obterRastreamento(1L);
         
@@ -166,5 +269,11 @@ class RastreamentoServiceUnitTest {
         });
     }
     
+    private RotaAtiva rotaAtiva(int indiceAtual) {
+        return new RotaAtiva(7L, 1L, WaypointCodec.codificar(List.of(
+            new Coordinates(new BigDecimal("-23.5505"), new BigDecimal("-46.6333")),
+            new Coordinates(new BigDecimal("-23.5568"), new BigDecimal("-46.6440")),
+            new Coordinates(new BigDecimal("-23.5631"), new BigDecimal("-46.6542")))), indiceAtual, null, 0);
+    }
+    
 }
-
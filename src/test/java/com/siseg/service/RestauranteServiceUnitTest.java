@@ -46,6 +46,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -603,18 +604,10 @@ class RestauranteServiceUnitTest {
         when(enderecoService.buscarEnderecoPrincipalRestaurante(1L)).thenReturn(Optional.of(enderecoRest1));
         when(enderecoService.buscarEnderecoPrincipalRestaurante(2L)).thenReturn(Optional.of(enderecoRest2));
         when(restauranteMapper.toRestauranteBuscaDTO(restaurante1, cliente)).thenReturn(dto1);
-        when(tempoEstimadoCalculator.calculateDistanceAndTime(
+        when(tempoEstimadoCalculator.calculateDistanceAndTimeBatch(
             any(BigDecimal.class), any(BigDecimal.class), 
-            any(BigDecimal.class), any(BigDecimal.class), 
-            eq(TipoVeiculo.MOTO)
-        )).thenAnswer(invocation -> {
-            BigDecimal lat2 = invocation.getArgument(2);
-            if (lat2.compareTo(new BigDecimal("-23.5515")) == 0) {
-                return resultado1;
-            } else {
-                return resultado2;
-            }
-        });
+            anyList(), eq(TipoVeiculo.MOTO)
+        )).thenReturn(List.of(resultado1, resultado2));
         
         try (MockedStatic<SecurityUtils> mockedSecurityUtils = mockStatic(SecurityUtils.class)) {
             mockedSecurityUtils.when(SecurityUtils::getCurrentUser).thenReturn(mockUser);
@@ -625,6 +618,10 @@ class RestauranteServiceUnitTest {
             assertNotNull(result);
             assertEquals(1, result.getContent().size());
             assertEquals("Restaurante Próximo", result.getContent().get(0).getNome());
+            verify(tempoEstimadoCalculator, times(1)).calculateDistanceAndTimeBatch(
+                any(BigDecimal.class), any(BigDecimal.class), anyList(), eq(TipoVeiculo.MOTO));
+            verify(tempoEstimadoCalculator, never()).calculateDistanceAndTime(
+                any(), any(), any(), any(), any());
         }
     }
 }
@@ -0,0 +1,130 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.dto.EnderecoCepResponseDTO;
+import com.siseg.model.CepCache;
+import com.siseg.repository.CepCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CepDiretorioServiceUnitTest {
+
+    private static final String DIRETORIO = """
+            cep;logradouro;bairro;cidade;uf
+            01310-100;Avenida Paulista;Bela Vista;São Paulo;SP
+            20040-002;Rua da Assembleia;Centro;Rio de Janeiro;rj
+            01001000;Praça da Sé;Sé;São Paulo;SP
+            # CEP repetido: vale a primeira ocorrência
+            01310100;Outro Logradouro;Outro Bairro;São Paulo;SP
+            """;
+
+    @Mock
+    private CepCacheRepository cepCacheRepository;
+
+    private CepDiretorioService cepDiretorioService;
+
+    @BeforeEach
+    void setUp() {
+        cepDiretorioService = new CepDiretorioService(cepCacheRepository, "");
+    }
+
+    @Test
+    void deveIndexarCepsOrdenadosEmTextosCompartilhados() throws IOException {
+        IndiceCep indice = carregarIndice(DIRETORIO);
+
+        assertEquals(3, indice.getQuantidadeCeps());
+        // "São Paulo" e "SP" são gravados uma única vez no pool (12 = 16 campos - 4 repetidos)
+        assertEquals(12, indice.getQuantidadeTextos());
+
+        EnderecoCepResponseDTO paulista = indice.buscar("01310100");
+        assertEquals("Avenida Paulista", paulista.getLogradouro());
+        assertEquals("Bela Vista", paulista.getBairro());
+        assertEquals("São Paulo", paulista.getCidade());
+        assertEquals("SP", paulista.getEstado());
+        assertEquals("01310100", paulista.getCep());
+
+        assertEquals("RJ", indice.buscar("20040002").getEstado());
+        assertEquals("Praça da Sé", indice.buscar("01001000").getLogradouro());
+        assertNull(indice.buscar("99999999"));
+    }
+
+    @Test
+    void deveRejeitarLinhaComCepInvalido() {
+        assertThrows(IOException.class, () -> carregarIndice("0131010;Rua;Bairro;Cidade;SP\n"));
+    }
+
+    @Test
+    void deveResolverPeloIndiceImportadoSemConsultarBanco(@TempDir Path pasta) throws IOException {
+        Path arquivo = pasta.resolve("ceps.csv");
+        Files.writeString(arquivo, DIRETORIO, StandardCharsets.UTF_8);
+
+        cepDiretorioService.importar(arquivo);
+        Optional<EnderecoCepResponseDTO> resultado = cepDiretorioService.buscarNoIndice("01310100");
+
+        assertTrue(resultado.isPresent());
+        assertEquals(1, cepDiretorioService.obterEstatisticas().getHitsIndice());
+        assertEquals(3, cepDiretorioService.obterEstatisticas().getCepsNoIndice());
+        verifyNoInteractions(cepCacheRepository);
+    }
+
+    @Test
+    void deveBuscarNoCachePersistenteQuandoAusenteDoIndice() {
+        CepCache registro = new CepCache();
+        registro.setCep("30130010");
+        registro.setLogradouro("Praça Sete de Setembro");
+        registro.setBairro("Centro");
+        registro.setCidade("Belo Horizonte");
+        registro.setEstado("MG");
+        when(cepCacheRepository.findById("30130010")).thenReturn(Optional.of(registro));
+
+        assertTrue(cepDiretorioService.buscarNoIndice("30130010").isEmpty());
+        Optional<EnderecoCepResponseDTO> resultado = cepDiretorioService.buscarPersistido("30130010");
+
+        assertEquals("Belo Horizonte", resultado.orElseThrow().getCidade());
+        assertEquals(1, cepDiretorioService.obterEstatisticas().getHitsPersistente());
+    }
+
+    @Test
+    void deveGravarCepConsultadoNoViaCep() {
+        when(cepCacheRepository.findById("30130010")).thenReturn(Optional.empty());
+        EnderecoCepResponseDTO dto = new EnderecoCepResponseDTO();
+        dto.setCep("30130010");
+        dto.setLogradouro("Praça Sete de Setembro");
+        dto.setCidade("Belo Horizonte");
+        dto.setEstado("MG");
+
+        cepDiretorioService.armazenar(dto);
+
+        ArgumentCaptor<CepCache> captor = ArgumentCaptor.forClass(CepCache.class);
+        verify(cepCacheRepository).save(captor.capture());
+        assertEquals("30130010", captor.getValue().getCep());
+        assertEquals("MG", captor.getValue().getEstado());
+    }
+
+    @Test
+    void deveRecusarRecarregarSemArquivoConfigurado() {
+        assertThrows(IllegalArgumentException.class, () -> cepDiretorioService.recarregar());
+        verify(cepCacheRepository, never()).save(any());
+    }
+
+    private IndiceCep carregarIndice(String conteudo) throws IOException {
+        return IndiceCep.carregar(new BufferedReader(new StringReader(conteudo)));
+    }
+}
@@ -0,0 +1,200 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.dto.geocoding.GeocodingBackfillProgressoDTO;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.Endereco;
+import com.siseg.model.enumerations.SituacaoBackfill;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.service.GeocodingService;
+import com.siseg.util.TokenBucketRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingBackfillServiceUnitTest {
+
+    @Mock
+    private EnderecoRepository enderecoRepository;
+
+    @Mock
+    private GeocodingService geocodingService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TokenBucketRateLimiter locationIQRateLimiter;
+
+    private GeocodingBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        backfillService = new GeocodingBackfillService(enderecoRepository, geocodingService, jdbcTemplate,
+                locationIQRateLimiter, 3, 4, 1000);
+        lenient().when(locationIQRateLimiter.vagasDisponiveis()).thenReturn(3);
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] linhas = new int[((List<?>) invocation.getArgument(1)).size()];
+            Arrays.fill(linhas, 1);
+            return linhas;
+        });
+    }
+
+    @Test
+    void deveConsultarUmaVezPorEnderecoNormalizadoEGravarEmBatch() {
+        Endereco primeiro = criarEndereco(1L, "Rua Teste");
+        Endereco duplicado = criarEndereco(2L, "RUA  TESTE");
+        Endereco outro = criarEndereco(3L, "Avenida Paulista");
+        when(enderecoRepository.findSemCoordenadasAposId(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(primeiro, duplicado, outro));
+        when(enderecoRepository.findSemCoordenadasAposId(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class))).thenAnswer(invocation -> {
+            Endereco endereco = invocation.getArgument(0);
+            // Correção do logradouro pelo CEP
+            endereco.setLogradouro(endereco.getLogradouro().equals("Rua Teste") ? "Rua Teste Corrigida" : endereco.getLogradouro());
+            endereco.setLatitude(new BigDecimal("-23.5505"));
+            endereco.setLongitude(new BigDecimal("-46.6333"));
+            return Mono.just(endereco);
+        });
+
+        GeocodingBackfillProgressoDTO progresso = backfillService.executar(0);
+
+        verify(geocodingService, times(2)).geocodeAsyncEmSegundoPlano(any(Endereco.class));
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("latitude = ?"), linhas.capture());
+        assertEquals(List.of(1L, 2L, 3L), linhas.getValue().stream().map(linha -> linha[6]).toList());
+        assertEquals(List.of("Rua Teste Corrigida", "Rua Teste Corrigida", "Avenida Paulista"),
+                linhas.getValue().stream().map(linha -> linha[0]).toList());
+
+        assertEquals(SituacaoBackfill.CONCLUIDO, progresso.getSituacao());
+        assertEquals(3, progresso.getEnderecosLidos());
+        assertEquals(2, progresso.getConsultasRealizadas());
+        assertEquals(1, progresso.getDuplicadosAproveitados());
+        assertEquals(3, progresso.getEnderecosAtualizados());
+        assertEquals(0, progresso.getFalhas());
+        assertEquals(3, progresso.getUltimoIdProcessado());
+    }
+
+    @Test
+    void deveMarcarFalhasEAvancarAlemDelasPeloKeyset() {
+        when(enderecoRepository.findSemCoordenadasAposId(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(criarEndereco(11L, "Rua Sem Resultado")));
+        when(enderecoRepository.findSemCoordenadasAposId(eq(11L), any(Pageable.class))).thenReturn(List.of());
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        GeocodingBackfillProgressoDTO progresso = backfillService.executar(10);
+
+        verify(jdbcTemplate).batchUpdate(contains("FALHOU"), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(contains("latitude = ?"), anyList());
+        assertEquals(1, progresso.getFalhas());
+        assertEquals(11, progresso.getUltimoIdProcessado());
+    }
+
+    @Test
+    void deveConsultarDeNovoQuandoRateLimiterRecusaSemMarcarFalha() {
+        when(enderecoRepository.findSemCoordenadasAposId(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(criarEndereco(1L, "Rua Teste")));
+        when(enderecoRepository.findSemCoordenadasAposId(eq(1L), any(Pageable.class))).thenReturn(List.of());
+        when(locationIQRateLimiter.getIntervalo()).thenReturn(Duration.ofMillis(1));
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenReturn(Mono.error(new RateLimitExceededException("Limite atingido")))
+                .thenAnswer(invocation -> {
+                    Endereco endereco = invocation.getArgument(0);
+                    endereco.setLatitude(new BigDecimal("-23.5505"));
+                    endereco.setLongitude(new BigDecimal("-46.6333"));
+                    return Mono.just(endereco);
+                });
+
+        GeocodingBackfillProgressoDTO progresso = backfillService.executar(0);
+
+        verify(geocodingService, times(2)).geocodeAsyncEmSegundoPlano(any(Endereco.class));
+        verify(jdbcTemplate, never()).batchUpdate(contains("FALHOU"), anyList());
+        assertEquals(1, progresso.getConsultasAdiadasPeloLimite());
+        assertEquals(1, progresso.getEnderecosAtualizados());
+        assertEquals(0, progresso.getFalhas());
+    }
+
+    @Test
+    void deveInterromperComCursorAntesDoPendenteQuandoEsperaPeloLimiteEsgota() {
+        GeocodingBackfillService esperaCurta = new GeocodingBackfillService(enderecoRepository, geocodingService,
+                jdbcTemplate, locationIQRateLimiter, 3, 4, 50);
+        when(enderecoRepository.findSemCoordenadasAposId(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(criarEndereco(5L, "Rua Teste")));
+        when(locationIQRateLimiter.getIntervalo()).thenReturn(Duration.ofMillis(10));
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenReturn(Mono.error(new RateLimitExceededException("Limite atingido")));
+
+        GeocodingBackfillProgressoDTO progresso = esperaCurta.executar(0);
+
+        // Esperas de 10 e 20 ms; a de 40 ms passaria do máximo de 50 ms
+        verify(geocodingService, times(3)).geocodeAsyncEmSegundoPlano(any(Endereco.class));
+        verify(jdbcTemplate, never()).batchUpdate(contains("FALHOU"), anyList());
+        verify(jdbcTemplate, never()).update(GeocodingBackfillService.SQL_ATUALIZAR_CURSOR, 0L);
+        verify(jdbcTemplate).update(GeocodingBackfillService.SQL_ATUALIZAR_CURSOR, 4L);
+        assertEquals(SituacaoBackfill.INTERROMPIDO, progresso.getSituacao());
+        assertEquals(4, progresso.getUltimoIdProcessado());
+        assertNotNull(progresso.getErro());
+    }
+
+    @Test
+    void deveGravarCursorACadaLoteEVoltarAoInicioAoConcluir() {
+        when(enderecoRepository.findSemCoordenadasAposId(eq(7L), any(Pageable.class)))
+                .thenReturn(List.of(criarEndereco(8L, "Rua Sem Resultado")));
+        when(enderecoRepository.findSemCoordenadasAposId(eq(8L), any(Pageable.class))).thenReturn(List.of());
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(jdbcTemplate.update(GeocodingBackfillService.SQL_ATUALIZAR_CURSOR, 8L)).thenReturn(0);
+
+        GeocodingBackfillProgressoDTO progresso = backfillService.executar(7);
+
+        verify(jdbcTemplate).update(GeocodingBackfillService.SQL_INSERIR_CURSOR, 8L);
+        verify(jdbcTemplate).update(GeocodingBackfillService.SQL_ATUALIZAR_CURSOR, 0L);
+        assertEquals(8, progresso.getUltimoIdProcessado());
+    }
+
+    @Test
+    void deveInterromperPreservandoUltimoIdQuandoLeituraFalha() {
+        when(enderecoRepository.findSemCoordenadasAposId(eq(0L), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("conexão perdida"));
+
+        GeocodingBackfillProgressoDTO progresso = backfillService.executar(0);
+
+        assertEquals(SituacaoBackfill.INTERROMPIDO, progresso.getSituacao());
+        assertEquals("conexão perdida", progresso.getErro());
+        assertEquals(0, progresso.getUltimoIdProcessado());
+        assertNotNull(progresso.getFinalizadoEm());
+    }
+
+    @Test
+    void deveInformarQueNuncaFoiExecutado() {
+        assertEquals(SituacaoBackfill.NUNCA_EXECUTADO, backfillService.obterProgresso().getSituacao());
+    }
+
+    private Endereco criarEndereco(Long id, String logradouro) {
+        Endereco endereco = new Endereco();
+        endereco.setId(id);
+        endereco.setLogradouro(logradouro);
+        endereco.setNumero("100");
+        endereco.setBairro("Centro");
+        endereco.setCidade("São Paulo");
+        endereco.setEstado("SP");
+        endereco.setCep("01310100");
+        return endereco;
+    }
+}
@@ -0,0 +1,124 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.GeocodingCacheEstatisticasDTO;
+import com.siseg.model.GeocodingCache;
+import com.siseg.repository.GeocodingCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingCacheServiceUnitTest {
+
+    @Mock
+    private GeocodingCacheRepository geocodingCacheRepository;
+
+    private GeocodingCacheService geocodingCacheService;
+
+    private Coordinates coordenadas;
+
+    @BeforeEach
+    void setUp() {
+        geocodingCacheService = new GeocodingCacheService(geocodingCacheRepository, 100, 24);
+        coordenadas = new Coordinates(new BigDecimal("-23.5505"), new BigDecimal("-46.6333"));
+    }
+
+    @Test
+    void deveNormalizarChaveRemovendoAcentosEEspacos() {
+        String chave = GeocodingCacheService.normalizarChave("  Rua  São   João, 10, Centro, SÃO PAULO ");
+
+        assertEquals("rua sao joao, 10, centro, sao paulo", chave);
+    }
+
+    @Test
+    void deveRetornarDaMemoriaSemConsultarBanco() {
+        when(geocodingCacheRepository.findByChave(anyString())).thenReturn(Optional.empty());
+        geocodingCacheService.armazenar("Rua Teste, 123", coordenadas);
+        clearInvocations(geocodingCacheRepository);
+
+        Optional<Coordinates> resultado = geocodingCacheService.buscar("rua teste,  123");
+
+        assertTrue(resultado.isPresent());
+        assertEquals(coordenadas.getLatitude(), resultado.get().getLatitude());
+        verifyNoInteractions(geocodingCacheRepository);
+        assertEquals(1, geocodingCacheService.obterEstatisticas().getHitsMemoria());
+    }
+
+    @Test
+    void deveBuscarNoNivelPersistenteQuandoAusenteNaMemoria() {
+        GeocodingCache registro = criarRegistro("rua teste, 123", Instant.now().plusSeconds(3600));
+        when(geocodingCacheRepository.findByChave("rua teste, 123")).thenReturn(Optional.of(registro));
+
+        Optional<Coordinates> primeiro = geocodingCacheService.buscar("Rua Teste, 123");
+        Optional<Coordinates> segundo = geocodingCacheService.buscar("Rua Teste, 123");
+
+        assertTrue(primeiro.isPresent());
+        assertTrue(segundo.isPresent());
+        verify(geocodingCacheRepository, times(1)).findByChave("rua teste, 123");
+
+        GeocodingCacheEstatisticasDTO estatisticas = geocodingCacheService.obterEstatisticas();
+        assertEquals(1, estatisticas.getHitsPersistente());
+        assertEquals(1, estatisticas.getHitsMemoria());
+        assertEquals(0, estatisticas.getMisses());
+    }
+
+    @Test
+    void deveIgnorarRegistroPersistenteExpirado() {
+        GeocodingCache registro = criarRegistro("rua teste, 123", Instant.now().minusSeconds(60));
+        when(geocodingCacheRepository.findByChave("rua teste, 123")).thenReturn(Optional.of(registro));
+
+        Optional<Coordinates> resultado = geocodingCacheService.buscar("Rua Teste, 123");
+
+        assertTrue(resultado.isEmpty());
+        assertEquals(1, geocodingCacheService.obterEstatisticas().getMisses());
+    }
+
+    @Test
+    void deveAtualizarRegistroExistenteAoArmazenar() {
+        GeocodingCache existente = criarRegistro("rua teste, 123", Instant.now().plusSeconds(60));
+        when(geocodingCacheRepository.findByChave("rua teste, 123")).thenReturn(Optional.of(existente));
+
+        geocodingCacheService.armazenar("Rua Teste, 123", coordenadas);
+
+        verify(geocodingCacheRepository).save(existente);
+        assertTrue(existente.getExpiraEm().isAfter(Instant.now().plusSeconds(3600)));
+    }
+
+    @Test
+    void deveAquecerMemoriaComRegistrosPersistidos() {
+        GeocodingCache registro = criarRegistro("rua aquecida, 1", Instant.now().plusSeconds(3600));
+        when(geocodingCacheRepository.findByExpiraEmAfterOrderByCriadoEmDesc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(registro));
+
+        geocodingCacheService.aquecer();
+        Optional<Coordinates> resultado = geocodingCacheService.buscar("Rua Aquecida, 1");
+
+        assertTrue(resultado.isPresent());
+        verify(geocodingCacheRepository).deleteExpirados(any(Instant.class));
+        verify(geocodingCacheRepository, never()).findByChave(anyString());
+        assertEquals(1, geocodingCacheService.obterEstatisticas().getEntradasAquecidas());
+    }
+
+    private GeocodingCache criarRegistro(String chave, Instant expiraEm) {
+        GeocodingCache registro = new GeocodingCache();
+        registro.setChave(chave);
+        registro.setLatitude(coordenadas.getLatitude());
+        registro.setLongitude(coordenadas.getLongitude());
+        registro.setExpiraEm(expiraEm);
+        return registro;
+    }
+}
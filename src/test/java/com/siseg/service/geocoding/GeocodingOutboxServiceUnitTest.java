@@ -0,0 +1,182 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.model.Endereco;
+import com.siseg.model.GeocodingOutbox;
+import com.siseg.model.enumerations.StatusGeocodificacao;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.repository.GeocodingOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingOutboxServiceUnitTest {
+
+    @Mock
+    private GeocodingOutboxRepository outboxRepository;
+
+    @Mock
+    private EnderecoRepository enderecoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private GeocodingOutboxService outboxService;
+
+    private Endereco endereco;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new GeocodingOutboxService(outboxRepository, enderecoRepository, eventPublisher,
+                6, 30000, 3600000, 120);
+
+        endereco = new Endereco();
+        endereco.setId(10L);
+        endereco.setStatusGeocodificacao(StatusGeocodificacao.CONCLUIDA);
+    }
+
+    @Test
+    void deveCriarItemEPublicarEventoAoEnfileirar() {
+        when(outboxRepository.findByEnderecoId(10L)).thenReturn(Optional.empty());
+
+        outboxService.enfileirar(endereco);
+
+        ArgumentCaptor<GeocodingOutbox> captor = ArgumentCaptor.forClass(GeocodingOutbox.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals(10L, captor.getValue().getEnderecoId());
+        assertEquals(0, captor.getValue().getTentativas());
+        assertEquals(StatusGeocodificacao.PENDENTE, endereco.getStatusGeocodificacao());
+        verify(eventPublisher).publishEvent(new GeocodificacaoSolicitadaEvent(10L));
+    }
+
+    @Test
+    void deveReiniciarItemExistenteAoEnfileirar() {
+        GeocodingOutbox existente = criarItem(4, Instant.now().plusSeconds(600));
+        existente.setUltimoErro("timeout");
+        when(outboxRepository.findByEnderecoId(10L)).thenReturn(Optional.of(existente));
+
+        outboxService.enfileirar(endereco);
+
+        verify(outboxRepository).save(existente);
+        assertEquals(0, existente.getTentativas());
+        assertNull(existente.getUltimoErro());
+        assertFalse(existente.getProximaTentativaEm().isAfter(Instant.now()));
+    }
+
+    @Test
+    void deveDevolverApenasItensReservadosPorEstaInstancia() {
+        Instant vencido = Instant.now().minusSeconds(5);
+        GeocodingOutbox livre = criarItem(0, vencido);
+        GeocodingOutbox disputado = criarItem(0, vencido);
+        disputado.setId(2L);
+        when(outboxRepository.findByProximaTentativaEmLessThanEqualOrderByProximaTentativaEm(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(livre, disputado));
+        when(outboxRepository.reservar(eq(1L), eq(vencido), any(Instant.class))).thenReturn(1);
+        when(outboxRepository.reservar(eq(2L), eq(vencido), any(Instant.class))).thenReturn(0);
+
+        List<GeocodingOutbox> reservados = outboxService.reservarLote(10);
+
+        assertEquals(List.of(livre), reservados);
+        assertTrue(livre.getProximaTentativaEm().isAfter(Instant.now().plusSeconds(60)));
+    }
+
+    @Test
+    void deveGravarCoordenadasECamposCorrigidosAoConcluir() {
+        GeocodingOutbox item = criarItem(0, Instant.now().plusSeconds(120));
+        when(outboxRepository.removerReservado(1L, item.getProximaTentativaEm())).thenReturn(1);
+
+        outboxService.concluir(item, geocodificado());
+
+        verify(enderecoRepository).atualizarGeocodificacao(10L, "Avenida Paulista", "Bela Vista", "São Paulo", "SP",
+                new BigDecimal("-23.5505"), new BigDecimal("-46.6333"));
+        assertEquals(1, outboxService.obterEstatisticas().getConcluidos());
+    }
+
+    @Test
+    void naoDeveGravarCoordenadasQuandoEnderecoFoiReenfileirado() {
+        GeocodingOutbox item = criarItem(0, Instant.now().plusSeconds(120));
+        when(outboxRepository.removerReservado(1L, item.getProximaTentativaEm())).thenReturn(0);
+
+        outboxService.concluir(item, geocodificado());
+
+        verify(enderecoRepository, never()).atualizarGeocodificacao(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deveReagendarComBackoffExponencial() {
+        GeocodingOutbox item = criarItem(2, Instant.now().plusSeconds(120));
+        when(outboxRepository.reagendarReservado(eq(1L), eq(item.getProximaTentativaEm()), eq(3), any(Instant.class), anyString()))
+                .thenReturn(1);
+
+        Instant antes = Instant.now();
+        outboxService.registrarFalha(item, "Coordenadas não encontradas");
+
+        ArgumentCaptor<Instant> proxima = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).reagendarReservado(eq(1L), any(Instant.class), eq(3), proxima.capture(), anyString());
+        Duration atraso = Duration.between(antes, proxima.getValue());
+        assertTrue(atraso.getSeconds() >= 119 && atraso.getSeconds() <= 121, "atraso esperado de 4 x 30s: " + atraso);
+        verify(enderecoRepository, never()).atualizarStatusGeocodificacao(any(), any());
+    }
+
+    @Test
+    void deveMarcarEnderecoComoFalhouAoEsgotarTentativas() {
+        GeocodingOutbox item = criarItem(5, Instant.now().plusSeconds(120));
+        when(outboxRepository.removerReservado(1L, item.getProximaTentativaEm())).thenReturn(1);
+
+        outboxService.registrarFalha(item, "timeout");
+
+        verify(enderecoRepository).atualizarStatusGeocodificacao(10L, StatusGeocodificacao.FALHOU);
+        verify(outboxRepository, never()).reagendarReservado(any(), any(), anyInt(), any(), any());
+        assertEquals(1, outboxService.obterEstatisticas().getFalhasDefinitivas());
+    }
+
+    @Test
+    void deveAdiarSemContarTentativa() {
+        GeocodingOutbox item = criarItem(5, Instant.now().plusSeconds(120));
+        item.setUltimoErro("timeout");
+        when(outboxRepository.reagendarReservado(eq(1L), eq(item.getProximaTentativaEm()), eq(5), any(Instant.class), eq("timeout")))
+                .thenReturn(1);
+
+        outboxService.adiar(item, Duration.ofSeconds(2));
+
+        verify(enderecoRepository, never()).atualizarStatusGeocodificacao(any(), any());
+        assertEquals(1, outboxService.obterEstatisticas().getAdiadosPeloLimite());
+        assertEquals(0, outboxService.obterEstatisticas().getReagendados());
+    }
+
+    private Endereco geocodificado() {
+        Endereco geocodificado = new Endereco();
+        geocodificado.setId(10L);
+        geocodificado.setLogradouro("Avenida Paulista");
+        geocodificado.setBairro("Bela Vista");
+        geocodificado.setCidade("São Paulo");
+        geocodificado.setEstado("SP");
+        geocodificado.setLatitude(new BigDecimal("-23.5505"));
+        geocodificado.setLongitude(new BigDecimal("-46.6333"));
+        return geocodificado;
+    }
+
+    private GeocodingOutbox criarItem(int tentativas, Instant proximaTentativa) {
+        GeocodingOutbox item = new GeocodingOutbox();
+        item.setId(1L);
+        item.setEnderecoId(10L);
+        item.setTentativas(tentativas);
+        item.setProximaTentativaEm(proximaTentativa);
+        return item;
+    }
+}
@@ -0,0 +1,124 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.Endereco;
+import com.siseg.model.GeocodingOutbox;
+import com.siseg.repository.EnderecoRepository;
+import com.siseg.service.GeocodingService;
+import com.siseg.util.TokenBucketRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingOutboxWorkerUnitTest {
+
+    @Mock
+    private GeocodingOutboxService outboxService;
+
+    @Mock
+    private EnderecoRepository enderecoRepository;
+
+    @Mock
+    private GeocodingService geocodingService;
+
+    @Mock
+    private TokenBucketRateLimiter locationIQRateLimiter;
+
+    private GeocodingOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new GeocodingOutboxWorker(outboxService, enderecoRepository, geocodingService,
+                locationIQRateLimiter, 2, 4);
+        lenient().when(locationIQRateLimiter.vagasDisponiveis()).thenReturn(2);
+    }
+
+    @Test
+    void deveConcluirItemComEnderecoCorrigidoPelaGeocodificacao() {
+        GeocodingOutbox item = criarItem(1L, 10L);
+        Endereco endereco = criarEndereco(10L);
+        when(outboxService.reservarLote(2)).thenReturn(List.of(item));
+        when(enderecoRepository.findById(10L)).thenReturn(Optional.of(endereco));
+        when(geocodingService.geocodeAsyncEmSegundoPlano(endereco)).thenAnswer(invocation -> {
+            endereco.setLogradouro("Avenida Paulista");
+            endereco.setLatitude(new BigDecimal("-23.5505"));
+            endereco.setLongitude(new BigDecimal("-46.6333"));
+            return Mono.just(endereco);
+        });
+
+        worker.processarPendentes();
+
+        verify(outboxService).concluir(item, endereco);
+        assertEquals("Avenida Paulista", endereco.getLogradouro());
+        verify(outboxService, never()).registrarFalha(any(), any());
+    }
+
+    @Test
+    void deveAdiarSemContarTentativaEPararQuandoRateLimiterRecusa() {
+        GeocodingOutbox primeiro = criarItem(1L, 10L);
+        GeocodingOutbox segundo = criarItem(2L, 20L);
+        when(outboxService.reservarLote(2)).thenReturn(List.of(primeiro, segundo));
+        when(enderecoRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(criarEndereco(invocation.getArgument(0))));
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenReturn(Mono.error(new RateLimitExceededException("Limite atingido")));
+        when(locationIQRateLimiter.getIntervalo()).thenReturn(Duration.ofSeconds(1));
+
+        worker.processarPendentes();
+
+        verify(outboxService).adiar(primeiro, Duration.ofSeconds(1));
+        verify(outboxService).adiar(segundo, Duration.ofSeconds(1));
+        verify(outboxService, never()).registrarFalha(any(), any());
+        verify(outboxService, times(1)).reservarLote(anyInt());
+    }
+
+    @Test
+    void deveRegistrarFalhaQuandoConsultaFalha() {
+        GeocodingOutbox item = criarItem(1L, 10L);
+        when(outboxService.reservarLote(2)).thenReturn(List.of(item));
+        when(enderecoRepository.findById(10L)).thenReturn(Optional.of(criarEndereco(10L)));
+        when(geocodingService.geocodeAsyncEmSegundoPlano(any(Endereco.class)))
+                .thenReturn(Mono.error(new IllegalStateException("timeout")));
+
+        worker.processarPendentes();
+
+        verify(outboxService).registrarFalha(item, "timeout");
+        verify(outboxService, never()).adiar(any(), any());
+    }
+
+    @Test
+    void naoDeveReservarItensSemVagaNoRateLimiter() {
+        when(locationIQRateLimiter.vagasDisponiveis()).thenReturn(0);
+
+        worker.processarPendentes();
+
+        verify(outboxService, never()).reservarLote(anyInt());
+    }
+
+    private GeocodingOutbox criarItem(Long id, Long enderecoId) {
+        GeocodingOutbox item = new GeocodingOutbox();
+        item.setId(id);
+        item.setEnderecoId(enderecoId);
+        item.setProximaTentativaEm(Instant.now().plusSeconds(120));
+        return item;
+    }
+
+    private Endereco criarEndereco(Long id) {
+        Endereco endereco = new Endereco();
+        endereco.setId(id);
+        return endereco;
+    }
+}
@@ -0,0 +1,85 @@
+package com.siseg.service.geocoding;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.RotaCacheEstatisticasDTO;
+import com.siseg.dto.geocoding.RouteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RotaCacheServiceUnitTest {
+
+    private RotaCacheService rotaCacheService;
+
+    @BeforeEach
+    void setUp() {
+        rotaCacheService = new RotaCacheService(64, 600, 0.0005);
+    }
+
+    @Test
+    void deveCompartilharEntradaParaPontosNaMesmaCelulaDaGrade() {
+        RotaChave chave = criarChave("-23.55010", "-46.63330", "driving", false);
+        rotaCacheService.armazenar(chave, new RouteResult(new BigDecimal("3.20"), 9));
+
+        Optional<RouteResult> resultado = rotaCacheService.buscar(criarChave("-23.55020", "-46.63340", "driving", false));
+
+        assertTrue(resultado.isPresent());
+        assertEquals(new BigDecimal("3.20"), resultado.get().getDistanciaKm());
+        assertEquals(1, rotaCacheService.obterEstatisticas().getHits());
+    }
+
+    @Test
+    void deveSepararEntradasPorProfileEWaypoints() {
+        rotaCacheService.armazenar(criarChave("-23.55050", "-46.63330", "driving", false),
+                new RouteResult(new BigDecimal("3.20"), 9));
+
+        assertTrue(rotaCacheService.buscar(criarChave("-23.55050", "-46.63330", "cycling", false)).isEmpty());
+        assertTrue(rotaCacheService.buscar(criarChave("-23.55050", "-46.63330", "driving", true)).isEmpty());
+        assertTrue(rotaCacheService.buscar(criarChave("-23.56050", "-46.63330", "driving", false)).isEmpty());
+    }
+
+    @Test
+    void deveProtegerWaypointsArmazenadosContraAlteracao() {
+        List<Coordinates> waypoints = new ArrayList<>(criarWaypoints(3));
+        RotaChave chave = criarChave("-23.55050", "-46.63330", "driving", true);
+        rotaCacheService.armazenar(chave, new RouteResult(new BigDecimal("1.00"), 3, waypoints));
+        waypoints.clear();
+
+        RouteResult resultado = rotaCacheService.buscar(chave).orElseThrow();
+
+        assertEquals(3, resultado.getWaypoints().size());
+        assertThrows(UnsupportedOperationException.class, () -> resultado.getWaypoints().clear());
+    }
+
+    @Test
+    void deveRemoverEntradasQuandoPesoExcedeLimite() {
+        for (int i = 0; i < 10; i++) {
+            RotaChave chave = criarChave("-23." + (5000 + i * 10), "-46.63330", "driving", true);
+            rotaCacheService.armazenar(chave, new RouteResult(BigDecimal.ONE, 1, criarWaypoints(200)));
+        }
+        rotaCacheService.buscar(criarChave("-23.5000", "-46.63330", "driving", true));
+
+        RotaCacheEstatisticasDTO estatisticas = rotaCacheService.obterEstatisticas();
+        assertTrue(estatisticas.getPesoEstimadoKb() <= estatisticas.getPesoMaximoKb());
+        assertTrue(estatisticas.getEntradas() < 10);
+    }
+
+    private RotaChave criarChave(String origemLat, String origemLon, String profile, boolean comWaypoints) {
+        return rotaCacheService.criarChave(new BigDecimal(origemLat), new BigDecimal(origemLon),
+                new BigDecimal("-23.56000"), new BigDecimal("-46.64000"), profile, comWaypoints);
+    }
+
+    private List<Coordinates> criarWaypoints(int quantidade) {
+        List<Coordinates> waypoints = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            waypoints.add(new Coordinates(BigDecimal.valueOf(-23.55 + i * 0.0001), BigDecimal.valueOf(-46.63)));
+        }
+        return waypoints;
+    }
+}
@@ -21,6 +21,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -57,6 +58,9 @@ class PedidoEntregadorServiceTest {
     @Mock
     private PedidoNotificacaoService pedidoNotificacaoService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PedidoEntregadorService pedidoEntregadorService;
 
@@ -270,6 +274,7 @@ class PedidoEntregadorServiceTest {
         assertEquals(StatusPedido.DELIVERED, pedido.getStatus());
         verify(pedidoFinanceiroService).calcularEAtualizarValoresPosEntrega(pedido);
         verify(pedidoRepository).save(pedido);
+        verify(eventPublisher).publishEvent(new PedidoEncerradoEvent(1L));
     }
 
     @Test
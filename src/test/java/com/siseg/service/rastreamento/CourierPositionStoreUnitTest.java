@@ -0,0 +1,111 @@
+package com.siseg.service.rastreamento;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourierPositionStoreUnitTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CourierPositionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CourierPositionStore(jdbcTemplate, 60);
+    }
+
+    @Test
+    void deveCoalescerAtualizacoesNumaUnicaLinhaPorEntregador() {
+        store.atualizar(1L, -23.5505, -46.6333);
+        store.atualizar(1L, -23.5510, -46.6340);
+        store.atualizar(2L, -23.5600, -46.6500);
+        verifyNoInteractions(jdbcTemplate);
+
+        store.gravarPendentes();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), lote.capture());
+        assertEquals(2, lote.getValue().size());
+        Object[] entregador1 = lote.getValue().stream().filter(linha -> linha[2].equals(1L)).findFirst().orElseThrow();
+        assertEquals(new BigDecimal("-23.55100000"), entregador1[0]);
+        assertEquals(new BigDecimal("-46.63400000"), entregador1[1]);
+        assertEquals(3, store.obterEstatisticas().getAtualizacoes());
+        assertEquals(2, store.obterEstatisticas().getLinhasGravadas());
+
+        clearInvocations(jdbcTemplate);
+        store.gravarPendentes();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void deveManterPendentesQuandoGravacaoFalha() {
+        store.atualizar(1L, -23.5505, -46.6333);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Banco indisponível"));
+
+        store.gravarPendentes();
+
+        assertEquals(1, store.obterEstatisticas().getGravacoesPendentes());
+        assertEquals(0, store.obterEstatisticas().getLinhasGravadas());
+    }
+
+    @Test
+    void naoDeveRegravarPosicaoJaPersistidaPorOutroCaminho() {
+        store.atualizar(1L, -23.5505, -46.6333);
+
+        store.registrarPersistida(1L, new BigDecimal("-23.56310000"), new BigDecimal("-46.65420000"));
+        store.encerrar();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(-23.5631, store.obter(1L).orElseThrow().latitude());
+    }
+
+    @Test
+    void deveAplicarPosicaoPersistidaSomenteAposCommit() {
+        store.atualizar(1L, -23.5505, -46.6333);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.registrarPersistida(1L, new BigDecimal("-23.56310000"), new BigDecimal("-46.65420000"));
+
+            assertEquals(-23.5505, store.obter(1L).orElseThrow().latitude());
+            assertEquals(1, store.obterEstatisticas().getGravacoesPendentes());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(-23.5631, store.obter(1L).orElseThrow().latitude());
+        assertEquals(0, store.obterEstatisticas().getGravacoesPendentes());
+    }
+
+    @Test
+    void deveRemoverPosicoesGravadasSemAtualizacaoRecente() throws InterruptedException {
+        CourierPositionStore semRetencao = new CourierPositionStore(jdbcTemplate, 0);
+        semRetencao.registrarPersistida(1L, new BigDecimal("-23.5505"), new BigDecimal("-46.6333"));
+        semRetencao.atualizar(2L, -23.5600, -46.6500);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Banco indisponível"));
+        Thread.sleep(5);
+
+        semRetencao.gravarPendentes();
+
+        assertTrue(semRetencao.obter(1L).isEmpty());
+        assertTrue(semRetencao.obter(2L).isPresent(), "posição ainda não gravada não pode sair da memória");
+    }
+}
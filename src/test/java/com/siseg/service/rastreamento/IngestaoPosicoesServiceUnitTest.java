@@ -0,0 +1,229 @@
+package com.siseg.service.rastreamento;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.rastreamento.PontoGpsDTO;
+import com.siseg.exception.AccessDeniedException;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.model.Entregador;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.repository.EntregadorRepository;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import com.siseg.service.routing.ActiveRouteRegistry;
+import com.siseg.service.routing.RotaAtiva;
+import com.siseg.util.SecurityUtils;
+import com.siseg.util.SegmentoPosicoesCodec;
+import com.siseg.util.WaypointCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestaoPosicoesServiceUnitTest {
+
+    @Mock
+    private CourierPositionStore courierPositionStore;
+
+    @Mock
+    private ActiveRouteRegistry activeRouteRegistry;
+
+    @Mock
+    private PosicaoHistoricoService posicaoHistoricoService;
+
+    @Mock
+    private RastreamentoPublisher rastreamentoPublisher;
+
+    @Mock
+    private EntregadorRepository entregadorRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    private MockedStatic<SecurityUtils> securityUtils;
+
+    private IngestaoPosicoesService service;
+
+    private long agora;
+
+    @BeforeEach
+    void setUp() {
+        securityUtils = mockStatic(SecurityUtils.class);
+        securityUtils.when(SecurityUtils::getCurrentUserId).thenReturn(5L);
+        service = novoService(8);
+        agora = System.currentTimeMillis();
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtils.close();
+    }
+
+    @Test
+    void deveConsultarEntregadorEPedidoUmaVezEProcessarForaDaRequisicao() {
+        entregadorEmEntrega(1L);
+
+        service.receber(List.of(ponto(agora - 2000, -23.5505, -46.6333), ponto(agora - 1000, -23.5506, -46.6334)));
+        service.receber(List.of(ponto(agora, -23.5507, -46.6335)));
+
+        verifyNoInteractions(courierPositionStore, posicaoHistoricoService, rastreamentoPublisher);
+        assertEquals(3, service.processarPendentes());
+
+        verify(entregadorRepository, times(1)).findByUserId(5L);
+        verify(pedidoRepository, times(1)).findIdsByEntregadorIdAndStatus(10L, StatusPedido.OUT_FOR_DELIVERY);
+        verify(activeRouteRegistry, times(1)).obter(1L);
+        verify(courierPositionStore).atualizar(10L, -23.5507, -46.6335);
+        verify(posicaoHistoricoService).registrar(1L, 10L, -23.5505, -46.6333, agora - 2000);
+        verify(rastreamentoPublisher, times(3)).notificarMovimento(1L);
+        assertEquals(3, service.obterEstatisticas().getProcessados());
+        assertTrue(service.recebendoGps(10L));
+    }
+
+    @Test
+    void deveAcordarConsumidorEstacionadoAoPublicar() {
+        entregadorEmEntrega(1L);
+        service.iniciar();
+        try {
+            service.receber(List.of(ponto(agora, -23.5505, -46.6333)));
+
+            verify(courierPositionStore, timeout(2000)).atualizar(10L, -23.5505, -46.6333);
+        } finally {
+            service.encerrar();
+        }
+    }
+
+    @Test
+    void deveAvancarRotaSomenteComPosicaoSobreARota() {
+        entregadorEmEntrega(1L);
+        // Trecho reto para leste no equador, três segmentos de ~1 km, indo para o waypoint 1
+        RotaAtiva rota = new RotaAtiva(1L, 1L, WaypointCodec.codificar(List.of(
+                coordenada("0.0", "0.0"), coordenada("0.0", "0.008993"),
+                coordenada("0.0", "0.017986"), coordenada("0.0", "0.026979"))), 1, 600, 0);
+        when(activeRouteRegistry.obterEmMemoria(1L)).thenReturn(Optional.of(rota));
+
+        service.receber(List.of(ponto(agora - 1000, 0.05, 0.013), ponto(agora, 0.0001, 0.013)));
+        service.processarPendentes();
+
+        assertEquals(2, rota.getIndiceAtual());
+        assertEquals(1, service.obterEstatisticas().getWaypointsAvancados());
+    }
+
+    @Test
+    void deveDescartarPontosComInstanteJaProcessado() {
+        entregadorEmEntrega(1L);
+
+        service.receber(List.of(ponto(agora, -23.5505, -46.6333)));
+        service.receber(List.of(ponto(agora - 1000, -23.5600, -46.6500), ponto(agora, -23.5600, -46.6500)));
+        service.processarPendentes();
+
+        verify(courierPositionStore, times(1)).atualizar(anyLong(), anyDouble(), anyDouble());
+        assertEquals(2, service.obterEstatisticas().getDescartados());
+    }
+
+    @Test
+    void deveSoAtualizarPosicaoQuandoEntregadorNaoTemPedidoEmEntrega() {
+        when(entregadorRepository.findByUserId(5L)).thenReturn(Optional.of(entregador(10L)));
+        when(pedidoRepository.findIdsByEntregadorIdAndStatus(10L, StatusPedido.OUT_FOR_DELIVERY)).thenReturn(List.of());
+
+        service.receber(List.of(ponto(agora, -23.5505, -46.6333)));
+        service.processarPendentes();
+
+        verify(courierPositionStore).atualizar(10L, -23.5505, -46.6333);
+        verifyNoInteractions(activeRouteRegistry, posicaoHistoricoService, rastreamentoPublisher);
+    }
+
+    @Test
+    void deveConsultarPedidoNovamenteDepoisDaEntrega() {
+        entregadorEmEntrega(1L);
+        service.receber(List.of(ponto(agora - 1000, -23.5505, -46.6333)));
+
+        service.aoEncerrarPedido(new PedidoEncerradoEvent(1L));
+        service.receber(List.of(ponto(agora, -23.5505, -46.6333)));
+
+        verify(pedidoRepository, times(2)).findIdsByEntregadorIdAndStatus(10L, StatusPedido.OUT_FOR_DELIVERY);
+    }
+
+    @Test
+    void deveRecusarLoteInteiroQuandoFilaEstaCheia() {
+        entregadorEmEntrega(1L);
+        service = novoService(4);
+
+        service.receber(List.of(ponto(agora - 2000, 0, 0), ponto(agora - 1000, 0, 0), ponto(agora, 0, 0)));
+
+        assertThrows(RateLimitExceededException.class,
+                () -> service.receber(List.of(ponto(agora, 0, 0), ponto(agora, 0, 0))));
+        assertEquals(3, service.obterEstatisticas().getRecebidos());
+        assertEquals(2, service.obterEstatisticas().getRecusados());
+        assertEquals(3, service.obterEstatisticas().getPendentes());
+    }
+
+    @Test
+    void deveValidarLoteAntesDeConsultarOBanco() {
+        List<PontoGpsDTO> grande = java.util.Collections.nCopies(101, ponto(agora, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> service.receber(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> service.receber(grande));
+        assertThrows(IllegalArgumentException.class, () -> service.receber(List.of(ponto(agora, 91, 0))));
+        assertThrows(IllegalArgumentException.class, () -> service.receber(List.of(ponto(agora + 3_600_000, 0, 0))));
+        assertThrows(IllegalArgumentException.class, () -> service.receberCodificado(new byte[]{1, 5, 1}));
+        verifyNoInteractions(entregadorRepository, pedidoRepository);
+    }
+
+    @Test
+    void deveRecusarUsuarioQueNaoEEntregador() {
+        when(entregadorRepository.findByUserId(5L)).thenReturn(Optional.empty());
+
+        assertThrows(AccessDeniedException.class, () -> service.receber(List.of(ponto(agora, 0, 0))));
+        assertEquals(0, service.obterEstatisticas().getPendentes());
+    }
+
+    @Test
+    void deveAceitarLoteNoFormatoCompacto() {
+        entregadorEmEntrega(1L);
+        byte[] corpo = SegmentoPosicoesCodec.codificar(new long[]{agora - 1000, agora},
+                new int[]{SegmentoPosicoesCodec.paraMicrograus(-23.5505), SegmentoPosicoesCodec.paraMicrograus(-23.5510)},
+                new int[]{SegmentoPosicoesCodec.paraMicrograus(-46.6333), SegmentoPosicoesCodec.paraMicrograus(-46.6340)},
+                0, 2);
+
+        assertEquals(2, service.receberCodificado(corpo));
+        service.processarPendentes();
+
+        verify(courierPositionStore).atualizar(10L, -23.551, -46.634);
+        verify(posicaoHistoricoService).registrar(1L, 10L, -23.5505, -46.6333, agora - 1000);
+    }
+
+    private IngestaoPosicoesService novoService(int capacidade) {
+        return new IngestaoPosicoesService(courierPositionStore, activeRouteRegistry, posicaoHistoricoService,
+                rastreamentoPublisher, entregadorRepository, pedidoRepository, capacidade, 100, 10_000, 30_000, 150);
+    }
+
+    private void entregadorEmEntrega(Long pedidoId) {
+        when(entregadorRepository.findByUserId(5L)).thenReturn(Optional.of(entregador(10L)));
+        when(pedidoRepository.findIdsByEntregadorIdAndStatus(10L, StatusPedido.OUT_FOR_DELIVERY)).thenReturn(List.of(pedidoId));
+    }
+
+    private Entregador entregador(Long id) {
+        Entregador entregador = new Entregador();
+        entregador.setId(id);
+        return entregador;
+    }
+
+    private PontoGpsDTO ponto(long instante, double latitude, double longitude) {
+        return new PontoGpsDTO(instante, latitude, longitude);
+    }
+
+    private Coordinates coordenada(String latitude, String longitude) {
+        return new Coordinates(new BigDecimal(latitude), new BigDecimal(longitude));
+    }
+}
@@ -0,0 +1,173 @@
+package com.siseg.service.rastreamento;
+
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import com.siseg.util.SegmentoPosicoesCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PosicaoHistoricoServiceUnitTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PosicaoHistoricoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PosicaoHistoricoService(jdbcTemplate, 1);
+    }
+
+    @Test
+    void deveFecharSegmentoAoCompletarADuracaoEGravarEmLote() {
+        for (int i = 0; i <= 60; i++) {
+            service.registrar(1L, 10L, -23.5505 - i * 0.0001, -46.6333, INICIO + i * 1000L);
+        }
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(1, service.segmentosPendentes());
+
+        service.encerrar();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO posicao_historico"), lote.capture());
+        assertEquals(2, lote.getValue().size());
+        Object[] primeiro = lote.getValue().get(0);
+        assertEquals(1L, primeiro[0]);
+        assertEquals(10L, primeiro[1]);
+        assertEquals(60, primeiro[4]);
+        assertEquals(60, SegmentoPosicoesCodec.contar((byte[]) primeiro[5]));
+        assertEquals(1, lote.getValue().get(1)[4]);
+        assertEquals(0, service.segmentosAbertos());
+    }
+
+    @Test
+    void deveDescartarPontosRepetidosOuForaDeOrdem() {
+        service.registrar(1L, 10L, -23.5505, -46.6333, INICIO);
+        service.registrar(1L, 10L, -23.5505, -46.6333, INICIO + 1000);
+        service.registrar(1L, 10L, -23.5510, -46.6340, INICIO - 1000);
+        service.registrar(1L, 10L, -23.5510, -46.6340, INICIO + 2000);
+
+        List<long[]> pontos = new ArrayList<>();
+        service.percorrerTrilha(1L, (instante, latitude, longitude) -> pontos.add(new long[]{instante}));
+
+        assertEquals(2, pontos.size());
+        assertEquals(INICIO + 2000, pontos.get(1)[0]);
+    }
+
+    @Test
+    void deveGravarSegmentoAoEncerrarPedido() {
+        service.registrar(1L, 10L, -23.5505, -46.6333, INICIO);
+        service.registrar(2L, 20L, -23.5600, -46.6500, INICIO);
+
+        service.aoEncerrarPedido(new PedidoEncerradoEvent(1L));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), lote.capture());
+        assertEquals(1, lote.getValue().size());
+        assertEquals(1L, lote.getValue().get(0)[0]);
+        assertEquals(1, service.segmentosAbertos());
+    }
+
+    @Test
+    void deveManterSegmentosNaFilaQuandoGravacaoFalha() {
+        service.registrar(1L, 10L, -23.5505, -46.6333, INICIO);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Banco indisponível"));
+
+        service.gravarSegmentos();
+
+        assertEquals(0, service.segmentosAbertos());
+        assertEquals(1, service.segmentosPendentes());
+    }
+
+    @Test
+    void deveRegravarLoteQueFalhouAntesDosSegmentosMaisNovos() {
+        service.registrar(1L, 10L, -23.5505, -46.6333, INICIO);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new RuntimeException("Banco indisponível"))
+                .thenReturn(new int[0]);
+        service.gravarSegmentos();
+
+        service.registrar(1L, 10L, -23.5510, -46.6340, INICIO + 120_000);
+        service.gravarSegmentos();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), lotes.capture());
+        List<Object[]> regravado = lotes.getAllValues().get(1);
+        assertEquals(2, regravado.size());
+        assertEquals(new Timestamp(INICIO), regravado.get(0)[2]);
+        assertEquals(new Timestamp(INICIO + 120_000), regravado.get(1)[2]);
+        assertEquals(0, service.segmentosPendentes());
+    }
+
+    @Test
+    void devePercorrerTrilhaPorPaginasEDepoisOsSegmentosEmMemoria() throws SQLException {
+        // Página cheia com um segmento por minuto, uma página com o último gravado e depois a memória.
+        // Os ids crescem ao contrário dos instantes, como quando um lote que falhou é gravado depois.
+        List<Object[]> gravados = new ArrayList<>();
+        int total = PosicaoHistoricoService.SEGMENTOS_POR_PAGINA + 1;
+        for (int i = 0; i < total; i++) {
+            long instante = INICIO + i * 60_000L;
+            gravados.add(new Object[]{(long) (total - i), new Timestamp(instante),
+                    SegmentoPosicoesCodec.codificar(new long[]{instante}, new int[]{i}, new int[]{i}, 0, 1)});
+        }
+        Answer<Void> pagina = invocacao -> {
+            RowCallbackHandler handler = invocacao.getArgument(1);
+            Timestamp depoisDe = invocacao.getArguments().length > 3 ? invocacao.getArgument(3) : null;
+            long depoisDoId = invocacao.getArguments().length > 3 ? invocacao.getArgument(5) : 0;
+            int lidas = 0;
+            for (Object[] gravado : gravados) {
+                Timestamp inicio = (Timestamp) gravado[1];
+                long id = (Long) gravado[0];
+                if (depoisDe != null && (inicio.before(depoisDe) || (inicio.equals(depoisDe) && id <= depoisDoId))) {
+                    continue;
+                }
+                if (lidas++ == PosicaoHistoricoService.SEGMENTOS_POR_PAGINA) {
+                    break;
+                }
+                ResultSet linha = mock(ResultSet.class);
+                when(linha.getLong("id")).thenReturn(id);
+                when(linha.getTimestamp("inicio")).thenReturn(inicio);
+                when(linha.getBytes("pontos")).thenReturn((byte[]) gravado[2]);
+                handler.processRow(linha);
+            }
+            return null;
+        };
+        doAnswer(pagina).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L));
+        doAnswer(pagina).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L), any(), any(), anyLong());
+        long depoisDosGravados = INICIO + total * 60_000L;
+        service.registrar(1L, 10L, 1.0, 1.0, depoisDosGravados);
+
+        List<Long> instantes = new ArrayList<>();
+        service.percorrerTrilha(1L, (instante, latitude, longitude) -> instantes.add(instante));
+
+        verify(jdbcTemplate).query(contains("ORDER BY inicio, id"), any(RowCallbackHandler.class), eq(1L));
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L), any(), any(), anyLong());
+        assertEquals(total + 1, instantes.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(INICIO + i * 60_000L, instantes.get(i));
+        }
+        assertEquals(depoisDosGravados, instantes.get(instantes.size() - 1));
+    }
+}
@@ -0,0 +1,131 @@
+package com.siseg.service.rastreamento;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.rastreamento.RastreamentoDTO;
+import com.siseg.exception.RateLimitExceededException;
+import com.siseg.exception.ResourceNotFoundException;
+import com.siseg.model.enumerations.StatusPedido;
+import com.siseg.service.RastreamentoService;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RastreamentoPublisherUnitTest {
+
+    @Mock
+    private RastreamentoService rastreamentoService;
+
+    private RastreamentoPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new RastreamentoPublisher(rastreamentoService, new ObjectMapper(), 3, 2, 60_000);
+    }
+
+    @Test
+    void deveCalcularUmaVezParaTodosOsObservadoresDoPedido() {
+        when(rastreamentoService.obterRastreamento(1L)).thenReturn(rastreamento("-23.5505"));
+
+        publisher.inscrever(1L);
+        publisher.inscrever(1L);
+
+        verify(rastreamentoService, times(1)).obterRastreamento(1L);
+        assertEquals(1, publisher.obterEstatisticas().getPedidosObservados());
+        assertEquals(2, publisher.obterEstatisticas().getConexoes());
+    }
+
+    @Test
+    void deveRecalcularSomentePedidosObservadosQueSeMoveram() {
+        when(rastreamentoService.obterRastreamento(1L))
+                .thenReturn(rastreamento("-23.5505"), rastreamento("-23.5510"));
+        publisher.inscrever(1L);
+
+        publisher.notificarMovimento(1L);
+        publisher.notificarMovimento(1L);
+        publisher.notificarMovimento(2L);
+        publisher.publicarAlterados();
+        publisher.publicarAlterados();
+
+        verify(rastreamentoService, times(2)).obterRastreamento(1L);
+        verify(rastreamentoService, never()).obterRastreamento(2L);
+        // Estado inicial e um delta
+        assertEquals(2, publisher.obterEstatisticas().getEventosEnviados());
+    }
+
+    @Test
+    void deveEnviarNoDeltaSomenteCamposAlteradosSemARota() {
+        RastreamentoDTO anterior = rastreamento("-23.5505");
+        RastreamentoDTO atual = rastreamento("-23.55100000");
+        atual.setPosicaoAtualLon(new BigDecimal("-46.63330000"));
+        atual.setTempoEstimadoMinutos(4);
+        atual.setWaypoints(List.of(new Coordinates(new BigDecimal("-23.56"), new BigDecimal("-46.65"))));
+
+        Map<String, Object> delta = RastreamentoPublisher.calcularDelta(anterior, atual);
+
+        assertEquals(Map.of("posicaoAtualLat", new BigDecimal("-23.55100000"), "tempoEstimadoMinutos", 4), delta);
+        assertTrue(RastreamentoPublisher.calcularDelta(atual, atual).isEmpty());
+    }
+
+    @Test
+    void deveRecusarConexoesAcimaDoLimite() {
+        when(rastreamentoService.obterRastreamento(anyLong())).thenReturn(rastreamento("-23.5505"));
+        publisher.inscrever(1L);
+        publisher.inscrever(1L);
+
+        assertThrows(RateLimitExceededException.class, () -> publisher.inscrever(1L));
+        publisher.inscrever(2L);
+        assertThrows(RateLimitExceededException.class, () -> publisher.inscrever(3L));
+
+        assertEquals(3, publisher.obterEstatisticas().getConexoes());
+        assertEquals(2, publisher.obterEstatisticas().getConexoesRecusadas());
+    }
+
+    @Test
+    void deveLiberarConexaoQuandoRastreamentoInicialFalha() {
+        when(rastreamentoService.obterRastreamento(1L))
+                .thenThrow(new ResourceNotFoundException("Pedido não possui entregador associado"));
+
+        assertThrows(ResourceNotFoundException.class, () -> publisher.inscrever(1L));
+
+        assertEquals(0, publisher.obterEstatisticas().getPedidosObservados());
+        assertEquals(0, publisher.obterEstatisticas().getConexoes());
+    }
+
+    @Test
+    void deveEnviarEstadoFinalEEncerrarConexoesNaEntrega() {
+        RastreamentoDTO entregue = rastreamento("-23.5631");
+        entregue.setStatusEntrega(StatusPedido.DELIVERED);
+        when(rastreamentoService.obterRastreamento(1L)).thenReturn(rastreamento("-23.5505"), entregue);
+        publisher.inscrever(1L);
+
+        publisher.aoEncerrarPedido(new PedidoEncerradoEvent(1L));
+
+        verify(rastreamentoService, times(2)).obterRastreamento(1L);
+        assertEquals(2, publisher.obterEstatisticas().getEventosEnviados());
+        assertEquals(0, publisher.obterEstatisticas().getPedidosObservados());
+        assertEquals(0, publisher.obterEstatisticas().getConexoes());
+    }
+
+    private RastreamentoDTO rastreamento(String latitude) {
+        RastreamentoDTO rastreamento = new RastreamentoDTO();
+        rastreamento.setPosicaoAtualLat(new BigDecimal(latitude));
+        rastreamento.setPosicaoAtualLon(new BigDecimal("-46.6333"));
+        rastreamento.setDistanciaRestanteKm(new BigDecimal("1.5"));
+        rastreamento.setTempoEstimadoMinutos(5);
+        rastreamento.setStatusEntrega(StatusPedido.OUT_FOR_DELIVERY);
+        rastreamento.setProximoAoDestino(false);
+        return rastreamento;
+    }
+}
@@ -0,0 +1,168 @@
+package com.siseg.service.routing;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.model.Pedido;
+import com.siseg.model.RotaEntrega;
+import com.siseg.repository.PedidoRepository;
+import com.siseg.repository.RotaEntregaRepository;
+import com.siseg.service.pedido.PedidoEncerradoEvent;
+import com.siseg.util.WaypointCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveRouteRegistryUnitTest {
+
+    @Mock
+    private RotaEntregaRepository rotaEntregaRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ActiveRouteRegistry registry;
+
+    private RotaEntrega rota;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ActiveRouteRegistry(rotaEntregaRepository, pedidoRepository, jdbcTemplate, 60);
+
+        Pedido pedido = new Pedido();
+        pedido.setId(7L);
+        rota = new RotaEntrega();
+        rota.setId(70L);
+        rota.setPedido(pedido);
+        rota.setIndiceAtual(0);
+        List<Coordinates> waypoints = List.of(
+                ponto("-23.5505", "-46.6333"),
+                ponto("-23.5520", "-46.6350"),
+                ponto("-23.5568", "-46.6440"),
+                ponto("-23.5631", "-46.6542"));
+        rota.setWaypointsCodificados(WaypointCodec.codificar(waypoints));
+        rota.setTotalWaypoints(waypoints.size());
+    }
+
+    @Test
+    void deveCarregarDoBancoUmaUnicaVez() {
+        when(rotaEntregaRepository.findByPedidoId(7L)).thenReturn(Optional.of(rota));
+
+        RotaAtiva primeira = registry.obter(7L).orElseThrow();
+        RotaAtiva segunda = registry.obter(7L).orElseThrow();
+
+        assertSame(primeira, segunda);
+        assertEquals(4, primeira.getTotalWaypoints());
+        verify(rotaEntregaRepository, times(1)).findByPedidoId(7L);
+    }
+
+    @Test
+    void deveCalcularDistanciaAcumuladaAoLongoDaRota() {
+        RotaAtiva ativa = registry.registrar(rota);
+
+        assertEquals(0.0, ativa.distanciaAcumuladaKm(0));
+        assertTrue(ativa.distanciaAcumuladaKm(1) > 0);
+        assertTrue(ativa.distanciaAcumuladaKm(3) > ativa.distanciaAcumuladaKm(2));
+        assertEquals(ativa.distanciaAcumuladaKm(3), ativa.distanciaRestanteKm(), 1e-9);
+
+        ativa.avancar(2);
+        assertEquals(ativa.distanciaAcumuladaKm(3) - ativa.distanciaAcumuladaKm(2), ativa.distanciaRestanteKm(), 1e-9);
+    }
+
+    @Test
+    void deveAvancarSomenteEmMemoriaEGravarEmLote() {
+        RotaAtiva ativa = registry.registrar(rota);
+
+        assertEquals(3, ativa.avancar(10));
+        assertTrue(ativa.isCompleta());
+        verifyNoInteractions(jdbcTemplate);
+
+        registry.persistirIndices();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), lote.capture());
+        assertEquals(3, lote.getValue().get(0)[0]);
+        assertEquals(70L, lote.getValue().get(0)[2]);
+
+        clearInvocations(jdbcTemplate);
+        registry.persistirIndices();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void deveRegistrarRotaCalculadaSemConsultarOBanco() {
+        registry.aoCalcularRota(new RotaCalculadaEvent(rota));
+
+        assertEquals(4, registry.obterEmMemoria(7L).orElseThrow().getTotalWaypoints());
+        verifyNoInteractions(rotaEntregaRepository);
+    }
+
+    @Test
+    void deveRemoverRotaQuandoPedidoForEntregue() {
+        RotaAtiva ativa = registry.registrar(rota);
+        ativa.avancar(1);
+
+        registry.aoEncerrarPedido(new PedidoEncerradoEvent(7L));
+
+        assertEquals(0, registry.tamanho());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void deveRemoverNaVarreduraPedidosEncerradosPorOutroCaminho() {
+        registry.registrar(rota);
+        when(pedidoRepository.findIdsByIdInAndStatusIn(eq(List.of(7L)), anyList())).thenReturn(List.of(7L));
+
+        registry.persistirIndices();
+
+        assertEquals(0, registry.tamanho());
+    }
+
+    @Test
+    void deveCarregarEmLoteSomenteRotasAusentes() {
+        registry.registrar(rota);
+        Pedido outroPedido = new Pedido();
+        outroPedido.setId(8L);
+        RotaEntrega outraRota = new RotaEntrega();
+        outraRota.setId(80L);
+        outraRota.setPedido(outroPedido);
+        outraRota.setIndiceAtual(1);
+        outraRota.setWaypointsCodificados(rota.getWaypointsCodificados());
+        outraRota.setTotalWaypoints(rota.getTotalWaypoints());
+        when(rotaEntregaRepository.findByPedidoIdIn(List.of(8L, 9L))).thenReturn(List.of(outraRota));
+
+        registry.carregar(List.of(7L, 8L, 9L));
+
+        assertEquals(1, registry.obterEmMemoria(8L).orElseThrow().getIndiceAtual());
+        assertTrue(registry.obterEmMemoria(9L).isEmpty());
+        assertEquals(2, registry.tamanho());
+        verify(rotaEntregaRepository, never()).findByPedidoId(anyLong());
+    }
+
+    @Test
+    void naoDeveRegistrarPedidoSemRota() {
+        when(rotaEntregaRepository.findByPedidoId(8L)).thenReturn(Optional.empty());
+
+        assertTrue(registry.obter(8L).isEmpty());
+        assertEquals(0, registry.tamanho());
+    }
+
+    private Coordinates ponto(String latitude, String longitude) {
+        return new Coordinates(new BigDecimal(latitude), new BigDecimal(longitude));
+    }
+}
@@ -0,0 +1,123 @@
+package com.siseg.service.routing;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.RouteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRoutingEngineUnitTest {
+
+    /*
+     * 0 ---- 1 ---- 3     trecho de baixo: 30 km/h, carros e bicicletas
+     *  \          /
+     *   ---- 2 ---        trecho de cima: 80 km/h, só carros
+     * 3 -> 4: mão única
+     */
+    private static final String GRAFO = """
+            # vértices
+            V -23.5500 -46.6300
+            V -23.5500 -46.6200
+            V -23.5400 -46.6200
+            V -23.5500 -46.6100
+            V -23.5500 -46.6000
+            E 0 1 1000 30 3 0
+            E 1 3 1000 30 3 0
+            E 0 2 1500 80 1 0
+            E 2 3 1500 80 1 0
+            E 3 4 1000 30 3 1
+            """;
+
+    private LocalRoutingEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GrafoViario grafo = GrafoViario.carregar(new BufferedReader(new StringReader(GRAFO)));
+        engine = new LocalRoutingEngine(grafo, 500);
+    }
+
+    @Test
+    void deveCarregarVerticesEArcosDeAmbosOsSentidos() throws IOException {
+        GrafoViario grafo = GrafoViario.carregar(new BufferedReader(new StringReader(GRAFO)));
+
+        assertEquals(5, grafo.getQuantidadeVertices());
+        assertEquals(9, grafo.getQuantidadeArcos());
+    }
+
+    @Test
+    void deveRejeitarArquivoComLinhaInvalida() {
+        BufferedReader leitor = new BufferedReader(new StringReader("V -23.55 -46.63\nE 0 7 100 30 3 0\n"));
+
+        assertThrows(IOException.class, () -> GrafoViario.carregar(leitor));
+    }
+
+    @Test
+    void deveEscolherCaminhoMaisRapidoParaCarro() {
+        RouteResult rota = calcular(-23.5500, -46.6300, -23.5500, -46.6100, "driving", true);
+
+        assertEquals(new BigDecimal("3.00"), rota.getDistanciaKm());
+        assertEquals(3, rota.getTempoMinutos());
+        assertTrue(rota.getDuracaoSegundos() > 120 && rota.getDuracaoSegundos() <= 180,
+                "duração sem arredondar para minutos: " + rota.getDuracaoSegundos());
+        List<Coordinates> waypoints = rota.getWaypoints();
+        assertEquals(5, waypoints.size());
+        assertEquals(0, new BigDecimal("-23.5400").compareTo(waypoints.get(2).getLatitude()));
+    }
+
+    @Test
+    void deveRestringirBicicletaAViasPermitidasELimitarVelocidade() {
+        RouteResult rota = calcular(-23.5500, -46.6300, -23.5500, -46.6100, "cycling", false);
+
+        assertEquals(new BigDecimal("2.00"), rota.getDistanciaKm());
+        assertEquals(6, rota.getTempoMinutos());
+        assertNull(rota.getWaypoints());
+    }
+
+    @Test
+    void deveRespeitarViaDeMaoUnica() {
+        assertNotNull(calcular(-23.5500, -46.6100, -23.5500, -46.6000, "driving", false));
+        assertNull(calcular(-23.5500, -46.6000, -23.5500, -46.6100, "driving", false));
+    }
+
+    @Test
+    void deveIncluirTrechoDeAcessoAoVerticeMaisProximo() {
+        RouteResult rota = calcular(-23.5509, -46.6300, -23.5500, -46.6200, "driving", false);
+
+        assertEquals(new BigDecimal("1.10"), rota.getDistanciaKm());
+    }
+
+    @Test
+    void naoDeveCalcularRotaParaCoordenadaForaDaCobertura() {
+        assertNull(calcular(-22.9000, -43.2000, -23.5500, -46.6100, "driving", false));
+    }
+
+    @Test
+    void deveCalcularMatrizNaOrdemDosDestinos() {
+        List<Coordinates> destinos = List.of(
+                new Coordinates(new BigDecimal("-23.5500"), new BigDecimal("-46.6100")),
+                new Coordinates(new BigDecimal("-22.9000"), new BigDecimal("-43.2000")),
+                new Coordinates(new BigDecimal("-23.5500"), new BigDecimal("-46.6200")));
+
+        List<Optional<RouteResult>> resultados = engine.calcularMatriz(
+                new BigDecimal("-23.5500"), new BigDecimal("-46.6300"), destinos, "driving");
+
+        assertEquals(3, resultados.size());
+        assertEquals(new BigDecimal("3.00"), resultados.get(0).orElseThrow().getDistanciaKm());
+        assertTrue(resultados.get(1).isEmpty());
+        assertEquals(new BigDecimal("1.00"), resultados.get(2).orElseThrow().getDistanciaKm());
+    }
+
+    private RouteResult calcular(double origemLat, double origemLon, double destinoLat, double destinoLon,
+                                 String profile, boolean incluirWaypoints) {
+        return engine.calcularRota(BigDecimal.valueOf(origemLat), BigDecimal.valueOf(origemLon),
+                BigDecimal.valueOf(destinoLat), BigDecimal.valueOf(destinoLon), profile, incluirWaypoints).block();
+    }
+}
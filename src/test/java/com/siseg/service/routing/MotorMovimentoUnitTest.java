@@ -0,0 +1,46 @@
+package com.siseg.service.routing;
+
+import com.siseg.util.DistanceCalculator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorMovimentoUnitTest {
+
+    // Trecho reto para leste no equador, waypoints a ~1 km um do outro
+    private static final double[] LATITUDES = {0.0, 0.0, 0.0, 0.0};
+    private static final double[] LONGITUDES = {0.0, 0.008993, 0.017986, 0.026979};
+
+    @Test
+    void deveInterpolarPosicaoDentroDoTrecho() {
+        MotorMovimento.Posicao posicao = new MotorMovimento.Posicao(0.0, 0.0);
+
+        int alcancados = MotorMovimento.mover(LATITUDES, LONGITUDES, 4, 1, posicao, 0.25);
+
+        assertEquals(0, alcancados);
+        assertEquals(0.25, DistanceCalculator.haversineKm(0, 0, posicao.getLatitude(), posicao.getLongitude()), 1e-4);
+        assertFalse(posicao.isChegouAoFim());
+    }
+
+    @Test
+    void deveAlcancarVariosWaypointsNoMesmoPasso() {
+        MotorMovimento.Posicao posicao = new MotorMovimento.Posicao(0.0, 0.004);
+
+        int alcancados = MotorMovimento.mover(LATITUDES, LONGITUDES, 4, 1, posicao, 1.6);
+
+        assertEquals(2, alcancados);
+        assertTrue(posicao.getLongitude() > LONGITUDES[2] && posicao.getLongitude() < LONGITUDES[3]);
+        assertFalse(posicao.isChegouAoFim());
+    }
+
+    @Test
+    void devePararNoUltimoWaypointEIndicarFimDaRota() {
+        MotorMovimento.Posicao posicao = new MotorMovimento.Posicao(0.0, 0.02);
+
+        int alcancados = MotorMovimento.mover(LATITUDES, LONGITUDES, 4, 3, posicao, 5);
+
+        assertEquals(1, alcancados);
+        assertEquals(LONGITUDES[3], posicao.getLongitude());
+        assertTrue(posicao.isChegouAoFim());
+    }
+}
@@ -0,0 +1,77 @@
+package com.siseg.service.routing;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.util.WaypointCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RotaAtivaUnitTest {
+
+    private RotaAtiva rota;
+
+    @BeforeEach
+    void setUp() {
+        // Trecho reto para leste, três segmentos de ~1 km no equador
+        byte[] waypoints = WaypointCodec.codificar(List.of(
+                ponto("0.0", "0.0"),
+                ponto("0.0", "0.008993"),
+                ponto("0.0", "0.017986"),
+                ponto("0.0", "0.026979")));
+        rota = new RotaAtiva(1L, 1L, waypoints, 1, 600, 0);
+    }
+
+    @Test
+    void deveLocalizarPosicaoSobreSegmentoAtual() {
+        RotaAtiva.PosicaoNaRota posicao = rota.localizar(0.0001, 0.0045);
+
+        assertEquals(0.5, posicao.distanciaPercorridaKm(), 0.01);
+        assertEquals(11.1, posicao.desvioMetros(), 0.5);
+        assertEquals(2.5, rota.distanciaRestanteKm(posicao.distanciaPercorridaKm()), 0.01);
+    }
+
+    @Test
+    void deveEstimarTempoRestanteProporcionalADistanciaQueFalta() {
+        double totalKm = rota.distanciaAcumuladaKm(3);
+
+        assertEquals(600, rota.tempoRestanteSegundos(0), 1e-9);
+        assertEquals(300, rota.tempoRestanteSegundos(totalKm / 2), 1e-6);
+        assertEquals(100, rota.tempoRestanteSegundos(totalKm * 5 / 6), 1e-6);
+        assertEquals(0, rota.tempoRestanteSegundos(totalKm + 1), 1e-9);
+    }
+
+    @Test
+    void deveIndicarDesvioQuandoPosicaoEstaLongeDaRota() {
+        RotaAtiva.PosicaoNaRota posicao = rota.localizar(0.01, 0.0045);
+
+        assertTrue(posicao.desvioMetros() > 1000);
+    }
+
+    @Test
+    void deveAvancarAteOWaypointSeguinteADistanciaPercorridaSemVoltar() {
+        double meioDoUltimoTrecho = (rota.distanciaAcumuladaKm(2) + rota.distanciaAcumuladaKm(3)) / 2;
+
+        assertEquals(2, rota.avancarAte(meioDoUltimoTrecho));
+        assertEquals(3, rota.getIndiceAtual());
+        assertEquals(0, rota.avancarAte(0.5));
+        assertEquals(3, rota.getIndiceAtual());
+        assertEquals(0, rota.avancarAte(rota.distanciaAcumuladaKm(3) + 1));
+    }
+
+    @Test
+    void naoDeveEstimarTempoSemDuracaoRegistrada() {
+        RotaAtiva semDuracao = new RotaAtiva(2L, 2L, WaypointCodec.codificar(List.of(ponto("0", "0"), ponto("0", "0.01"))),
+                0, null, 0);
+
+        assertFalse(semDuracao.possuiDuracao());
+        assertThrows(IllegalStateException.class, () -> semDuracao.tempoRestanteSegundos(0));
+    }
+
+    private Coordinates ponto(String latitude, String longitude) {
+        return new Coordinates(new BigDecimal(latitude), new BigDecimal(longitude));
+    }
+}
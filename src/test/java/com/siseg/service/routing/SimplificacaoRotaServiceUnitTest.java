@@ -0,0 +1,78 @@
+package com.siseg.service.routing;
+
+import com.siseg.dto.geocoding.Coordinates;
+import com.siseg.dto.geocoding.SimplificacaoRotaEstatisticasDTO;
+import com.siseg.util.WaypointCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimplificacaoRotaServiceUnitTest {
+
+    private SimplificacaoRotaService service;
+
+    private List<Coordinates> waypoints;
+
+    @BeforeEach
+    void setUp() {
+        service = new SimplificacaoRotaService(1, 10);
+
+        // 11 pontos em linha reta para leste e 11 para norte, com a esquina em comum
+        waypoints = new ArrayList<>();
+        for (int i = 0; i <= 10; i++) {
+            waypoints.add(ponto(0, i * 0.0001));
+        }
+        for (int i = 1; i <= 10; i++) {
+            waypoints.add(ponto(i * 0.0001, 0.001));
+        }
+    }
+
+    @Test
+    void deveGravarApenasPontosNecessariosERegistrarTamanhos() {
+        List<Coordinates> armazenados = service.simplificarParaArmazenamento(waypoints);
+
+        assertEquals(List.of(waypoints.get(0), waypoints.get(10), waypoints.get(20)), armazenados);
+        SimplificacaoRotaEstatisticasDTO estatisticas = service.obterEstatisticas();
+        assertEquals(21, estatisticas.getPontosOriginaisArmazenamento());
+        assertEquals(3, estatisticas.getPontosArmazenados());
+        assertTrue(estatisticas.getBytesArmazenados() < estatisticas.getBytesOriginaisArmazenamento());
+    }
+
+    @Test
+    void deveExibirWaypointAtualSeguidoDosPontosSimplificadosRestantes() {
+        RotaAtiva rota = new RotaAtiva(1L, 1L, WaypointCodec.codificar(waypoints), 0, null, 0);
+        rota.avancar(3);
+
+        List<Coordinates> exibicao = service.waypointsRestantesParaExibicao(rota);
+
+        assertEquals(3, exibicao.size());
+        assertEquals(rota.waypoint(3), exibicao.get(0));
+        assertEquals(rota.waypoint(10), exibicao.get(1));
+        assertEquals(rota.waypoint(20), exibicao.get(2));
+
+        service.waypointsRestantesParaExibicao(rota);
+        SimplificacaoRotaEstatisticasDTO estatisticas = service.obterEstatisticas();
+        assertEquals(1, estatisticas.getRotasExibicao());
+        assertEquals(21, estatisticas.getPontosOriginaisExibicao());
+        assertEquals(3, estatisticas.getPontosExibicao());
+        assertTrue(estatisticas.getBytesJsonExibicao() < estatisticas.getBytesJsonOriginaisExibicao());
+    }
+
+    @Test
+    void deveInformarIndicesNaRotaDosPontosExibidos() {
+        RotaAtiva rota = new RotaAtiva(1L, 1L, WaypointCodec.codificar(waypoints), 0, null, 0);
+
+        assertArrayEquals(new int[]{3, 10, 20}, service.indicesRestantesParaExibicao(rota, 3));
+        assertArrayEquals(new int[]{10, 20}, service.indicesRestantesParaExibicao(rota, 10));
+        assertArrayEquals(new int[]{20}, service.indicesRestantesParaExibicao(rota, 20));
+    }
+
+    private Coordinates ponto(double latitude, double longitude) {
+        return new Coordinates(BigDecimal.valueOf(latitude), BigDecimal.valueOf(longitude));
+    }
+}
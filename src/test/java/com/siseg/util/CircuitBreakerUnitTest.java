@@ -0,0 +1,137 @@
+package com.siseg.util;
+
+import com.siseg.dto.geocoding.CircuitBreakerEstatisticasDTO;
+import com.siseg.exception.CircuitBreakerOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerUnitTest {
+
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long LENTA = TimeUnit.SECONDS.toNanos(5);
+
+    private AtomicLong relogio;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        relogio = new AtomicLong(0);
+        CircuitBreaker.Configuracao configuracao = new CircuitBreaker.Configuracao(
+                10, 4, 50, 80, Duration.ofSeconds(3), Duration.ofSeconds(30), 2);
+        circuitBreaker = new CircuitBreaker("teste", configuracao, relogio::get);
+    }
+
+    @Test
+    void devePermanecerFechadoAbaixoDoMinimoDeChamadas() {
+        registrar(3, true, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+        assertTrue(circuitBreaker.permitirChamada());
+    }
+
+    @Test
+    void deveAbrirQuandoTaxaDeFalhasAtingeLimiar() {
+        registrar(2, false, RAPIDA);
+        registrar(2, true, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        assertTrue(circuitBreaker.isAberto());
+        assertFalse(circuitBreaker.permitirChamada());
+        assertEquals(1, circuitBreaker.obterEstatisticas().getChamadasRejeitadas());
+    }
+
+    @Test
+    void deveAbrirQuandoTaxaDeChamadasLentasAtingeLimiar() {
+        registrar(4, false, LENTA);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+    }
+
+    @Test
+    void deveConsiderarApenasUltimasChamadasDaJanela() {
+        registrar(4, true, RAPIDA);
+        relogio.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        registrar(2, false, RAPIDA);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+
+        registrar(10, false, RAPIDA);
+        registrar(4, true, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+        assertEquals(40.0, circuitBreaker.obterEstatisticas().getTaxaFalhasPercentual());
+    }
+
+    @Test
+    void deveFecharAposChamadasDeTesteBemSucedidas() {
+        registrar(4, true, RAPIDA);
+        relogio.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        registrar(1, false, RAPIDA);
+        assertEquals(CircuitBreaker.Estado.SEMI_ABERTO, circuitBreaker.getEstado());
+        registrar(1, false, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+        CircuitBreakerEstatisticasDTO estatisticas = circuitBreaker.obterEstatisticas();
+        assertEquals(3, estatisticas.getTotalTransicoes());
+        assertEquals("FECHADO", estatisticas.getUltimasTransicoes().get(0).getPara());
+        assertEquals(0, estatisticas.getChamadasNaJanela());
+    }
+
+    @Test
+    void deveReabrirQuandoChamadaDeTesteFalha() {
+        registrar(4, true, RAPIDA);
+        relogio.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        registrar(1, true, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        assertFalse(circuitBreaker.permitirChamada());
+    }
+
+    @Test
+    void deveLimitarChamadasDeTesteNoEstadoSemiAberto() {
+        registrar(4, true, RAPIDA);
+        relogio.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertTrue(circuitBreaker.permitirChamada());
+        assertTrue(circuitBreaker.permitirChamada());
+        assertFalse(circuitBreaker.permitirChamada());
+    }
+
+    @Test
+    void deveRejeitarMonoSemAssinarOperacaoQuandoAberto() {
+        registrar(4, true, RAPIDA);
+        Mono<String> operacao = Mono.fromCallable(() -> fail("operação não deveria ser executada"));
+
+        assertThrows(CircuitBreakerOpenException.class,
+                () -> circuitBreaker.proteger(operacao, erro -> true).block());
+    }
+
+    @Test
+    void naoDeveContarErrosIgnoradosComoFalha() {
+        Mono<String> erroDeCliente = Mono.error(new IllegalArgumentException("400"));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> circuitBreaker.proteger(erroDeCliente, erro -> false).block());
+        }
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+        assertEquals(0.0, circuitBreaker.obterEstatisticas().getTaxaFalhasPercentual());
+    }
+
+    private void registrar(int quantidade, boolean falha, long duracao) {
+        for (int i = 0; i < quantidade; i++) {
+            if (circuitBreaker.permitirChamada()) {
+                circuitBreaker.registrarResultado(falha, duracao);
+            }
+        }
+    }
+}
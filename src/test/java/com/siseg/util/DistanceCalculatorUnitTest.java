@@ -71,5 +71,65 @@ class DistanceCalculatorUnitTest {
 
         assertEquals(0, tempoMinutos);
     }
-}
 
+    @Test
+    void deveCalcularHaversinePrimitivo() {
+        assertEquals(111.195, DistanceCalculator.haversineKm(0, 0, 0, 1), 0.001);
+        assertEquals(0, DistanceCalculator.haversineKm(-23.55, -46.63, -23.55, -46.63), 1e-12);
+        assertEquals(20015.09, DistanceCalculator.haversineKm(0, 0, 0, 180), 0.01);
+    }
+
+    @Test
+    void deveManterAproximacaoEquirretangularDentroDoErroDocumentado() {
+        double maiorErroAte10Km = 0;
+        double maiorErroAte50Km = 0;
+        double maiorErroLoteAte10Km = 0;
+        for (int lat = -60; lat <= 60; lat += 5) {
+            for (int rumo = 0; rumo < 360; rumo += 15) {
+                for (double km : new double[]{0.1, 1, 5, 10, 20, 50}) {
+                    double[] destino = destino(lat, 10, rumo, km);
+                    double exata = DistanceCalculator.haversineKm(lat, 10, destino[0], destino[1]);
+                    double erro = Math.abs(DistanceCalculator.equirectangularKm(lat, 10, destino[0], destino[1]) - exata) / exata;
+                    maiorErroAte50Km = Math.max(maiorErroAte50Km, erro);
+                    if (km <= 10) {
+                        maiorErroAte10Km = Math.max(maiorErroAte10Km, erro);
+                        double[] lote = new double[1];
+                        DistanceCalculator.equirectangularKm(lat, 10, new double[]{destino[0]}, new double[]{destino[1]}, lote, 1);
+                        maiorErroLoteAte10Km = Math.max(maiorErroLoteAte10Km, Math.abs(lote[0] - exata) / exata);
+                    }
+                }
+            }
+        }
+
+        assertTrue(maiorErroAte10Km < 0.0002, "erro até 10 km: " + maiorErroAte10Km);
+        assertTrue(maiorErroAte50Km < 0.001, "erro até 50 km: " + maiorErroAte50Km);
+        assertTrue(maiorErroLoteAte10Km < 0.002, "erro em lote até 10 km: " + maiorErroLoteAte10Km);
+    }
+
+    @Test
+    void deveCalcularLoteIgualAoCalculoPorPar() {
+        double[] latitudes = {-23.5515, -23.6, -22.9, -23.5505};
+        double[] longitudes = {-46.6343, -46.7, -43.2, -46.6333};
+        double[] distancias = new double[5];
+
+        DistanceCalculator.haversineKm(-23.5505, -46.6333, latitudes, longitudes, distancias, latitudes.length);
+
+        for (int i = 0; i < latitudes.length; i++) {
+            assertEquals(DistanceCalculator.haversineKm(-23.5505, -46.6333, latitudes[i], longitudes[i]), distancias[i], 1e-9);
+        }
+        assertEquals(0, distancias[4]);
+        assertThrows(IllegalArgumentException.class,
+                () -> DistanceCalculator.haversineKm(0, 0, latitudes, longitudes, new double[2], 4));
+    }
+
+    // Ponto a uma distância e rumo dados sobre a esfera
+    private static double[] destino(double lat, double lon, double rumoGraus, double km) {
+        double angular = km / 6371.0;
+        double latRad = Math.toRadians(lat);
+        double rumo = Math.toRadians(rumoGraus);
+        double lat2 = Math.asin(Math.sin(latRad) * Math.cos(angular) + Math.cos(latRad) * Math.sin(angular) * Math.cos(rumo));
+        double lon2 = Math.toRadians(lon) + Math.atan2(Math.sin(rumo) * Math.sin(angular) * Math.cos(latRad),
+                Math.cos(angular) - Math.sin(latRad) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), Math.toDegrees(lon2)};
+    }
+}
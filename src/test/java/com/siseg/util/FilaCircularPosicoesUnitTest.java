@@ -0,0 +1,93 @@
+package com.siseg.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilaCircularPosicoesUnitTest {
+
+    @Test
+    void deveArredondarCapacidadeParaPotenciaDeDois() {
+        assertEquals(8, new FilaCircularPosicoes(5).capacidade());
+        assertEquals(8, new FilaCircularPosicoes(8).capacidade());
+        assertEquals(1, new FilaCircularPosicoes(1).capacidade());
+        assertThrows(IllegalArgumentException.class, () -> new FilaCircularPosicoes(0));
+    }
+
+    @Test
+    void deveConsumirNaOrdemDePublicacao() {
+        FilaCircularPosicoes fila = new FilaCircularPosicoes(8);
+        fila.publicar(1L, 10L, new long[]{100, 200}, new double[]{-23.1, -23.2}, new double[]{-46.1, -46.2}, 2);
+        fila.publicar(2L, 0L, new long[]{150}, new double[]{-23.3}, new double[]{-46.3}, 1);
+
+        List<String> lidas = new ArrayList<>();
+        int consumidas = fila.consumir((entregador, pedido, instante, latitude, longitude) ->
+                lidas.add(entregador + "/" + pedido + "/" + instante + "/" + latitude + "/" + longitude), 10);
+
+        assertEquals(3, consumidas);
+        assertEquals(List.of("1/10/100/-23.1/-46.1", "1/10/200/-23.2/-46.2", "2/0/150/-23.3/-46.3"), lidas);
+        assertEquals(0, fila.tamanho());
+    }
+
+    @Test
+    void deveRecusarLoteInteiroQuandoNaoCabeELiberarEspacoAoConsumir() {
+        FilaCircularPosicoes fila = new FilaCircularPosicoes(4);
+        long[] instantes = {1, 2, 3};
+        double[] coordenadas = {0, 0, 0};
+
+        assertTrue(fila.publicar(1L, 1L, instantes, coordenadas, coordenadas, 3));
+        assertFalse(fila.publicar(1L, 1L, instantes, coordenadas, coordenadas, 2));
+        assertEquals(3, fila.tamanho());
+
+        assertEquals(2, fila.consumir((entregador, pedido, instante, latitude, longitude) -> { }, 2));
+        assertTrue(fila.publicar(1L, 1L, instantes, coordenadas, coordenadas, 3));
+        assertEquals(4, fila.tamanho());
+    }
+
+    @Test
+    void deveManterOrdemDeCadaProdutorComPublicacoesConcorrentes() throws InterruptedException {
+        FilaCircularPosicoes fila = new FilaCircularPosicoes(1 << 16);
+        int produtores = 4;
+        int lotesPorProdutor = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(produtores);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int p = 0; p < produtores; p++) {
+            long entregador = p;
+            executor.submit(() -> {
+                largada.await();
+                for (int lote = 0; lote < lotesPorProdutor; lote++) {
+                    long[] instantes = {lote * 2L, lote * 2L + 1};
+                    double[] coordenadas = {0, 0};
+                    while (!fila.publicar(entregador, 0L, instantes, coordenadas, coordenadas, 2)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+
+        Map<Long, Long> ultimos = new HashMap<>();
+        int total = 0;
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (total < produtores * lotesPorProdutor * 2 && System.nanoTime() < limite) {
+            total += fila.consumir((entregador, pedido, instante, latitude, longitude) -> {
+                Long anterior = ultimos.put(entregador, instante);
+                assertEquals(anterior == null ? 0 : anterior + 1, instante);
+            }, 256);
+        }
+        executor.shutdown();
+
+        assertEquals(produtores * lotesPorProdutor * 2, total);
+        assertEquals(0, fila.tamanho());
+    }
+}
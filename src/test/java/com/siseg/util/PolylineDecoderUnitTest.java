@@ -0,0 +1,91 @@
+package com.siseg.util;
+
+import com.siseg.dto.geocoding.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolylineDecoderUnitTest {
+
+    // Exemplo da documentação do formato: (38.5, -120.2), (40.7, -120.95), (43.252, -126.453)
+    private static final String EXEMPLO = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Test
+    void deveDecodificarExemploDoFormato() {
+        List<Coordinates> pontos = PolylineDecoder.decode(EXEMPLO);
+
+        assertEquals(3, pontos.size());
+        assertEquals(0, new BigDecimal("38.5").compareTo(pontos.get(0).getLatitude()));
+        assertEquals(0, new BigDecimal("-120.2").compareTo(pontos.get(0).getLongitude()));
+        assertEquals(0, new BigDecimal("43.252").compareTo(pontos.get(2).getLatitude()));
+        assertEquals(0, new BigDecimal("-126.453").compareTo(pontos.get(2).getLongitude()));
+        assertEquals(new BigDecimal("38.5"), pontos.get(0).getLatitude());
+    }
+
+    @Test
+    void deveCodificarEDecodificarNasDuasPrecisoes() {
+        double[] latitudes = {-23.550520, -23.551003, -23.549871, 0.000001};
+        double[] longitudes = {-46.633308, -46.634117, -46.635002, 179.999999};
+
+        String polyline6 = PolylineDecoder.encode(latitudes, longitudes, 0, latitudes.length, PolylineDecoder.PRECISAO_POLYLINE6);
+        RouteBuffer buffer = PolylineDecoder.decode(polyline6, PolylineDecoder.PRECISAO_POLYLINE6, new RouteBuffer(1));
+
+        assertEquals(latitudes.length, buffer.tamanho());
+        for (int i = 0; i < latitudes.length; i++) {
+            assertEquals(latitudes[i], buffer.latitude(i), 1e-9);
+            assertEquals(longitudes[i], buffer.longitude(i), 1e-9);
+        }
+
+        String polyline5 = PolylineDecoder.encode(buffer, PolylineDecoder.PRECISAO_POLYLINE);
+        double[] lat5 = new double[latitudes.length];
+        double[] lon5 = new double[latitudes.length];
+        assertEquals(latitudes.length, PolylineDecoder.decode(polyline5, PolylineDecoder.PRECISAO_POLYLINE, lat5, lon5));
+        assertEquals(-23.55052, lat5[0], 1e-9);
+        assertEquals(-46.63331, lon5[0], 1e-9);
+        assertEquals(EXEMPLO, PolylineDecoder.encode(PolylineDecoder.decode(EXEMPLO), PolylineDecoder.PRECISAO_POLYLINE));
+    }
+
+    @Test
+    void deveContarPontosEDecodificarEmInteiros() {
+        int[] latitudes = new int[PolylineDecoder.contarPontos(EXEMPLO)];
+        int[] longitudes = new int[latitudes.length];
+
+        int total = PolylineDecoder.decodeInteiros(EXEMPLO, latitudes, longitudes);
+
+        assertEquals(3, total);
+        assertArrayEquals(new int[]{3850000, 4070000, 4325200}, latitudes);
+        assertArrayEquals(new int[]{-12020000, -12095000, -12645300}, longitudes);
+    }
+
+    @Test
+    void deveRejeitarBufferInsuficienteEPolilinhaTruncada() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PolylineDecoder.decode(EXEMPLO, PolylineDecoder.PRECISAO_POLYLINE, new double[2], new double[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> PolylineDecoder.decode(EXEMPLO.substring(0, EXEMPLO.length() - 1)));
+    }
+
+    @Test
+    void deveRejeitarPrecisaoNaoSuportada() {
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode(EXEMPLO, 7));
+        assertThrows(IllegalArgumentException.class, () -> PolylineDecoder.decode(EXEMPLO, 4, new RouteBuffer(4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PolylineDecoder.encode(new double[]{1}, new double[]{1}, 0, 1, 8));
+    }
+
+    @Test
+    void deveReaproveitarBufferEntreDecodificacoes() {
+        RouteBuffer buffer = new RouteBuffer(8);
+        PolylineDecoder.decode(EXEMPLO, PolylineDecoder.PRECISAO_POLYLINE, buffer);
+        double[] arrayLatitudes = buffer.latitudes();
+
+        PolylineDecoder.decode(EXEMPLO, PolylineDecoder.PRECISAO_POLYLINE, buffer);
+
+        assertEquals(3, buffer.tamanho());
+        assertSame(arrayLatitudes, buffer.latitudes());
+        assertTrue(PolylineDecoder.decode("", PolylineDecoder.PRECISAO_POLYLINE).isEmpty());
+    }
+}
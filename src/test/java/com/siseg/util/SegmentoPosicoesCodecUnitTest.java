@@ -0,0 +1,80 @@
+package com.siseg.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentoPosicoesCodecUnitTest {
+
+    @Test
+    void deveDecodificarOsMesmosPontosCodificados() {
+        long[] instantes = {1_700_000_000_000L, 1_700_000_002_000L, 1_700_000_004_500L};
+        int[] latitudes = {-23550520, -23551000, 89999999};
+        int[] longitudes = {-46633308, -46634100, -179999999};
+
+        SegmentoPosicoesCodec.Leitor leitor = new SegmentoPosicoesCodec.Leitor(
+                SegmentoPosicoesCodec.codificar(instantes, latitudes, longitudes, 0, 3));
+
+        assertEquals(3, leitor.total());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(leitor.temProximo());
+            leitor.avancar();
+            assertEquals(instantes[i], leitor.instanteMillis());
+            assertEquals(latitudes[i] / 1e6, leitor.latitude());
+            assertEquals(longitudes[i] / 1e6, leitor.longitude());
+        }
+        assertFalse(leitor.temProximo());
+    }
+
+    @Test
+    void deveCodificarSomenteOIntervaloPedido() {
+        long[] instantes = {1000L, 2000L, 3000L, 4000L};
+        int[] latitudes = {1, 2, 3, 4};
+        int[] longitudes = {5, 6, 7, 8};
+
+        byte[] dados = SegmentoPosicoesCodec.codificar(instantes, latitudes, longitudes, 1, 3);
+
+        SegmentoPosicoesCodec.Leitor leitor = new SegmentoPosicoesCodec.Leitor(dados);
+        leitor.avancar();
+        assertEquals(2000L, leitor.instanteMillis());
+        assertEquals(2 / 1e6, leitor.latitude());
+        assertEquals(2, SegmentoPosicoesCodec.contar(dados));
+    }
+
+    @Test
+    void deveOcuparPoucosBytesPorPontoEmTrilhaTipica() {
+        int quantidade = 60;
+        long[] instantes = new long[quantidade];
+        int[] latitudes = new int[quantidade];
+        int[] longitudes = new int[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            instantes[i] = 1_700_000_000_000L + i * 1000L;
+            latitudes[i] = -23550520 - i * 45;
+            longitudes[i] = -46633308 - i * 70;
+        }
+
+        byte[] dados = SegmentoPosicoesCodec.codificar(instantes, latitudes, longitudes, 0, quantidade);
+
+        // 8 bytes do instante e 8 das coordenadas no primeiro ponto; os demais cabem em 6
+        assertTrue(dados.length <= 2 + 16 + (quantidade - 1) * 6, dados.length + " bytes");
+    }
+
+    @Test
+    void deveRejeitarInstantesForaDeOrdem() {
+        long[] instantes = {2000L, 1000L};
+        int[] coordenadas = {0, 0};
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SegmentoPosicoesCodec.codificar(instantes, coordenadas, coordenadas, 0, 2));
+    }
+
+    @Test
+    void deveRejeitarSegmentoTruncadoOuDeOutraVersao() {
+        byte[] dados = SegmentoPosicoesCodec.codificar(new long[]{1000L}, new int[]{1}, new int[]{1}, 0, 1);
+        byte[] truncado = java.util.Arrays.copyOf(dados, dados.length - 1);
+
+        SegmentoPosicoesCodec.Leitor leitor = new SegmentoPosicoesCodec.Leitor(truncado);
+        assertThrows(IllegalArgumentException.class, leitor::avancar);
+        assertThrows(IllegalArgumentException.class, () -> new SegmentoPosicoesCodec.Leitor(new byte[]{9, 0}));
+    }
+}
@@ -0,0 +1,52 @@
+package com.siseg.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimplificadorPolilinhaUnitTest {
+
+    @Test
+    void deveRemoverPontosColineares() {
+        double[] latitudes = {0, 0, 0, 0, 0};
+        double[] longitudes = {0, 0.001, 0.002, 0.003, 0.004};
+
+        int[] mantidos = SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, 4, 1);
+
+        assertArrayEquals(new int[]{0, 4}, mantidos);
+    }
+
+    @Test
+    void deveManterCurvaAcimaDaTolerancia() {
+        // Esquina em L: o vértice fica a ~78 m da diagonal entre as pontas
+        double[] latitudes = {0, 0, 0, 0.0005, 0.001};
+        double[] longitudes = {0, 0.0005, 0.001, 0.001, 0.001};
+
+        assertArrayEquals(new int[]{0, 2, 4}, SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, 4, 10));
+        assertArrayEquals(new int[]{0, 4}, SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, 4, 100));
+    }
+
+    @Test
+    void deveManterTodosOsPontosComToleranciaZero() {
+        double[] latitudes = {0, 0, 0};
+        double[] longitudes = {0, 0.001, 0.002};
+
+        assertArrayEquals(new int[]{0, 1, 2}, SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, 2, 0));
+    }
+
+    @Test
+    void deveSimplificarRotaLongaSemEstourarPilha() {
+        int total = 20_000;
+        double[] latitudes = new double[total];
+        double[] longitudes = new double[total];
+        for (int i = 0; i < total; i++) {
+            latitudes[i] = (i % 2) * 0.001;
+            longitudes[i] = i * 0.0001;
+        }
+
+        int[] mantidos = SimplificadorPolilinha.simplificar(latitudes, longitudes, 0, total - 1, 5);
+
+        assertEquals(total, mantidos.length);
+        assertEquals(total - 1, mantidos[mantidos.length - 1]);
+    }
+}
@@ -0,0 +1,140 @@
+package com.siseg.util;
+
+import com.siseg.dto.geocoding.SingleFlightEstatisticasDTO;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightUnitTest {
+
+    @Test
+    void deveCompartilharExecucaoEntreChamadasConcorrentesDaMesmaChave() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("teste");
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch liderIniciou = new CountDownLatch(1);
+        CountDownLatch liberarLider = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            Future<Integer> lider = executor.submit(() -> singleFlight.executar("chave", () -> {
+                liderIniciou.countDown();
+                aguardar(liberarLider);
+                return execucoes.incrementAndGet();
+            }));
+            assertTrue(liderIniciou.await(5, TimeUnit.SECONDS));
+
+            List<Future<Integer>> seguidores = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                seguidores.add(executor.submit(() -> singleFlight.executar("chave", execucoes::incrementAndGet)));
+            }
+            aguardarSeguidores(singleFlight, 5);
+            liberarLider.countDown();
+
+            assertEquals(1, lider.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> seguidor : seguidores) {
+                assertEquals(1, seguidor.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SingleFlightEstatisticasDTO estatisticas = singleFlight.obterEstatisticas();
+        assertEquals(1, execucoes.get());
+        assertEquals(1, estatisticas.getExecucoes());
+        assertEquals(5, estatisticas.getChamadasCompartilhadas());
+        assertEquals(0, estatisticas.getEmAndamento());
+    }
+
+    @Test
+    void deveExecutarNovamenteAposConclusao() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("teste");
+        AtomicInteger execucoes = new AtomicInteger();
+
+        singleFlight.executar("chave", execucoes::incrementAndGet);
+        singleFlight.executar("chave", execucoes::incrementAndGet);
+
+        assertEquals(2, execucoes.get());
+        assertEquals(0, singleFlight.obterEstatisticas().getChamadasCompartilhadas());
+    }
+
+    @Test
+    void naoDeveCoalescerChavesDiferentes() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("teste");
+
+        assertEquals("a", singleFlight.executar("a", () -> "a"));
+        assertEquals("b", singleFlight.executar("b", () -> "b"));
+        assertEquals(2, singleFlight.obterEstatisticas().getExecucoes());
+    }
+
+    @Test
+    void devePropagarExcecaoELiberarChave() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("teste");
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.executar("chave", () -> {
+            throw new IllegalStateException("falha");
+        }));
+
+        assertEquals("ok", singleFlight.executar("chave", () -> "ok"));
+        assertEquals(0, singleFlight.obterEstatisticas().getEmAndamento());
+    }
+
+    @Test
+    void deveCompartilharMonoEntreAssinantesConcorrentes() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("teste");
+        AtomicInteger execucoes = new AtomicInteger();
+        Sinks.One<String> resposta = Sinks.one();
+
+        Mono<String> primeiro = singleFlight.executarAsync("chave", () -> {
+            execucoes.incrementAndGet();
+            return resposta.asMono();
+        });
+        Mono<String> segundo = singleFlight.executarAsync("chave", () -> {
+            execucoes.incrementAndGet();
+            return Mono.just("outro");
+        });
+
+        List<String> recebidos = new ArrayList<>();
+        primeiro.subscribe(recebidos::add);
+        segundo.subscribe(recebidos::add);
+        resposta.tryEmitValue("rota");
+
+        assertEquals(List.of("rota", "rota"), recebidos);
+        assertEquals(1, execucoes.get());
+        assertEquals(1, singleFlight.obterEstatisticas().getChamadasCompartilhadas());
+        assertEquals(0, singleFlight.obterEstatisticas().getEmAndamento());
+    }
+
+    @Test
+    void deveCompartilharResultadoVazioNoFluxoReativo() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("teste");
+
+        assertNull(singleFlight.executarAsync("chave", Mono::empty).block());
+        assertEquals(0, singleFlight.obterEstatisticas().getEmAndamento());
+    }
+
+    private void aguardarSeguidores(SingleFlight<?, ?> singleFlight, int esperados) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.obterEstatisticas().getChamadasCompartilhadas() < esperados && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -160,5 +160,50 @@ class TempoEstimadoCalculatorUnitTest {
         assertNotNull(resultadoBicicleta);
         assertTrue(resultadoBicicleta.getTempoMinutos() >= resultadoMoto.getTempoMinutos());
     }
-}
 
+    @Test
+    void deveCalcularLoteComUmaUnicaConsultaDeMatriz() {
+        Coordinates destino1 = new Coordinates(destinoLat, destinoLon);
+        Coordinates destino2 = new Coordinates(new BigDecimal("-23.5600"), new BigDecimal("-46.6400"));
+        when(geocodingService.calculateRouteMatrix(eq(origemLat), eq(origemLon), anyList(), anyString()))
+                .thenReturn(List.of(
+                        Optional.of(new RouteResult(new BigDecimal("1.20"), 4)),
+                        Optional.of(new RouteResult(new BigDecimal("2.40"), 8))));
+
+        List<ResultadoCalculo> resultados = tempoEstimadoCalculator.calculateDistanceAndTimeBatch(
+                origemLat, origemLon, List.of(destino1, destino2), TipoVeiculo.MOTO);
+
+        assertEquals(2, resultados.size());
+        assertEquals(new BigDecimal("1.20"), resultados.get(0).getDistanciaKm());
+        assertEquals(new BigDecimal("2.40"), resultados.get(1).getDistanciaKm());
+        assertTrue(resultados.get(1).isUsadoOSRM());
+        verify(geocodingService, times(1)).calculateRouteMatrix(any(), any(), anyList(), anyString());
+        verify(geocodingService, never()).calculateRoute(any(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void deveUsarHaversineParaDestinosSemResultadoNaMatriz() {
+        Coordinates destino1 = new Coordinates(destinoLat, destinoLon);
+        when(geocodingService.calculateRouteMatrix(eq(origemLat), eq(origemLon), anyList(), anyString()))
+                .thenReturn(Arrays.asList(Optional.empty(), Optional.empty()));
+
+        List<ResultadoCalculo> resultados = tempoEstimadoCalculator.calculateDistanceAndTimeBatch(
+                origemLat, origemLon, Arrays.asList(destino1, null), TipoVeiculo.MOTO);
+
+        assertFalse(resultados.get(0).isUsadoOSRM());
+        assertTrue(resultados.get(0).getDistanciaKm().compareTo(new BigDecimal("0.1")) >= 0);
+        assertNull(resultados.get(1).getDistanciaKm());
+    }
+
+    @Test
+    void deveUsarHaversineDiretamenteQuandoRoteamentoIndisponivel() {
+        when(geocodingService.isRoteamentoIndisponivel()).thenReturn(true);
+
+        ResultadoCalculo resultado = tempoEstimadoCalculator.calculateDistanceAndTime(
+                origemLat, origemLon, destinoLat, destinoLon, TipoVeiculo.MOTO);
+
+        assertFalse(resultado.isUsadoOSRM());
+        assertNotNull(resultado.getDistanciaKm());
+        verify(geocodingService, never()).calculateRoute(any(), any(), any(), any(), anyString());
+    }
+}
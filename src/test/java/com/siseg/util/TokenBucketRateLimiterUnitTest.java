@@ -0,0 +1,168 @@
+package com.siseg.util;
+
+import com.siseg.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterUnitTest {
+
+    private static final long UM_SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void deveConcederPrimeiraPermissaoImediatamente() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ZERO, 0);
+
+        assertEquals(0, limiter.reservar());
+        assertEquals(1, limiter.obterEstatisticas().getPermissoesImediatas());
+    }
+
+    @Test
+    void deveRejeitarQuandoSemTokenESemEsperaPermitida() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ZERO, 0);
+
+        limiter.reservar();
+
+        assertThrows(RateLimitExceededException.class, limiter::reservar);
+        assertEquals(1, limiter.obterEstatisticas().getRejeitadas());
+    }
+
+    @Test
+    void deveReporTokenAposIntervalo() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ZERO, 0);
+
+        limiter.reservar();
+        relogio.addAndGet(UM_SEGUNDO);
+
+        assertEquals(0, limiter.reservar());
+    }
+
+    @Test
+    void devePermitirRajadaAteCapacidade() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 3, Duration.ZERO, 0);
+
+        assertEquals(0, limiter.reservar());
+        assertEquals(0, limiter.reservar());
+        assertEquals(0, limiter.reservar());
+        assertThrows(RateLimitExceededException.class, limiter::reservar);
+    }
+
+    @Test
+    void deveEnfileirarComEsperaAteProximoSlot() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ofSeconds(5), 5);
+
+        limiter.reservar();
+        long espera = limiter.reservar();
+
+        assertEquals(UM_SEGUNDO, espera);
+        assertEquals(1, limiter.obterEstatisticas().getAguardandoAgora());
+        assertEquals(1, limiter.obterEstatisticas().getPermissoesEnfileiradas());
+
+        limiter.liberarFila();
+        assertEquals(0, limiter.obterEstatisticas().getAguardandoAgora());
+    }
+
+    @Test
+    void deveRejeitarQuandoFilaCheia() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ofSeconds(10), 2);
+
+        limiter.reservar();
+        limiter.reservar();
+        limiter.reservar();
+
+        assertThrows(RateLimitExceededException.class, limiter::reservar);
+        assertEquals(2, limiter.obterEstatisticas().getAguardandoAgora());
+    }
+
+    @Test
+    void deveRejeitarQuandoEsperaExcedeMaximo() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ofMillis(1500), 10);
+
+        limiter.reservar();
+        limiter.reservar();
+
+        assertThrows(RateLimitExceededException.class, limiter::reservar);
+    }
+
+    @Test
+    void deveInformarVagasRestantesEntreBaldeEFila() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ofSeconds(10), 2);
+
+        assertEquals(3, limiter.vagasDisponiveis());
+        limiter.reservar();
+        limiter.reservar();
+        assertEquals(1, limiter.vagasDisponiveis());
+        limiter.reservar();
+        assertEquals(0, limiter.vagasDisponiveis());
+    }
+
+    @Test
+    void deveLimitarVagasPelaEsperaMaxima() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ofSeconds(1), 2);
+
+        int vagas = limiter.vagasDisponiveis();
+        assertEquals(2, vagas);
+        for (int i = 0; i < vagas; i++) {
+            assertDoesNotThrow(limiter::reservar);
+        }
+        assertEquals(0, limiter.vagasDisponiveis());
+        assertThrows(RateLimitExceededException.class, limiter::reservar);
+    }
+
+    @Test
+    void naoDeveConcederMaisQueCapacidadeSobConcorrencia() throws InterruptedException {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 5, Duration.ZERO, 0);
+        AtomicInteger concedidas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                try {
+                    largada.await();
+                    limiter.reservar();
+                    concedidas.incrementAndGet();
+                } catch (RateLimitExceededException | InterruptedException ignored) {
+                    // esperado para as requisições acima da capacidade
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(5, concedidas.get());
+        assertEquals(195, limiter.obterEstatisticas().getRejeitadas());
+    }
+
+    @Test
+    void devePropagarRejeicaoNoFluxoReativo() {
+        AtomicLong relogio = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = criarLimiter(relogio, 1, Duration.ZERO, 0);
+
+        assertDoesNotThrow(() -> limiter.aguardarPermissao().block());
+        assertThrows(RateLimitExceededException.class, () -> limiter.aguardarPermissao().block());
+    }
+
+    private TokenBucketRateLimiter criarLimiter(AtomicLong relogio, int capacidade, Duration maxEspera, int maxFila) {
+        return new TokenBucketRateLimiter("teste", Duration.ofSeconds(1), capacidade, maxEspera, maxFila, relogio::get);
+    }
+}
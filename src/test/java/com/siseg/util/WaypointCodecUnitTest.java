@@ -0,0 +1,101 @@
+package com.siseg.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siseg.dto.geocoding.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaypointCodecUnitTest {
+
+    @Test
+    void deveDecodificarOsMesmosPontosCodificados() {
+        List<Coordinates> waypoints = List.of(
+                ponto("-23.550520", "-46.633308"),
+                ponto("-23.551000", "-46.634100"),
+                ponto("0.000001", "179.999999"),
+                ponto("89.999999", "-179.999999"));
+
+        List<Coordinates> decodificados = WaypointCodec.decodificar(WaypointCodec.codificar(waypoints));
+
+        assertEquals(waypoints, decodificados);
+    }
+
+    @Test
+    void deveArredondarParaMicrograus() {
+        byte[] dados = WaypointCodec.codificar(List.of(ponto("-23.5505205", "-46.63330849")));
+
+        Coordinates decodificado = WaypointCodec.obter(dados, 0);
+
+        assertEquals(new BigDecimal("-23.550521"), decodificado.getLatitude());
+        assertEquals(new BigDecimal("-46.633308"), decodificado.getLongitude());
+    }
+
+    @Test
+    void deveOcuparUmDecimoDoJsonEmRotaTipica() throws Exception {
+        List<Coordinates> waypoints = rotaSintetica(2000);
+
+        byte[] binario = WaypointCodec.codificar(waypoints);
+        byte[] json = new ObjectMapper().writeValueAsString(waypoints).getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(binario.length * 10 <= json.length, binario.length + " bytes contra " + json.length + " em JSON");
+    }
+
+    @Test
+    void deveDecodificarSomenteWaypointsRestantes() {
+        List<Coordinates> waypoints = rotaSintetica(50);
+        byte[] dados = WaypointCodec.codificar(waypoints);
+
+        assertEquals(waypoints.subList(30, 50), WaypointCodec.decodificarAPartirDe(dados, 30));
+        assertEquals(waypoints.get(49), WaypointCodec.obter(dados, 49));
+        assertTrue(WaypointCodec.decodificarAPartirDe(dados, 50).isEmpty());
+        assertEquals(50, WaypointCodec.contar(dados));
+    }
+
+    @Test
+    void devePercorrerComLeitorSemMaterializarLista() {
+        List<Coordinates> waypoints = rotaSintetica(10);
+        WaypointCodec.Leitor leitor = new WaypointCodec.Leitor(WaypointCodec.codificar(waypoints));
+
+        int lidos = 0;
+        while (leitor.temProximo()) {
+            leitor.avancar();
+            lidos++;
+        }
+
+        assertEquals(10, lidos);
+        assertEquals(waypoints.get(9).getLatitude().movePointRight(6).intValueExact(), leitor.latitudeMicro());
+    }
+
+    @Test
+    void deveRejeitarDadosTruncados() {
+        byte[] dados = WaypointCodec.codificar(rotaSintetica(5));
+        byte[] truncados = Arrays.copyOf(dados, dados.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> WaypointCodec.decodificar(truncados));
+        assertThrows(IllegalArgumentException.class, () -> WaypointCodec.decodificar(new byte[]{9}));
+        assertThrows(IndexOutOfBoundsException.class, () -> WaypointCodec.obter(dados, 5));
+    }
+
+    private List<Coordinates> rotaSintetica(int pontos) {
+        List<Coordinates> waypoints = new ArrayList<>();
+        long lat = -23_550_520;
+        long lon = -46_633_308;
+        for (int i = 0; i < pontos; i++) {
+            lat += (i % 7) * 13 - 40;
+            lon += (i % 5) * 17 + 9;
+            waypoints.add(new Coordinates(BigDecimal.valueOf(lat, 6), BigDecimal.valueOf(lon, 6)));
+        }
+        return waypoints;
+    }
+
+    private Coordinates ponto(String latitude, String longitude) {
+        return new Coordinates(new BigDecimal(latitude), new BigDecimal(longitude));
+    }
+}
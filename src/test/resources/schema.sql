@@ -111,6 +111,7 @@ CREATE TABLE IF NOT EXISTS enderecos (
     cep VARCHAR(8) NOT NULL,
     latitude DECIMAL(10,8),
     longitude DECIMAL(11,8),
+    status_geocodificacao VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
     tipo VARCHAR(20) NOT NULL DEFAULT 'OUTRO',
     principal BOOLEAN NOT NULL DEFAULT FALSE,
     criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -305,9 +306,62 @@ CREATE TABLE IF NOT EXISTS ticket_comentarios (
 CREATE TABLE IF NOT EXISTS rota_entrega (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     pedido_id BIGINT NOT NULL UNIQUE,
-    waypoints TEXT,
+    waypoints_codificados BLOB,
+    total_waypoints INT NOT NULL DEFAULT 0,
+    duracao_segundos INT,
     indice_atual INT NOT NULL DEFAULT 0,
     criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     atualizado_em TIMESTAMP,
     FOREIGN KEY (pedido_id) REFERENCES pedidos(id) ON DELETE CASCADE
 );
+
+-- Tabela de cache persistente de geocodificação
+CREATE TABLE IF NOT EXISTS geocoding_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    chave VARCHAR(500) NOT NULL UNIQUE,
+    latitude DECIMAL(10,8) NOT NULL,
+    longitude DECIMAL(11,8) NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expira_em TIMESTAMP NOT NULL
+);
+
+-- Fila de geocodificação de endereços (outbox)
+CREATE TABLE IF NOT EXISTS geocoding_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    endereco_id BIGINT NOT NULL UNIQUE,
+    tentativas INT NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL,
+    ultimo_erro VARCHAR(500),
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (endereco_id) REFERENCES enderecos(id) ON DELETE CASCADE
+);
+
+-- CEPs consultados no ViaCEP por ausência no diretório local
+CREATE TABLE IF NOT EXISTS cep_cache (
+    cep VARCHAR(8) PRIMARY KEY,
+    logradouro VARCHAR(200) NOT NULL,
+    bairro VARCHAR(100),
+    cidade VARCHAR(100) NOT NULL,
+    estado VARCHAR(2) NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Histórico de posições do entregador por pedido, em segmentos compactados
+CREATE TABLE IF NOT EXISTS posicao_historico (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    pedido_id BIGINT NOT NULL,
+    entregador_id BIGINT NOT NULL,
+    inicio TIMESTAMP(3) NOT NULL,
+    fim TIMESTAMP(3) NOT NULL,
+    total_pontos INT NOT NULL,
+    pontos BLOB NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (pedido_id) REFERENCES pedidos(id) ON DELETE CASCADE
+);
+
+-- Último id percorrido pelo backfill de geocodificação
+CREATE TABLE IF NOT EXISTS geocoding_backfill_progresso (
+    id TINYINT PRIMARY KEY,
+    ultimo_id BIGINT NOT NULL,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);